@@ -0,0 +1,13 @@
+package com.bankamen.config;
+
+/**
+ * One step of {@link DataMigrationRunner}. A step must be idempotent: a node dying between the
+ * step and its record makes the next holder of the migration lease run it again.
+ */
+interface DataMigration {
+
+    /** Recorded in applied_migration once the step has run; never rename a step already shipped. */
+    String id();
+
+    void migrate();
+}
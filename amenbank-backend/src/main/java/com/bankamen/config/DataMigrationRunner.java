@@ -0,0 +1,112 @@
+package com.bankamen.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.service.JobLeaseService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Runs the raw-SQL data migrations that follow Hibernate's schema update (hence the
+ * EntityManagerFactory dependency), once per database and in a fixed order.
+ * <p>
+ * A starting node takes the data-migrations lease and runs the steps not yet recorded in
+ * applied_migration; the other nodes wait for it, so no node starts on half-migrated data. Each
+ * record is written under the lease's fencing check.
+ */
+@Component
+public class DataMigrationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataMigrationRunner.class);
+
+    private static final String LEASE_NAME = "data-migrations";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration leaseWait;
+    private final List<DataMigration> migrations = new ArrayList<>();
+
+    public DataMigrationRunner(JdbcTemplate jdbcTemplate,
+                               EntityManagerFactory entityManagerFactory,
+                               JobLeaseService leaseService,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${app.migrations.lease-wait-seconds:600}") long leaseWaitSeconds,
+                               @Value("${app.migrations.drop-legacy-money-columns:false}") boolean dropLegacyMoneyColumns) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.leaseService = leaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.leaseWait = Duration.ofSeconds(Math.max(0, leaseWaitSeconds));
+
+        // new steps go after the existing ones, before the optional clean-up
+        migrations.add(new MoneyColumnMigration(jdbcTemplate));
+        migrations.add(new IdBlockSeeder(jdbcTemplate, "id-blocks",
+                "transaction", "bank_account", "notifications", "transfer_notification"));
+        migrations.add(new PostingDirectionMigration(jdbcTemplate));
+        migrations.add(new LegacyMoneyColumnSync(jdbcTemplate));
+        migrations.add(new IdBlockSeeder(jdbcTemplate, "id-blocks-balance-shard", "balance_shard"));
+        if (dropLegacyMoneyColumns) {
+            migrations.add(new LegacyMoneyColumnDrop(jdbcTemplate));
+        }
+    }
+
+    @PostConstruct
+    void migrate() {
+        long deadline = System.nanoTime() + leaseWait.toNanos();
+        while (!pending().isEmpty()) {
+            Optional<JobLeaseService.Lease> lease = leaseService.tryAcquire(LEASE_NAME, Duration.ZERO);
+            if (lease.isPresent()) {
+                try (JobLeaseService.Lease held = lease.get()) {
+                    // re-read under the lease: the previous holder may have run some of them
+                    for (DataMigration migration : pending()) {
+                        run(migration, held);
+                    }
+                }
+                return;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IllegalStateException("Migrations de données toujours en cours sur un autre nœud (bail "
+                        + LEASE_NAME + "), démarrage refusé");
+            }
+            logger.info("Migrations de données en cours sur un autre nœud, nouvel essai dans 1 s");
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Attente des migrations de données interrompue");
+            }
+        }
+    }
+
+    private List<DataMigration> pending() {
+        Set<String> applied = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM applied_migration", String.class));
+        return migrations.stream().filter(m -> !applied.contains(m.id())).toList();
+    }
+
+    private void run(DataMigration migration, JobLeaseService.Lease lease) {
+        if (!lease.isHeld()) {
+            throw new IllegalStateException("Bail " + LEASE_NAME + " perdu avant la migration " + migration.id());
+        }
+        long started = System.currentTimeMillis();
+        migration.migrate();
+        transactionTemplate.executeWithoutResult(status -> {
+            leaseService.assertHeld(lease);
+            jdbcTemplate.update("INSERT INTO applied_migration (id, applied_at, applied_by) VALUES (?, NOW(), ?)",
+                    migration.id(), leaseService.getNodeId());
+        });
+        logger.info("Migration de données {} appliquée en {} ms", migration.id(), System.currentTimeMillis() - started);
+    }
+}
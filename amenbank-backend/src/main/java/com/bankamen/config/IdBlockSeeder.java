@@ -0,0 +1,44 @@
+package com.bankamen.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Moves the id_blocks counters past the ids already handed out by the former AUTO_INCREMENT columns,
+ * so the pooled table generator never allocates an existing id. Idempotent: counters only move forward.
+ */
+class IdBlockSeeder implements DataMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdBlockSeeder.class);
+
+    // must match the allocationSize of the @TableGenerator declarations
+    private static final int ALLOCATION_SIZE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String id;
+    private final String[] tables;
+
+    /** One step per batch of tables moved to the generator: a step already applied never sees a new table. */
+    IdBlockSeeder(JdbcTemplate jdbcTemplate, String id, String... tables) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.id = id;
+        this.tables = tables;
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public void migrate() {
+        for (String table : tables) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM `" + table + "`", Long.class);
+            long floor = (maxId != null ? maxId : 0) + ALLOCATION_SIZE + 1;
+            jdbcTemplate.update("INSERT INTO id_blocks (sequence_name, next_val) VALUES (?, ?) "
+                    + "ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val))", table, floor);
+            logger.debug("Bloc d'identifiants {} positionné à {} au minimum", table, floor);
+        }
+    }
+}
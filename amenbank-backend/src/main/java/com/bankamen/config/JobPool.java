@@ -0,0 +1,41 @@
+package com.bankamen.config;
+
+/**
+ * Thread pools of the background jobs, one per job class, so that a slow job only delays the jobs
+ * of its own class. Each pool is a scheduler bean referenced from {@code @Scheduled(scheduler = ...)};
+ * sizes can be overridden with {@code app.scheduling.pools.<name>.size}. A pool with at least one
+ * thread per job never makes a job wait for another.
+ */
+public enum JobPool {
+
+    /** Recurring transfer execution. */
+    TRANSFERS(1),
+    /** Customer reminders and alerts at fixed times of day. */
+    NOTIFICATIONS(2),
+    /** Balance consolidation, checkpoints and reconciliation. */
+    LEDGER(3),
+    /** Suspicious transaction scans. */
+    MONITORING(1),
+    /** Purges and in-memory index rebuilds. */
+    MAINTENANCE(3);
+
+    public static final String TRANSFERS_SCHEDULER = "transfersJobScheduler";
+    public static final String NOTIFICATIONS_SCHEDULER = "notificationsJobScheduler";
+    public static final String LEDGER_SCHEDULER = "ledgerJobScheduler";
+    public static final String MONITORING_SCHEDULER = "monitoringJobScheduler";
+    public static final String MAINTENANCE_SCHEDULER = "maintenanceJobScheduler";
+
+    private final int defaultSize;
+
+    JobPool(int defaultSize) {
+        this.defaultSize = defaultSize;
+    }
+
+    public int getDefaultSize() {
+        return defaultSize;
+    }
+
+    public String propertyName() {
+        return name().toLowerCase();
+    }
+}
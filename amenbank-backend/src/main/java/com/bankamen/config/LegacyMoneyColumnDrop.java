@@ -0,0 +1,62 @@
+package com.bankamen.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Drops the legacy DOUBLE amount columns once {@link MoneyColumnMigration} has copied them. Hibernate's
+ * schema update never drops a column, and nodes of the previous release still read and write them (kept
+ * equal by {@link LegacyMoneyColumnSync} until then), so this step only runs when
+ * app.migrations.drop-legacy-money-columns is set, after every node is upgraded.
+ * <p>
+ * Any row whose DOUBLE value differs from its *_minor column stops the drop before anything is removed.
+ * The sync triggers go first, since a trigger naming a dropped column would fail every write to its table.
+ */
+class LegacyMoneyColumnDrop implements DataMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyMoneyColumnDrop.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LegacyMoneyColumnDrop(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String id() {
+        return "drop-legacy-money-columns";
+    }
+
+    @Override
+    public void migrate() {
+        List<String[]> present = new ArrayList<>();
+        for (String[] column : MoneyColumnMigration.COLUMNS) {
+            if (LegacyMoneyColumnSync.legacyColumnExists(jdbcTemplate, column[0], column[1])) {
+                present.add(column);
+            }
+        }
+        for (String[] column : present) {
+            long diverging = LegacyMoneyColumnSync.countDiverging(jdbcTemplate, column[0], column[1], column[2]);
+            if (diverging > 0) {
+                throw new IllegalStateException(diverging + " lignes de " + column[0] + "." + column[1]
+                        + " diffèrent de " + column[2] + " : suppression des colonnes refusée");
+            }
+        }
+        Set<String> tables = new LinkedHashSet<>();
+        present.forEach(column -> tables.add(column[0]));
+        for (String table : tables) {
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + LegacyMoneyColumnSync.INSERT_TRIGGER_PREFIX + table);
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + LegacyMoneyColumnSync.UPDATE_TRIGGER_PREFIX + table);
+        }
+        for (String[] column : present) {
+            jdbcTemplate.execute("ALTER TABLE `" + column[0] + "` DROP COLUMN " + column[1]);
+            logger.info("Colonne historique {}.{} supprimée", column[0], column[1]);
+        }
+    }
+}
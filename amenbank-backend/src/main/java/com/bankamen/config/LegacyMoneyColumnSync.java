@@ -0,0 +1,112 @@
+package com.bankamen.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Keeps the legacy DOUBLE amount columns and their *_minor columns equal until {@link LegacyMoneyColumnDrop}
+ * removes them. During a rolling upgrade, nodes of the previous release keep reading and writing only the
+ * DOUBLE columns and the new nodes only the *_minor ones. A copy made once would leave each side reading
+ * balances the other side no longer updates.
+ * <p>
+ * Insert and update triggers on each table fill whichever side the writer left out. The triggers are
+ * installed before the rows left empty by either release are filled, so nothing written in between escapes.
+ * Rows whose two columns already hold different values cannot be settled here, because the most recent
+ * side is unknown. They are reported, and the column drop refuses to run while any remain.
+ */
+class LegacyMoneyColumnSync implements DataMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyMoneyColumnSync.class);
+
+    static final String INSERT_TRIGGER_PREFIX = "money_sync_ins_";
+    static final String UPDATE_TRIGGER_PREFIX = "money_sync_upd_";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LegacyMoneyColumnSync(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String id() {
+        return "sync-legacy-money-columns";
+    }
+
+    @Override
+    public void migrate() {
+        Map<String, List<String[]>> byTable = new LinkedHashMap<>();
+        for (String[] column : MoneyColumnMigration.COLUMNS) {
+            if (legacyColumnExists(jdbcTemplate, column[0], column[1])) {
+                byTable.computeIfAbsent(column[0], table -> new ArrayList<>()).add(column);
+            }
+        }
+        byTable.forEach(this::installTriggers);
+        for (List<String[]> columns : byTable.values()) {
+            for (String[] column : columns) {
+                fillMissing(column[0], column[1], column[2]);
+            }
+        }
+    }
+
+    private void installTriggers(String table, List<String[]> columns) {
+        StringBuilder onInsert = new StringBuilder();
+        StringBuilder onUpdate = new StringBuilder();
+        for (String[] column : columns) {
+            String legacy = "NEW." + column[1];
+            String minor = "NEW." + column[2];
+            onInsert.append(" IF ").append(minor).append(" IS NULL AND ").append(legacy).append(" IS NOT NULL THEN SET ")
+                    .append(minor).append(" = ROUND(").append(legacy).append(" * 1000);")
+                    .append(" ELSEIF ").append(legacy).append(" IS NULL AND ").append(minor).append(" IS NOT NULL THEN SET ")
+                    .append(legacy).append(" = ").append(minor).append(" / 1000; END IF;");
+            // only one side changes per write: the old release never maps *_minor, the new one never the DOUBLE
+            onUpdate.append(" IF NOT (").append(legacy).append(" <=> OLD.").append(column[1]).append(") AND ")
+                    .append(minor).append(" <=> OLD.").append(column[2]).append(" THEN SET ")
+                    .append(minor).append(" = ROUND(").append(legacy).append(" * 1000);")
+                    .append(" ELSEIF NOT (").append(minor).append(" <=> OLD.").append(column[2]).append(") AND ")
+                    .append(legacy).append(" <=> OLD.").append(column[1]).append(" THEN SET ")
+                    .append(legacy).append(" = ").append(minor).append(" / 1000; END IF;");
+        }
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + INSERT_TRIGGER_PREFIX + table);
+        jdbcTemplate.execute("CREATE TRIGGER " + INSERT_TRIGGER_PREFIX + table + " BEFORE INSERT ON `" + table
+                + "` FOR EACH ROW BEGIN" + onInsert + " END");
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + UPDATE_TRIGGER_PREFIX + table);
+        jdbcTemplate.execute("CREATE TRIGGER " + UPDATE_TRIGGER_PREFIX + table + " BEFORE UPDATE ON `" + table
+                + "` FOR EACH ROW BEGIN" + onUpdate + " END");
+        logger.info("Synchronisation des montants historiques de {} activée", table);
+    }
+
+    private void fillMissing(String table, String legacy, String minor) {
+        int toMinor = jdbcTemplate.update("UPDATE `" + table + "` SET " + minor + " = ROUND(" + legacy + " * 1000)"
+                + " WHERE " + minor + " IS NULL AND " + legacy + " IS NOT NULL");
+        int toLegacy = jdbcTemplate.update("UPDATE `" + table + "` SET " + legacy + " = " + minor + " / 1000"
+                + " WHERE " + legacy + " IS NULL AND " + minor + " IS NOT NULL");
+        if (toMinor + toLegacy > 0) {
+            logger.info("Synchronisation des montants : {} lignes reportées dans {}.{}, {} dans {}.{}",
+                    toMinor, table, minor, toLegacy, table, legacy);
+        }
+        long diverging = countDiverging(jdbcTemplate, table, legacy, minor);
+        if (diverging > 0) {
+            logger.warn("{} lignes de {} ont des valeurs différentes dans {} et {} : à rapprocher avant la suppression"
+                    + " des colonnes historiques", diverging, table, legacy, minor);
+        }
+    }
+
+    static boolean legacyColumnExists(JdbcTemplate jdbcTemplate, String table, String legacy) {
+        Integer exists = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns "
+                + "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?", Integer.class, table, legacy);
+        return exists != null && exists > 0;
+    }
+
+    /** Rows whose DOUBLE value is not (or not yet) carried by the *_minor column. */
+    static long countDiverging(JdbcTemplate jdbcTemplate, String table, String legacy, String minor) {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `" + table + "` WHERE " + legacy
+                + " IS NOT NULL AND NOT (" + minor + " <=> ROUND(" + legacy + " * 1000))", Long.class);
+        return rows == null ? 0 : rows;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bankamen.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * One-off copy of the legacy DOUBLE amount columns into the new *_minor BIGINT columns.
+ * Only touches rows whose minor column is still empty, so running it again is a no-op. Writes made
+ * afterwards by nodes of the previous release are carried over by {@link LegacyMoneyColumnSync}.
+ */
+class MoneyColumnMigration implements DataMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(MoneyColumnMigration.class);
+
+    // table, legacy DOUBLE column, *_minor column
+    static final String[][] COLUMNS = {
+            {"bank_account", "balance", "balance_minor"},
+            {"transaction", "amount", "amount_minor"},
+            {"transaction", "balance_after", "balance_after_minor"},
+            {"scheduled_transfer", "amount", "amount_minor"},
+            {"loan_application", "amount", "amount_minor"},
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    MoneyColumnMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String id() {
+        return "money-minor-columns";
+    }
+
+    @Override
+    public void migrate() {
+        for (String[] column : COLUMNS) {
+            String table = column[0];
+            String legacy = column[1];
+            String minor = column[2];
+            try {
+                int rows = jdbcTemplate.update("UPDATE `" + table + "` SET " + minor + " = ROUND(" + legacy + " * 1000)"
+                        + " WHERE " + minor + " IS NULL AND " + legacy + " IS NOT NULL");
+                if (rows > 0) {
+                    logger.info("Migration des montants : {} lignes converties dans {}.{}", rows, table, minor);
+                }
+            } catch (DataAccessException e) {
+                // legacy column absent (fresh schema): nothing to migrate
+                logger.debug("Pas de colonne {}.{} à migrer : {}", table, legacy, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bankamen.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Fills the posting direction of rows written before double entry: deposits were credits, withdrawals
+ * and (source-only) transfers debits. Only touches rows without a direction, so running it again is a no-op.
+ */
+class PostingDirectionMigration implements DataMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostingDirectionMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PostingDirectionMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public String id() {
+        return "posting-directions";
+    }
+
+    @Override
+    public void migrate() {
+        int rows = jdbcTemplate.update("UPDATE `transaction` SET direction = "
+                + "CASE WHEN type = 'DEPOSIT' THEN 'CREDIT' ELSE 'DEBIT' END WHERE direction IS NULL");
+        if (rows > 0) {
+            logger.info("Migration des sens d'écriture : {} opérations mises à jour", rows);
+        }
+    }
+}
@@ -2,13 +2,16 @@ package com.bankamen.config;
 
 import com.bankamen.entity.ScheduledTransfer;
 import com.bankamen.repository.ScheduledTransferRepository;
+import com.bankamen.service.JobLeaseService;
 import com.bankamen.service.ScheduledTransferService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @Component
@@ -20,12 +23,22 @@ public class ScheduledTransferExecutor {
     @Autowired
     ScheduledTransferRepository scheduledTransferRepo;
 
+    @Autowired
+    JobLeaseService leaseService;
+
     // Cette méthode sera exécutée automatiquement chaque jour à 07:00
-    @Scheduled(cron = "0 0 7 * * *") // Tous les jours à 07h
+    @Scheduled(cron = "0 0 7 * * *", scheduler = JobPool.NOTIFICATIONS_SCHEDULER) // Tous les jours à 07h
     public void sendPreExecutionAlerts() {
+        // une seule fois pour tout le cluster
+        leaseService.runExclusive("scheduled-transfer-pre-execution-alerts", Duration.ofHours(1), this::logTomorrowTransfers);
+    }
+
+    private void logTomorrowTransfers() {
         LocalDate tomorrow = LocalDate.now().plusDays(1);
 
-        List<ScheduledTransfer> transfers = scheduledTransferRepo.findByActiveTrueAndStartDateLessThanEqualAndEndDateGreaterThanEqual(tomorrow, tomorrow);
+        // only the transfers that actually run tomorrow, via the next-execution index
+        List<ScheduledTransfer> transfers = scheduledTransferRepo.findByActiveTrueAndNextExecutionAtBetween(
+                tomorrow.atStartOfDay(), tomorrow.atTime(LocalTime.MAX));
 
         for (ScheduledTransfer transfer : transfers) {
             System.out.println("🔔 Rappel : Virement programmé demain vers " +
@@ -0,0 +1,95 @@
+package com.bankamen.config;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledFuture;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.bankamen.service.ScheduledJobMonitor;
+
+/**
+ * One scheduler per {@link JobPool}; {@code @Scheduled(scheduler = JobPool.X_SCHEDULER)} routes a
+ * job to its pool. Spring Boot binds the executor metrics of each of them under its bean name.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean(JobPool.TRANSFERS_SCHEDULER)
+    public ThreadPoolTaskScheduler transfersJobScheduler(ScheduledJobMonitor monitor, Environment environment) {
+        return scheduler(JobPool.TRANSFERS, monitor, environment);
+    }
+
+    @Bean(JobPool.NOTIFICATIONS_SCHEDULER)
+    public ThreadPoolTaskScheduler notificationsJobScheduler(ScheduledJobMonitor monitor, Environment environment) {
+        return scheduler(JobPool.NOTIFICATIONS, monitor, environment);
+    }
+
+    @Bean(JobPool.LEDGER_SCHEDULER)
+    public ThreadPoolTaskScheduler ledgerJobScheduler(ScheduledJobMonitor monitor, Environment environment) {
+        return scheduler(JobPool.LEDGER, monitor, environment);
+    }
+
+    @Bean(JobPool.MONITORING_SCHEDULER)
+    public ThreadPoolTaskScheduler monitoringJobScheduler(ScheduledJobMonitor monitor, Environment environment) {
+        return scheduler(JobPool.MONITORING, monitor, environment);
+    }
+
+    @Bean(JobPool.MAINTENANCE_SCHEDULER)
+    public ThreadPoolTaskScheduler maintenanceJobScheduler(ScheduledJobMonitor monitor, Environment environment) {
+        return scheduler(JobPool.MAINTENANCE, monitor, environment);
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(JobPool pool, ScheduledJobMonitor monitor, Environment environment) {
+        PoolTaskScheduler scheduler = new PoolTaskScheduler(pool, monitor);
+        scheduler.setPoolSize(Math.max(1, environment.getProperty(
+                "app.scheduling.pools." + pool.propertyName() + ".size", Integer.class, pool.getDefaultSize())));
+        scheduler.setThreadNamePrefix("job-" + pool.propertyName() + "-");
+        scheduler.setDaemon(true);
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /** Hands every periodic task to the monitor, which tracks its planned firings. */
+    static final class PoolTaskScheduler extends ThreadPoolTaskScheduler {
+
+        private final JobPool pool;
+        private final ScheduledJobMonitor monitor;
+
+        PoolTaskScheduler(JobPool pool, ScheduledJobMonitor monitor) {
+            this.pool = pool;
+            this.monitor = monitor;
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+            ScheduledJobMonitor.Job job = monitor.register(pool, this, task);
+            Trigger tracked = job.track(trigger);
+            return super.schedule(job.onTrigger(), tracked);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Instant startTime, Duration period) {
+            return super.scheduleAtFixedRate(monitor.register(pool, this, task).atFixedRate(startTime, period), startTime, period);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Duration period) {
+            return super.scheduleAtFixedRate(monitor.register(pool, this, task).atFixedRate(getClock().instant(), period), period);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Instant startTime, Duration delay) {
+            return super.scheduleWithFixedDelay(monitor.register(pool, this, task).withFixedDelay(startTime, delay), startTime, delay);
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Duration delay) {
+            return super.scheduleWithFixedDelay(monitor.register(pool, this, task).withFixedDelay(getClock().instant(), delay), delay);
+        }
+    }
+}
@@ -41,6 +41,7 @@ public class SecurityConfig {
                         .requestMatchers("/client/**").authenticated()
                         .requestMatchers("/api/loan/**").authenticated()
                         .requestMatchers("/admin/**", "/api/admin/**").hasRole("SUPERADMIN")
+                        .requestMatchers("/actuator/metrics/**").hasRole("SUPERADMIN")
                         .anyRequest().permitAll()
 
                 )
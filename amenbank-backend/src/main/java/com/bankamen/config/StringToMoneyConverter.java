@@ -0,0 +1,18 @@
+package com.bankamen.config;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import com.bankamen.entity.Money;
+
+/**
+ * Binds request parameters such as {@code ?min=10.5} to {@link Money}.
+ */
+@Component
+public class StringToMoneyConverter implements Converter<String, Money> {
+
+    @Override
+    public Money convert(String source) {
+        return source.isBlank() ? null : Money.parse(source);
+    }
+}
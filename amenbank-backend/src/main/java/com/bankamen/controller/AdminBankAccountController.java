@@ -1,13 +1,23 @@
 package com.bankamen.controller;
 
 import com.bankamen.dto.BankAccountDTO;
+import com.bankamen.dto.CreateTransactionRequest;
 import com.bankamen.entity.AccountType;
 import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.TransactionType;
 import com.bankamen.entity.User;
 import com.bankamen.exception.BusinessException;
 import com.bankamen.repository.BankAccountRepository;
 import com.bankamen.repository.UserRepository;
+import com.bankamen.repository.BalanceShardRepository;
+import com.bankamen.service.AccountMetadataCache;
+import com.bankamen.service.AccountNumberFilter;
+import com.bankamen.service.BalanceShardService;
 import com.bankamen.service.BankAccountService;
+import com.bankamen.service.UserSearchIndex;
+import com.bankamen.service.ledger.LedgerEngine;
+import com.bankamen.specification.BankAccountSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,7 +33,9 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -33,6 +45,9 @@ public class AdminBankAccountController {
     
     private static final Logger logger = LoggerFactory.getLogger(AdminBankAccountController.class);
     
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "iban", "accountNumber", "type", "active", "balance");
+    private static final int MAX_PAGE_SIZE = 100;
+    
     @Autowired
     private BankAccountRepository bankAccountRepository;
     
@@ -42,6 +57,24 @@ public class AdminBankAccountController {
     @Autowired
     private BankAccountService bankAccountService;
     
+    @Autowired
+    private BalanceShardService balanceShardService;
+    
+    @Autowired
+    private BalanceShardRepository balanceShardRepository;
+    
+    @Autowired
+    private AccountMetadataCache accountCache;
+    
+    @Autowired
+    private AccountNumberFilter accountNumberFilter;
+    
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+    
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    
     /**
      * Get all bank accounts with pagination and filtering
      */
@@ -61,54 +94,14 @@ public class AdminBankAccountController {
         
         try {
             Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
-            Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+            // Unknown sort keys fall back to id; id also breaks ties so pages never overlap
+            String sortProperty = SORTABLE_FIELDS.contains(sortBy) ? sortBy : "id";
+            Pageable pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE),
+                    Sort.by(direction, sortProperty).and(Sort.by(direction, "id")));
             
-            Page<BankAccount> pageAccounts;
-            
-            // Apply filters
-            if (iban != null || accountNumber != null || type != null || userId != null) {
-                List<BankAccount> filteredAccounts = bankAccountRepository.findAll();
-                
-                if (iban != null && !iban.isEmpty()) {
-                    filteredAccounts = filteredAccounts.stream()
-                            .filter(account -> account.getIban() != null && account.getIban().contains(iban))
-                            .collect(Collectors.toList());
-                }
-                
-                if (accountNumber != null && !accountNumber.isEmpty()) {
-                    filteredAccounts = filteredAccounts.stream()
-                            .filter(account -> account.getAccountNumber() != null && 
-                                    account.getAccountNumber().contains(accountNumber))
-                            .collect(Collectors.toList());
-                }
-                
-                if (type != null) {
-                    filteredAccounts = filteredAccounts.stream()
-                            .filter(account -> account.getType() == type)
-                            .collect(Collectors.toList());
-                }
-                
-                if (userId != null) {
-                    filteredAccounts = filteredAccounts.stream()
-                            .filter(account -> account.getUser() != null && 
-                                    account.getUser().getId().equals(userId))
-                            .collect(Collectors.toList());
-                }
-                
-                // Manual pagination (not efficient for large datasets, but works for demo)
-                int start = (int) pageable.getOffset();
-                int end = Math.min((start + pageable.getPageSize()), filteredAccounts.size());
-                
-                if (start > filteredAccounts.size()) {
-                    pageAccounts = Page.empty(pageable);
-                } else {
-                    List<BankAccount> pageContent = filteredAccounts.subList(start, end);
-                    pageAccounts = new org.springframework.data.domain.PageImpl<>(
-                            pageContent, pageable, filteredAccounts.size());
-                }
-            } else {
-                pageAccounts = bankAccountRepository.findAll(pageable);
-            }
+            // Filters, sort and paging all run in the database
+            Page<BankAccount> pageAccounts = bankAccountRepository.findAll(
+                    BankAccountSpecification.adminSearch(iban, accountNumber, type, userId), pageable);
             
             List<BankAccountDTO> accounts = pageAccounts.getContent().stream()
                     .map(BankAccountDTO::new)
@@ -162,12 +155,27 @@ public class AdminBankAccountController {
             BankAccount account = new BankAccount();
             account.setIban(accountDTO.getIban());
             account.setAccountNumber(accountDTO.getAccountNumber());
-            account.setBalance(accountDTO.getBalance() != null ? accountDTO.getBalance() : 0.0);
+            Money openingBalance = accountDTO.getBalance() != null ? accountDTO.getBalance() : Money.ZERO;
+            // the ledger engine owns the balances: the opening balance is posted through it as a deposit
+            boolean depositThroughEngine = ledgerEngine.isEnabled() && openingBalance.isPositive();
+            if (ledgerEngine.isEnabled() && openingBalance.isNegative()) {
+                throw new BusinessException("Solde initial négatif impossible avec le moteur de grand livre");
+            }
+            account.setBalance(depositThroughEngine ? Money.ZERO : openingBalance);
             account.setType(accountDTO.getType());
             account.setActive(true);
             account.setUser(user);
             
             BankAccount savedAccount = bankAccountRepository.save(account);
+            accountCache.invalidateAccount(savedAccount.getId());
+            accountNumberFilter.add(savedAccount.getAccountNumber());
+            if (depositThroughEngine) {
+                CreateTransactionRequest deposit = new CreateTransactionRequest();
+                deposit.setType(TransactionType.DEPOSIT);
+                deposit.setAmount(openingBalance);
+                deposit.setDescription("Solde initial");
+                savedAccount.setBalance(ledgerEngine.post(savedAccount.getId(), deposit).getBalanceAfter());
+            }
             
             return new ResponseEntity<>(new BankAccountDTO(savedAccount), HttpStatus.CREATED);
         } catch (BusinessException e) {
@@ -195,11 +203,23 @@ public class AdminBankAccountController {
                 existingAccount.setIban(accountDTO.getIban());
             }
             
+            String previousAccountNumber = existingAccount.getAccountNumber();
             if (accountDTO.getAccountNumber() != null) {
                 existingAccount.setAccountNumber(accountDTO.getAccountNumber());
             }
             
-            if (accountDTO.getBalance() != null) {
+            boolean balanceChanged = accountDTO.getBalance() != null
+                    && !accountDTO.getBalance().equals(existingAccount.getTotalBalance());
+            if (balanceChanged && ledgerEngine.isEnabled()) {
+                // the engine would keep serving the balance it loaded before this edit
+                throw new BusinessException("Le solde ne peut pas être modifié directement avec le moteur de grand livre");
+            }
+            
+            // Sharded accounts: the balance is spread over slots, it is replaced after the save below
+            boolean overwriteShardedBalance = balanceShardService.isSharded(existingAccount)
+                    && accountDTO.getBalance() != null
+                    && !accountDTO.getBalance().equals(existingAccount.getTotalBalance());
+            if (accountDTO.getBalance() != null && !balanceShardService.isSharded(existingAccount)) {
                 existingAccount.setBalance(accountDTO.getBalance());
             }
             
@@ -218,6 +238,15 @@ public class AdminBankAccountController {
             }
             
             BankAccount updatedAccount = bankAccountRepository.save(existingAccount);
+            accountCache.invalidateAccount(id);
+            if (!Objects.equals(previousAccountNumber, updatedAccount.getAccountNumber())) {
+                accountNumberFilter.remove(previousAccountNumber);
+                accountNumberFilter.add(updatedAccount.getAccountNumber());
+            }
+            if (overwriteShardedBalance) {
+                balanceShardService.overwriteTotal(id, accountDTO.getBalance());
+                updatedAccount = bankAccountRepository.findById(id).orElse(updatedAccount);
+            }
             
             return ResponseEntity.ok(new BankAccountDTO(updatedAccount));
         } catch (BusinessException e) {
@@ -237,11 +266,15 @@ public class AdminBankAccountController {
         logger.info("Deleting bank account with ID: {}", id);
         
         try {
-            if (!bankAccountRepository.existsById(id)) {
+            Optional<BankAccount> account = bankAccountRepository.findById(id);
+            if (account.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
             
             bankAccountRepository.deleteById(id);
+            balanceShardRepository.deleteSlotsFrom(id, 0);
+            accountCache.invalidateAccount(id);
+            accountNumberFilter.remove(account.get().getAccountNumber());
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             logger.error("Error deleting bank account with ID: {}", id, e);
@@ -249,6 +282,27 @@ public class AdminBankAccountController {
         }
     }
     
+    /**
+     * Split a hot account's balance over {@code count} slots (0 to merge it back)
+     */
+    @PutMapping("/{id}/balance-shards")
+    public ResponseEntity<BankAccountDTO> configureBalanceShards(@PathVariable Long id, @RequestParam int count) {
+        logger.info("Configuring {} balance shards for bank account ID: {}", count, id);
+        
+        try {
+            balanceShardService.configure(id, count);
+            return bankAccountRepository.findById(id)
+                    .map(account -> ResponseEntity.ok(new BankAccountDTO(account)))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (BusinessException e) {
+            logger.error("Error configuring balance shards: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error configuring balance shards for bank account ID: {}", id, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * Get account types for dropdown
      */
@@ -261,24 +315,18 @@ public class AdminBankAccountController {
      * Search users for account assignment
      */
     @GetMapping("/users")
-    public ResponseEntity<List<Map<String, Object>>> searchUsers(@RequestParam String query) {
+    public ResponseEntity<List<Map<String, Object>>> searchUsers(@RequestParam String query,
+                                                                 @RequestParam(defaultValue = "10") int limit) {
         logger.info("Searching users with query: {}", query);
         
         try {
-            List<User> users = userRepository.findAll();
-            
-            // Filter users by name or username containing the query
-            List<Map<String, Object>> results = users.stream()
-                    .filter(user -> 
-                        (user.getUsername() != null && user.getUsername().toLowerCase().contains(query.toLowerCase())) ||
-                        (user.getFirstName() != null && user.getFirstName().toLowerCase().contains(query.toLowerCase())) ||
-                        (user.getLastName() != null && user.getLastName().toLowerCase().contains(query.toLowerCase()))
-                    )
+            // Ranked prefix matches from the in-memory index, no table scan
+            List<Map<String, Object>> results = userSearchIndex.search(query, Math.min(Math.max(1, limit), 50)).stream()
                     .map(user -> {
                         Map<String, Object> map = new HashMap<>();
-                        map.put("id", user.getId());
-                        map.put("username", user.getUsername());
-                        map.put("name", user.getFirstName() + " " + user.getLastName());
+                        map.put("id", user.id());
+                        map.put("username", user.username());
+                        map.put("name", user.firstName() + " " + user.lastName());
                         return map;
                     })
                     .collect(Collectors.toList());
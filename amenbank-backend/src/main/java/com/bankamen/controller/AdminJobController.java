@@ -0,0 +1,44 @@
+package com.bankamen.controller;
+
+import com.bankamen.service.JobLeaseService;
+import com.bankamen.service.ScheduledJobMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/jobs")
+@PreAuthorize("hasRole('SUPERADMIN')")
+public class AdminJobController {
+
+    @Autowired
+    private ScheduledJobMonitor jobMonitor;
+
+    @Autowired
+    private JobLeaseService leaseService;
+
+    // Jobs and pools of the node that answers; leases show which node runs each job cluster-wide
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("node", leaseService.getNodeId());
+        status.put("pools", jobMonitor.getPools());
+        status.put("jobs", jobMonitor.getJobs());
+        status.put("leases", leaseService.getLeases());
+        return ResponseEntity.ok(status);
+    }
+
+    // Runs the job now on this node, outside of its plan; 409 while it is already running
+    @PostMapping("/{name}/run")
+    public ResponseEntity<?> run(@PathVariable String name) {
+        if (!jobMonitor.trigger(name)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("La tâche " + name + " est déjà en cours d'exécution");
+        }
+        return ResponseEntity.accepted().build();
+    }
+}
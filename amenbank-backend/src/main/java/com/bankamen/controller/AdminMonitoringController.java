@@ -1,6 +1,7 @@
 package com.bankamen.controller;
 
 import com.bankamen.entity.LoginEvent;
+import com.bankamen.entity.Money;
 import com.bankamen.entity.Transaction;
 import com.bankamen.entity.TransactionType;
 import com.bankamen.entity.User;
@@ -40,7 +41,7 @@ public class AdminMonitoringController {
     public ResponseEntity<Map<String, Object>> dashboard() {
         Map<String, Object> dashboard = new HashMap<>();
         dashboard.put("lastTransactions", monitoringService.getRecentTransactions());
-        dashboard.put("anomalyDetected", monitoringService.detectLargeTransactions(10000.0)); // Exemple
+        dashboard.put("anomalyDetected", monitoringService.detectLargeTransactions(Money.of(10000))); // Exemple
         return ResponseEntity.ok(dashboard);
     }
 
@@ -0,0 +1,45 @@
+package com.bankamen.controller;
+
+import com.bankamen.entity.ReconciliationMismatch;
+import com.bankamen.entity.ReconciliationRun;
+import com.bankamen.service.ReconciliationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/reconciliation")
+@PreAuthorize("hasRole('SUPERADMIN')")
+public class AdminReconciliationController {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    // Starts a run in the background; poll GET /runs/{id} for its progress
+    @PostMapping("/runs")
+    public ResponseEntity<ReconciliationRun> startRun() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationService.start());
+    }
+
+    @GetMapping("/runs")
+    public ResponseEntity<List<ReconciliationRun>> getRuns() {
+        return ResponseEntity.ok(reconciliationService.getRecentRuns());
+    }
+
+    @GetMapping("/runs/{runId}")
+    public ResponseEntity<ReconciliationRun> getRun(@PathVariable Long runId) {
+        return ResponseEntity.ok(reconciliationService.getRun(runId));
+    }
+
+    @GetMapping("/runs/{runId}/mismatches")
+    public ResponseEntity<List<ReconciliationMismatch>> getMismatches(
+            @PathVariable Long runId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(reconciliationService.getMismatches(runId, page, size));
+    }
+}
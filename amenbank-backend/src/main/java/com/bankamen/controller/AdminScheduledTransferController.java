@@ -2,11 +2,16 @@ package com.bankamen.controller;
 
 import com.bankamen.dto.ScheduledTransferDTO;
 import com.bankamen.entity.ScheduledTransfer;
+import com.bankamen.entity.ScheduledTransferExecution;
+import com.bankamen.entity.ScheduledTransferRun;
 import com.bankamen.entity.BankAccount;
 import com.bankamen.exception.BusinessException;
 import com.bankamen.repository.ScheduledTransferRepository;
 import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.service.AccountMetadataCache;
+import com.bankamen.service.ScheduledTransferScheduler;
 import com.bankamen.service.ScheduledTransferService;
+import com.bankamen.specification.ScheduledTransferSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +19,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,6 +28,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -33,15 +38,24 @@ public class AdminScheduledTransferController {
     
     private static final Logger logger = LoggerFactory.getLogger(AdminScheduledTransferController.class);
     
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "amount", "startDate", "endDate", "frequency", "active", "targetAccountNumber");
+    private static final int MAX_PAGE_SIZE = 100;
+    
     @Autowired
     private ScheduledTransferRepository scheduledTransferRepository;
     
     @Autowired
     private BankAccountRepository bankAccountRepository;
     
+    @Autowired
+    private AccountMetadataCache accountCache;
+    
     @Autowired
     private ScheduledTransferService scheduledTransferService;
     
+    @Autowired
+    private ScheduledTransferScheduler scheduler;
+    
     /**
      * Get all scheduled transfers with pagination and filtering
      */
@@ -61,50 +75,14 @@ public class AdminScheduledTransferController {
         
         try {
             Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
-            Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
+            // Unknown sort keys fall back to id; id also breaks ties so pages never overlap
+            String sortProperty = SORTABLE_FIELDS.contains(sortBy) ? sortBy : "id";
+            Pageable pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE),
+                    Sort.by(direction, sortProperty).and(Sort.by(direction, "id")));
             
-            // Apply filters if provided
-            Page<ScheduledTransfer> pageTransfers;
-            
-            if (sourceAccount != null || targetAccountNumber != null || active != null) {
-                // Custom filtering logic
-                List<ScheduledTransfer> filteredTransfers = scheduledTransferRepository.findAll();
-                
-                if (sourceAccount != null && !sourceAccount.isEmpty()) {
-                    filteredTransfers = filteredTransfers.stream()
-                            .filter(transfer -> transfer.getSourceAccount() != null && 
-                                    transfer.getSourceAccount().getAccountNumber().equals(sourceAccount))
-                            .collect(Collectors.toList());
-                }
-                
-                if (targetAccountNumber != null && !targetAccountNumber.isEmpty()) {
-                    filteredTransfers = filteredTransfers.stream()
-                            .filter(transfer -> transfer.getTargetAccountNumber() != null && 
-                                    transfer.getTargetAccountNumber().equals(targetAccountNumber))
-                            .collect(Collectors.toList());
-                }
-                
-                if (active != null) {
-                    filteredTransfers = filteredTransfers.stream()
-                            .filter(transfer -> transfer.isActive() == active)
-                            .collect(Collectors.toList());
-                }
-                
-                // Apply pagination manually
-                int start = (int) pageable.getOffset();
-                int end = Math.min((start + pageable.getPageSize()), filteredTransfers.size());
-                
-                if (start > filteredTransfers.size()) {
-                    start = 0;
-                    end = 0;
-                }
-                
-                List<ScheduledTransfer> pageContent = filteredTransfers.subList(start, end);
-                pageTransfers = new PageImpl<>(pageContent, pageable, filteredTransfers.size());
-            } else {
-                // No filters, use standard repository method
-                pageTransfers = scheduledTransferRepository.findAll(pageable);
-            }
+            // Filters, sort and paging all run in the database
+            Page<ScheduledTransfer> pageTransfers = scheduledTransferRepository.findAll(
+                    ScheduledTransferSpecification.adminSearch(sourceAccount, targetAccountNumber, active), pageable);
             
             // Convert to DTOs
             List<ScheduledTransferDTO> transfers = pageTransfers.getContent().stream()
@@ -124,6 +102,22 @@ public class AdminScheduledTransferController {
         }
     }
     
+    /**
+     * Recent runs of the recurring transfer scheduler, most recent first
+     */
+    @GetMapping("/runs")
+    public ResponseEntity<List<ScheduledTransferRun>> getRecentRuns() {
+        return ResponseEntity.ok(scheduler.getRecentRuns());
+    }
+    
+    /**
+     * Execution records of a scheduled transfer (one per occurrence), most recent first
+     */
+    @GetMapping("/{id}/executions")
+    public ResponseEntity<List<ScheduledTransferExecution>> getExecutions(@PathVariable Long id) {
+        return ResponseEntity.ok(scheduledTransferService.getRecentExecutions(id));
+    }
+    
     /**
      * Get a specific scheduled transfer by ID
      */
@@ -167,10 +161,13 @@ public class AdminScheduledTransferController {
             transfer.setTargetAccountNumber(transferDTO.getTargetAccountNumber());
             
             // If target account exists in our system, set it
-            bankAccountRepository.findByAccountNumber(transferDTO.getTargetAccountNumber())
+            accountCache.findAccountIdByNumber(transferDTO.getTargetAccountNumber())
+                .map(bankAccountRepository::getReferenceById)
                 .ifPresent(transfer::setTargetAccount);
+            scheduledTransferService.planNextExecution(transfer);
             
             ScheduledTransfer savedTransfer = scheduledTransferRepository.save(transfer);
+            scheduledTransferService.schedule(savedTransfer);
             
             return new ResponseEntity<>(convertToDTO(savedTransfer), HttpStatus.CREATED);
         } catch (BusinessException e) {
@@ -221,7 +218,8 @@ public class AdminScheduledTransferController {
                 existingTransfer.setTargetAccountNumber(transferDTO.getTargetAccountNumber());
                 
                 // If target account exists in our system, set it
-                bankAccountRepository.findByAccountNumber(transferDTO.getTargetAccountNumber())
+                accountCache.findAccountIdByNumber(transferDTO.getTargetAccountNumber())
+                    .map(bankAccountRepository::getReferenceById)
                     .ifPresent(existingTransfer::setTargetAccount);
             }
             
@@ -232,7 +230,9 @@ public class AdminScheduledTransferController {
                 existingTransfer.setSourceAccount(newSourceAccount);
             }
             
+            scheduledTransferService.planNextExecution(existingTransfer);
             ScheduledTransfer updatedTransfer = scheduledTransferRepository.save(existingTransfer);
+            scheduledTransferService.schedule(updatedTransfer);
             
             return ResponseEntity.ok(convertToDTO(updatedTransfer));
         } catch (BusinessException e) {
@@ -1,14 +1,19 @@
 package com.bankamen.controller;
 
+import com.bankamen.dto.UserSummaryDTO;
+import com.bankamen.entity.Role;
 import com.bankamen.entity.User;
 import com.bankamen.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/admin/users")
@@ -34,6 +39,26 @@ public class AdminUserController {
         return userService.getAllUsers();
     }
 
+    // 1 bis. Liste paginée pour la grille d'administration (colonnes affichées + nombre de comptes)
+    @GetMapping("/page")
+    public ResponseEntity<Map<String, Object>> getUsersPage(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Boolean enabled,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+        Page<UserSummaryDTO> users = userService.getUserSummaries(search, role, enabled, page, size, sortBy, sortDir);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", users.getContent());
+        response.put("currentPage", users.getNumber());
+        response.put("totalElements", users.getTotalElements());
+        response.put("totalPages", users.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+
     // 2. Créer un utilisateur (admin ou employé)
     @PostMapping
     public ResponseEntity<User> createUser(@RequestBody User user) {
@@ -10,6 +10,7 @@ import com.bankamen.entity.User;
 import com.bankamen.repository.UserRepository;
 import com.bankamen.service.EmailService;
 import com.bankamen.service.TwoFactorService;
+import com.bankamen.service.UserSearchIndex;
 import com.bankamen.service.JwtService ;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +39,9 @@ public class AuthController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -80,7 +84,7 @@ public class AuthController {
             return ResponseEntity.badRequest().body("Error: Invalid role provided. Available roles: CLIENT, RESPONSABLE, SUPERADMIN");
         }
 
-        userRepository.save(user);
+        userSearchIndex.index(userRepository.save(user));
         return ResponseEntity.ok("User registered successfully");
     }
 
@@ -1,25 +1,41 @@
 package com.bankamen.controller;
 
+import com.bankamen.dto.BalanceAtDTO;
 import com.bankamen.dto.BankAccountDTO;
+import com.bankamen.dto.BulkImportJobDTO;
+import com.bankamen.dto.BulkImportLineError;
+import com.bankamen.dto.BulkImportReport;
 import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.dto.TransactionBatchResultDTO;
 import com.bankamen.dto.TransactionDTO;
 import com.bankamen.dto.TransactionFilterRequest;
+import com.bankamen.dto.TransactionPageDTO;
 import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
 import com.bankamen.entity.Transaction;
 import com.bankamen.entity.TransactionType;
 import com.bankamen.entity.User;
+import com.bankamen.service.BalanceCheckpointService;
 import com.bankamen.service.BankAccountService;
+import com.bankamen.service.BulkImportJobService;
+import com.bankamen.service.IdempotencyService;
+import com.bankamen.service.TransactionBatchService;
+import com.bankamen.service.TransactionExportService;
 import com.bankamen.service.TransactionService;
 import com.bankamen.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -36,14 +52,29 @@ public class ClientAccountController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private BulkImportJobService bulkImportJobService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private TransactionBatchService transactionBatchService;
+
+    @Autowired
+    private BalanceCheckpointService balanceCheckpointService;
+
     // Get current user's accounts
     @GetMapping("/accounts")
     public ResponseEntity<List<BankAccountDTO>> getCurrentUserAccounts() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
-        User currentUser = userService.findByUsername(username);
+        Long currentUserId = userService.findIdByUsername(username);
 
-        List<BankAccount> accounts = accountService.getAccountsByUser(currentUser.getId());
+        List<BankAccount> accounts = accountService.getAccountsByUser(currentUserId);
         List<BankAccountDTO> dtos = accounts.stream()
                 .map(BankAccountDTO::new)
                 .toList();
@@ -77,11 +108,11 @@ public class ClientAccountController {
             @RequestParam(required = false) TransactionType type,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
-            @RequestParam(required = false) Double min,
-            @RequestParam(required = false) Double max) {
+            @RequestParam(required = false) Money min,
+            @RequestParam(required = false) Money max) {
 
         // Validate user owns this account
-        if (!accountService.userOwnsAccount(accountId, getCurrentUsername())) {
+        if (!accountService.userOwnsAccountForPosting(accountId, getCurrentUsername())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
@@ -93,30 +124,94 @@ public class ClientAccountController {
         return ResponseEntity.ok(dtos);
     }
 
+    // Cursor-paginated history: pass back nextCursor / prevCursor to move between pages
+    @GetMapping("/accounts/{accountId}/transactions/page")
+    public ResponseEntity<TransactionPageDTO> getTransactionPage(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Money min,
+            @RequestParam(required = false) Money max) {
+
+        if (!accountService.userOwnsAccount(accountId, getCurrentUsername())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(transactionService.getTransactionPage(accountId, cursor, size, type, from, to, min, max));
+    }
+
+    // Balance at an instant (at) or at the close of a day (date)
+    @GetMapping("/accounts/{accountId}/balance-at")
+    public ResponseEntity<BalanceAtDTO> getBalanceAt(
+            @PathVariable Long accountId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+
+        if (!accountService.userOwnsAccount(accountId, getCurrentUsername())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (at == null && date == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LocalDateTime instant = at != null ? at : date.plusDays(1).atStartOfDay();
+        return ResponseEntity.ok(balanceCheckpointService.balanceAt(accountId, instant));
+    }
+
     @PostMapping("/accounts")
     public ResponseEntity<BankAccount> createAccount(@RequestBody BankAccount account) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
-        User currentUser = userService.findByUsername(username);
+        Long currentUserId = userService.findIdByUsername(username);
 
-        return ResponseEntity.ok(accountService.createAccount(account, currentUser.getId()));
+        return ResponseEntity.ok(accountService.createAccount(account, currentUserId));
     }
 
     @PostMapping("/accounts/{accountId}/transactions")
     public ResponseEntity<TransactionDTO> createTransaction(
             @PathVariable Long accountId,
-            @RequestBody CreateTransactionRequest request) {
+            @RequestBody CreateTransactionRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
         // Validate user owns this account
-        if (!accountService.userOwnsAccount(accountId, getCurrentUsername())) {
+        if (!accountService.userOwnsAccountForPosting(accountId, getCurrentUsername())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
 
+        // Retried requests carrying the same key get the original transaction back
+        if (idempotencyKey != null) {
+            IdempotencyService.Outcome outcome = idempotencyService.execute(getCurrentUsername(), idempotencyKey,
+                    accountId, request,
+                    () -> new TransactionDTO(transactionService.createTransaction(accountId, request)));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                    .body(outcome.transaction());
+        }
+
         Transaction transaction = transactionService.createTransaction(accountId, request);
         TransactionDTO dto = new TransactionDTO(transaction);
         return ResponseEntity.status(HttpStatus.CREATED).body(dto);
     }
 
+    // Several operations from one account, committed together (or best effort)
+    @PostMapping("/accounts/{accountId}/transactions/batch")
+    public ResponseEntity<TransactionBatchResultDTO> createTransactionBatch(
+            @PathVariable Long accountId,
+            @RequestBody List<CreateTransactionRequest> operations,
+            @RequestParam(defaultValue = "ALL_OR_NOTHING") TransactionBatchService.Mode mode) {
+
+        if (!accountService.userOwnsAccountForPosting(accountId, getCurrentUsername())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        TransactionBatchResultDTO result = transactionBatchService.post(accountId, operations, mode);
+        return ResponseEntity.status(result.isCommitted() ? HttpStatus.CREATED : HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(result);
+    }
+
     @PostMapping("/transactions/filter")
     public ResponseEntity<List<TransactionDTO>> filterTransactions(@RequestBody TransactionFilterRequest request) {
         // Add user filtering to ensure users only see their own transactions
@@ -127,10 +222,79 @@ public class ClientAccountController {
         return ResponseEntity.ok(dtos);
     }
 
+    // Full history download, streamed row by row (format=csv|ndjson, gzip when accepted)
+    @GetMapping("/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) TransactionType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Money minAmount,
+            @RequestParam(required = false) Money maxAmount,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        TransactionExportService.Format exportFormat = "ndjson".equalsIgnoreCase(format)
+                ? TransactionExportService.Format.NDJSON
+                : TransactionExportService.Format.CSV;
+        TransactionFilterRequest filter = new TransactionFilterRequest();
+        filter.setType(type);
+        filter.setStartDate(startDate);
+        filter.setEndDate(endDate);
+        filter.setMinAmount(minAmount);
+        filter.setMaxAmount(maxAmount);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        StreamingResponseBody body = transactionExportService.export(getCurrentUsername(), filter, exportFormat, gzip);
+        String fileName = exportFormat == TransactionExportService.Format.NDJSON ? "transactions.ndjson" : "transactions.csv";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat == TransactionExportService.Format.NDJSON
+                        ? MediaType.parseMediaType("application/x-ndjson")
+                        : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @PostMapping("/transactions/import-csv")
-    public ResponseEntity<String> importBulkTransfers(@RequestParam("file") MultipartFile file) {
-        transactionService.processBulkTransfersForUser(file, getCurrentUsername());
-        return ResponseEntity.ok("Transferts groupés traités avec succès");
+    public ResponseEntity<BulkImportReport> importBulkTransfers(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.ok(transactionService.processBulkTransfersForUser(file, getCurrentUsername()));
+    }
+
+    // Asynchronous import: returns immediately, progress is polled on the job
+    @PostMapping("/transactions/import-jobs")
+    public ResponseEntity<BulkImportJobDTO> submitImportJob(@RequestParam("file") MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(new BulkImportJobDTO(bulkImportJobService.submit(file, getCurrentUsername())));
+    }
+
+    @GetMapping("/transactions/import-jobs")
+    public ResponseEntity<List<BulkImportJobDTO>> getImportJobs() {
+        return ResponseEntity.ok(bulkImportJobService.listForUser(getCurrentUsername()).stream()
+                .map(BulkImportJobDTO::new)
+                .toList());
+    }
+
+    @GetMapping("/transactions/import-jobs/{jobId}")
+    public ResponseEntity<BulkImportJobDTO> getImportJob(@PathVariable String jobId) {
+        return bulkImportJobService.findForUser(jobId, getCurrentUsername())
+                .map(job -> ResponseEntity.ok(new BulkImportJobDTO(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/transactions/import-jobs/{jobId}/errors")
+    public ResponseEntity<List<BulkImportLineError>> getImportJobErrors(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        if (bulkImportJobService.findForUser(jobId, getCurrentUsername()).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(bulkImportJobService.getErrors(jobId, page, size).stream()
+                .map(e -> new BulkImportLineError(e.getLineNumber(), e.getMessage()))
+                .toList());
     }
 
     private String getCurrentUsername() {
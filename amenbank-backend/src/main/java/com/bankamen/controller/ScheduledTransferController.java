@@ -1,5 +1,6 @@
 package com.bankamen.controller;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,9 +17,11 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.bankamen.dto.ScheduledTransferRequest;
 import com.bankamen.dto.ScheduledTransferResponse;
+import com.bankamen.dto.ScheduledTransferRunSummary;
 import com.bankamen.dto.ScheduledTransferUpdateRequest;
 import com.bankamen.entity.ScheduledTransfer;
-import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.service.BankAccountService;
+import com.bankamen.service.ScheduledTransferScheduler;
 import com.bankamen.service.ScheduledTransferService;
 
 import lombok.RequiredArgsConstructor;
@@ -29,7 +32,8 @@ import lombok.RequiredArgsConstructor;
 public class ScheduledTransferController {
 
     private final ScheduledTransferService service;
-    private final BankAccountRepository accountRepo;
+    private final BankAccountService accountService;
+    private final ScheduledTransferScheduler scheduler;
 
     @PostMapping
     public ResponseEntity<ScheduledTransferResponse> createScheduledTransfer(@RequestBody ScheduledTransferRequest request) {
@@ -48,15 +52,21 @@ public class ScheduledTransferController {
 
     @GetMapping("/validate-account/{accountNumber}")
     public ResponseEntity<Boolean> validateAccount(@PathVariable String accountNumber) {
-        boolean exists = accountRepo.existsByAccountNumber(accountNumber);
+        // unknown numbers are usually rejected by the Bloom filter without a query
+        boolean exists = accountService.accountNumberExists(accountNumber);
         return ResponseEntity.ok(exists);
     }
 
     @PostMapping("/execute")
-    public ResponseEntity<String> executeNow() {
+    public ResponseEntity<?> executeNow() {
         try {
-            int count = service.executeScheduledTransfers();
-            return ResponseEntity.ok("Nombre de virements exécutés : " + count);
+            // runs whatever is due now; the scheduler does the same every poll interval
+            ScheduledTransferRunSummary summary = scheduler.executeDue(LocalDateTime.now());
+            if (summary == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("Une exécution des virements programmés est déjà en cours");
+            }
+            return ResponseEntity.ok(summary);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Erreur lors de l'exécution : " + e.getMessage());
@@ -0,0 +1,22 @@
+package com.bankamen.dto;
+
+import com.bankamen.entity.Money;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceAtDTO {
+    private Long accountId;
+    private LocalDateTime at;             // postings dated strictly before this instant are included
+    private Money balance;
+    private LocalDate checkpointDate;     // null when computed backwards from the current balance
+    private long scannedTransactions;
+}
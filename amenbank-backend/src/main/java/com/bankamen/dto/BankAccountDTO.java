@@ -3,6 +3,7 @@ package com.bankamen.dto;
 
 import com.bankamen.entity.AccountType;
 import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -16,7 +17,7 @@ public class BankAccountDTO {
     private Long id;
     private String iban;
     private String accountNumber;
-    private Double balance;
+    private Money balance;
     private AccountType type;
     private boolean active;
     private Long userId;
@@ -26,7 +27,7 @@ public class BankAccountDTO {
         this.id = account.getId();
         this.iban = account.getIban();
         this.accountNumber = account.getAccountNumber();
-        this.balance = account.getBalance();
+        this.balance = account.getTotalBalance();
         this.type = account.getType();
         this.active = account.isActive();
 
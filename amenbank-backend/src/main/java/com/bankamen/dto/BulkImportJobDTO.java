@@ -0,0 +1,48 @@
+package com.bankamen.dto;
+
+import com.bankamen.entity.BulkImportJob;
+import com.bankamen.entity.BulkImportJobStatus;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class BulkImportJobDTO {
+    private String id;
+    private String fileName;
+    private BulkImportJobStatus status;
+    private int estimatedTotalRows;
+    private int processedRows;
+    private int successCount;
+    private int failureCount;
+    private double rowsPerSecond;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String errorMessage;
+
+    public BulkImportJobDTO(BulkImportJob job) {
+        this.id = job.getId();
+        this.fileName = job.getFileName();
+        this.status = job.getStatus();
+        this.estimatedTotalRows = job.getEstimatedTotalRows();
+        this.successCount = job.getSuccessCount();
+        this.failureCount = job.getFailureCount();
+        this.processedRows = successCount + failureCount;
+        this.createdAt = job.getCreatedAt();
+        this.startedAt = job.getStartedAt();
+        this.finishedAt = job.getFinishedAt();
+        this.errorMessage = job.getErrorMessage();
+
+        if (startedAt != null) {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long elapsedMs = Math.max(1, Duration.between(startedAt, end).toMillis());
+            this.rowsPerSecond = processedRows * 1000.0 / elapsedMs;
+        }
+    }
+}
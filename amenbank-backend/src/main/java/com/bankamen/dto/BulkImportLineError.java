@@ -0,0 +1,15 @@
+package com.bankamen.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportLineError {
+    private int lineNumber;
+    private String message;
+}
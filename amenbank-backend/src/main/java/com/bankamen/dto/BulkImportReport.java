@@ -0,0 +1,28 @@
+package com.bankamen.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkImportReport {
+    private int totalRows;
+    private int successCount;
+    private int failureCount;
+    private long elapsedMs;
+    private String message;
+    private List<BulkImportLineError> errors = new ArrayList<>();
+    private boolean errorsTruncated;   // au-delà de la limite, seules les erreurs comptées sont conservées
+
+    public void addError(int lineNumber, String error, int maxReportedErrors) {
+        failureCount++;
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new BulkImportLineError(lineNumber, error));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.bankamen.dto;
 
+import com.bankamen.entity.Money;
 import com.bankamen.entity.TransactionType;
 import lombok.Getter;
 import lombok.Setter;
@@ -8,7 +9,7 @@ import lombok.Setter;
 @Setter
 public class CreateTransactionRequest {
 
-    private Double amount;
+    private Money amount;
     private TransactionType type;
     private String description;
     private Long targetAccountId;
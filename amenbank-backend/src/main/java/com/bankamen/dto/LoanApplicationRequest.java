@@ -1,12 +1,13 @@
 package com.bankamen.dto;
 
+import com.bankamen.entity.Money;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 public class LoanApplicationRequest {
-    private Double amount;
+    private Money amount;
     private Integer termInMonths;
     private Double interestRate;
     private Long accountId;
@@ -1,6 +1,7 @@
 package com.bankamen.dto;
 
 import com.bankamen.entity.LoanStatus;
+import com.bankamen.entity.Money;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -8,7 +9,7 @@ import lombok.Setter;
 @Setter
 public class LoanApplicationResponse {
     private Long id;
-    private Double amount;
+    private Money amount;
     private Integer termInMonths;
     private Double interestRate;
     private LoanStatus status;
@@ -1,6 +1,7 @@
 package com.bankamen.dto;
 
 import com.bankamen.entity.Frequency;
+import com.bankamen.entity.Money;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -12,7 +13,7 @@ import java.time.LocalDate;
 @NoArgsConstructor
 public class ScheduledTransferDTO {
     private Long id;
-    private Double amount;
+    private Money amount;
     private LocalDate startDate;
     private LocalDate endDate;
     private Frequency frequency;
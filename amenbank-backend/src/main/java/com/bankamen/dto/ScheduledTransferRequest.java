@@ -3,6 +3,7 @@ package com.bankamen.dto;
 import java.time.LocalDate;
 
 import com.bankamen.entity.Frequency;
+import com.bankamen.entity.Money;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -10,7 +11,7 @@ import lombok.Setter;
 @Getter
 @Setter
 public class ScheduledTransferRequest {
-    private Double amount;
+    private Money amount;
     private LocalDate startDate;
     private LocalDate endDate;
     private Frequency frequency;
@@ -1,6 +1,7 @@
 package com.bankamen.dto;
 
 import com.bankamen.entity.Frequency;
+import com.bankamen.entity.Money;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -10,7 +11,7 @@ import java.time.LocalDate;
 @Setter
 public class ScheduledTransferResponse {
     private Long id;
-    private Double amount;
+    private Money amount;
     private LocalDate startDate;
     private LocalDate endDate;
     private Frequency frequency;
@@ -0,0 +1,30 @@
+package com.bankamen.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/** Outcome of one pass of the recurring transfer scheduler on this node. */
+@Getter
+@Setter
+public class ScheduledTransferRunSummary {
+    private String node;
+    private List<Long> runIds = new ArrayList<>();   // one run per shard with work (resumed runs included)
+    private int shards;                   // shards whose lease this node held during the pass
+    private LocalDateTime startedAt;
+    private long elapsedMs;
+    private int dueCount;                 // occurrences taken from the queue
+    private int executedCount;
+    private int insufficientFundsCount;   // occurrences skipped, the transfer moves on to its next date
+    private int staleCount;               // queue entries no longer matching their transfer, or already executed
+    private int failedCount;
+    private int sourceAccounts;           // partitions: one per source account, run in order
+    private int parallelism;
+
+    public double getThroughputPerSecond() {
+        return elapsedMs == 0 ? dueCount : dueCount * 1000.0 / elapsedMs;
+    }
+}
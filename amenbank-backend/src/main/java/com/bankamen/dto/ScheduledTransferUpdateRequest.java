@@ -1,6 +1,7 @@
 package com.bankamen.dto;
 
 import com.bankamen.entity.Frequency;
+import com.bankamen.entity.Money;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,7 +10,7 @@ import java.time.LocalDate;
 @Getter
 @Setter
 public class ScheduledTransferUpdateRequest {
-    private Double amount;
+    private Money amount;
     private LocalDate startDate;
     private LocalDate endDate;
     private Frequency frequency;
@@ -0,0 +1,17 @@
+package com.bankamen.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Outcome of one operation of a batch: the posted transaction, or the rejection message. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchItemDTO {
+    private int index;
+    private TransactionDTO transaction;
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.bankamen.dto;
+
+import com.bankamen.service.TransactionBatchService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionBatchResultDTO {
+    private TransactionBatchService.Mode mode;
+    private boolean committed;   // false: rien n'a été enregistré (mode ALL_OR_NOTHING)
+    private int successCount;
+    private int failureCount;
+    private List<TransactionBatchItemDTO> items;
+}
@@ -1,5 +1,7 @@
 package com.bankamen.dto;
 
+import com.bankamen.entity.Money;
+import com.bankamen.entity.PostingDirection;
 import com.bankamen.entity.Transaction;
 import com.bankamen.entity.TransactionType;
 import lombok.Getter;
@@ -14,10 +16,12 @@ import java.time.LocalDateTime;
 public class TransactionDTO {
     private Long id;
     private LocalDateTime date;
-    private Double amount;
-    private Double balanceAfter;
+    private Money amount;
+    private Money balanceAfter;
     private TransactionType type;
     private String description;
+    private PostingDirection direction;
+    private Long journalEntryId;
     private Long accountId;
     private String accountIban;
 
@@ -28,6 +32,8 @@ public class TransactionDTO {
         this.balanceAfter = transaction.getBalanceAfter();
         this.type = transaction.getType();
         this.description = transaction.getDescription();
+        this.direction = transaction.getDirection();
+        this.journalEntryId = transaction.getJournalEntryId();
 
         // Safely get account information
         if (transaction.getAccount() != null) {
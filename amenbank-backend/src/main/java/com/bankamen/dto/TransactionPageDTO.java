@@ -0,0 +1,20 @@
+package com.bankamen.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/** One page of an account history; cursors are opaque and null when there is nothing further. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionPageDTO {
+    private List<TransactionDTO> items;
+    private String nextCursor;
+    private String prevCursor;
+    private int size;
+}
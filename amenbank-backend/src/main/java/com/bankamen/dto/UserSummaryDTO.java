@@ -0,0 +1,27 @@
+package com.bankamen.dto;
+
+import com.bankamen.entity.Role;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/** Row of the admin user grid: only the displayed columns, plus the number of accounts. */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private Long id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private Role role;
+    private boolean enabled;
+    private boolean accountNonLocked;
+    private LocalDateTime lastLogin;
+    private long accountCount;
+}
@@ -0,0 +1,31 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data migration already run against this database (see DataMigrationRunner); written by the node
+ * that ran it, under the migration lease.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "applied_migration")
+public class AppliedMigration {
+
+    @Id
+    @Column(length = 100)
+    private String id;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+
+    // node id of the lease holder that ran it
+    @Column(length = 200)
+    private String appliedBy;
+}
@@ -0,0 +1,41 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Closing balance of an account at the end of a business day (all postings dated before the next midnight).
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "balance_checkpoint",
+        uniqueConstraints = @UniqueConstraint(name = "uk_balance_checkpoint_account_day", columnNames = {"account_id", "business_date"}))
+public class BalanceCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "closing_balance_minor", nullable = false)
+    private Money closingBalance;
+
+    // postings dated on the business day itself
+    @Column(name = "transaction_count", nullable = false)
+    private int transactionCount;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One balance slot of a sharded (hot) account. The account balance is the bank_account row plus the
+ * sum of its slots; postings update a single slot so they no longer serialize on the account row.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "balance_shard",
+        uniqueConstraints = @UniqueConstraint(name = "uk_balance_shard_account_slot", columnNames = {"account_id", "slot"}))
+public class BalanceShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "balance_shard_id")
+    @TableGenerator(name = "balance_shard_id", table = "id_blocks", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "balance_shard", allocationSize = 100)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(name = "balance_minor", nullable = false)
+    private Money balance;
+
+    public BalanceShard(Long accountId, int slot) {
+        this.accountId = accountId;
+        this.slot = slot;
+        this.balance = Money.ZERO;
+    }
+}
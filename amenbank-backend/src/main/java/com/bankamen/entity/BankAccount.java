@@ -1,23 +1,36 @@
 package com.bankamen.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 @Entity
+@Table(indexes = {
+        // prefix search from the admin console (LIKE 'x%')
+        @Index(name = "idx_bank_account_iban", columnList = "iban"),
+        @Index(name = "idx_bank_account_number", columnList = "account_number"),
+        // delta sync of the account number Bloom filter on every node
+        @Index(name = "idx_bank_account_number_changed", columnList = "number_changed_at"),
+        @Index(name = "idx_bank_account_type", columnList = "type, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 public class BankAccount {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "bank_account_id")
+    @TableGenerator(name = "bank_account_id", table = "id_blocks", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "bank_account", allocationSize = 100)
     private Long id;
 
     private String iban;
@@ -26,13 +39,35 @@ public class BankAccount {
     @Column(name = "account_number")
     private String accountNumber;
 
-    private Double balance;
+    // Set when the account number is assigned or changed; null for numbers older than the column
+    @JsonIgnore
+    @Column(name = "number_changed_at")
+    private LocalDateTime numberChangedAt;
+
+    @Column(name = "balance_minor")
+    private Money balance;
 
     @Enumerated(EnumType.STRING)
     private AccountType type;
 
     private boolean active = true;
 
+    // Number of balance slots (0 = not sharded), see BalanceShard
+    @Column(name = "balance_shards", nullable = false, columnDefinition = "int default 0")
+    private int balanceShards;
+
+    // Base row plus balance slots; read-only, evaluated when the account is loaded
+    @JsonIgnore
+    @Formula("(CASE WHEN balance_shards > 0 THEN balance_minor + "
+            + "COALESCE((SELECT SUM(s.balance_minor) FROM balance_shard s WHERE s.account_id = id), 0) "
+            + "ELSE balance_minor END)")
+    private Long totalBalanceMinor;
+
+    // Optimistic locking: concurrent postings on the same account are detected at commit and retried
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnoreProperties({"accounts", "password", "resetToken", "resetTokenExpiry", "email2FACode", "email2FAExpiry"})
@@ -52,4 +87,19 @@ public class BankAccount {
     @JsonIgnoreProperties({"sourceAccount", "targetAccount"})
     private List<ScheduledTransfer> incomingScheduledTransfers = new ArrayList<>();
 
-}
\ No newline at end of file
+    public void setAccountNumber(String accountNumber) {
+        if (!Objects.equals(this.accountNumber, accountNumber)) {
+            numberChangedAt = LocalDateTime.now();
+        }
+        this.accountNumber = accountNumber;
+    }
+
+    /** Exact balance, slots included for sharded accounts. */
+    @JsonIgnore
+    public Money getTotalBalance() {
+        if (balanceShards == 0 || totalBalanceMinor == null) {
+            return balance;
+        }
+        return Money.ofMinor(totalBalanceMinor);
+    }
+}
@@ -0,0 +1,59 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Asynchronous CSV bulk-transfer import. Progress counters and {@code lastCommittedLine} are
+ * advanced in the transaction that posts each chunk, so a restarted node resumes after that line.
+ * A job is run under the job lease "bulk-import-&lt;id&gt;", so only one node works on it at a time.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "bulk_import_job", indexes = @Index(name = "idx_bulk_import_job_user", columnList = "username, createdAt"))
+public class BulkImportJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private String username;
+
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private BulkImportJobStatus status;
+
+    private String spoolPath;
+
+    // node that spooled the upload, then the node currently running the job
+    @Column(length = 200)
+    private String ownerNode;
+
+    // last progress of the running job; a job whose spool is on another node is failed once this is too old
+    private LocalDateTime heartbeatAt;
+
+    // data lines counted while spooling the upload
+    private int estimatedTotalRows;
+
+    // 1 = only the header has been consumed
+    private int lastCommittedLine = 1;
+
+    private int successCount;
+    private int failureCount;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    @Column(length = 1000)
+    private String errorMessage;
+}
@@ -0,0 +1,32 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "bulk_import_job_error", indexes = @Index(name = "idx_bulk_import_error_job", columnList = "jobId, lineNumber"))
+public class BulkImportJobError {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String jobId;
+
+    private int lineNumber;
+
+    @Column(length = 1000)
+    private String message;
+
+    public BulkImportJobError(String jobId, int lineNumber, String message) {
+        this.jobId = jobId;
+        this.lineNumber = lineNumber;
+        this.message = message;
+    }
+}
@@ -0,0 +1,8 @@
+package com.bankamen.entity;
+
+public enum BulkImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,62 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable side of the Idempotency-Key store. A row is claimed (response still null) before the
+ * posting runs and completed with the serialized response once it succeeded. The claim is only
+ * held until {@code leaseUntil}: a row still in progress after that belongs to a request whose
+ * node died, and its outcome is unknown.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_idempotency_expires", columnList = "expires_at"))
+public class IdempotencyRecord {
+
+    // SHA-256 of username + key, so keys of different users never collide
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Lob
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    // null on rows written before the status existed: completed iff a response is stored
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private IdempotencyStatus status;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public boolean isCompleted() {
+        return responseBody != null;
+    }
+
+    public boolean isOutcomeUnknown(LocalDateTime now) {
+        return !isCompleted() && (status == IdempotencyStatus.UNKNOWN || (leaseUntil != null && leaseUntil.isBefore(now)));
+    }
+}
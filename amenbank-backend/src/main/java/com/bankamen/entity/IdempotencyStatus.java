@@ -0,0 +1,8 @@
+package com.bankamen.entity;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED,
+    // the posting failed in a way that does not tell whether it was recorded
+    UNKNOWN
+}
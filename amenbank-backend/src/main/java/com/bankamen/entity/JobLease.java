@@ -0,0 +1,37 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lease on a scheduled job (or one shard of it). Every acquisition increments the
+ * fencing token; writes made under a lease check that the token is still current. All times come
+ * from the database clock.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "job_lease")
+public class JobLease {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    // node id of the current or last holder
+    @Column(length = 200)
+    private String owner;
+
+    private long fencingToken;
+
+    private LocalDateTime acquiredAt;
+
+    // free once passed; kept in the future by renewals while the job runs
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
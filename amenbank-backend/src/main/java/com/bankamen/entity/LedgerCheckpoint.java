@@ -0,0 +1,32 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Last journal sequence of the in-memory ledger engine that has been written to the database.
+ * Updated in the same transaction as the flushed rows, so journal replay never applies a posting twice.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "ledger_checkpoint")
+public class LedgerCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+
+    public LedgerCheckpoint(String name) {
+        this.name = name;
+    }
+}
@@ -17,7 +17,8 @@ public class LoanApplication {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private Double amount; // Montant demandé
+    @Column(name = "amount_minor")
+    private Money amount; // Montant demandé
     private Integer termInMonths; // Durée en mois
     private Double interestRate;
 
@@ -0,0 +1,88 @@
+package com.bankamen.entity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point amount stored as a long count of minor units (1/1000, i.e. millimes).
+ * Three decimals are exact for TND as well as for two-decimal currencies.
+ * The static helpers work on raw minor units so hot paths can do checked arithmetic without allocating.
+ */
+public record Money(long minor) implements Comparable<Money> {
+
+    public static final int SCALE = 3;
+    public static final long MINOR_PER_UNIT = 1_000L;
+    public static final Money ZERO = new Money(0);
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact());
+    }
+
+    public static Money of(double amount) {
+        return of(BigDecimal.valueOf(amount));
+    }
+
+    /** Accepts "12.5" as well as "12,5". */
+    public static Money parse(String text) {
+        try {
+            return of(new BigDecimal(text.trim().replace(',', '.')));
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Montant invalide : " + text);
+        }
+    }
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(add(minor, other.minor));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(subtract(minor, other.minor));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minor));
+    }
+
+    public boolean isPositive() {
+        return minor > 0;
+    }
+
+    public boolean isNegative() {
+        return minor < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minor < other.minor;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /** For display and formatting only; never feed the result back into balances. */
+    public double toDouble() {
+        return minor / (double) MINOR_PER_UNIT;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps every {@link Money} attribute to a BIGINT column of minor units.
+ */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money money) {
+        return money != null ? money.minor() : null;
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long minor) {
+        return minor != null ? Money.ofMinor(minor) : null;
+    }
+}
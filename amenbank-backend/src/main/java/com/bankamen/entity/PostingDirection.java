@@ -0,0 +1,7 @@
+package com.bankamen.entity;
+
+/** Side of a posting on its account: CREDIT raises the balance, DEBIT lowers it. */
+public enum PostingDirection {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,48 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "reconciliation_mismatch", indexes = @Index(name = "idx_reconciliation_mismatch_run", columnList = "run_id, account_id"))
+public class ReconciliationMismatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private ReconciliationMismatchKind kind;
+
+    // posting where the chain broke, null for a balance mismatch
+    @Column(name = "transaction_id")
+    private Long transactionId;
+
+    @Column(name = "expected_minor")
+    private Money expected;
+
+    @Column(name = "actual_minor")
+    private Money actual;
+
+    public ReconciliationMismatch(Long runId, Long accountId, ReconciliationMismatchKind kind, Long transactionId,
+                                  Money expected, Money actual) {
+        this.runId = runId;
+        this.accountId = accountId;
+        this.kind = kind;
+        this.transactionId = transactionId;
+        this.expected = expected;
+        this.actual = actual;
+    }
+}
@@ -0,0 +1,8 @@
+package com.bankamen.entity;
+
+public enum ReconciliationMismatchKind {
+    // balanceAfter of a posting differs from the previous balanceAfter plus the posting amount
+    CHAIN_BREAK,
+    // account balance differs from the balance rebuilt from its postings
+    BALANCE_MISMATCH
+}
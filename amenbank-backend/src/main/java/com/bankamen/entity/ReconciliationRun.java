@@ -0,0 +1,34 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "reconciliation_run")
+public class ReconciliationRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReconciliationRunStatus status;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    private long accountsChecked;
+    private long postingsChecked;
+    private long mismatchCount;
+
+    @Column(length = 1000)
+    private String errorMessage;
+}
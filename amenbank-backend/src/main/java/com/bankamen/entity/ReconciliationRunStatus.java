@@ -0,0 +1,7 @@
+package com.bankamen.entity;
+
+public enum ReconciliationRunStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
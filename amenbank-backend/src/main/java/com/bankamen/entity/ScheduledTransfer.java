@@ -6,8 +6,15 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_scheduled_transfer_target_number", columnList = "target_account_number"),
+        @Index(name = "idx_scheduled_transfer_active", columnList = "active, id"),
+        // scheduler: active transfers due before a given instant, in execution order
+        @Index(name = "idx_scheduled_transfer_next", columnList = "active, next_execution_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +24,8 @@ public class ScheduledTransfer {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    private Double amount;
+    @Column(name = "amount_minor")
+    private Money amount;
 
     private LocalDate startDate;
     private LocalDate endDate;
@@ -29,6 +37,12 @@ public class ScheduledTransfer {
 
     private boolean active = true;
 
+    // next occurrence to run, null when inactive or past the end date
+    private LocalDateTime nextExecutionAt;
+
+    // date of the last occurrence processed (executed or rejected)
+    private LocalDate lastExecutionDate;
+
     @ManyToOne
     @JoinColumn(name = "source_account_id")
     private BankAccount sourceAccount;
@@ -0,0 +1,54 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Execution record of one occurrence of a recurring transfer, written in the transaction that
+ * posts it. The unique (transfer, date) pair makes a second execution of the same occurrence fail
+ * before any money moves, whoever triggers it.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "scheduled_transfer_execution",
+        uniqueConstraints = @UniqueConstraint(name = "uk_scheduled_transfer_execution",
+                columnNames = {"scheduled_transfer_id", "execution_date"}),
+        indexes = @Index(name = "idx_scheduled_transfer_execution_run", columnList = "run_id"))
+public class ScheduledTransferExecution {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "scheduled_transfer_id", nullable = false)
+    private Long scheduledTransferId;
+
+    @Column(name = "execution_date", nullable = false)
+    private LocalDate executionDate;
+
+    // null when the occurrence was run outside a recorded run
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 24)
+    private ScheduledTransferExecutionOutcome outcome;
+
+    private LocalDateTime executedAt;
+
+    public ScheduledTransferExecution(Long scheduledTransferId, LocalDate executionDate, Long runId,
+                                      ScheduledTransferExecutionOutcome outcome) {
+        this.scheduledTransferId = scheduledTransferId;
+        this.executionDate = executionDate;
+        this.runId = runId;
+        this.outcome = outcome;
+        this.executedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,7 @@
+package com.bankamen.entity;
+
+public enum ScheduledTransferExecutionOutcome {
+    EXECUTED,
+    INSUFFICIENT_FUNDS,
+    FAILED
+}
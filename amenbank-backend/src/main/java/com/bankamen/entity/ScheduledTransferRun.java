@@ -0,0 +1,54 @@
+package com.bankamen.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pass of the recurring transfer scheduler over one shard. Counters are checkpointed after
+ * every batch; a run still RUNNING when a node acquires the shard lease was interrupted and is
+ * resumed with the same cut-off.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "scheduled_transfer_run", indexes = @Index(name = "idx_scheduled_transfer_run_shard", columnList = "shard, status, id"))
+public class ScheduledTransferRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ScheduledTransferRunStatus status;
+
+    private int shard;
+
+    // lease held by the node that started (or last resumed) the run
+    @Column(length = 200)
+    private String node;
+    private long fencingToken;
+
+    // occurrences due up to this instant belong to the run
+    @Column(nullable = false)
+    private LocalDateTime dueUntil;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime checkpointAt;
+    private LocalDateTime finishedAt;
+
+    private int dueCount;
+    private int executedCount;
+    private int insufficientFundsCount;
+    private int failedCount;
+    private int staleCount;
+    private int resumeCount;
+
+    @Column(length = 1000)
+    private String errorMessage;
+}
@@ -13,17 +13,27 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_transaction_account_date_id", columnList = "account_id, date, id"),
+        @Index(name = "idx_transaction_account_type_date", columnList = "account_id, type, date"),
+        @Index(name = "idx_transaction_journal_entry", columnList = "journal_entry_id"),
+        @Index(name = "idx_transaction_reference", columnList = "reference")
+})
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction_id")
+    @TableGenerator(name = "transaction_id", table = "id_blocks", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "transaction", allocationSize = 100)
     private Long id;
 
     private LocalDateTime date;
 
-    private Double amount;
+    @Column(name = "amount_minor")
+    private Money amount;
 
-    private Double balanceAfter; // Solde après l'opération
+    @Column(name = "balance_after_minor")
+    private Money balanceAfter; // Solde après l'opération
 
     @Enumerated(EnumType.STRING)
     private TransactionType type;
@@ -35,6 +45,31 @@ public class Transaction {
 
     private String description;
 
+    @Enumerated(EnumType.STRING)
+    @Column(length = 6)
+    private PostingDirection direction;
+
+    // Shared by both legs of a transfer (the id of its debit leg); null for single-leg postings
+    @Column(name = "journal_entry_id")
+    private Long journalEntryId;
+
+    // Caller key of a ledger engine posting that must not be made twice (bulk import line); null otherwise
+    @Column(length = 100)
+    private String reference;
+
+    /** Credit leg of the transfer whose debit leg is this posting: same type, amount and date. */
+    public Transaction creditLeg(BankAccount target, Money targetBalanceAfter, String creditDescription) {
+        Transaction credit = new Transaction();
+        credit.setAccount(target);
+        credit.setType(type);
+        credit.setAmount(amount);
+        credit.setDate(date);
+        credit.setDirection(PostingDirection.CREDIT);
+        credit.setBalanceAfter(targetBalanceAfter);
+        credit.setDescription(creditDescription);
+        return credit;
+    }
+
     // Add a method to get account ID without loading the full account
     @JsonProperty("accountId")
     public Long getAccountId() {
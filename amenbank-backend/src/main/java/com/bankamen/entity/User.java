@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -17,6 +18,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.Email;
@@ -30,7 +32,13 @@ import lombok.Setter;
 @Entity
 @Getter
 @Setter
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // admin grid: prefix search on last name, role filter
+        @Index(name = "idx_users_last_name", columnList = "last_name"),
+        @Index(name = "idx_users_role", columnList = "role, id"),
+        // UserSearchIndex delta sync
+        @Index(name = "idx_users_search_changed", columnList = "search_changed_at")
+})
 public class User {
 
     @Id
@@ -109,9 +117,28 @@ public class User {
     @JsonIgnore  // Keep sensitive data hidden
     private LocalDateTime email2FAExpiry;
 
+    // Set when the username, first or last name changes; null for users older than the column
+    @JsonIgnore
+    @Column(name = "search_changed_at")
+    private LocalDateTime searchChangedAt;
+
     public User() {
     }
 
+    public void setFirstName(String firstName) {
+        if (!Objects.equals(this.firstName, firstName)) {
+            searchChangedAt = LocalDateTime.now();
+        }
+        this.firstName = firstName;
+    }
+
+    public void setLastName(String lastName) {
+        if (!Objects.equals(this.lastName, lastName)) {
+            searchChangedAt = LocalDateTime.now();
+        }
+        this.lastName = lastName;
+    }
+
     // Keep all your existing getter and setter methods here...
     // (I'm not repeating them as they're already correct)
 
@@ -128,6 +155,9 @@ public class User {
     }
 
     public void setUsername(String username) {
+        if (!Objects.equals(this.username, username)) {
+            searchChangedAt = LocalDateTime.now();
+        }
         this.username = username;
     }
 
@@ -0,0 +1,11 @@
+package com.bankamen.exception;
+
+/**
+ * A debit was refused because the account does not cover it; unlike other business rejections it
+ * is an expected outcome for unattended postings (scheduled transfers).
+ */
+public class InsufficientFundsException extends BusinessException {
+    public InsufficientFundsException() {
+        super("Fonds insuffisants pour le retrait");
+    }
+}
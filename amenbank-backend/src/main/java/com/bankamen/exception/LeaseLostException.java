@@ -0,0 +1,8 @@
+package com.bankamen.exception;
+
+/** The job lease guarding a piece of work expired or was taken over by another node. */
+public class LeaseLostException extends RuntimeException {
+    public LeaseLostException(String message) {
+        super(message);
+    }
+}
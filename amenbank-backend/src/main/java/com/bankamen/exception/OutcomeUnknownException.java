@@ -0,0 +1,11 @@
+package com.bankamen.exception;
+
+/**
+ * The operation was handed over but its outcome is not known (timeout, journal failure): it may
+ * still be recorded, so it must not be retried blindly.
+ */
+public class OutcomeUnknownException extends BusinessException {
+    public OutcomeUnknownException(String message) {
+        super(message);
+    }
+}
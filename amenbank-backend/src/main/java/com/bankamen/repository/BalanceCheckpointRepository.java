@@ -0,0 +1,61 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    Optional<BalanceCheckpoint> findTopByAccountIdAndBusinessDateLessThanOrderByBusinessDateDesc(Long accountId, LocalDate date);
+
+    @Query("SELECT MAX(c.businessDate) FROM BalanceCheckpoint c")
+    LocalDate findLastBusinessDate();
+
+    // Reconciliation openings: earliest checkpoint dated fromDay or later of each account in [fromId, toId]
+    // (account_id, business_date, closing_balance_minor)
+    @Query(value = "SELECT c.account_id, c.business_date, c.closing_balance_minor FROM balance_checkpoint c " +
+            "JOIN (SELECT account_id, MIN(business_date) AS first_day FROM balance_checkpoint " +
+            "      WHERE account_id BETWEEN :fromId AND :toId AND business_date >= :fromDay GROUP BY account_id) f " +
+            "  ON f.account_id = c.account_id AND f.first_day = c.business_date",
+            nativeQuery = true)
+    List<Object[]> findFirstCheckpointsInRange(@Param("fromId") Long fromId,
+                                               @Param("toId") Long toId,
+                                               @Param("fromDay") LocalDate fromDay);
+
+    /**
+     * Snapshots the closing balance of day {@code day} for accounts in [fromId, toId]:
+     * current balance (shard slots included) minus every posting dated from {@code dayEnd} on. Re-running a day overwrites it.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO balance_checkpoint (account_id, business_date, closing_balance_minor, transaction_count, created_at) " +
+            "SELECT a.id, :day, " +
+            "a.balance_minor + COALESCE(s.shard_minor, 0) - COALESCE(SUM(CASE WHEN t.date >= :dayEnd THEN " +
+            "  (CASE WHEN t.direction = 'CREDIT' THEN t.amount_minor ELSE -t.amount_minor END) ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN t.date < :dayEnd THEN 1 ELSE 0 END), 0), " +
+            "NOW() " +
+            "FROM bank_account a " +
+            "LEFT JOIN (SELECT account_id, SUM(balance_minor) AS shard_minor FROM balance_shard GROUP BY account_id) s " +
+            "  ON s.account_id = a.id " +
+            "LEFT JOIN transaction t ON t.account_id = a.id AND t.date >= :dayStart " +
+            "WHERE a.id BETWEEN :fromId AND :toId " +
+            "GROUP BY a.id, a.balance_minor, s.shard_minor " +
+            "ON DUPLICATE KEY UPDATE closing_balance_minor = VALUES(closing_balance_minor), " +
+            "transaction_count = VALUES(transaction_count), created_at = VALUES(created_at)",
+            nativeQuery = true)
+    int snapshot(@Param("day") LocalDate day,
+                 @Param("dayStart") LocalDateTime dayStart,
+                 @Param("dayEnd") LocalDateTime dayEnd,
+                 @Param("fromId") Long fromId,
+                 @Param("toId") Long toId);
+}
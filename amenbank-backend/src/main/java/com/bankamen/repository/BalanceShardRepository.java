@@ -0,0 +1,46 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.BalanceShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface BalanceShardRepository extends JpaRepository<BalanceShard, Long> {
+
+    List<BalanceShard> findByAccountIdOrderBySlot(Long accountId);
+
+    @Modifying
+    @Query(value = "UPDATE balance_shard SET balance_minor = balance_minor + :amount WHERE account_id = :accountId AND slot = :slot",
+            nativeQuery = true)
+    int credit(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("amount") long amount);
+
+    // Returns 0 when the slot does not cover the amount on its own, or when the base row carries a debt:
+    // slots are never negative, so a covering slot and a non-negative base row imply a covering aggregate
+    @Modifying
+    @Query(value = "UPDATE balance_shard SET balance_minor = balance_minor - :amount " +
+            "WHERE account_id = :accountId AND slot = :slot AND balance_minor >= :amount " +
+            "AND (SELECT a.balance_minor FROM bank_account a WHERE a.id = :accountId) >= 0",
+            nativeQuery = true)
+    int debitIfCovered(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("amount") long amount);
+
+    // (slot, balance_minor) of every slot, locked in slot order
+    @Query(value = "SELECT slot, balance_minor FROM balance_shard WHERE account_id = :accountId ORDER BY slot FOR UPDATE",
+            nativeQuery = true)
+    List<Object[]> lockSlots(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query(value = "UPDATE balance_shard SET balance_minor = :balance WHERE account_id = :accountId AND slot = :slot",
+            nativeQuery = true)
+    int setSlot(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("balance") long balance);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM balance_shard WHERE account_id = :accountId AND slot >= :fromSlot", nativeQuery = true)
+    int deleteSlotsFrom(@Param("accountId") Long accountId, @Param("fromSlot") int fromSlot);
+}
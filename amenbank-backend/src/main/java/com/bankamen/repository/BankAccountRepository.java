@@ -1,19 +1,96 @@
 package com.bankamen.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.repository.query.Param;
 
 import com.bankamen.entity.BankAccount;
 import com.bankamen.entity.User;
 
-public interface BankAccountRepository extends JpaRepository<BankAccount, Long> {
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+public interface BankAccountRepository extends JpaRepository<BankAccount, Long>, JpaSpecificationExecutor<BankAccount> {
     List<BankAccount> findByUserId(Long userId);
 
     Optional<BankAccount> findByUser(User user);
     long countByActiveTrue();
 
     boolean existsByAccountNumber(String accountNumber);
+
+    // Account metadata for AccountMetadataCache: (id, owner id, owner username, number, type, active)
+    @Query("SELECT a.id, u.id, u.username, a.accountNumber, a.type, a.active FROM BankAccount a JOIN a.user u WHERE a.id = :id")
+    List<Object[]> findMetadataById(@Param("id") Long id);
+
+    @Query("SELECT a.id, u.id, u.username, a.accountNumber, a.type, a.active FROM BankAccount a JOIN a.user u " +
+            "WHERE a.accountNumber = :accountNumber")
+    List<Object[]> findMetadataByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    // AccountNumberFilter build: streamed row by row (fetch size MIN_VALUE with MySQL Connector/J)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT a.accountNumber FROM BankAccount a WHERE a.accountNumber IS NOT NULL")
+    Stream<String> streamAccountNumbers();
+
+    // AccountNumberFilter delta sync: numbers assigned on any node since :since
+    @Query("SELECT a.accountNumber, a.numberChangedAt FROM BankAccount a " +
+            "WHERE a.numberChangedAt > :since AND a.accountNumber IS NOT NULL")
+    List<Object[]> findAccountNumbersChangedSince(@Param("since") LocalDateTime since);
+
+    // Batch postings: row locks taken in ascending id order, so concurrent batches cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM BankAccount a WHERE a.id IN :ids ORDER BY a.id")
+    List<BankAccount> lockAllByIdOrdered(@Param("ids") List<Long> ids);
     Optional<BankAccount> findByAccountNumber(String accountNumber);
+
+    boolean existsByIdAndUserUsername(Long id, String username);
+
+    @Query("SELECT MIN(a.id) FROM BankAccount a")
+    Long findMinId();
+
+    @Query("SELECT MAX(a.id) FROM BankAccount a")
+    Long findMaxId();
+
+    // Reconciliation: (id, total balance_minor, balance_shards) of an id range
+    @Query(value = "SELECT a.id, a.balance_minor + COALESCE((SELECT SUM(s.balance_minor) FROM balance_shard s WHERE s.account_id = a.id), 0), " +
+            "a.balance_shards FROM bank_account a WHERE a.id BETWEEN :fromId AND :toId ORDER BY a.id",
+            nativeQuery = true)
+    List<Object[]> findBalancesInRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Sharded (hot) accounts: base row operations, see BalanceShardService
+    @Query("SELECT a.id FROM BankAccount a WHERE a.balanceShards > 0")
+    List<Long> findShardedIds();
+
+    @Query(value = "SELECT a.balance_minor + COALESCE((SELECT SUM(s.balance_minor) FROM balance_shard s WHERE s.account_id = a.id), 0) " +
+            "FROM bank_account a WHERE a.id = :id", nativeQuery = true)
+    long totalBalance(@Param("id") Long id);
+
+    @Query(value = "SELECT balance_minor FROM bank_account WHERE id = :id FOR UPDATE", nativeQuery = true)
+    long lockBalance(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE bank_account SET balance_minor = :balance, version = version + 1 WHERE id = :id", nativeQuery = true)
+    int setBalance(@Param("id") Long id, @Param("balance") long balance);
+
+    @Modifying
+    @Query(value = "UPDATE bank_account SET balance_shards = :shards, version = version + 1 WHERE id = :id", nativeQuery = true)
+    int setBalanceShards(@Param("id") Long id, @Param("shards") int shards);
+
+    // Used by the ledger engine flusher: applies a net delta (minor units) without loading the entity
+    @Modifying
+    @Query(value = "UPDATE bank_account SET balance_minor = balance_minor + :delta, version = version + 1 WHERE id = :id",
+            nativeQuery = true)
+    int applyBalanceDelta(@Param("id") Long id, @Param("delta") long delta);
 }
@@ -0,0 +1,14 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.BulkImportJobError;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BulkImportJobErrorRepository extends JpaRepository<BulkImportJobError, Long> {
+
+    List<BulkImportJobError> findByJobIdOrderByLineNumber(String jobId, Pageable pageable);
+}
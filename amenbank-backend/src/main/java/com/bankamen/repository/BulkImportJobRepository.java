@@ -0,0 +1,31 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.BulkImportJob;
+import com.bankamen.entity.BulkImportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BulkImportJobRepository extends JpaRepository<BulkImportJob, String> {
+
+    List<BulkImportJob> findTop50ByUsernameOrderByCreatedAtDesc(String username);
+
+    List<BulkImportJob> findByStatusInOrderByCreatedAt(Collection<BulkImportJobStatus> statuses);
+
+    // Chunk checkpoint: runs in the transaction that posted the chunk
+    @Modifying
+    @Query("UPDATE BulkImportJob j SET j.lastCommittedLine = :line, " +
+            "j.successCount = j.successCount + :successes, j.failureCount = j.failureCount + :failures, " +
+            "j.heartbeatAt = CURRENT_TIMESTAMP " +
+            "WHERE j.id = :id")
+    int advance(@Param("id") String id,
+                @Param("line") int line,
+                @Param("successes") int successes,
+                @Param("failures") int failures);
+}
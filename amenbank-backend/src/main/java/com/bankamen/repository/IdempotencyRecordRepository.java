@@ -0,0 +1,47 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Returns 1 when the key was claimed, 0 when another request already holds it
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_key " +
+            "(id, username, idempotency_key, request_hash, status, lease_until, created_at, expires_at) " +
+            "VALUES (:id, :username, :key, :requestHash, 'IN_PROGRESS', :leaseUntil, :createdAt, :expiresAt)", nativeQuery = true)
+    int claim(@Param("id") String id,
+              @Param("username") String username,
+              @Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("leaseUntil") LocalDateTime leaseUntil,
+              @Param("createdAt") LocalDateTime createdAt,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseBody = :response, r.status = com.bankamen.entity.IdempotencyStatus.COMPLETED " +
+            "WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("response") String response);
+
+    // Keeps the key so that a retry cannot post a second time
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.bankamen.entity.IdempotencyStatus.UNKNOWN " +
+            "WHERE r.id = :id AND r.responseBody IS NULL")
+    int markUnknown(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
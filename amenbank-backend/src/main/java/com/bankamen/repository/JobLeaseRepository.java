@@ -0,0 +1,55 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Native queries so that every expiry is computed and compared with the database clock, not the nodes'
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO job_lease (name, fencing_token, expires_at) VALUES (:name, 0, NOW(6))",
+            nativeQuery = true)
+    int createIfAbsent(@Param("name") String name);
+
+    // 1 when the lease was free (expired or released) and is now held by :owner
+    @Modifying
+    @Query(value = "UPDATE job_lease SET owner = :owner, fencing_token = fencing_token + 1, acquired_at = NOW(6), " +
+            "expires_at = DATE_ADD(NOW(6), INTERVAL :ttlMicros MICROSECOND) WHERE name = :name AND expires_at <= NOW(6)",
+            nativeQuery = true)
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("ttlMicros") long ttlMicros);
+
+    @Query(value = "SELECT fencing_token FROM job_lease WHERE name = :name AND owner = :owner", nativeQuery = true)
+    Long findToken(@Param("name") String name, @Param("owner") String owner);
+
+    // 0 when another node acquired the lease since
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_lease SET expires_at = DATE_ADD(NOW(6), INTERVAL :ttlMicros MICROSECOND) " +
+            "WHERE name = :name AND owner = :owner AND fencing_token = :token", nativeQuery = true)
+    int renew(@Param("name") String name, @Param("owner") String owner, @Param("token") long token,
+              @Param("ttlMicros") long ttlMicros);
+
+    // keeps the lease until acquired_at + :minHoldMicros so that other nodes skip the same trigger
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE job_lease SET expires_at = GREATEST(NOW(6), DATE_ADD(acquired_at, INTERVAL :minHoldMicros MICROSECOND)) " +
+            "WHERE name = :name AND owner = :owner AND fencing_token = :token", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner, @Param("token") long token,
+                @Param("minHoldMicros") long minHoldMicros);
+
+    // Fencing check: the shared lock makes a takeover wait for the caller's transaction to end
+    @Query(value = "SELECT COUNT(*) FROM job_lease WHERE name = :name AND owner = :owner AND fencing_token = :token " +
+            "AND expires_at > NOW(6) LOCK IN SHARE MODE", nativeQuery = true)
+    long countHeld(@Param("name") String name, @Param("owner") String owner, @Param("token") long token);
+
+    List<JobLease> findAllByOrderByName();
+}
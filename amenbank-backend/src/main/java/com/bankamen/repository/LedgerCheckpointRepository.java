@@ -0,0 +1,8 @@
+package com.bankamen.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.bankamen.entity.LedgerCheckpoint;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, String> {
+}
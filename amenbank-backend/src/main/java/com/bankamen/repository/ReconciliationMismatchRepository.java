@@ -0,0 +1,14 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.ReconciliationMismatch;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ReconciliationMismatchRepository extends JpaRepository<ReconciliationMismatch, Long> {
+
+    List<ReconciliationMismatch> findByRunIdOrderByAccountId(Long runId, Pageable pageable);
+}
@@ -0,0 +1,16 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.ScheduledTransferExecution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ScheduledTransferExecutionRepository extends JpaRepository<ScheduledTransferExecution, Long> {
+
+    boolean existsByScheduledTransferIdAndExecutionDate(Long scheduledTransferId, LocalDate executionDate);
+
+    List<ScheduledTransferExecution> findTop50ByScheduledTransferIdOrderByExecutionDateDesc(Long scheduledTransferId);
+}
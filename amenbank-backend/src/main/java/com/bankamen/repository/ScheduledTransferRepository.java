@@ -1,12 +1,30 @@
 package com.bankamen.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.bankamen.entity.ScheduledTransfer;
 
-public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long> {
+public interface ScheduledTransferRepository extends JpaRepository<ScheduledTransfer, Long>, JpaSpecificationExecutor<ScheduledTransfer> {
     List<ScheduledTransfer> findByActiveTrueAndStartDateLessThanEqualAndEndDateGreaterThanEqual(LocalDate start, LocalDate end);
+
+    // [id, nextExecutionAt, source account id] of the active transfers of one shard due up to :until,
+    // served by idx_scheduled_transfer_next
+    @Query("SELECT t.id, t.nextExecutionAt, t.sourceAccount.id FROM ScheduledTransfer t " +
+            "WHERE t.active = true AND t.nextExecutionAt <= :until AND MOD(t.sourceAccount.id, :shards) = :shard " +
+            "ORDER BY t.nextExecutionAt, t.id")
+    List<Object[]> findDueInShard(@Param("until") LocalDateTime until, @Param("shards") int shards,
+                                  @Param("shard") int shard, Pageable limit);
+
+    List<ScheduledTransfer> findByActiveTrueAndNextExecutionAtBetween(LocalDateTime from, LocalDateTime to);
+
+    // active transfers without a planned execution (rows written before the column existed)
+    List<ScheduledTransfer> findByActiveTrueAndNextExecutionAtIsNullAndIdGreaterThanOrderById(Long afterId, Pageable limit);
 }
@@ -0,0 +1,16 @@
+package com.bankamen.repository;
+
+import com.bankamen.entity.ScheduledTransferRun;
+import com.bankamen.entity.ScheduledTransferRunStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScheduledTransferRunRepository extends JpaRepository<ScheduledTransferRun, Long> {
+
+    List<ScheduledTransferRun> findByShardAndStatusOrderById(int shard, ScheduledTransferRunStatus status);
+
+    List<ScheduledTransferRun> findTop20ByOrderByIdDesc();
+}
@@ -1,14 +1,21 @@
 package com.bankamen.repository;
 
+import com.bankamen.entity.Money;
 import com.bankamen.entity.Transaction;
 import com.bankamen.entity.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
 
@@ -28,8 +35,22 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             @Param("username") String username
     );
 
-    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.amount > :threshold")
-    long countLargeTransactions(@Param("threshold") Double threshold);
+    /**
+     * Persists both legs of a transfer under one journal entry. Ids come from the table generator at
+     * persist time, so the two rows are flushed together in the same JDBC insert batch.
+     */
+    default Transaction saveTransfer(Transaction debit, Transaction credit) {
+        Transaction saved = save(debit);
+        saved.setJournalEntryId(saved.getId());
+        credit.setJournalEntryId(saved.getId());
+        save(credit);
+        return saved;
+    }
+
+    // Operation counts and alerts look at one leg per transfer (the debit)
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.amount > :threshold " +
+            "AND (t.journalEntryId IS NULL OR t.direction = com.bankamen.entity.PostingDirection.DEBIT)")
+    long countLargeTransactions(@Param("threshold") Money threshold);
 
     // Fixed with JOIN FETCH for recent transactions
     @Query("SELECT t FROM Transaction t " +
@@ -39,6 +60,9 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             "LIMIT 10")
     List<Transaction> findTop10ByOrderByDateDesc();
 
+    // Ledger engine postings carrying a caller key (bulk import lines)
+    boolean existsByReference(String reference);
+
     // Fixed with JOIN FETCH for account-based queries
     @Query("SELECT t FROM Transaction t " +
             "LEFT JOIN FETCH t.account a " +
@@ -47,42 +71,101 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             "ORDER BY t.date DESC")
     List<Transaction> findByAccountId(@Param("accountId") Long accountId);
 
-    // Fixed filtres personnalisés with JOIN FETCH
+    // Keyset pagination: seek strictly before/after the (date, id) cursor on idx_transaction_account_date_id
     @Query("SELECT t FROM Transaction t " +
-            "LEFT JOIN FETCH t.account a " +
-            "LEFT JOIN FETCH a.user u " +
-            "WHERE t.account.id = :accountId AND t.type = :type " +
-            "ORDER BY t.date DESC")
-    List<Transaction> findByAccountIdAndType(@Param("accountId") Long accountId,
-                                             @Param("type") TransactionType type);
+            "JOIN FETCH t.account a " +
+            "WHERE a.id = :accountId " +
+            "AND (t.date < :cursorDate OR (t.date = :cursorDate AND t.id < :cursorId)) " +
+            "AND (:type IS NULL OR t.type = :type) " +
+            "AND (:start IS NULL OR t.date >= :start) AND (:end IS NULL OR t.date <= :end) " +
+            "AND (:min IS NULL OR t.amount >= :min) AND (:max IS NULL OR t.amount <= :max) " +
+            "ORDER BY t.date DESC, t.id DESC")
+    List<Transaction> findPageBefore(@Param("accountId") Long accountId,
+                                     @Param("cursorDate") LocalDateTime cursorDate,
+                                     @Param("cursorId") Long cursorId,
+                                     @Param("type") TransactionType type,
+                                     @Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end,
+                                     @Param("min") Money min,
+                                     @Param("max") Money max,
+                                     Pageable pageable);
 
     @Query("SELECT t FROM Transaction t " +
-            "LEFT JOIN FETCH t.account a " +
-            "LEFT JOIN FETCH a.user u " +
-            "WHERE t.account.id = :accountId AND t.date BETWEEN :start AND :end " +
-            "ORDER BY t.date DESC")
-    List<Transaction> findByAccountIdAndDateBetween(@Param("accountId") Long accountId,
-                                                    @Param("start") LocalDateTime start,
-                                                    @Param("end") LocalDateTime end);
+            "JOIN FETCH t.account a " +
+            "WHERE a.id = :accountId " +
+            "AND (t.date > :cursorDate OR (t.date = :cursorDate AND t.id > :cursorId)) " +
+            "AND (:type IS NULL OR t.type = :type) " +
+            "AND (:start IS NULL OR t.date >= :start) AND (:end IS NULL OR t.date <= :end) " +
+            "AND (:min IS NULL OR t.amount >= :min) AND (:max IS NULL OR t.amount <= :max) " +
+            "ORDER BY t.date ASC, t.id ASC")
+    List<Transaction> findPageAfter(@Param("accountId") Long accountId,
+                                    @Param("cursorDate") LocalDateTime cursorDate,
+                                    @Param("cursorId") Long cursorId,
+                                    @Param("type") TransactionType type,
+                                    @Param("start") LocalDateTime start,
+                                    @Param("end") LocalDateTime end,
+                                    @Param("min") Money min,
+                                    @Param("max") Money max,
+                                    Pageable pageable);
 
+    // Export: forward-only, read-only stream (fetch size MIN_VALUE makes MySQL Connector/J stream rows one by one)
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
     @Query("SELECT t FROM Transaction t " +
-            "LEFT JOIN FETCH t.account a " +
-            "LEFT JOIN FETCH a.user u " +
-            "WHERE t.account.id = :accountId AND t.amount BETWEEN :min AND :max " +
-            "ORDER BY t.date DESC")
-    List<Transaction> findByAccountIdAndAmountBetween(@Param("accountId") Long accountId,
-                                                      @Param("min") Double min,
-                                                      @Param("max") Double max);
+            "JOIN FETCH t.account a " +
+            "WHERE a.user.id = :userId " +
+            "AND (:type IS NULL OR t.type = :type) " +
+            "AND (:start IS NULL OR t.date >= :start) AND (:end IS NULL OR t.date <= :end) " +
+            "AND (:min IS NULL OR t.amount >= :min) AND (:max IS NULL OR t.amount <= :max) " +
+            "ORDER BY t.date ASC, t.id ASC")
+    Stream<Transaction> streamForExport(@Param("userId") Long userId,
+                                        @Param("type") TransactionType type,
+                                        @Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end,
+                                        @Param("min") Money min,
+                                        @Param("max") Money max);
+
+    // Reconciliation: raw postings of an id range in chain order (account_id, direction, amount_minor, balance_after_minor, id, date)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(value = "SELECT t.account_id, t.direction, t.amount_minor, t.balance_after_minor, t.id, t.date FROM transaction t " +
+            "WHERE t.account_id BETWEEN :fromId AND :toId ORDER BY t.account_id, t.date, t.id",
+            nativeQuery = true)
+    Stream<Object[]> streamPostingsForReconciliation(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    // Date of the last transfer written without its credit leg (before double entry); null when there is none
+    @Query("SELECT MAX(t.date) FROM Transaction t WHERE t.type = com.bankamen.entity.TransactionType.TRANSFER " +
+            "AND t.journalEntryId IS NULL")
+    LocalDateTime findLastSingleLegTransferDate();
+
+    // Net signed movement (minor units) and number of postings of an account in [from, to)
+    interface PostingDelta {
+        Long getDelta();
+        Long getCount();
+    }
+
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN t.direction = 'CREDIT' THEN t.amount_minor ELSE -t.amount_minor END), 0) AS delta, " +
+            "COUNT(t.id) AS count " +
+            "FROM transaction t WHERE t.account_id = :accountId AND t.date >= :from AND t.date < :to",
+            nativeQuery = true)
+    PostingDelta sumPostings(@Param("accountId") Long accountId,
+                             @Param("from") LocalDateTime from,
+                             @Param("to") LocalDateTime to);
 
     // Fixed for suspicious transaction detection
     @Query("SELECT t FROM Transaction t " +
             "LEFT JOIN FETCH t.account a " +
             "LEFT JOIN FETCH a.user u " +
             "WHERE t.date > :after AND t.amount > :amount " +
+            "AND (t.journalEntryId IS NULL OR t.direction = com.bankamen.entity.PostingDirection.DEBIT) " +
             "ORDER BY t.date DESC")
     List<Transaction> findByDateAfterAndAmountGreaterThan(@Param("after") LocalDateTime after,
-                                                          @Param("amount") Double amount);
+                                                          @Param("amount") Money amount);
 
     // This one doesn't need JOIN FETCH as it's just counting
-    long countByDateAfter(LocalDateTime date);
+    @Query("SELECT COUNT(t) FROM Transaction t WHERE t.date > :date " +
+            "AND (t.journalEntryId IS NULL OR t.direction = com.bankamen.entity.PostingDirection.DEBIT)")
+    long countByDateAfter(@Param("date") LocalDateTime date);
 }
\ No newline at end of file
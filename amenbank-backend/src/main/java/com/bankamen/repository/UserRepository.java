@@ -1,16 +1,67 @@
 package com.bankamen.repository;
 
+import com.bankamen.dto.UserSummaryDTO;
+import com.bankamen.entity.Role;
 import com.bankamen.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsernameIgnoreCase(String username);
 
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    // UserSearchIndex build: (id, username, firstName, lastName), streamed row by row
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName FROM User u")
+    Stream<Object[]> streamSearchFields();
+
+    // UserSearchIndex delta sync: (id, username, firstName, lastName, searchChangedAt) changed on any node since :since
+    @Query("SELECT u.id, u.username, u.firstName, u.lastName, u.searchChangedAt FROM User u WHERE u.searchChangedAt > :since")
+    List<Object[]> findSearchFieldsChangedSince(@Param("since") LocalDateTime since);
+
+    // UserSearchIndex hits that still exist: a user deleted on another node stays indexed here until checked
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Admin user grid: displayed columns only, account count as a correlated subquery (no GROUP BY);
+    // the count query does not touch bank_account. :prefix is a 'x%' pattern escaped with '!', or null
+    @Query(value = "SELECT new com.bankamen.dto.UserSummaryDTO(u.id, u.username, u.firstName, u.lastName, u.email, " +
+            "u.role, u.enabled, u.accountNonLocked, u.lastLogin, " +
+            "(SELECT COUNT(a) FROM BankAccount a WHERE a.user = u)) " +
+            "FROM User u " +
+            "WHERE (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '!' OR u.lastName LIKE :prefix ESCAPE '!' " +
+            "OR u.email LIKE :prefix ESCAPE '!') " +
+            "AND (:role IS NULL OR u.role = :role) " +
+            "AND (:enabled IS NULL OR u.enabled = :enabled)",
+            countQuery = "SELECT COUNT(u) FROM User u " +
+                    "WHERE (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '!' OR u.lastName LIKE :prefix ESCAPE '!' " +
+                    "OR u.email LIKE :prefix ESCAPE '!') " +
+                    "AND (:role IS NULL OR u.role = :role) " +
+                    "AND (:enabled IS NULL OR u.enabled = :enabled)")
+    Page<UserSummaryDTO> findSummaries(@Param("prefix") String prefix,
+                                       @Param("role") Role role,
+                                       @Param("enabled") Boolean enabled,
+                                       Pageable pageable);
+
     Optional<User> findByEmail(String email);
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
@@ -0,0 +1,261 @@
+package com.bankamen.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.bankamen.entity.AccountType;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Read-through cache of account metadata (owner, number, type, active flag) and of
+ * username -> user id, for the ownership checks and lookups made on nearly every client request.
+ * <p>
+ * Each map is bounded (least recently used entries are evicted first) and entries expire after a
+ * TTL, which also bounds staleness for writes that bypass the invalidation hooks. Balances are
+ * never cached: they are always read from the database. Absent keys are not cached either, so a
+ * newly created account or user is visible immediately.
+ * <p>
+ * Invalidation only reaches the local node. Account metadata, which carries the owner, therefore
+ * uses a shorter TTL (app.account-cache.account-ttl-seconds), and ownership checks guarding
+ * postings read the database instead (see {@code BankAccountService#userOwnsAccountForPosting}).
+ * <p>
+ * Metrics: {@code account.cache.requests{cache, result=hit|miss}}, {@code account.cache.evictions{cache}}
+ * and {@code account.cache.size{cache}}.
+ */
+@Service
+public class AccountMetadataCache {
+
+    public record AccountMetadata(Long id, Long ownerId, String ownerUsername, String accountNumber,
+                                  AccountType type, boolean active) {
+    }
+
+    private final BankAccountRepository accountRepo;
+    private final UserRepository userRepository;
+    private final AccountNumberFilter numberFilter;
+    private final BoundedTtlMap<Long, AccountMetadata> accounts;
+    private final BoundedTtlMap<String, Long> accountIdsByNumber;
+    private final BoundedTtlMap<String, Long> userIdsByUsername;
+
+    public AccountMetadataCache(BankAccountRepository accountRepo,
+                                UserRepository userRepository,
+                                AccountNumberFilter numberFilter,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.account-cache.ttl-seconds:300}") long ttlSeconds,
+                                @Value("${app.account-cache.account-ttl-seconds:30}") long accountTtlSeconds,
+                                @Value("${app.account-cache.max-entries:50000}") int maxEntries) {
+        this.accountRepo = accountRepo;
+        this.userRepository = userRepository;
+        this.numberFilter = numberFilter;
+        long ttlMillis = Math.max(1, ttlSeconds) * 1000L;
+        int capacity = Math.max(1, maxEntries);
+        this.accounts = new BoundedTtlMap<>("account", capacity, Math.max(1, accountTtlSeconds) * 1000L, meterRegistry);
+        this.accountIdsByNumber = new BoundedTtlMap<>("account-number", capacity, ttlMillis, meterRegistry);
+        this.userIdsByUsername = new BoundedTtlMap<>("username", capacity, ttlMillis, meterRegistry);
+    }
+
+    public Optional<AccountMetadata> getAccount(Long accountId) {
+        return Optional.ofNullable(accounts.get(accountId, id -> first(accountRepo.findMetadataById(id))));
+    }
+
+    /** Authoritative: a number missing from the cache is looked up in the database. */
+    public Optional<Long> findAccountIdByNumber(String accountNumber) {
+        if (accountNumber == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(accountIdsByNumber.get(accountNumber, this::loadAccountIdByNumber));
+    }
+
+    /**
+     * Existence check typed by users: negatives from the Bloom filter never reach the database, at
+     * the cost of missing a number created on another node since the filter's last sync.
+     */
+    public boolean accountNumberExists(String accountNumber) {
+        if (accountNumber == null) {
+            return false;
+        }
+        return accountIdsByNumber.get(accountNumber, number -> {
+            if (!numberFilter.mightExist(number)) {
+                return null;
+            }
+            Long id = loadAccountIdByNumber(number);
+            numberFilter.recordPositiveOutcome(id != null);
+            return id;
+        }) != null;
+    }
+
+    private Long loadAccountIdByNumber(String number) {
+        long generation = accounts.generation();
+        AccountMetadata metadata = first(accountRepo.findMetadataByAccountNumber(number));
+        if (metadata == null) {
+            return null;
+        }
+        // same rule as a read-through load: an invalidation during the read wins
+        accounts.putUnlessChanged(metadata.id(), metadata, generation);
+        return metadata.id();
+    }
+
+    public Optional<Long> findUserIdByUsername(String username) {
+        if (username == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(userIdsByUsername.get(username, name -> userRepository.findIdByUsername(name).orElse(null)));
+    }
+
+    /** Refreshes the metadata of accounts the caller has just loaded anyway. */
+    public void warm(List<BankAccount> loaded) {
+        for (BankAccount account : loaded) {
+            if (account.getUser() != null) {
+                accounts.put(account.getId(), new AccountMetadata(account.getId(), account.getUser().getId(),
+                        account.getUser().getUsername(), account.getAccountNumber(), account.getType(), account.isActive()));
+            }
+        }
+    }
+
+    /** Drops one account, including the number mapping it was cached under. */
+    public void invalidateAccount(Long accountId) {
+        AccountMetadata previous = accounts.remove(accountId);
+        if (previous != null && previous.accountNumber() != null) {
+            accountIdsByNumber.remove(previous.accountNumber());
+        }
+        accountIdsByNumber.removeValue(accountId);
+    }
+
+    /** Drops a user's username mapping and the cached metadata of their accounts. */
+    public void invalidateUser(Long userId, String username) {
+        if (username != null) {
+            userIdsByUsername.remove(username);
+        }
+        userIdsByUsername.removeValue(userId);
+        accounts.removeIf(metadata -> metadata.ownerId().equals(userId));
+    }
+
+    private static AccountMetadata first(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Object[] row = rows.get(0);
+        return new AccountMetadata((Long) row[0], (Long) row[1], (String) row[2], (String) row[3],
+                (AccountType) row[4], (Boolean) row[5]);
+    }
+
+    /**
+     * LRU map with per-entry expiry; all access is synchronized on the map. Every removal bumps a
+     * generation, and a value loaded while the generation moved is returned but not cached, so an
+     * invalidation racing with a load is never undone by it.
+     */
+    private static final class BoundedTtlMap<K, V> {
+
+        private record Entry<V>(V value, long expiresAtMillis) {
+        }
+
+        private final Map<K, Entry<V>> map;
+        private final long ttlMillis;
+        private final Counter hits;
+        private final Counter misses;
+        private long generation;
+
+        BoundedTtlMap(String name, int capacity, long ttlMillis, MeterRegistry meterRegistry) {
+            this.ttlMillis = ttlMillis;
+            Counter evictions = Counter.builder("account.cache.evictions").tag("cache", name)
+                    .description("Entries evicted because the cache was full")
+                    .register(meterRegistry);
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+            this.hits = Counter.builder("account.cache.requests").tag("cache", name).tag("result", "hit")
+                    .register(meterRegistry);
+            this.misses = Counter.builder("account.cache.requests").tag("cache", name).tag("result", "miss")
+                    .register(meterRegistry);
+            Gauge.builder("account.cache.size", this, BoundedTtlMap::size).tag("cache", name).register(meterRegistry);
+        }
+
+        /** The loader runs outside the lock; a null result is not cached. */
+        V get(K key, Function<K, V> loader) {
+            long now = System.currentTimeMillis();
+            long loadGeneration;
+            synchronized (map) {
+                Entry<V> entry = map.get(key);
+                if (entry != null && entry.expiresAtMillis() >= now) {
+                    hits.increment();
+                    return entry.value();
+                }
+                loadGeneration = generation;
+            }
+            misses.increment();
+            V value = loader.apply(key);
+            if (value != null) {
+                putUnlessChanged(key, value, loadGeneration);
+            }
+            return value;
+        }
+
+        void put(K key, V value) {
+            synchronized (map) {
+                map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+
+        long generation() {
+            synchronized (map) {
+                return generation;
+            }
+        }
+
+        /** Caches a value loaded elsewhere, unless something was removed since {@code loadGeneration}. */
+        void putUnlessChanged(K key, V value, long loadGeneration) {
+            synchronized (map) {
+                if (generation == loadGeneration) {
+                    map.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+        }
+
+        V remove(K key) {
+            synchronized (map) {
+                generation++;
+                Entry<V> entry = map.remove(key);
+                return entry != null ? entry.value() : null;
+            }
+        }
+
+        void removeValue(Object value) {
+            synchronized (map) {
+                generation++;
+                map.values().removeIf(entry -> entry.value().equals(value));
+            }
+        }
+
+        void removeIf(Predicate<V> predicate) {
+            synchronized (map) {
+                generation++;
+                map.values().removeIf(entry -> predicate.test(entry.value()));
+            }
+        }
+
+        int size() {
+            synchronized (map) {
+                return map.size();
+            }
+        }
+    }
+}
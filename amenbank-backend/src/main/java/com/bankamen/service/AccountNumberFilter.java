@@ -0,0 +1,384 @@
+package com.bankamen.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.repository.BankAccountRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Counting Bloom filter over every account number, so lookups of numbers that do not exist
+ * (validate-account is called on each keystroke) are answered without a query.
+ * <p>
+ * {@link #mightExist} never returns false for an existing number: a negative is definite, a
+ * positive must be confirmed by the cache or the database. Counters are 4 bits wide (16 per long),
+ * which lets deleted numbers be removed; a saturated counter is never decremented again.
+ * <p>
+ * The filter is built from a streamed scan once the application is ready and rebuilt nightly, or
+ * sooner when it holds more numbers than it was sized for. Until the first build completes every
+ * number is reported as possibly existing. Numbers added while a rebuild is scanning go to both
+ * filters; removals are not applied to the filter being built, which can only cost a false positive.
+ * <p>
+ * A number must only be removed from the counters it was added to, or it would take other numbers
+ * out with it. The sync therefore never relies on {@code mightContain} (a false positive would skip
+ * the add): each filter remembers the numbers it counted that a sync can still re-read, and adds
+ * every other number it reads. The scan of a rebuild is not tracked, so a number assigned just as
+ * the scan ran may be counted twice, which only costs a false positive after its removal.
+ * <p>
+ * Numbers assigned on other nodes are loaded every few seconds from {@code number_changed_at}; if
+ * that sync stops succeeding the filter answers "possibly" for everything. A number created on
+ * another node can still be reported missing until the next sync, so the filter is advisory: only
+ * the existence check typed by users relies on it, lookups that move money go to the database.
+ */
+@Service
+public class AccountNumberFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountNumberFilter.class);
+
+    // node clocks stamp number_changed_at: every sync re-reads this much before its watermark
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    private final BankAccountRepository accountRepo;
+    private final TransactionTemplate readOnlyTemplate;
+    private final TaskScheduler maintenanceScheduler;
+    private final long minExpectedNumbers;
+    private final double targetFalsePositiveRate;
+    private final Duration maxSyncAge;
+
+    private final Object writeLock = new Object();
+    private volatile CountingBloomFilter current;
+    private CountingBloomFilter building;
+    // numbers added to current / building outside of the scan, with their change time, while a sync can re-read them
+    private Map<String, LocalDateTime> currentCounted = new HashMap<>();
+    private Map<String, LocalDateTime> buildingCounted = new HashMap<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    // newest number_changed_at applied to the current filter
+    private volatile LocalDateTime syncedUntil;
+    private volatile long lastSyncNanos;
+
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    public AccountNumberFilter(BankAccountRepository accountRepo,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier(JobPool.MAINTENANCE_SCHEDULER) TaskScheduler maintenanceScheduler,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.account-bloom.expected-numbers:100000}") long minExpectedNumbers,
+                               @Value("${app.account-bloom.false-positive-rate:0.01}") double targetFalsePositiveRate,
+                               @Value("${app.account-bloom.sync-interval-ms:5000}") long syncIntervalMs) {
+        this.accountRepo = accountRepo;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.maintenanceScheduler = maintenanceScheduler;
+        this.minExpectedNumbers = Math.max(1, minExpectedNumbers);
+        this.targetFalsePositiveRate = Math.min(0.5, Math.max(1e-6, targetFalsePositiveRate));
+        this.maxSyncAge = Duration.ofMillis(3 * Math.max(1, syncIntervalMs));
+
+        this.negatives = Counter.builder("account.bloom.checks").tag("result", "negative")
+                .description("Account number lookups answered by the Bloom filter alone")
+                .register(meterRegistry);
+        this.positives = Counter.builder("account.bloom.checks").tag("result", "positive")
+                .description("Account number lookups passed on to the cache or the database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("account.bloom.false-positives")
+                .description("Positives the database did not confirm")
+                .register(meterRegistry);
+        Gauge.builder("account.bloom.false-positive-rate", this, AccountNumberFilter::observedFalsePositiveRate)
+                .description("False positives / lookups of numbers that do not exist")
+                .register(meterRegistry);
+        Gauge.builder("account.bloom.expected-false-positive-rate", this,
+                        f -> f.current != null ? f.current.expectedFalsePositiveRate() : Double.NaN)
+                .description("Theoretical rate for the current fill")
+                .register(meterRegistry);
+        Gauge.builder("account.bloom.size-bytes", this, f -> f.current != null ? f.current.sizeBytes() : 0)
+                .register(meterRegistry);
+    }
+
+    /** False means the number did not exist as of the last sync. */
+    public boolean mightExist(String accountNumber) {
+        CountingBloomFilter filter = current;
+        if (filter == null || System.nanoTime() - lastSyncNanos > maxSyncAge.toNanos()) {
+            return true;
+        }
+        if (!filter.mightContain(accountNumber)) {
+            negatives.increment();
+            return false;
+        }
+        positives.increment();
+        return true;
+    }
+
+    /** Reports the database outcome of a lookup {@link #mightExist} passed on. */
+    public void recordPositiveOutcome(boolean exists) {
+        if (!exists && current != null) {
+            falsePositives.increment();
+        }
+    }
+
+    public void add(String accountNumber) {
+        if (accountNumber == null) {
+            return;
+        }
+        boolean overfilled;
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (writeLock) {
+            if (current != null) {
+                current.add(accountNumber);
+                currentCounted.put(accountNumber, now);
+            }
+            if (building != null) {
+                building.add(accountNumber);
+                buildingCounted.put(accountNumber, now);
+            }
+            overfilled = current != null && current.count() > current.capacity();
+        }
+        if (overfilled && rebuildScheduled.compareAndSet(false, true)) {
+            logger.info("Filtre des numéros de compte saturé, reconstruction");
+            maintenanceScheduler.schedule(() -> {
+                rebuildScheduled.set(false);
+                rebuild();
+            }, Instant.now());
+        }
+    }
+
+    public void remove(String accountNumber) {
+        if (accountNumber == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (current != null) {
+                current.remove(accountNumber);
+                // if the number comes back, its next sync must count it again
+                currentCounted.remove(accountNumber);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        rebuild();
+    }
+
+    /** Adds the numbers assigned or changed on any node since the last sync. */
+    @Scheduled(fixedDelayString = "${app.account-bloom.sync-interval-ms:5000}", scheduler = JobPool.MAINTENANCE_SCHEDULER)
+    public void syncChanges() {
+        CountingBloomFilter filter = current;
+        LocalDateTime since = syncedUntil;
+        if (filter == null || since == null) {
+            return;
+        }
+        List<Object[]> changed = accountRepo.findAccountNumbersChangedSince(since.minus(CLOCK_SKEW));
+        LocalDateTime newest = since;
+        synchronized (writeLock) {
+            if (current != filter) {
+                // rebuilt meanwhile: the new filter has its own watermark
+                return;
+            }
+            for (Object[] row : changed) {
+                String number = (String) row[0];
+                LocalDateTime changedAt = (LocalDateTime) row[1];
+                // numbers re-read from the overlap are already in: adding them again would inflate the counters
+                if (currentCounted.putIfAbsent(number, changedAt) == null) {
+                    filter.add(number);
+                }
+                if (building != null && buildingCounted.putIfAbsent(number, changedAt) == null) {
+                    building.add(number);
+                }
+                if (changedAt.isAfter(newest)) {
+                    newest = changedAt;
+                }
+            }
+            syncedUntil = newest;
+            lastSyncNanos = System.nanoTime();
+            // the next sync reads changes after newest - CLOCK_SKEW: older entries cannot come back
+            LocalDateTime horizon = newest.minus(CLOCK_SKEW);
+            currentCounted.values().removeIf(changedAt -> !changedAt.isAfter(horizon));
+        }
+    }
+
+    @Scheduled(cron = "${app.account-bloom.rebuild-cron:0 15 3 * * *}", scheduler = JobPool.MAINTENANCE_SCHEDULER)
+    public void rebuild() {
+        // sized with headroom so that the filter absorbs new accounts until the next rebuild
+        CountingBloomFilter next = new CountingBloomFilter(Math.max(minExpectedNumbers, 2 * accountRepo.count()),
+                targetFalsePositiveRate);
+        synchronized (writeLock) {
+            if (building != null) {
+                return;
+            }
+            building = next;
+            buildingCounted = new HashMap<>();
+        }
+        long started = System.currentTimeMillis();
+        // numbers assigned from here on may be missed by the scan: the first sync of the new filter covers them
+        LocalDateTime scanStart = LocalDateTime.now();
+        try {
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<String> numbers = accountRepo.streamAccountNumbers()) {
+                    numbers.forEach(number -> {
+                        synchronized (writeLock) {
+                            next.add(number);
+                        }
+                    });
+                }
+            });
+            synchronized (writeLock) {
+                current = next;
+                currentCounted = buildingCounted;
+                syncedUntil = scanStart;
+                lastSyncNanos = System.nanoTime();
+            }
+            logger.info("Filtre des numéros de compte construit : {} numéros, {} octets, en {} ms",
+                    next.count(), next.sizeBytes(), System.currentTimeMillis() - started);
+        } catch (RuntimeException e) {
+            logger.error("Échec de la construction du filtre des numéros de compte", e);
+        } finally {
+            synchronized (writeLock) {
+                building = null;
+                buildingCounted = new HashMap<>();
+            }
+        }
+    }
+
+    private double observedFalsePositiveRate() {
+        double fp = falsePositives.count();
+        double absent = fp + negatives.count();
+        return absent == 0 ? 0 : fp / absent;
+    }
+
+    /** Fixed-size counting Bloom filter; writes are serialized by the caller, reads are lock-free. */
+    static final class CountingBloomFilter {
+
+        private static final int COUNTER_BITS = 4;
+        private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+        private static final long MAX_COUNT = (1L << COUNTER_BITS) - 1;
+
+        private final AtomicLongArray words;
+        private final long counters;
+        private final int hashes;
+        private final long capacity;
+        private final AtomicLong count = new AtomicLong();
+
+        CountingBloomFilter(long expectedNumbers, double falsePositiveRate) {
+            long m = (long) Math.ceil(-expectedNumbers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.counters = Math.max(COUNTERS_PER_WORD, m);
+            this.hashes = Math.max(1, (int) Math.round((double) counters / expectedNumbers * Math.log(2)));
+            this.capacity = expectedNumbers;
+            this.words = new AtomicLongArray(Math.toIntExact((counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                if (counter(index(h1, h2, i)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void add(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long index = index(h1, h2, i);
+                long c = counter(index);
+                if (c < MAX_COUNT) {
+                    setCounter(index, c + 1);
+                }
+            }
+            count.incrementAndGet();
+        }
+
+        void remove(String value) {
+            if (!mightContain(value)) {
+                return;
+            }
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long index = index(h1, h2, i);
+                long c = counter(index);
+                // a saturated counter no longer knows how many numbers share it
+                if (c > 0 && c < MAX_COUNT) {
+                    setCounter(index, c - 1);
+                }
+            }
+            count.decrementAndGet();
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        long capacity() {
+            return capacity;
+        }
+
+        long sizeBytes() {
+            return (long) words.length() * Long.BYTES;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashes * Math.max(0, count.get()) / counters), hashes);
+        }
+
+        private long index(long h1, long h2, int i) {
+            return Math.floorMod(h1 + i * h2, counters);
+        }
+
+        private long counter(long index) {
+            int shift = (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+            return (words.get((int) (index / COUNTERS_PER_WORD)) >>> shift) & MAX_COUNT;
+        }
+
+        private void setCounter(long index, long value) {
+            int word = (int) (index / COUNTERS_PER_WORD);
+            int shift = (int) (index % COUNTERS_PER_WORD) * COUNTER_BITS;
+            long bits = words.get(word);
+            words.set(word, (bits & ~(MAX_COUNT << shift)) | (value << shift));
+        }
+
+        /** 64-bit FNV-1a over the UTF-8 bytes, then a finalizer to spread the bits. */
+        private static long hash(String value) {
+            long h = 0xCBF29CE484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
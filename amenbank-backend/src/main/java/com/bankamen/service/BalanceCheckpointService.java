@@ -0,0 +1,115 @@
+package com.bankamen.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.dto.BalanceAtDTO;
+import com.bankamen.entity.BalanceCheckpoint;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BalanceCheckpointRepository;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.TransactionRepository;
+
+/**
+ * End-of-day balance checkpoints. A closing balance is derived from the current balance minus the
+ * postings dated after the day, so a late or missed run can still snapshot past days exactly.
+ * A balance at any instant is then the nearest earlier checkpoint plus at most a day of postings.
+ */
+@Service
+public class BalanceCheckpointService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceCheckpointService.class);
+
+    private final BalanceCheckpointRepository checkpointRepo;
+    private final BankAccountRepository accountRepo;
+    private final TransactionRepository transactionRepo;
+    private final JobLeaseService leaseService;
+    private final int accountBatchSize;
+    private final int maxBackfillDays;
+
+    public BalanceCheckpointService(BalanceCheckpointRepository checkpointRepo,
+                                    BankAccountRepository accountRepo,
+                                    TransactionRepository transactionRepo,
+                                    JobLeaseService leaseService,
+                                    @Value("${app.balance-checkpoint.account-batch-size:1000}") int accountBatchSize,
+                                    @Value("${app.balance-checkpoint.max-backfill-days:31}") int maxBackfillDays) {
+        this.checkpointRepo = checkpointRepo;
+        this.accountRepo = accountRepo;
+        this.transactionRepo = transactionRepo;
+        this.leaseService = leaseService;
+        this.accountBatchSize = Math.max(1, accountBatchSize);
+        this.maxBackfillDays = Math.max(1, maxBackfillDays);
+    }
+
+    /** Snapshots every closed day since the last checkpoint (bounded backfill). */
+    @Scheduled(cron = "${app.balance-checkpoint.cron:0 5 0 * * *}", scheduler = JobPool.LEDGER_SCHEDULER)
+    public void snapshotClosedDays() {
+        leaseService.runExclusive("balance-checkpoint", Duration.ofHours(1), this::snapshotSinceLastCheckpoint);
+    }
+
+    private void snapshotSinceLastCheckpoint() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate last = checkpointRepo.findLastBusinessDate();
+        LocalDate day = last == null ? yesterday : last.plusDays(1);
+        if (day.isBefore(yesterday.minusDays(maxBackfillDays - 1L))) {
+            day = yesterday.minusDays(maxBackfillDays - 1L);
+        }
+        for (; !day.isAfter(yesterday); day = day.plusDays(1)) {
+            snapshot(day);
+        }
+    }
+
+    public int snapshot(LocalDate day) {
+        Long minId = accountRepo.findMinId();
+        Long maxId = accountRepo.findMaxId();
+        if (minId == null) {
+            return 0;
+        }
+        long started = System.currentTimeMillis();
+        int rows = 0;
+        // one short statement per id range rather than one long one over the whole book
+        for (long from = minId; from <= maxId; from += accountBatchSize) {
+            rows += checkpointRepo.snapshot(day, day.atStartOfDay(), day.plusDays(1).atStartOfDay(),
+                    from, from + accountBatchSize - 1);
+        }
+        logger.info("Soldes de clôture du {} enregistrés ({} lignes) en {} ms", day, rows, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    /** Balance including every posting dated strictly before {@code at}. */
+    public BalanceAtDTO balanceAt(Long accountId, LocalDateTime at) {
+        BankAccount account = accountRepo.findById(accountId)
+                .orElseThrow(() -> new BusinessException("Compte introuvable"));
+        LocalDateTime now = LocalDateTime.now();
+        if (!at.isBefore(now)) {
+            return new BalanceAtDTO(accountId, at, account.getTotalBalance(), null, 0);
+        }
+
+        // closing of day D covers postings before D+1 00:00, which is <= at whenever D < at's date
+        Optional<BalanceCheckpoint> checkpoint = checkpointRepo
+                .findTopByAccountIdAndBusinessDateLessThanOrderByBusinessDateDesc(accountId, at.toLocalDate());
+        if (checkpoint.isPresent()) {
+            BalanceCheckpoint c = checkpoint.get();
+            TransactionRepository.PostingDelta delta = transactionRepo.sumPostings(accountId,
+                    c.getBusinessDate().plusDays(1).atStartOfDay(), at);
+            return new BalanceAtDTO(accountId, at, c.getClosingBalance().plus(Money.ofMinor(delta.getDelta())),
+                    c.getBusinessDate(), delta.getCount());
+        }
+
+        // no checkpoint yet: walk back from the current balance
+        TransactionRepository.PostingDelta delta = transactionRepo.sumPostings(accountId, at, now.plusSeconds(1));
+        return new BalanceAtDTO(accountId, at, account.getTotalBalance().minus(Money.ofMinor(delta.getDelta())),
+                null, delta.getCount());
+    }
+}
@@ -0,0 +1,180 @@
+package com.bankamen.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.entity.BalanceShard;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BalanceShardRepository;
+import com.bankamen.repository.BankAccountRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Balance slots for hot accounts (merchant collection, payroll sources...).
+ * <p>
+ * A sharded account's balance is its bank_account row plus N balance_shard rows. A credit adds to
+ * one random slot; a debit first tries to take the whole amount from one random slot. When no
+ * single slot covers it, the base row and every slot are locked (always in that order) and the
+ * amount is borrowed across them, so funds are checked against the exact aggregate. A periodic
+ * consolidation merges everything and spreads it evenly over the slots again.
+ * <p>
+ * Slots never go negative; only the base row can carry a debt (a negative total kept there by
+ * {@link #spread}, or ledger engine write-behind deltas). The single-slot path is therefore only
+ * taken while the base row is not negative, otherwise the debit is checked against the aggregate.
+ * <p>
+ * The balanceAfter recorded on postings of a sharded account is the aggregate read right after the
+ * update, which concurrent postings on other slots may already have moved.
+ */
+@Service
+@RequiredArgsConstructor
+public class BalanceShardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceShardService.class);
+
+    private final BalanceShardRepository shardRepo;
+    private final BankAccountRepository accountRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseService leaseService;
+
+    public boolean isSharded(BankAccount account) {
+        return account.getBalanceShards() > 0;
+    }
+
+    /** @return the account balance after the credit */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Money credit(BankAccount account, Money amount) {
+        int slot = ThreadLocalRandom.current().nextInt(account.getBalanceShards());
+        if (shardRepo.credit(account.getId(), slot, amount.minor()) == 0) {
+            // slot removed by a concurrent re-configuration: credit the base row instead
+            accountRepo.applyBalanceDelta(account.getId(), amount.minor());
+        }
+        return Money.ofMinor(accountRepo.totalBalance(account.getId()));
+    }
+
+    /** @return the account balance after the debit */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = BusinessException.class)
+    public Money debit(BankAccount account, Money amount) {
+        Long id = account.getId();
+        long needed = amount.minor();
+        int slot = ThreadLocalRandom.current().nextInt(account.getBalanceShards());
+        if (shardRepo.debitIfCovered(id, slot, needed) == 1) {
+            return Money.ofMinor(accountRepo.totalBalance(id));
+        }
+
+        // slot borrowing against the exact aggregate
+        long base = accountRepo.lockBalance(id);
+        List<Object[]> slots = shardRepo.lockSlots(id);
+        long total = base;
+        for (Object[] row : slots) {
+            total = Money.add(total, ((Number) row[1]).longValue());
+        }
+        if (total < needed) {
+            throw new BusinessException("Fonds insuffisants pour le retrait");
+        }
+        long remaining = needed;
+        for (Object[] row : slots) {
+            long balance = ((Number) row[1]).longValue();
+            if (remaining == 0) {
+                break;
+            }
+            if (balance > 0) {
+                long taken = Math.min(balance, remaining);
+                shardRepo.setSlot(id, ((Number) row[0]).intValue(), balance - taken);
+                remaining -= taken;
+            }
+        }
+        if (remaining > 0) {
+            accountRepo.setBalance(id, base - remaining);
+        }
+        return Money.ofMinor(total - needed);
+    }
+
+    /** Splits (or, with 0, un-splits) an account's balance over {@code shards} slots. */
+    public void configure(Long accountId, int shards) {
+        if (shards < 0 || shards > 64) {
+            throw new BusinessException("Le nombre de compartiments doit être compris entre 0 et 64");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            BankAccount account = accountRepo.findById(accountId)
+                    .orElseThrow(() -> new BusinessException("Compte introuvable"));
+            long base = accountRepo.lockBalance(accountId);
+            long total = base;
+            for (Object[] row : shardRepo.lockSlots(accountId)) {
+                total = Money.add(total, ((Number) row[1]).longValue());
+            }
+            List<BalanceShard> existing = shardRepo.findByAccountIdOrderBySlot(accountId);
+            for (int slot = existing.size(); slot < shards; slot++) {
+                shardRepo.save(new BalanceShard(accountId, slot));
+            }
+            shardRepo.flush();
+            shardRepo.deleteSlotsFrom(accountId, shards);
+            accountRepo.setBalanceShards(accountId, shards);
+            spread(accountId, total, shards);
+            logger.info("Compte {} : solde réparti sur {} compartiments (ancien nombre {})", accountId, shards,
+                    account.getBalanceShards());
+        });
+    }
+
+    /** Replaces the whole balance of a sharded account (administrative correction). */
+    public void overwriteTotal(Long accountId, Money balance) {
+        transactionTemplate.executeWithoutResult(status -> {
+            accountRepo.lockBalance(accountId);
+            spread(accountId, balance.minor(), shardRepo.lockSlots(accountId).size());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.balance-shards.consolidate-interval-ms:60000}", scheduler = JobPool.LEDGER_SCHEDULER)
+    public void consolidate() {
+        // one node at a time: concurrent consolidations would only contend for the same row locks
+        leaseService.runExclusive("balance-shard-consolidation", Duration.ZERO, this::consolidateAll);
+    }
+
+    private void consolidateAll() {
+        for (Long accountId : accountRepo.findShardedIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    long total = accountRepo.lockBalance(accountId);
+                    List<Object[]> slots = shardRepo.lockSlots(accountId);
+                    for (Object[] row : slots) {
+                        total = Money.add(total, ((Number) row[1]).longValue());
+                    }
+                    spread(accountId, total, slots.size());
+                });
+            } catch (ConcurrencyFailureException e) {
+                // lost a lock race with postings: the next cycle will catch up
+                logger.debug("Consolidation du compte {} reportée : {}", accountId, e.getMessage());
+            }
+        }
+    }
+
+    /** Must run with the base row and slots locked. */
+    private void spread(Long accountId, long total, int shards) {
+        if (total < 0) {
+            // nothing to spread: keep the debt on the base row
+            for (int slot = 0; slot < shards; slot++) {
+                shardRepo.setSlot(accountId, slot, 0);
+            }
+            accountRepo.setBalance(accountId, total);
+            return;
+        }
+        long share = shards == 0 ? 0 : total / shards;
+        for (int slot = 0; slot < shards; slot++) {
+            shardRepo.setSlot(accountId, slot, slot == 0 ? total - share * (shards - 1) : share);
+        }
+        accountRepo.setBalance(accountId, shards == 0 ? total : 0);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class BankAccountService {
@@ -18,19 +19,46 @@ public class BankAccountService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AccountMetadataCache accountCache;
+
+    @Autowired
+    private AccountNumberFilter accountNumberFilter;
 
+    // Balances are read from the database; the metadata loaded with them refreshes the cache
     public List<BankAccount> getAccountsByUser(Long userId) {
-        return bankAccountRepo.findByUserId(userId);
+        List<BankAccount> accounts = bankAccountRepo.findByUserId(userId);
+        accountCache.warm(accounts);
+        return accounts;
     }
 
     public BankAccount createAccount(BankAccount account, Long userId) {
         User user = userRepository.findById(userId).orElseThrow();
         account.setUser(user);
-        return bankAccountRepo.save(account);
+        BankAccount saved = bankAccountRepo.save(account);
+        accountCache.invalidateAccount(saved.getId());
+        accountNumberFilter.add(saved.getAccountNumber());
+        return saved;
     }
+
+    // Answered from the metadata cache: no query once the account has been seen
     public boolean userOwnsAccount(Long accountId, String username) {
-        BankAccount account = bankAccountRepo.findById(accountId).orElse(null);
-        return account != null && account.getUser().getUsername().equals(username);
+        return accountCache.getAccount(accountId)
+                .map(account -> account.ownerUsername().equals(username))
+                .orElse(false);
+    }
+
+    // Read from the database: a posting must not rely on another node's invalidation of a reassigned account
+    public boolean userOwnsAccountForPosting(Long accountId, String username) {
+        return bankAccountRepo.existsByIdAndUserUsername(accountId, username);
+    }
+
+    public Optional<Long> findAccountIdByNumber(String accountNumber) {
+        return accountCache.findAccountIdByNumber(accountNumber);
+    }
+
+    public boolean accountNumberExists(String accountNumber) {
+        return accountCache.accountNumberExists(accountNumber);
     }
 
     public BankAccount getAccountDetails(Long accountId) {
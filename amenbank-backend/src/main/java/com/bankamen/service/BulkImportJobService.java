@@ -0,0 +1,325 @@
+package com.bankamen.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.entity.BulkImportJob;
+import com.bankamen.entity.BulkImportJobError;
+import com.bankamen.entity.BulkImportJobStatus;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.LeaseLostException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.BulkImportJobErrorRepository;
+import com.bankamen.repository.BulkImportJobRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs CSV bulk-transfer imports in the background. The upload is spooled to local disk and
+ * processed on a bounded worker pool; each committed chunk advances the job's checkpoint in the
+ * same transaction, so jobs interrupted by a restart resume after their last committed line.
+ * <p>
+ * A job runs under the lease "bulk-import-&lt;id&gt;" and every checkpoint is fenced by it, so two
+ * nodes never post the same file. Jobs left pending by a stopped node are picked up periodically
+ * by a node that has their spool file, once their lease has expired.
+ */
+@Service
+public class BulkImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportJobService.class);
+
+    private static final String LEASE_PREFIX = "bulk-import-";
+    private static final Set<BulkImportJobStatus> PENDING = EnumSet.of(BulkImportJobStatus.QUEUED, BulkImportJobStatus.RUNNING);
+
+    private final BulkImportJobRepository jobRepository;
+    private final BulkImportJobErrorRepository errorRepository;
+    private final BulkTransferImportService importer;
+    private final JobLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    private final Path spoolDir;
+    private final Duration orphanTimeout;
+    private final ThreadPoolExecutor workers;
+    // jobs queued or running on this node
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+
+    public BulkImportJobService(BulkImportJobRepository jobRepository,
+                                BulkImportJobErrorRepository errorRepository,
+                                BulkTransferImportService importer,
+                                JobLeaseService leaseService,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${app.bulk-import.spool-dir:data/imports}") String spoolDir,
+                                @Value("${app.bulk-import.orphan-timeout-minutes:1440}") long orphanTimeoutMinutes,
+                                @Value("${app.bulk-import.workers:2}") int workerCount,
+                                @Value("${app.bulk-import.queue-capacity:20}") int queueCapacity) {
+        this.jobRepository = jobRepository;
+        this.errorRepository = errorRepository;
+        this.importer = importer;
+        this.leaseService = leaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.spoolDir = Paths.get(spoolDir);
+        this.orphanTimeout = Duration.ofMinutes(Math.max(1, orphanTimeoutMinutes));
+        AtomicInteger threads = new AtomicInteger();
+        int size = Math.max(1, workerCount);
+        this.workers = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "bulk-import-job-" + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // interrupted jobs stay RUNNING; their leases expire and they resume from their checkpoint
+        workers.shutdownNow();
+    }
+
+    public BulkImportJob submit(MultipartFile file, String username) {
+        if (file == null || file.isEmpty()) {
+            throw new BusinessException("Le fichier CSV est vide");
+        }
+        if (workers.getQueue().remainingCapacity() == 0) {
+            throw new BusinessException("Trop d'imports en cours, veuillez réessayer plus tard");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path spool = spoolDir.resolve(id + ".csv");
+        int dataLines;
+        try (InputStream in = file.getInputStream()) {
+            Files.createDirectories(spoolDir);
+            dataLines = spoolAndCount(in, spool) - 1;
+        } catch (IOException e) {
+            deleteQuietly(spool);
+            throw new BusinessException("Erreur lors de l'enregistrement du fichier: " + e.getMessage());
+        }
+
+        BulkImportJob job = new BulkImportJob();
+        job.setId(id);
+        job.setUsername(username);
+        job.setFileName(file.getOriginalFilename());
+        job.setStatus(BulkImportJobStatus.QUEUED);
+        job.setSpoolPath(spool.toString());
+        job.setOwnerNode(leaseService.getNodeId());
+        job.setEstimatedTotalRows(Math.max(0, dataLines));
+        job.setCreatedAt(LocalDateTime.now());
+        job = jobRepository.save(job);
+
+        try {
+            dispatch(id);
+        } catch (RejectedExecutionException e) {
+            jobRepository.deleteById(id);
+            deleteQuietly(spool);
+            throw new BusinessException("Trop d'imports en cours, veuillez réessayer plus tard");
+        }
+        logger.info("Import CSV {} mis en file pour {} ({} lignes)", id, username, job.getEstimatedTotalRows());
+        return job;
+    }
+
+    public Optional<BulkImportJob> findForUser(String id, String username) {
+        return jobRepository.findById(id).filter(job -> job.getUsername().equals(username));
+    }
+
+    public List<BulkImportJob> listForUser(String username) {
+        return jobRepository.findTop50ByUsernameOrderByCreatedAtDesc(username);
+    }
+
+    public List<BulkImportJobError> getErrors(String jobId, int page, int size) {
+        return errorRepository.findByJobIdOrderByLineNumber(jobId,
+                PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), 500)));
+    }
+
+    /** Picks up the jobs left queued or running by a node that stopped. */
+    @Scheduled(fixedDelayString = "${app.bulk-import.resume-interval-ms:60000}", scheduler = JobPool.MAINTENANCE_SCHEDULER)
+    public void resumePendingJobs() {
+        for (BulkImportJob job : jobRepository.findByStatusInOrderByCreatedAt(PENDING)) {
+            if (localJobs.contains(job.getId())) {
+                continue;
+            }
+            if (!Files.exists(Paths.get(job.getSpoolPath()))) {
+                failIfOrphaned(job);
+                continue;
+            }
+            try {
+                if (dispatch(job.getId())) {
+                    logger.info("Reprise de l'import CSV {} après la ligne {}", job.getId(), job.getLastCommittedLine());
+                }
+            } catch (RejectedExecutionException e) {
+                logger.warn("File d'import pleine, reprise des imports CSV en attente différée");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hands the job to a worker if its lease is free; false when another node is running it.
+     *
+     * @throws RejectedExecutionException when the worker queue is full
+     */
+    private boolean dispatch(String id) {
+        if (!localJobs.add(id)) {
+            return false;
+        }
+        Optional<JobLeaseService.Lease> lease = leaseService.tryAcquire(LEASE_PREFIX + id, Duration.ZERO);
+        if (lease.isEmpty()) {
+            localJobs.remove(id);
+            return false;
+        }
+        try {
+            workers.execute(() -> {
+                try (JobLeaseService.Lease held = lease.get()) {
+                    run(id, held);
+                } finally {
+                    localJobs.remove(id);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            lease.get().close();
+            localJobs.remove(id);
+            throw e;
+        }
+    }
+
+    /** A job whose spool file is on another node can only be resumed there; fail it once that node is gone for good. */
+    private void failIfOrphaned(BulkImportJob job) {
+        LocalDateTime lastProgress = job.getHeartbeatAt() != null ? job.getHeartbeatAt() : job.getCreatedAt();
+        if (lastProgress != null && lastProgress.isAfter(LocalDateTime.now().minus(orphanTimeout))) {
+            return;
+        }
+        leaseService.tryAcquire(LEASE_PREFIX + job.getId(), Duration.ZERO).ifPresent(lease -> {
+            try (lease) {
+                finish(job.getId(), BulkImportJobStatus.FAILED,
+                        "Fichier d'import introuvable : le serveur " + job.getOwnerNode() + " ne l'a pas repris", lease);
+            }
+        });
+    }
+
+    private void run(String id, JobLeaseService.Lease lease) {
+        BulkImportJob job = jobRepository.findById(id).orElse(null);
+        if (job == null || !PENDING.contains(job.getStatus())) {
+            // finished by the previous holder of the lease
+            return;
+        }
+        Path spool = Paths.get(job.getSpoolPath());
+        if (!Files.exists(spool)) {
+            return;
+        }
+
+        job.setStatus(BulkImportJobStatus.RUNNING);
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(LocalDateTime.now());
+        }
+        job.setOwnerNode(leaseService.getNodeId());
+        job.setHeartbeatAt(LocalDateTime.now());
+        jobRepository.save(job);
+
+        try (InputStream in = Files.newInputStream(spool)) {
+            importer.importForUser(in, job.getUsername(), id, job.getLastCommittedLine(), (line, successes, errors) -> {
+                // a node that lost the lease rolls the chunk back instead of posting behind the new holder
+                leaseService.assertHeld(lease);
+                jobRepository.advance(id, line, successes, errors.size());
+                if (!errors.isEmpty()) {
+                    errorRepository.saveAll(errors.stream()
+                            .map(e -> new BulkImportJobError(id, e.getLineNumber(), e.getMessage()))
+                            .toList());
+                }
+            });
+            finish(id, BulkImportJobStatus.COMPLETED, null, lease);
+        } catch (LeaseLostException e) {
+            logger.warn("Import CSV {} abandonné sur ce serveur : {}", id, e.getMessage());
+        } catch (OutcomeUnknownException e) {
+            // the ledger did not answer for a line: resumed later, its reference keeps it from being posted twice
+            logger.warn("Import CSV {} suspendu : {}", id, e.getMessage());
+        } catch (BusinessException e) {
+            finish(id, BulkImportJobStatus.FAILED, e.getMessage(), lease);
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted() || workers.isShutdown()) {
+                // node is stopping: keep the job RUNNING so it resumes from its checkpoint
+                logger.info("Import CSV {} interrompu, reprise après expiration de son bail", id);
+                return;
+            }
+            logger.error("Échec de l'import CSV {}", id, e);
+            finish(id, BulkImportJobStatus.FAILED, e.getMessage() != null ? e.getMessage() : "Erreur inattendue", lease);
+        }
+    }
+
+    private void finish(String id, BulkImportJobStatus status, String errorMessage, JobLeaseService.Lease lease) {
+        BulkImportJob finished;
+        try {
+            finished = transactionTemplate.execute(tx -> {
+                leaseService.assertHeld(lease);
+                return jobRepository.findById(id).map(job -> {
+                    job.setStatus(status);
+                    job.setErrorMessage(errorMessage);
+                    job.setFinishedAt(LocalDateTime.now());
+                    return jobRepository.save(job);
+                }).orElse(null);
+            });
+        } catch (LeaseLostException e) {
+            logger.warn("Import CSV {} non clôturé sur ce serveur : {}", id, e.getMessage());
+            return;
+        }
+        if (finished != null) {
+            deleteQuietly(Paths.get(finished.getSpoolPath()));
+            logger.info("Import CSV {} terminé ({}) : {} succès, {} erreurs", id, status,
+                    finished.getSuccessCount(), finished.getFailureCount());
+        }
+    }
+
+    /** Copies the upload to disk and returns its number of lines. */
+    private static int spoolAndCount(InputStream in, Path target) throws IOException {
+        int lines = 0;
+        boolean pendingLine = false;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                        pendingLine = false;
+                    } else {
+                        pendingLine = true;
+                    }
+                }
+            }
+        }
+        return pendingLine ? lines + 1 : lines;
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Impossible de supprimer {}: {}", path, e.getMessage());
+        }
+    }
+}
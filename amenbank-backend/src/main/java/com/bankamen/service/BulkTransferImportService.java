@@ -0,0 +1,423 @@
+package com.bankamen.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.dto.BulkImportLineError;
+import com.bankamen.dto.BulkImportReport;
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.entity.User;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.UserRepository;
+import com.bankamen.service.ledger.LedgerEngine;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Streaming import of bulk transfer CSV files (ID Source, ID Destination, Montant, Description).
+ * <p>
+ * The file is read chunk by chunk: while one chunk is being written, the next one is parsed and
+ * validated in parallel. Account existence and ownership are resolved with one query per chunk for
+ * the accounts not seen yet, then each chunk commits in its own database transaction. A bad line
+ * is reported and skipped; it never rolls back or stops the rest of the file.
+ * <p>
+ * An optional {@link ChunkCheckpoint} is invoked inside the transaction that posts a chunk, so a
+ * caller persisting it can resume after the last committed line without posting anything twice.
+ * With the ledger engine a line is acknowledged before its checkpoint commits; each posting then
+ * carries the reference "import:&lt;import id&gt;:&lt;line&gt;", so a line replayed after a crash
+ * between the two is not posted again.
+ */
+@Service
+public class BulkTransferImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkTransferImportService.class);
+
+    private static final long MISSING = -1L;
+    private static final int ENGINE_ATTEMPTS = 3;
+
+    private record RawLine(int lineNumber, String[] cells) {
+    }
+
+    private record ParsedLine(int lineNumber, Long sourceId, Long targetId, Money amount, String description, String error) {
+
+        static ParsedLine invalid(int lineNumber, String error) {
+            return new ParsedLine(lineNumber, null, null, null, null, error);
+        }
+
+        ParsedLine reject(String reason) {
+            return invalid(lineNumber, reason);
+        }
+    }
+
+    /** Persists import progress; runs inside the transaction that commits the reported lines. */
+    public interface ChunkCheckpoint {
+        void commit(int lastLineNumber, int successes, List<BulkImportLineError> errors);
+    }
+
+    /** Per-file cache: account id -> owner user id, or MISSING when the account does not exist. */
+    private static final class AccountOwners {
+        private final Map<Long, Long> owners = new HashMap<>();
+    }
+
+    private final UserRepository userRepository;
+    private final BankAccountRepository accountRepo;
+    private final TransactionPoster transactionPoster;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final LedgerEngine ledgerEngine;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxReportedErrors;
+    private final ExecutorService parsePool;
+
+    public BulkTransferImportService(UserRepository userRepository,
+                                     BankAccountRepository accountRepo,
+                                     TransactionPoster transactionPoster,
+                                     TransactionTemplate transactionTemplate,
+                                     OptimisticRetryExecutor retryExecutor,
+                                     LedgerEngine ledgerEngine,
+                                     @Value("${app.bulk-import.chunk-size:500}") int chunkSize,
+                                     @Value("${app.bulk-import.parse-parallelism:4}") int parallelism,
+                                     @Value("${app.bulk-import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.userRepository = userRepository;
+        this.accountRepo = accountRepo;
+        this.transactionPoster = transactionPoster;
+        this.transactionTemplate = transactionTemplate;
+        this.retryExecutor = retryExecutor;
+        this.ledgerEngine = ledgerEngine;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.maxReportedErrors = Math.max(0, maxReportedErrors);
+        AtomicInteger threads = new AtomicInteger();
+        this.parsePool = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread t = new Thread(r, "bulk-import-parse-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        parsePool.shutdownNow();
+    }
+
+    public BulkImportReport importForUser(InputStream input, String username) {
+        return importForUser(input, username, null, 1, null);
+    }
+
+    /**
+     * @param importId        identifies the file across resumes; null when it is never resumed
+     * @param resumeAfterLine lines up to and including this number are skipped (1 = only the header)
+     * @param checkpoint      may be null
+     */
+    public BulkImportReport importForUser(InputStream input, String username, String importId, int resumeAfterLine,
+                                          ChunkCheckpoint checkpoint) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new BusinessException("Utilisateur introuvable"));
+        long started = System.currentTimeMillis();
+        BulkImportReport report = new BulkImportReport();
+        AccountOwners owners = new AccountOwners();
+
+        try (CSVReader reader = new CSVReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String[] headers = reader.readNext();
+            if (headers == null || headers.length < 4) {
+                throw new BusinessException("Le format du fichier CSV est invalide. Format attendu: ID Source, ID Destination, Montant, Description");
+            }
+            int[] lineNumber = {1};
+            while (lineNumber[0] < resumeAfterLine && reader.readNext() != null) {
+                lineNumber[0]++;
+            }
+
+            List<RawLine> raw = readChunk(reader, lineNumber);
+            CompletableFuture<List<ParsedLine>> pending = raw.isEmpty() ? null : parseAsync(raw);
+            while (pending != null) {
+                // read and parse the next chunk while the current one is resolved and written
+                List<RawLine> nextRaw = readChunk(reader, lineNumber);
+                CompletableFuture<List<ParsedLine>> next = nextRaw.isEmpty() ? null : parseAsync(nextRaw);
+
+                List<ParsedLine> parsed = pending.join();
+                write(resolve(parsed, user.getId(), owners), importId, report, checkpoint);
+                report.setTotalRows(report.getTotalRows() + parsed.size());
+                pending = next;
+            }
+        } catch (BusinessException e) {
+            throw e;
+        } catch (IOException | CsvValidationException e) {
+            throw new BusinessException("Erreur lors de l'import du fichier CSV: " + (e.getMessage() != null ? e.getMessage() : "Format invalide"));
+        }
+
+        if (report.getTotalRows() == 0 && resumeAfterLine <= 1) {
+            throw new BusinessException("Le fichier CSV ne contient aucune ligne");
+        }
+        report.setElapsedMs(System.currentTimeMillis() - started);
+        report.setMessage(report.getFailureCount() == 0
+                ? "Transferts groupés traités avec succès (" + report.getSuccessCount() + ")"
+                : report.getSuccessCount() + " transferts effectués, " + report.getFailureCount() + " lignes en erreur");
+        logger.info("Import CSV de {} : {} lignes, {} succès, {} erreurs en {} ms", username,
+                report.getTotalRows(), report.getSuccessCount(), report.getFailureCount(), report.getElapsedMs());
+        return report;
+    }
+
+    private List<RawLine> readChunk(CSVReader reader, int[] lineNumber) throws IOException, CsvValidationException {
+        List<RawLine> chunk = new ArrayList<>(chunkSize);
+        String[] cells;
+        while (chunk.size() < chunkSize && (cells = reader.readNext()) != null) {
+            chunk.add(new RawLine(++lineNumber[0], cells));
+        }
+        return chunk;
+    }
+
+    private CompletableFuture<List<ParsedLine>> parseAsync(List<RawLine> chunk) {
+        int sliceSize = Math.max(1, (chunk.size() + parallelism - 1) / parallelism);
+        List<CompletableFuture<List<ParsedLine>>> slices = new ArrayList<>();
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<RawLine> slice = chunk.subList(from, Math.min(chunk.size(), from + sliceSize));
+            slices.add(CompletableFuture.supplyAsync(() -> slice.stream().map(this::parse).toList(), parsePool));
+        }
+        return CompletableFuture.allOf(slices.toArray(CompletableFuture[]::new))
+                .thenApply(done -> slices.stream().flatMap(f -> f.join().stream()).toList());
+    }
+
+    private ParsedLine parse(RawLine line) {
+        String[] cells = line.cells();
+        int n = line.lineNumber();
+        if (cells.length < 4) {
+            return ParsedLine.invalid(n, "La ligne ne contient pas assez de colonnes. Format attendu: ID Source, ID Destination, Montant, Description");
+        }
+        Long sourceId = parseLong(cells[0]);
+        if (sourceId == null) {
+            return ParsedLine.invalid(n, "La valeur '" + cells[0] + "' pour le champ 'ID Source' n'est pas un nombre valide");
+        }
+        Long targetId = parseLong(cells[1]);
+        if (targetId == null) {
+            return ParsedLine.invalid(n, "La valeur '" + cells[1] + "' pour le champ 'ID Destination' n'est pas un nombre valide");
+        }
+        Money amount;
+        try {
+            amount = Money.parse(cells[2]);
+        } catch (IllegalArgumentException e) {
+            return ParsedLine.invalid(n, "La valeur '" + cells[2] + "' pour le champ 'Montant' n'est pas un montant valide");
+        }
+        if (!amount.isPositive()) {
+            return ParsedLine.invalid(n, "Le montant doit être positif");
+        }
+        String description = cells[3];
+        if (description == null || description.trim().isEmpty()) {
+            return ParsedLine.invalid(n, "La description est requise");
+        }
+        if (sourceId.equals(targetId)) {
+            return ParsedLine.invalid(n, "Le compte destinataire doit être différent du compte source");
+        }
+        return new ParsedLine(n, sourceId, targetId, amount, description.trim(), null);
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /** Looks up unseen accounts in one query, then rejects lines failing existence or ownership. */
+    private List<ParsedLine> resolve(List<ParsedLine> parsed, Long userId, AccountOwners owners) {
+        Set<Long> unknown = new HashSet<>();
+        for (ParsedLine line : parsed) {
+            if (line.error() == null) {
+                if (!owners.owners.containsKey(line.sourceId())) {
+                    unknown.add(line.sourceId());
+                }
+                if (!owners.owners.containsKey(line.targetId())) {
+                    unknown.add(line.targetId());
+                }
+            }
+        }
+        if (!unknown.isEmpty()) {
+            for (BankAccount account : accountRepo.findAllById(unknown)) {
+                // the user is a lazy proxy: reading its id does not hit the database
+                owners.owners.put(account.getId(), account.getUser().getId());
+                unknown.remove(account.getId());
+            }
+            unknown.forEach(id -> owners.owners.put(id, MISSING));
+        }
+
+        List<ParsedLine> resolved = new ArrayList<>(parsed.size());
+        for (ParsedLine line : parsed) {
+            ParsedLine checked = line;
+            if (line.error() == null) {
+                long sourceOwner = owners.owners.get(line.sourceId());
+                if (sourceOwner == MISSING) {
+                    checked = line.reject("Compte source introuvable");
+                } else if (sourceOwner != userId) {
+                    checked = line.reject("Vous n'êtes pas autorisé à effectuer des transactions depuis le compte " + line.sourceId());
+                } else if (owners.owners.get(line.targetId()) == MISSING) {
+                    checked = line.reject("Compte destinataire introuvable");
+                }
+            }
+            resolved.add(checked);
+        }
+        return resolved;
+    }
+
+    /**
+     * Commits a chunk and its checkpoint in one transaction. If that transaction cannot commit,
+     * falls back to one transaction per line, each carrying its own checkpoint.
+     */
+    private void write(List<ParsedLine> lines, String importId, BulkImportReport report, ChunkCheckpoint checkpoint) {
+        String[] outcomes = new String[lines.size()]; // null = posted
+        if (ledgerEngine.isEnabled()) {
+            // the engine acknowledges postings itself: the checkpoint follows each acknowledged line
+            for (int i = 0; i < lines.size(); i++) {
+                outcomes[i] = postThroughEngine(lines.get(i), importId);
+                commitLine(lines.get(i), outcomes[i], checkpoint);
+            }
+        } else {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = 0; i < lines.size(); i++) {
+                        outcomes[i] = post(lines.get(i));
+                    }
+                    if (checkpoint != null) {
+                        checkpoint.commit(lines.get(lines.size() - 1).lineNumber(), successes(outcomes), errors(lines, outcomes));
+                    }
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Validation du lot de {} lignes en échec ({}), traitement ligne par ligne", lines.size(), e.getMessage());
+                for (int i = 0; i < lines.size(); i++) {
+                    ParsedLine line = lines.get(i);
+                    try {
+                        outcomes[i] = retryExecutor.execute("bulkImport", () -> transactionTemplate.execute(status -> {
+                            String outcome = post(line);
+                            commitCheckpoint(line, outcome, checkpoint);
+                            return outcome;
+                        }));
+                    } catch (RuntimeException ex) {
+                        outcomes[i] = ex.getMessage() != null ? ex.getMessage() : "Erreur inattendue";
+                        commitLine(line, outcomes[i], checkpoint);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            if (outcomes[i] == null) {
+                report.setSuccessCount(report.getSuccessCount() + 1);
+            } else {
+                report.addError(lines.get(i).lineNumber(), outcomes[i], maxReportedErrors);
+            }
+        }
+    }
+
+    /** Must run inside a transaction. Returns null when posted, the rejection message otherwise. */
+    private String post(ParsedLine line) {
+        if (line.error() != null) {
+            return line.error();
+        }
+        try {
+            transactionPoster.post(line.sourceId(), toRequest(line));
+            return null;
+        } catch (BusinessException e) {
+            return e.getMessage();
+        }
+    }
+
+    private String postThroughEngine(ParsedLine line, String importId) {
+        if (line.error() != null) {
+            return line.error();
+        }
+        try {
+            if (importId == null) {
+                ledgerEngine.post(line.sourceId(), toRequest(line));
+                return null;
+            }
+            // empty when posted before a crash that lost the checkpoint: the line still counts as posted
+            String reference = "import:" + importId + ":" + line.lineNumber();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    ledgerEngine.postOnce(line.sourceId(), toRequest(line), reference);
+                    return null;
+                } catch (OutcomeUnknownException e) {
+                    // safe to resubmit: the reference keeps it from being posted twice
+                    if (attempt == ENGINE_ATTEMPTS) {
+                        throw e;
+                    }
+                    logger.warn("Ligne {} : {}, nouvel essai", line.lineNumber(), e.getMessage());
+                }
+            }
+        } catch (OutcomeUnknownException e) {
+            if (importId != null) {
+                // stop before the checkpoint: the line is retried when the import is resumed
+                throw e;
+            }
+            return e.getMessage();
+        } catch (BusinessException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void commitLine(ParsedLine line, String outcome, ChunkCheckpoint checkpoint) {
+        if (checkpoint != null) {
+            transactionTemplate.executeWithoutResult(status -> commitCheckpoint(line, outcome, checkpoint));
+        }
+    }
+
+    private static void commitCheckpoint(ParsedLine line, String outcome, ChunkCheckpoint checkpoint) {
+        if (checkpoint != null) {
+            checkpoint.commit(line.lineNumber(), outcome == null ? 1 : 0,
+                    outcome == null ? List.of() : List.of(new BulkImportLineError(line.lineNumber(), outcome)));
+        }
+    }
+
+    private static int successes(String[] outcomes) {
+        int count = 0;
+        for (String outcome : outcomes) {
+            if (outcome == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static List<BulkImportLineError> errors(List<ParsedLine> lines, String[] outcomes) {
+        List<BulkImportLineError> errors = new ArrayList<>();
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] != null) {
+                errors.add(new BulkImportLineError(lines.get(i).lineNumber(), outcomes[i]));
+            }
+        }
+        return errors;
+    }
+
+    private static CreateTransactionRequest toRequest(ParsedLine line) {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(TransactionType.TRANSFER);
+        request.setAmount(line.amount());
+        request.setTargetAccountId(line.targetId());
+        request.setDescription(line.description());
+        return request;
+    }
+}
@@ -0,0 +1,257 @@
+package com.bankamen.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.dto.TransactionDTO;
+import com.bankamen.entity.IdempotencyRecord;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Deduplicates transaction creation on the client-supplied Idempotency-Key header.
+ * <p>
+ * A bounded in-memory map (TTL-evicted) answers retries hitting the same node and coalesces
+ * concurrent requests: the first one runs, the others wait for its outcome. The key is also
+ * claimed in the {@code idempotency_key} table before posting, so retries reaching another node
+ * or arriving after a restart replay the stored response instead of posting a second time.
+ * <p>
+ * Business rejections happen before anything is posted: they release the key, so the client may
+ * retry after fixing the request. Any other failure (timeout of the ledger engine, database error)
+ * may hide a posting that still commits, so the key is kept and marked unknown: a retry with it
+ * is refused instead of posting twice. The claim itself is a short in-progress lease, so the key
+ * of a request whose node died mid-posting turns unknown after a minute instead of staying "in
+ * progress" for the whole TTL.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public record Outcome(TransactionDTO transaction, boolean replayed) {
+    }
+
+    private record Stored(String requestHash, TransactionDTO transaction) {
+    }
+
+    private record Entry(CompletableFuture<Stored> result, long expiresAtMillis) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final JobLeaseService leaseService;
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final Duration inProgressLease;
+    private final Map<String, Entry> cache;
+
+    private final Counter memoryHits;
+    private final Counter storeHits;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              JobLeaseService leaseService,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${app.idempotency.cache-max-entries:10000}") int maxEntries,
+                              @Value("${app.idempotency.in-progress-seconds:60}") long inProgressSeconds) {
+        this.repository = repository;
+        this.leaseService = leaseService;
+        this.objectMapper = objectMapper;
+        this.ttlMillis = Math.max(1, ttlHours) * 3_600_000L;
+        this.inProgressLease = Duration.ofSeconds(Math.max(1, inProgressSeconds));
+        int capacity = Math.max(1, maxEntries);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.memoryHits = Counter.builder("idempotency.replays")
+                .tag("source", "memory")
+                .description("Requests answered from the in-memory idempotency cache")
+                .register(meterRegistry);
+        this.storeHits = Counter.builder("idempotency.replays")
+                .tag("source", "database")
+                .description("Requests answered from the persistent idempotency table")
+                .register(meterRegistry);
+    }
+
+    public Outcome execute(String username, String key, Long accountId, CreateTransactionRequest request,
+                           Supplier<TransactionDTO> work) {
+        if (key.isBlank() || key.length() > 255) {
+            throw new BusinessException("Clé d'idempotence invalide");
+        }
+        String id = sha256(username + "\n" + key);
+        String requestHash = sha256(accountId + "|" + request.getType() + "|"
+                + (request.getAmount() != null ? request.getAmount().minor() : null) + "|"
+                + request.getTargetAccountId() + "|" + request.getDescription());
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> existing = claimInMemory(id, mine);
+        if (existing != null) {
+            memoryHits.increment();
+            return new Outcome(checkSameRequest(join(existing), requestHash), true);
+        }
+
+        try {
+            Outcome outcome = executeOnce(id, username, key, requestHash, work);
+            mine.complete(new Stored(requestHash, outcome.transaction()));
+            return outcome;
+        } catch (RuntimeException e) {
+            synchronized (cache) {
+                cache.remove(id);
+            }
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /** Hourly purge of expired keys. */
+    @Scheduled(fixedRate = 60 * 60 * 1000, scheduler = JobPool.MAINTENANCE_SCHEDULER)
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            cache.values().removeIf(entry -> entry.expiresAtMillis() < now);
+        }
+        // the in-memory cache is per node, the table is purged by one node only
+        leaseService.runExclusive("idempotency-purge", Duration.ofMinutes(30), () -> {
+            int deleted = repository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                logger.info("{} clés d'idempotence expirées supprimées", deleted);
+            }
+        });
+    }
+
+    /** Returns the in-flight or completed result for this key, or registers {@code mine} and returns null. */
+    private CompletableFuture<Stored> claimInMemory(String id, CompletableFuture<Stored> mine) {
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            Entry entry = cache.get(id);
+            if (entry != null && entry.expiresAtMillis() >= now) {
+                return entry.result();
+            }
+            cache.put(id, new Entry(mine, now + ttlMillis));
+            return null;
+        }
+    }
+
+    private Outcome executeOnce(String id, String username, String key, String requestHash, Supplier<TransactionDTO> work) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = repository.findById(id).orElse(null);
+        if (record != null && record.getExpiresAt().isBefore(now)) {
+            repository.deleteById(id);
+            record = null;
+        }
+        if (record == null && repository.claim(id, username, key, requestHash, now.plus(inProgressLease),
+                now, now.plus(Duration.ofMillis(ttlMillis))) == 0) {
+            // another node claimed the key in between
+            record = repository.findById(id).orElse(null);
+        }
+        if (record != null) {
+            return replay(record, requestHash);
+        }
+
+        TransactionDTO transaction;
+        try {
+            transaction = work.get();
+        } catch (OutcomeUnknownException e) {
+            keepUnknown(id, key, e);
+            throw e;
+        } catch (BusinessException e) {
+            // rejected before anything was posted
+            repository.deleteById(id);
+            throw e;
+        } catch (RuntimeException e) {
+            keepUnknown(id, key, e);
+            throw e;
+        }
+        try {
+            repository.complete(id, objectMapper.writeValueAsString(transaction));
+        } catch (JsonProcessingException e) {
+            // the posting is done; the key stays claimed so a retry is refused rather than re-posted
+            logger.error("Réponse non enregistrée pour la clé d'idempotence {}", key, e);
+        }
+        return new Outcome(transaction, false);
+    }
+
+    private void keepUnknown(String id, String key, RuntimeException cause) {
+        logger.warn("Issue inconnue pour la clé d'idempotence {}, clé conservée : {}", key, cause.getMessage());
+        try {
+            repository.markUnknown(id);
+        } catch (RuntimeException e) {
+            // the in-progress lease expires anyway and the key then reads as unknown
+            logger.warn("Clé d'idempotence {} non marquée : {}", key, e.getMessage());
+        }
+    }
+
+    private Outcome replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new BusinessException("La clé d'idempotence a déjà été utilisée pour une requête différente");
+        }
+        if (record.isOutcomeUnknown(LocalDateTime.now())) {
+            throw new OutcomeUnknownException("Le résultat de la requête initiale est inconnu : vérifiez l'historique "
+                    + "avant de réessayer avec une nouvelle clé d'idempotence");
+        }
+        if (!record.isCompleted()) {
+            throw new BusinessException("Une requête avec cette clé d'idempotence est déjà en cours de traitement");
+        }
+        try {
+            TransactionDTO transaction = objectMapper.readValue(record.getResponseBody(), TransactionDTO.class);
+            storeHits.increment();
+            return new Outcome(transaction, true);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException("Réponse enregistrée illisible pour cette clé d'idempotence");
+        }
+    }
+
+    private static TransactionDTO checkSameRequest(Stored stored, String requestHash) {
+        if (!Objects.equals(stored.requestHash(), requestHash)) {
+            throw new BusinessException("La clé d'idempotence a déjà été utilisée pour une requête différente");
+        }
+        return stored.transaction();
+    }
+
+    private static Stored join(CompletableFuture<Stored> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
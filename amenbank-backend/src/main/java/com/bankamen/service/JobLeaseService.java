@@ -0,0 +1,180 @@
+package com.bankamen.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.entity.JobLease;
+import com.bankamen.exception.LeaseLostException;
+import com.bankamen.repository.JobLeaseRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Database-backed leases, so that each scheduled job runs on one node of the cluster at a time.
+ * <p>
+ * A lease is a job_lease row with an owner, an expiry and a fencing token incremented on every
+ * acquisition. While held it is renewed in the background every third of its TTL; a node that
+ * stops renewing (crash, long pause) loses it once the TTL has passed. Writes made under a lease
+ * call {@link #assertHeld} in their transaction: a node that lost its lease fails there instead of
+ * writing behind the new holder's back.
+ * <p>
+ * On release a lease can be kept for a minimum duration, so that the same cron trigger firing a
+ * little later on another node (clock skew) finds it taken and skips.
+ */
+@Service
+public class JobLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseService.class);
+
+    private final JobLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final String nodeId;
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "job-lease-renewal");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public JobLeaseService(JobLeaseRepository leaseRepository,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${app.job-lease.ttl-seconds:60}") long ttlSeconds,
+                           @Value("${app.job-lease.node-id:}") String nodeId) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ttl = Duration.ofSeconds(Math.max(3, ttlSeconds));
+        this.nodeId = nodeId == null || nodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8)
+                : nodeId;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    /** A held lease; closing it stops the renewals and releases it. */
+    public final class Lease implements AutoCloseable {
+
+        private final String name;
+        private final long token;
+        private final Duration minHold;
+        private final ScheduledFuture<?> renewal;
+        private volatile boolean lost;
+        private volatile long lastRenewedNanos = System.nanoTime();
+
+        private Lease(String name, long token, Duration minHold) {
+            this.name = name;
+            this.token = token;
+            this.minHold = minHold;
+            long period = ttl.toMillis() / 3;
+            this.renewal = renewer.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getToken() {
+            return token;
+        }
+
+        /** False once a renewal found the lease taken over, or could not reach the database for a whole TTL. */
+        public boolean isHeld() {
+            return !lost && System.nanoTime() - lastRenewedNanos < ttl.toNanos();
+        }
+
+        /** True once a renewal found the lease taken over by another node: it will not be held again. */
+        public boolean isLost() {
+            return lost;
+        }
+
+        private void renew() {
+            try {
+                if (leaseRepository.renew(name, nodeId, token, ttl.toNanos() / 1000) == 1) {
+                    lastRenewedNanos = System.nanoTime();
+                } else {
+                    lost = true;
+                    renewal.cancel(false);
+                    logger.warn("Bail {} (jeton {}) perdu : repris par un autre nœud", name, token);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Renouvellement du bail {} impossible : {}", name, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            renewal.cancel(false);
+            if (lost) {
+                return;
+            }
+            try {
+                leaseRepository.release(name, nodeId, token, minHold.toNanos() / 1000);
+            } catch (RuntimeException e) {
+                // the lease simply expires after its TTL
+                logger.warn("Libération du bail {} impossible : {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /** Takes the lease if it is free; empty when another node (or this one) holds it. */
+    public Optional<Lease> tryAcquire(String name, Duration minHold) {
+        leaseRepository.createIfAbsent(name);
+        Long token = transactionTemplate.execute(status ->
+                leaseRepository.acquire(name, nodeId, ttl.toNanos() / 1000) == 1 ? leaseRepository.findToken(name, nodeId) : null);
+        if (token == null) {
+            return Optional.empty();
+        }
+        logger.debug("Bail {} acquis (jeton {})", name, token);
+        return Optional.of(new Lease(name, token, minHold));
+    }
+
+    /**
+     * Runs {@code job} if this node gets the lease, keeping the lease for at least {@code minHold}.
+     *
+     * @return false when the job was skipped because another node holds the lease
+     */
+    public boolean runExclusive(String name, Duration minHold, Runnable job) {
+        Optional<Lease> lease = tryAcquire(name, minHold);
+        if (lease.isEmpty()) {
+            logger.debug("Tâche {} ignorée : bail détenu par un autre nœud", name);
+            return false;
+        }
+        try (Lease held = lease.get()) {
+            job.run();
+        }
+        return true;
+    }
+
+    /** Fencing check, to be called in the transaction of every write made under {@code lease}. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assertHeld(Lease lease) {
+        if (!lease.isHeld() || leaseRepository.countHeld(lease.getName(), nodeId, lease.getToken()) == 0) {
+            throw new LeaseLostException("Bail " + lease.getName() + " (jeton " + lease.getToken() + ") perdu");
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public List<JobLease> getLeases() {
+        return leaseRepository.findAllByOrderByName();
+    }
+}
@@ -1,6 +1,8 @@
 package com.bankamen.service;
 
+import com.bankamen.config.JobPool;
 import com.bankamen.entity.LoginEvent;
+import com.bankamen.entity.Money;
 import com.bankamen.entity.Transaction;
 import com.bankamen.entity.TransactionType;
 import com.bankamen.repository.BankAccountRepository;
@@ -13,6 +15,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +35,8 @@ public class MonitoringService {
     private LoginEventRepository loginEventRepository;
     @Autowired
     private NotificationService notificationService;
+    @Autowired
+    private JobLeaseService leaseService;
 
     public List<Transaction> getFilteredTransactions(LocalDateTime start, LocalDateTime end,
                                                      TransactionType type, String username) {
@@ -42,15 +47,20 @@ public class MonitoringService {
         return transactionRepository.findTop10ByOrderByDateDesc();
     }
 
-    public boolean detectLargeTransactions(Double threshold) {
+    public boolean detectLargeTransactions(Money threshold) {
         return transactionRepository.countLargeTransactions(threshold) > 0;
     }
 
     // ✅ Enhanced periodic check every 5 minutes for suspicious transactions
-    @Scheduled(fixedRate = 5 * 60 * 1000) // every 5 minutes
+    @Scheduled(fixedRate = 5 * 60 * 1000, scheduler = JobPool.MONITORING_SCHEDULER) // every 5 minutes
     public void detectSuspiciousTransactions() {
-        double suspiciousThreshold = 10000.0;
-        double largeTransactionThreshold = 50000.0;
+        // once per cluster and per 5-minute window, otherwise every node would notify the same transactions
+        leaseService.runExclusive("monitoring-suspicious-transactions", Duration.ofMinutes(4), this::scanSuspiciousTransactions);
+    }
+
+    private void scanSuspiciousTransactions() {
+        Money suspiciousThreshold = Money.of(10000);
+        Money largeTransactionThreshold = Money.of(50000);
 
         LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(5);
 
@@ -63,7 +73,7 @@ public class MonitoringService {
                     tx.getAmount(), tx.getAccount().getId());
 
             // Create notification for suspicious transaction
-            if (tx.getAmount() >= largeTransactionThreshold) {
+            if (tx.getAmount().compareTo(largeTransactionThreshold) >= 0) {
                 notificationService.createLargeTransactionNotification(tx);
             } else {
                 notificationService.createSuspiciousTransactionNotification(tx);
@@ -1,5 +1,6 @@
 package com.bankamen.service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -10,6 +11,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.bankamen.config.JobPool;
 import com.bankamen.entity.Notification;
 import com.bankamen.entity.ScheduledTransfer;
 import com.bankamen.entity.Transaction;
@@ -30,6 +32,9 @@ public class NotificationService {
     @Autowired
     private TransferNotificationRepository notificationRepo;
 
+    @Autowired
+    private JobLeaseService leaseService;
+
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
     public List<Notification> getAllNotifications() {
@@ -53,7 +58,7 @@ public class NotificationService {
         String title = "🚨 Transaction Suspecte Détectée";
         String message = String.format(
                 "Une transaction suspecte de %.2f TND a été détectée sur le compte ID: %d à %s",
-                transaction.getAmount(),
+                transaction.getAmount().toDouble(),
                 transaction.getAccount().getId(),
                 transaction.getDate().toString()
         );
@@ -63,7 +68,7 @@ public class NotificationService {
                 message,
                 Notification.NotificationType.SUSPICIOUS_TRANSACTION,
                 transaction.getId().toString(),
-                transaction.getAmount()
+                transaction.getAmount().toDouble()
         );
 
         notificationRepository.save(notification);
@@ -74,7 +79,7 @@ public class NotificationService {
         String title = "💰 Transaction de Montant Élevé";
         String message = String.format(
                 "Une transaction de montant élevé de %.2f TND a été effectuée sur le compte ID: %d",
-                transaction.getAmount(),
+                transaction.getAmount().toDouble(),
                 transaction.getAccount().getId()
         );
 
@@ -83,7 +88,7 @@ public class NotificationService {
                 message,
                 Notification.NotificationType.LARGE_TRANSACTION,
                 transaction.getId().toString(),
-                transaction.getAmount()
+                transaction.getAmount().toDouble()
         );
 
         notificationRepository.save(notification);
@@ -159,7 +164,7 @@ public class NotificationService {
         notification.setRead(false);
         notification.setMessage(String.format(
             "Rappel : Un virement de %.2f € vers le compte %s est prévu pour le %s",
-            transfer.getAmount(),
+            transfer.getAmount().toDouble(),
             transfer.getTargetAccount().getAccountNumber(),
             executionDate.format(DATE_FORMATTER)
         ));
@@ -177,7 +182,7 @@ public class NotificationService {
         notification.setRead(false);
         notification.setMessage(String.format(
             "Virement effectué : %.2f € ont été transférés vers le compte %s",
-            transfer.getAmount(),
+            transfer.getAmount().toDouble(),
             transfer.getTargetAccount().getAccountNumber()
         ));
         
@@ -188,8 +193,13 @@ public class NotificationService {
         return notificationRepo.findByUserAndIsReadFalseOrderByNotificationDateDesc(user);
     }
 
-    @Scheduled(cron = "0 0 8 * * *") // Run every day at 8:00 AM
+    @Scheduled(cron = "0 0 8 * * *", scheduler = JobPool.NOTIFICATIONS_SCHEDULER) // Run every day at 8:00 AM
     public void sendDailyReminders() {
+        // once per cluster: the lease is kept for an hour so that the other nodes skip this trigger
+        leaseService.runExclusive("notification-daily-reminders", Duration.ofHours(1), this::dispatchDailyReminders);
+    }
+
+    private void dispatchDailyReminders() {
         LocalDateTime tomorrow = LocalDateTime.now().plusDays(1);
         List<TransferNotification> reminders = notificationRepo
             .findByScheduledExecutionDateBeforeAndIsReminderTrue(tomorrow);
@@ -0,0 +1,84 @@
+package com.bankamen.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import com.bankamen.exception.BusinessException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Re-runs a unit of work when it loses an optimistic-locking race (or a row-lock deadlock).
+ * The work must be a complete transaction (fresh reads included) so that a replay sees the winner's state.
+ * Backoff is exponential with full jitter so colliding writers spread out instead of retrying in lockstep.
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    public OptimisticRetryExecutor(MeterRegistry meterRegistry,
+                                   @Value("${app.ledger.retry.max-attempts:5}") int maxAttempts,
+                                   @Value("${app.ledger.retry.base-backoff-ms:5}") long baseBackoffMs,
+                                   @Value("${app.ledger.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMs = Math.max(1, baseBackoffMs);
+        this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+        this.conflicts = Counter.builder("ledger.posting.conflicts")
+                .description("Optimistic locking conflicts detected on account updates")
+                .register(meterRegistry);
+        this.retries = Counter.builder("ledger.posting.retries")
+                .description("Postings replayed after an optimistic locking conflict")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("ledger.posting.retries.exhausted")
+                .description("Postings abandoned after the maximum number of attempts")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(String operation, Supplier<T> work) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return work.get();
+            } catch (ConcurrencyFailureException e) {
+                // optimistic version conflicts, but also deadlocks and lock timeouts on sharded balances
+                conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    logger.warn("{} abandonné après {} tentatives: {}", operation, attempt, e.getMessage());
+                    throw new BusinessException("Le compte est en cours de mise à jour, veuillez réessayer");
+                }
+                retries.increment();
+                logger.debug("{}: conflit de version (tentative {}), nouvel essai", operation, attempt);
+                pause(attempt);
+                attempt++;
+            }
+        }
+    }
+
+    private void pause(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Opération interrompue");
+        }
+    }
+}
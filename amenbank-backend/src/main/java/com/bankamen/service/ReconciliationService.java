@@ -0,0 +1,389 @@
+package com.bankamen.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.ReconciliationMismatch;
+import com.bankamen.entity.ReconciliationMismatchKind;
+import com.bankamen.entity.ReconciliationRun;
+import com.bankamen.entity.ReconciliationRunStatus;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BalanceCheckpointRepository;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.ReconciliationMismatchRepository;
+import com.bankamen.repository.ReconciliationRunRepository;
+import com.bankamen.repository.TransactionRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Verifies every account balance against its postings. Account ids are split into ranges that a
+ * fork-join pool processes in parallel; each range reads its balances and streams its postings in
+ * one read-only transaction, so both come from the same snapshot. Per account, the balanceAfter
+ * chain is checked posting by posting and the rebuilt balance is compared with the stored one.
+ * The pool size bounds the number of connections the job takes from the primary.
+ * <p>
+ * A balance is rebuilt from the account's first end-of-day checkpoint ({@link BalanceCheckpointRepository})
+ * plus the postings dated after it, or from zero when it has none. Transfers written before double
+ * entry have no credit leg, so checkpoints and postings older than the last of them are not used and
+ * an account without a later checkpoint only has its chain checked from there on.
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private static final String LEASE_NAME = "reconciliation";
+
+    private final ReconciliationRunRepository runRepository;
+    private final ReconciliationMismatchRepository mismatchRepository;
+    private final BankAccountRepository accountRepo;
+    private final TransactionRepository transactionRepo;
+    private final BalanceCheckpointRepository checkpointRepo;
+    private final TransactionTemplate readOnlyTemplate;
+    private final JobLeaseService leaseService;
+    private final int parallelism;
+    private final int rangeSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "reconciliation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ReconciliationService(ReconciliationRunRepository runRepository,
+                                 ReconciliationMismatchRepository mismatchRepository,
+                                 BankAccountRepository accountRepo,
+                                 TransactionRepository transactionRepo,
+                                 BalanceCheckpointRepository checkpointRepo,
+                                 PlatformTransactionManager transactionManager,
+                                 JobLeaseService leaseService,
+                                 @Value("${app.reconciliation.parallelism:2}") int parallelism,
+                                 @Value("${app.reconciliation.range-size:500}") int rangeSize) {
+        this.runRepository = runRepository;
+        this.mismatchRepository = mismatchRepository;
+        this.accountRepo = accountRepo;
+        this.transactionRepo = transactionRepo;
+        this.checkpointRepo = checkpointRepo;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.leaseService = leaseService;
+        this.parallelism = Math.max(1, parallelism);
+        this.rangeSize = Math.max(1, rangeSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        launcher.shutdownNow();
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 2 * * *}", scheduler = JobPool.LEDGER_SCHEDULER)
+    public void nightlyRun() {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Réconciliation nocturne ignorée : une réconciliation est déjà en cours");
+            return;
+        }
+        try {
+            // one node per night; the lease also keeps a manual run on another node from overlapping
+            if (!leaseService.runExclusive(LEASE_NAME, Duration.ofHours(1), () -> execute(createRun()))) {
+                logger.info("Réconciliation nocturne exécutée par un autre nœud");
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** Starts a run in the background and returns it immediately. */
+    public ReconciliationRun start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("Une réconciliation est déjà en cours");
+        }
+        Optional<JobLeaseService.Lease> lease;
+        try {
+            lease = leaseService.tryAcquire(LEASE_NAME, Duration.ZERO);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        if (lease.isEmpty()) {
+            running.set(false);
+            throw new BusinessException("Une réconciliation est déjà en cours sur un autre serveur");
+        }
+        ReconciliationRun run = createRun();
+        launcher.execute(() -> {
+            try (JobLeaseService.Lease held = lease.get()) {
+                execute(run);
+            } finally {
+                running.set(false);
+            }
+        });
+        return run;
+    }
+
+    public List<ReconciliationRun> getRecentRuns() {
+        return runRepository.findTop20ByOrderByStartedAtDesc();
+    }
+
+    public ReconciliationRun getRun(Long runId) {
+        return runRepository.findById(runId)
+                .orElseThrow(() -> new BusinessException("Réconciliation introuvable"));
+    }
+
+    public List<ReconciliationMismatch> getMismatches(Long runId, int page, int size) {
+        return mismatchRepository.findByRunIdOrderByAccountId(runId,
+                PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), 500)));
+    }
+
+    private ReconciliationRun createRun() {
+        ReconciliationRun run = new ReconciliationRun();
+        run.setStatus(ReconciliationRunStatus.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        return runRepository.save(run);
+    }
+
+    private void execute(ReconciliationRun run) {
+        AtomicLong accounts = new AtomicLong();
+        AtomicLong postings = new AtomicLong();
+        AtomicLong mismatches = new AtomicLong();
+        AtomicLong unverified = new AtomicLong();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            Long minId = accountRepo.findMinId();
+            Long maxId = accountRepo.findMaxId();
+            if (minId != null) {
+                LedgerStart start = new LedgerStart(transactionRepo.findLastSingleLegTransferDate());
+                if (start.lastSingleLegTransfer() != null) {
+                    logger.info("Réconciliation {} : historique rejoué après le dernier virement sans écriture de crédit ({})",
+                            run.getId(), start.lastSingleLegTransfer());
+                }
+                pool.invoke(new RangeTask(run.getId(), minId, maxId, start,
+                        new Counters(accounts, postings, mismatches, unverified)));
+            }
+            run.setStatus(ReconciliationRunStatus.COMPLETED);
+        } catch (RuntimeException e) {
+            logger.error("Échec de la réconciliation {}", run.getId(), e);
+            run.setStatus(ReconciliationRunStatus.FAILED);
+            run.setErrorMessage(e.getMessage());
+        } finally {
+            pool.shutdown();
+            run.setAccountsChecked(accounts.get());
+            run.setPostingsChecked(postings.get());
+            run.setMismatchCount(mismatches.get());
+            run.setFinishedAt(LocalDateTime.now());
+            runRepository.save(run);
+            running.set(false);
+            logger.info("Réconciliation {} {} : {} comptes, {} opérations, {} écarts, {} soldes non vérifiables "
+                    + "(virements antérieurs à la partie double)", run.getId(), run.getStatus(),
+                    accounts.get(), postings.get(), mismatches.get(), unverified.get());
+        }
+    }
+
+    private record Counters(AtomicLong accounts, AtomicLong postings, AtomicLong mismatches, AtomicLong unverified) {
+    }
+
+    /**
+     * Where replayable history starts: after the last single-leg transfer, or at the beginning when
+     * there is none ({@code lastSingleLegTransfer} null).
+     */
+    private record LedgerStart(LocalDateTime lastSingleLegTransfer) {
+
+        /** First checkpoint day whose closing balance (taken at the next midnight) follows every single-leg transfer. */
+        LocalDate firstCheckpointDay() {
+            return lastSingleLegTransfer != null ? lastSingleLegTransfer.toLocalDate() : LocalDate.of(1970, 1, 1);
+        }
+    }
+
+    private final class RangeTask extends RecursiveAction {
+
+        private final Long runId;
+        private final long fromId;
+        private final long toId;
+        private final LedgerStart start;
+        private final Counters counters;
+
+        RangeTask(Long runId, long fromId, long toId, LedgerStart start, Counters counters) {
+            this.runId = runId;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.start = start;
+            this.counters = counters;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId - fromId + 1 > rangeSize) {
+                long middle = fromId + (toId - fromId) / 2;
+                invokeAll(new RangeTask(runId, fromId, middle, start, counters),
+                        new RangeTask(runId, middle + 1, toId, start, counters));
+                return;
+            }
+            List<ReconciliationMismatch> found = new ArrayList<>();
+            readOnlyTemplate.executeWithoutResult(status -> reconcileRange(found));
+            if (!found.isEmpty()) {
+                mismatchRepository.saveAll(found);
+                counters.mismatches().addAndGet(found.size());
+            }
+        }
+
+        private void reconcileRange(List<ReconciliationMismatch> found) {
+            Map<Long, Long> balances = new HashMap<>();
+            Set<Long> sharded = new HashSet<>();
+            for (Object[] row : accountRepo.findBalancesInRange(fromId, toId)) {
+                long accountId = ((Number) row[0]).longValue();
+                balances.put(accountId, row[1] != null ? ((Number) row[1]).longValue() : 0L);
+                if (((Number) row[2]).intValue() > 0) {
+                    sharded.add(accountId);
+                }
+            }
+            counters.accounts().addAndGet(balances.size());
+            if (balances.isEmpty()) {
+                return;
+            }
+            Map<Long, Object[]> openings = new HashMap<>();
+            for (Object[] row : checkpointRepo.findFirstCheckpointsInRange(fromId, toId, start.firstCheckpointDay())) {
+                openings.put(((Number) row[0]).longValue(), row);
+            }
+
+            Set<Long> replayed = new HashSet<>();
+            AccountChain chain = null;
+            try (Stream<Object[]> rows = transactionRepo.streamPostingsForReconciliation(fromId, toId)) {
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    long accountId = ((Number) row[0]).longValue();
+                    if (chain == null || chain.accountId != accountId) {
+                        if (chain != null) {
+                            close(chain, balances, found);
+                        }
+                        chain = openChain(accountId, openings.get(accountId), !sharded.contains(accountId));
+                        replayed.add(accountId);
+                    }
+                    if (chain.accept((String) row[1], ((Number) row[2]).longValue(),
+                            row[3] != null ? ((Number) row[3]).longValue() : null,
+                            ((Number) row[4]).longValue(), toDateTime(row[5]), found)) {
+                        counters.postings().incrementAndGet();
+                    }
+                }
+            }
+            if (chain != null) {
+                close(chain, balances, found);
+            }
+            // accounts without postings: the stored balance must still equal the opening one
+            for (Long accountId : balances.keySet()) {
+                if (!replayed.contains(accountId)) {
+                    close(openChain(accountId, openings.get(accountId), false), balances, found);
+                }
+            }
+        }
+
+        private AccountChain openChain(long accountId, Object[] checkpoint, boolean checkChain) {
+            if (checkpoint != null) {
+                return new AccountChain(runId, accountId, checkChain,
+                        toDate(checkpoint[1]).plusDays(1).atStartOfDay(), ((Number) checkpoint[2]).longValue());
+            }
+            if (start.lastSingleLegTransfer() == null) {
+                return new AccountChain(runId, accountId, checkChain, null, 0L);
+            }
+            // opening unknown: the account may have received single-leg transfers, which left no posting on it
+            return new AccountChain(runId, accountId, checkChain, start.lastSingleLegTransfer().plusNanos(1), null);
+        }
+
+        private void close(AccountChain chain, Map<Long, Long> balances, List<ReconciliationMismatch> found) {
+            if (!chain.close(balances, found)) {
+                counters.unverified().incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Running state of one account while its postings stream by in (date, id) order: postings from
+     * {@code replayFrom} on (all when null) are added to the opening balance, null when unknown.
+     */
+    private static final class AccountChain {
+
+        private final Long runId;
+        private final long accountId;
+        // balanceAfter of a sharded account is approximate: only its final total is compared
+        private final boolean checkChain;
+        private final LocalDateTime replayFrom;
+        private Long previousBalanceAfter;
+        private Long rebuilt;
+
+        AccountChain(Long runId, long accountId, boolean checkChain, LocalDateTime replayFrom, Long opening) {
+            this.runId = runId;
+            this.accountId = accountId;
+            this.checkChain = checkChain;
+            this.replayFrom = replayFrom;
+            this.rebuilt = opening;
+            this.previousBalanceAfter = opening;
+        }
+
+        /** @return false when the posting is older than the replayed history */
+        boolean accept(String direction, long amount, Long balanceAfter, long transactionId, LocalDateTime date,
+                       List<ReconciliationMismatch> found) {
+            if (replayFrom != null && date.isBefore(replayFrom)) {
+                return false;
+            }
+            long signed = signedAmount(direction, amount);
+            if (rebuilt != null) {
+                rebuilt = Math.addExact(rebuilt, signed);
+            }
+            if (checkChain && previousBalanceAfter != null && balanceAfter != null
+                    && balanceAfter != previousBalanceAfter + signed) {
+                found.add(new ReconciliationMismatch(runId, accountId, ReconciliationMismatchKind.CHAIN_BREAK,
+                        transactionId, Money.ofMinor(previousBalanceAfter + signed), Money.ofMinor(balanceAfter)));
+            }
+            previousBalanceAfter = balanceAfter;
+            return true;
+        }
+
+        /** @return false when the balance could not be verified */
+        boolean close(Map<Long, Long> balances, List<ReconciliationMismatch> found) {
+            if (rebuilt == null) {
+                return false;
+            }
+            Long stored = balances.get(accountId);
+            if (stored != null && stored.longValue() != rebuilt.longValue()) {
+                found.add(new ReconciliationMismatch(runId, accountId, ReconciliationMismatchKind.BALANCE_MISMATCH,
+                        null, Money.ofMinor(rebuilt), Money.ofMinor(stored)));
+            }
+            return true;
+        }
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        return value instanceof java.sql.Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    private static LocalDate toDate(Object value) {
+        return value instanceof java.sql.Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+
+    private static long signedAmount(String direction, long amount) {
+        return "CREDIT".equals(direction) ? amount : -amount;
+    }
+}
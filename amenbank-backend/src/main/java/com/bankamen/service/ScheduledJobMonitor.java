@@ -0,0 +1,313 @@
+package com.bankamen.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.scheduling.support.CronTrigger;
+import org.springframework.stereotype.Service;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.exception.BusinessException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bookkeeping of the {@code @Scheduled} jobs run by the per-pool schedulers ({@link JobPool}).
+ * <p>
+ * Every task a pool scheduler receives is wrapped in a {@link Job}, which knows its planned firing
+ * times: lag behind the plan ({@code scheduler.job.lag}) and skipped firings
+ * ({@code scheduler.job.skipped}, per reason) are recorded per job, run time comes from Spring's
+ * {@code tasks.scheduled.execution} observation. A job never overlaps itself: a fixed-rate job
+ * that overran has its missed firings coalesced into the latest one, Spring's cron triggers skip
+ * the firings missed during a run, and a firing or manual trigger finding the job running is
+ * skipped.
+ */
+@Service
+public class ScheduledJobMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledJobMonitor.class);
+
+    public record JobStatus(String name, JobPool pool, String schedule, boolean running,
+                            LocalDateTime nextFireTime, LocalDateTime lastStartedAt, Long lastDurationMs,
+                            Long lastLagMs, String lastOutcome, String lastError,
+                            long runs, long failures, long skipped) {
+    }
+
+    public record PoolStatus(JobPool pool, int size, int active, int pending, long jobs) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Map<JobPool, ThreadPoolTaskScheduler> pools = new EnumMap<>(JobPool.class);
+
+    @Autowired
+    public ScheduledJobMonitor(MeterRegistry meterRegistry) {
+        this(meterRegistry, Clock.systemDefaultZone());
+    }
+
+    ScheduledJobMonitor(MeterRegistry meterRegistry, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /** A scheduled task of one pool, with its planned firings and run statistics. */
+    public final class Job {
+
+        private final String name;
+        private final JobPool pool;
+        private final Runnable task;
+        private final Runnable manualRun;
+        private final Timer lag;
+        private final Counter skippedOverrun;
+        private final Counter skippedRunning;
+
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private volatile String schedule = "";
+        private volatile Instant nextFireTime;
+        private volatile Instant lastStartedAt;
+        private volatile Long lastDurationMs;
+        private volatile Long lastLagMs;
+        private volatile String lastOutcome;
+        private volatile String lastError;
+
+        private Job(String name, JobPool pool, Runnable task, Executor executor) {
+            this.name = name;
+            this.pool = pool;
+            this.task = task;
+            this.manualRun = () -> executor.execute(() -> {
+                try {
+                    runClaimed();
+                } catch (RuntimeException e) {
+                    logger.error("Échec de la tâche {} déclenchée manuellement", name, e);
+                }
+            });
+            Tags tags = Tags.of("job", name, "pool", pool.propertyName());
+            this.lag = Timer.builder("scheduler.job.lag").tags(tags)
+                    .description("Delay between the planned firing and the actual start")
+                    .register(meterRegistry);
+            this.skippedOverrun = skippedCounter(tags, "overrun");
+            this.skippedRunning = skippedCounter(tags, "running");
+            Gauge.builder("scheduler.job.running", running, r -> r.get() ? 1 : 0).tags(tags)
+                    .register(meterRegistry);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /** Wraps a trigger (cron or custom) to record its planned firings and the cron firings it skips. */
+        public Trigger track(Trigger trigger) {
+            CronExpression cron = trigger instanceof CronTrigger cronTrigger ? CronExpression.parse(cronTrigger.getExpression()) : null;
+            schedule = cron != null ? "cron " + cron : trigger.toString();
+            return context -> {
+                Instant next = trigger.nextExecution(context);
+                Instant lastPlanned = context.lastScheduledExecution();
+                if (cron != null && next != null && lastPlanned != null) {
+                    // the cron trigger plans from the end of the last run: firings during the run are dropped
+                    long missed = 0;
+                    for (ZonedDateTime t = cron.next(lastPlanned.atZone(ZoneId.systemDefault()));
+                         t != null && t.toInstant().isBefore(next); t = cron.next(t)) {
+                        missed++;
+                    }
+                    skip(skippedOverrun, missed);
+                }
+                nextFireTime = next;
+                return next;
+            };
+        }
+
+        /** Task to run on the trigger returned by {@link #track}. */
+        public Runnable onTrigger() {
+            return () -> execute(nextFireTime);
+        }
+
+        /**
+         * Task to schedule at a fixed rate from {@code start}. The executor runs firings missed by an
+         * overrun back to back; all but the latest are skipped, so they are coalesced into one run.
+         */
+        public Runnable atFixedRate(Instant start, Duration period) {
+            schedule = "toutes les " + period.toMillis() + " ms";
+            nextFireTime = start;
+            return () -> {
+                Instant planned = nextFireTime;
+                Instant following = planned.plus(period);
+                nextFireTime = following;
+                if (!clock.instant().isBefore(following)) {
+                    skip(skippedOverrun, 1);
+                    return;
+                }
+                execute(planned);
+            };
+        }
+
+        /** Task to schedule with a fixed delay between the end of a run and the next start. */
+        public Runnable withFixedDelay(Instant start, Duration delay) {
+            schedule = delay.toMillis() + " ms après la fin";
+            nextFireTime = start;
+            return () -> {
+                try {
+                    execute(nextFireTime);
+                } finally {
+                    nextFireTime = clock.instant().plus(delay);
+                }
+            };
+        }
+
+        private void execute(Instant planned) {
+            if (!running.compareAndSet(false, true)) {
+                skip(skippedRunning, 1);
+                logger.info("Tâche {} ignorée : l'exécution précédente est toujours en cours", name);
+                return;
+            }
+            if (planned != null) {
+                Duration delay = Duration.between(planned, clock.instant());
+                lag.record(delay.isNegative() ? Duration.ZERO : delay);
+                lastLagMs = Math.max(0, delay.toMillis());
+            }
+            runClaimed();
+        }
+
+        /** Runs the task; the caller has set {@code running}. */
+        private void runClaimed() {
+            Instant started = clock.instant();
+            lastStartedAt = started;
+            try {
+                task.run();
+                lastOutcome = "SUCCESS";
+                lastError = null;
+            } catch (RuntimeException | Error e) {
+                failures.incrementAndGet();
+                lastOutcome = "FAILED";
+                lastError = e.toString();
+                throw e;
+            } finally {
+                runs.incrementAndGet();
+                lastDurationMs = Duration.between(started, clock.instant()).toMillis();
+                running.set(false);
+            }
+        }
+
+        private void skip(Counter counter, long count) {
+            if (count > 0) {
+                skipped.addAndGet(count);
+                counter.increment(count);
+            }
+        }
+
+        private JobStatus status() {
+            return new JobStatus(name, pool, schedule, running.get(), toLocal(nextFireTime), toLocal(lastStartedAt),
+                    lastDurationMs, lastLagMs, lastOutcome, lastError, runs.get(), failures.get(), skipped.get());
+        }
+    }
+
+    private Counter skippedCounter(Tags tags, String reason) {
+        return Counter.builder("scheduler.job.skipped").tags(tags).tag("reason", reason)
+                .description("Firings that did not run the job")
+                .register(meterRegistry);
+    }
+
+    /** Called by the pool schedulers for every task they are given. */
+    public Job register(JobPool pool, ThreadPoolTaskScheduler scheduler, Runnable task) {
+        synchronized (pools) {
+            pools.putIfAbsent(pool, scheduler);
+        }
+        // "com.bankamen.service.ReconciliationService.nightlyRun" -> "ReconciliationService.nightlyRun"
+        String qualified = task.toString();
+        int method = qualified.lastIndexOf('.');
+        int type = method > 0 ? qualified.lastIndexOf('.', method - 1) : -1;
+        String name = qualified.substring(type + 1);
+        Job job = new Job(name, pool, task, scheduler);
+        if (jobs.putIfAbsent(name, job) != null) {
+            job = new Job(name + "#" + jobs.size(), pool, task, scheduler);
+            jobs.put(job.name, job);
+        }
+        return job;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkPoolSizes() {
+        synchronized (pools) {
+            pools.forEach((pool, scheduler) -> {
+                long count = jobs.values().stream().filter(job -> job.pool == pool).count();
+                if (count > scheduler.getPoolSize()) {
+                    logger.warn("Pool {} : {} tâches pour {} threads, une tâche lente retardera les autres",
+                            pool, count, scheduler.getPoolSize());
+                }
+            });
+        }
+    }
+
+    /**
+     * Runs {@code name} now on its pool, outside of its plan.
+     *
+     * @return false when the job is already running (the trigger is skipped)
+     */
+    public boolean trigger(String name) {
+        Job job = jobs.get(name);
+        if (job == null) {
+            throw new BusinessException("Tâche planifiée introuvable : " + name);
+        }
+        if (!job.running.compareAndSet(false, true)) {
+            job.skip(job.skippedRunning, 1);
+            return false;
+        }
+        try {
+            job.manualRun.run();
+        } catch (RejectedExecutionException e) {
+            job.running.set(false);
+            throw new BusinessException("Pool " + job.pool + " indisponible");
+        }
+        return true;
+    }
+
+    public List<JobStatus> getJobs() {
+        List<JobStatus> statuses = new ArrayList<>();
+        jobs.values().forEach(job -> statuses.add(job.status()));
+        statuses.sort(Comparator.comparing(JobStatus::pool).thenComparing(JobStatus::name));
+        return statuses;
+    }
+
+    public List<PoolStatus> getPools() {
+        List<PoolStatus> statuses = new ArrayList<>();
+        synchronized (pools) {
+            pools.forEach((pool, scheduler) -> statuses.add(new PoolStatus(pool, scheduler.getPoolSize(),
+                    scheduler.getActiveCount(), scheduler.getScheduledThreadPoolExecutor().getQueue().size(),
+                    jobs.values().stream().filter(job -> job.pool == pool).count())));
+        }
+        return statuses;
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return instant != null ? LocalDateTime.ofInstant(instant, ZoneId.systemDefault()) : null;
+    }
+}
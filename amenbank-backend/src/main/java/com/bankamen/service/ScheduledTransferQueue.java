@@ -0,0 +1,123 @@
+package com.bankamen.service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.bankamen.entity.ScheduledTransfer;
+import com.bankamen.repository.ScheduledTransferRepository;
+
+/**
+ * In-memory priority queues of the scheduled transfers due within the next window, one per shard.
+ * <p>
+ * A transfer belongs to shard {@code sourceAccountId mod shards}, so all the transfers of an
+ * account stay in one shard and shards can be executed by different nodes. Each queue is refilled
+ * lazily from the {@code next_execution_at} index, at most {@code batchSize} entries at a time,
+ * when it runs dry or when the window it was loaded for has passed. Transfers created or
+ * rescheduled into the loaded window are offered directly (on the node that saved them; other
+ * nodes see them at their next refill). Entries are only hints: the executor reloads the transfer
+ * and skips it when its next execution no longer matches.
+ */
+@Service
+public class ScheduledTransferQueue {
+
+    public record Due(Long transferId, LocalDateTime at, Long sourceAccountId) {
+    }
+
+    private final ScheduledTransferRepository scheduledTransferRepo;
+    private final long lookaheadMinutes;
+    private final int batchSize;
+    private final Shard[] shards;
+
+    private static final class Shard {
+        private final PriorityQueue<Due> queue = new PriorityQueue<>(
+                Comparator.comparing(Due::at).thenComparing(Due::transferId));
+        // every active transfer of the shard due up to this instant was loaded (or offered) at some point
+        private LocalDateTime loadedUntil;
+    }
+
+    public ScheduledTransferQueue(ScheduledTransferRepository scheduledTransferRepo,
+                                  @Value("${app.scheduled-transfers.lookahead-minutes:15}") long lookaheadMinutes,
+                                  @Value("${app.scheduled-transfers.queue-batch-size:500}") int batchSize,
+                                  @Value("${app.scheduled-transfers.shards:4}") int shardCount) {
+        this.scheduledTransferRepo = scheduledTransferRepo;
+        this.lookaheadMinutes = Math.max(1, lookaheadMinutes);
+        this.batchSize = Math.max(1, batchSize);
+        this.shards = new Shard[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(Long sourceAccountId) {
+        return (int) Math.floorMod(sourceAccountId, (long) shards.length);
+    }
+
+    /** Next entry of {@code shard} due at {@code now}, or null when nothing is due. */
+    public Due pollDue(int shard, LocalDateTime now) {
+        Shard s = shards[shard];
+        synchronized (s) {
+            Due head = s.queue.peek();
+            if (head == null || (head.at().isAfter(now) && s.loadedUntil.isBefore(now))) {
+                refill(shard, now);
+                head = s.queue.peek();
+            }
+            return head != null && !head.at().isAfter(now) ? s.queue.poll() : null;
+        }
+    }
+
+    /** Makes a saved transfer visible to the scheduler when it is due within the loaded window. */
+    public void offer(ScheduledTransfer transfer) {
+        LocalDateTime at = transfer.getNextExecutionAt();
+        if (transfer.getId() == null || !transfer.isActive() || at == null) {
+            return;
+        }
+        Long sourceAccountId = transfer.getSourceAccount().getId();
+        Shard s = shards[shardOf(sourceAccountId)];
+        synchronized (s) {
+            if (s.loadedUntil != null && !at.isAfter(s.loadedUntil)) {
+                s.queue.add(new Due(transfer.getId(), at, sourceAccountId));
+            }
+        }
+    }
+
+    /** Forgets what was loaded for {@code shard}, e.g. after another node executed it. */
+    public void reset(int shard) {
+        Shard s = shards[shard];
+        synchronized (s) {
+            s.queue.clear();
+            s.loadedUntil = null;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard s : shards) {
+            synchronized (s) {
+                size += s.queue.size();
+            }
+        }
+        return size;
+    }
+
+    private void refill(int shard, LocalDateTime now) {
+        Shard s = shards[shard];
+        LocalDateTime until = now.plusMinutes(lookaheadMinutes);
+        List<Object[]> rows = scheduledTransferRepo.findDueInShard(until, shards.length, shard, PageRequest.of(0, batchSize));
+        s.queue.clear();
+        for (Object[] row : rows) {
+            s.queue.add(new Due((Long) row[0], (LocalDateTime) row[1], (Long) row[2]));
+        }
+        // a truncated batch only covers up to its last entry; the rest comes with the next refill
+        s.loadedUntil = rows.size() == batchSize ? (LocalDateTime) rows.get(rows.size() - 1)[1] : until;
+    }
+}
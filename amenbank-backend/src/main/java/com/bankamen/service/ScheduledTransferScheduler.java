@@ -0,0 +1,347 @@
+package com.bankamen.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.dto.ScheduledTransferRunSummary;
+import com.bankamen.entity.ScheduledTransferRun;
+import com.bankamen.entity.ScheduledTransferRunStatus;
+import com.bankamen.exception.LeaseLostException;
+import com.bankamen.repository.ScheduledTransferRunRepository;
+import com.bankamen.service.ScheduledTransferQueue.Due;
+import com.bankamen.service.ScheduledTransferService.Outcome;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Executes recurring transfers as they fall due.
+ * <p>
+ * Transfers are split into shards by source account ({@link ScheduledTransferQueue}). On each pass
+ * the node goes over the shards in random order and executes those whose lease it can take, so
+ * several nodes share the work without running a shard twice. Within a shard, due occurrences are
+ * grouped by source account: a group runs in due order on one worker, groups run in parallel on a
+ * bounded pool. Every occurrence gets its own short transaction, fenced by the shard lease and
+ * replayed on optimistic locking conflicts (two groups crediting the same target).
+ * <p>
+ * Every execution moves the transfer's nextExecutionAt forward and writes an execution record
+ * (unique per transfer and date) in the same transaction, so retries, manual triggers and crashes
+ * never repeat a transfer. Runs are recorded per shard and checkpointed; a run left RUNNING by a
+ * node that crashed or lost its lease is resumed by the next holder of the shard.
+ */
+@Service
+public class ScheduledTransferScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduledTransferScheduler.class);
+
+    private static final String LEASE_PREFIX = "scheduled-transfers-shard-";
+
+    private enum Result {
+        EXECUTED, INSUFFICIENT_FUNDS, STALE, FAILED, LEASE_LOST
+    }
+
+    private final ScheduledTransferService transferService;
+    private final ScheduledTransferQueue transferQueue;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final ScheduledTransferRunRepository runRepository;
+    private final JobLeaseService leaseService;
+    private final int parallelism;
+    private final ExecutorService workers;
+
+    private final ReentrantLock running = new ReentrantLock();
+    private volatile ScheduledTransferRunSummary lastRun;
+    // fencing token of the last lease this node held, per shard
+    private final long[] lastTokens;
+
+    public ScheduledTransferScheduler(ScheduledTransferService transferService,
+                                      ScheduledTransferQueue transferQueue,
+                                      OptimisticRetryExecutor retryExecutor,
+                                      ScheduledTransferRunRepository runRepository,
+                                      JobLeaseService leaseService,
+                                      @Value("${app.scheduled-transfers.parallelism:4}") int parallelism) {
+        this.transferService = transferService;
+        this.transferQueue = transferQueue;
+        this.retryExecutor = retryExecutor;
+        this.runRepository = runRepository;
+        this.leaseService = leaseService;
+        this.parallelism = Math.max(1, parallelism);
+        this.lastTokens = new long[transferQueue.getShardCount()];
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(this.parallelism, r -> {
+            Thread t = new Thread(r, "scheduled-transfer-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /** Plans transfers written before next_execution_at existed. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void planExistingTransfers() {
+        leaseService.runExclusive("scheduled-transfers-backfill", Duration.ZERO, () -> {
+            int planned = transferService.backfillNextExecutions();
+            if (planned > 0) {
+                logger.info("{} virements programmés planifiés (prochaine exécution calculée)", planned);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.scheduled-transfers.poll-interval-ms:30000}", scheduler = JobPool.TRANSFERS_SCHEDULER)
+    public void runDueTransfers() {
+        executeDue(LocalDateTime.now());
+    }
+
+    /** @return the summary of this node's pass, or null if a pass is already in progress here */
+    public ScheduledTransferRunSummary executeDue(LocalDateTime now) {
+        if (!running.tryLock()) {
+            logger.info("Exécution des virements programmés déjà en cours");
+            return null;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            ScheduledTransferRunSummary summary = new ScheduledTransferRunSummary();
+            summary.setNode(leaseService.getNodeId());
+            summary.setStartedAt(LocalDateTime.now());
+            summary.setParallelism(parallelism);
+            List<Integer> shards = new ArrayList<>();
+            for (int shard = 0; shard < transferQueue.getShardCount(); shard++) {
+                shards.add(shard);
+            }
+            Collections.shuffle(shards);
+            for (int shard : shards) {
+                Optional<JobLeaseService.Lease> acquired = leaseService.tryAcquire(LEASE_PREFIX + shard, Duration.ZERO);
+                if (acquired.isEmpty()) {
+                    continue;
+                }
+                try (JobLeaseService.Lease lease = acquired.get()) {
+                    summary.setShards(summary.getShards() + 1);
+                    if (lease.getToken() != lastTokens[shard] + 1) {
+                        // another node held the shard in between: what this node loaded may be stale
+                        transferQueue.reset(shard);
+                    }
+                    lastTokens[shard] = lease.getToken();
+                    for (ScheduledTransferRun interrupted : runRepository.findByShardAndStatusOrderById(shard,
+                            ScheduledTransferRunStatus.RUNNING)) {
+                        interrupted.setResumeCount(interrupted.getResumeCount() + 1);
+                        logger.info("Reprise de l'exécution {} des virements programmés (partition {}) : {} échéances déjà traitées",
+                                interrupted.getId(), shard, interrupted.getDueCount());
+                        execute(interrupted, interrupted.getDueUntil(), shard, lease, summary);
+                    }
+                    execute(null, now, shard, lease, summary);
+                }
+            }
+            summary.setElapsedMs(System.currentTimeMillis() - started);
+            if (summary.getDueCount() > 0) {
+                logger.info("Virements programmés : {} échéances sur {} comptes source ({} partitions), {} exécutés, "
+                                + "{} soldes insuffisants, {} échecs, {} ignorés, en {} ms ({} /s)",
+                        summary.getDueCount(), summary.getSourceAccounts(), summary.getShards(), summary.getExecutedCount(),
+                        summary.getInsufficientFundsCount(), summary.getFailedCount(), summary.getStaleCount(),
+                        summary.getElapsedMs(), String.format("%.1f", summary.getThroughputPerSecond()));
+                lastRun = summary;
+            }
+            return summary;
+        } finally {
+            running.unlock();
+        }
+    }
+
+    public ScheduledTransferRunSummary getLastRun() {
+        return lastRun;
+    }
+
+    public List<ScheduledTransferRun> getRecentRuns() {
+        return runRepository.findTop20ByOrderByIdDesc();
+    }
+
+    /**
+     * Runs everything of {@code shard} due up to {@code dueUntil}. The run row is only created once
+     * there is work, and its counters are checkpointed after every batch. Only the remainder is ever
+     * processed: executed occurrences have moved their transfer's nextExecutionAt forward in the
+     * same transaction, and the execution records reject anything run twice. Stops, leaving the
+     * run RUNNING, as soon as the lease is lost.
+     */
+    private void execute(ScheduledTransferRun run, LocalDateTime dueUntil, int shard, JobLeaseService.Lease lease,
+                         ScheduledTransferRunSummary summary) {
+        Set<Due> attempted = new HashSet<>();
+        try {
+            List<Due> batch;
+            while (lease.isHeld() && !(batch = drain(shard, dueUntil, attempted)).isEmpty()) {
+                if (run == null) {
+                    run = startRun(shard, dueUntil);
+                }
+                run.setNode(leaseService.getNodeId());
+                run.setFencingToken(lease.getToken());
+                Long runId = run.getId();
+                Map<Long, List<Due>> bySource = new LinkedHashMap<>();
+                for (Due due : batch) {
+                    bySource.computeIfAbsent(due.sourceAccountId(), id -> new ArrayList<>()).add(due);
+                }
+                List<CompletableFuture<Map<Result, Integer>>> partitions = new ArrayList<>(bySource.size());
+                for (List<Due> group : bySource.values()) {
+                    partitions.add(CompletableFuture.supplyAsync(() -> runInOrder(group, runId, lease), workers));
+                }
+                Map<Result, Integer> results = new EnumMap<>(Result.class);
+                for (CompletableFuture<Map<Result, Integer>> partition : partitions) {
+                    partition.join().forEach((result, count) -> results.merge(result, count, Integer::sum));
+                }
+                summary.setSourceAccounts(summary.getSourceAccounts() + bySource.size());
+                add(summary, results);
+                if (results.containsKey(Result.LEASE_LOST)) {
+                    break;
+                }
+                run = checkpoint(run, results);
+            }
+            if (run == null) {
+                return;
+            }
+            if (!summary.getRunIds().contains(run.getId())) {
+                summary.getRunIds().add(run.getId());
+            }
+            if (!lease.isHeld()) {
+                // the new holder of the shard resumes the run
+                logger.warn("Exécution {} des virements programmés interrompue : bail de la partition {} perdu",
+                        run.getId(), shard);
+                return;
+            }
+            run.setStatus(ScheduledTransferRunStatus.COMPLETED);
+            run.setFinishedAt(LocalDateTime.now());
+            runRepository.save(run);
+        } catch (RuntimeException e) {
+            if (workers.isShutdown()) {
+                // node is stopping: the run stays RUNNING and is resumed by the next holder of the shard
+                logger.info("Exécution des virements programmés interrompue (partition {}), reprise par le prochain détenteur",
+                        shard);
+                return;
+            }
+            logger.error("Échec de l'exécution des virements programmés (partition {})", shard, e);
+            if (run != null) {
+                run.setStatus(ScheduledTransferRunStatus.FAILED);
+                run.setErrorMessage(e.getMessage());
+                run.setFinishedAt(LocalDateTime.now());
+                runRepository.save(run);
+            }
+        }
+    }
+
+    private ScheduledTransferRun startRun(int shard, LocalDateTime dueUntil) {
+        ScheduledTransferRun run = new ScheduledTransferRun();
+        run.setStatus(ScheduledTransferRunStatus.RUNNING);
+        run.setShard(shard);
+        run.setDueUntil(dueUntil);
+        run.setStartedAt(LocalDateTime.now());
+        return runRepository.save(run);
+    }
+
+    /** Occurrences that hit a lost lease wrote nothing and are left to the new holder. */
+    private ScheduledTransferRun checkpoint(ScheduledTransferRun run, Map<Result, Integer> results) {
+        run.setDueCount(run.getDueCount() + processed(results));
+        run.setExecutedCount(run.getExecutedCount() + results.getOrDefault(Result.EXECUTED, 0));
+        run.setInsufficientFundsCount(run.getInsufficientFundsCount() + results.getOrDefault(Result.INSUFFICIENT_FUNDS, 0));
+        run.setFailedCount(run.getFailedCount() + results.getOrDefault(Result.FAILED, 0));
+        run.setStaleCount(run.getStaleCount() + results.getOrDefault(Result.STALE, 0));
+        run.setCheckpointAt(LocalDateTime.now());
+        return runRepository.save(run);
+    }
+
+    private static void add(ScheduledTransferRunSummary summary, Map<Result, Integer> results) {
+        summary.setDueCount(summary.getDueCount() + processed(results));
+        summary.setExecutedCount(summary.getExecutedCount() + results.getOrDefault(Result.EXECUTED, 0));
+        summary.setInsufficientFundsCount(summary.getInsufficientFundsCount() + results.getOrDefault(Result.INSUFFICIENT_FUNDS, 0));
+        summary.setFailedCount(summary.getFailedCount() + results.getOrDefault(Result.FAILED, 0));
+        summary.setStaleCount(summary.getStaleCount() + results.getOrDefault(Result.STALE, 0));
+    }
+
+    private static int processed(Map<Result, Integer> results) {
+        int count = 0;
+        for (Map.Entry<Result, Integer> entry : results.entrySet()) {
+            if (entry.getKey() != Result.LEASE_LOST) {
+                count += entry.getValue();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Takes the due entries of a shard out of the queue, at most one refill's worth: once a refill
+     * hands back entries already taken (not yet executed), the batch is complete. Entries attempted
+     * earlier in the run are dropped so that an occurrence that could not move forward is not
+     * retried in a loop.
+     */
+    private List<Due> drain(int shard, LocalDateTime now, Set<Due> attempted) {
+        List<Due> batch = new ArrayList<>();
+        Set<Due> seen = new HashSet<>();
+        Due due;
+        while ((due = transferQueue.pollDue(shard, now)) != null && seen.add(due)) {
+            if (attempted.add(due)) {
+                batch.add(due);
+            }
+        }
+        return batch;
+    }
+
+    private Map<Result, Integer> runInOrder(List<Due> group, Long runId, JobLeaseService.Lease lease) {
+        Map<Result, Integer> results = new EnumMap<>(Result.class);
+        for (Due due : group) {
+            Result result = runOne(due, runId, lease);
+            results.merge(result, 1, Integer::sum);
+            if (result == Result.LEASE_LOST) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    private Result runOne(Due due, Long runId, JobLeaseService.Lease lease) {
+        try {
+            Outcome outcome = retryExecutor.execute("scheduledTransfer",
+                    () -> transferService.executeOccurrence(due.transferId(), due.at(), runId, lease));
+            return switch (outcome) {
+                case EXECUTED -> Result.EXECUTED;
+                case INSUFFICIENT_FUNDS -> Result.INSUFFICIENT_FUNDS;
+                case STALE, ALREADY_EXECUTED -> Result.STALE;
+            };
+        } catch (LeaseLostException e) {
+            // nothing was written: the occurrence belongs to the new holder of the shard
+            return Result.LEASE_LOST;
+        } catch (DataIntegrityViolationException e) {
+            // execution record already claimed by a concurrent trigger, which owns the occurrence
+            logger.info("Virement programmé ID {} : échéance du {} déjà exécutée", due.transferId(), due.at());
+            return Result.STALE;
+        } catch (RuntimeException e) {
+            logger.error("Erreur virement programmé ID {} : {}", due.transferId(), e.getMessage());
+            try {
+                transferService.skipOccurrence(due.transferId(), due.at(), runId, lease);
+            } catch (RuntimeException skipFailure) {
+                logger.error("Virement programmé ID {} : échéance du {} non reportée", due.transferId(), due.at(), skipFailure);
+            }
+            return Result.FAILED;
+        }
+    }
+}
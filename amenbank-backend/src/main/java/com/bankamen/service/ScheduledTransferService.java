@@ -2,23 +2,35 @@ package com.bankamen.service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import com.bankamen.dto.CreateTransactionRequest;
 import com.bankamen.dto.ScheduledTransferRequest;
 import com.bankamen.dto.ScheduledTransferResponse;
 import com.bankamen.dto.ScheduledTransferUpdateRequest;
 import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.PostingDirection;
 import com.bankamen.entity.ScheduledTransfer;
+import com.bankamen.entity.ScheduledTransferExecution;
+import com.bankamen.entity.ScheduledTransferExecutionOutcome;
 import com.bankamen.entity.Transaction;
 import com.bankamen.entity.TransactionType;
 import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.InsufficientFundsException;
+import com.bankamen.exception.OutcomeUnknownException;
 import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.ScheduledTransferExecutionRepository;
 import com.bankamen.repository.ScheduledTransferRepository;
 import com.bankamen.repository.TransactionRepository;
+import com.bankamen.service.ledger.LedgerEngine;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -31,7 +43,19 @@ public class ScheduledTransferService {
     private final BankAccountRepository accountRepo;
     private final TransactionRepository transactionRepo;
     private final NotificationService notificationService;
+    private final BalanceShardService shardService;
+    private final AccountMetadataCache accountCache;
+    private final ScheduledTransferQueue transferQueue;
+    private final ScheduledTransferExecutionRepository executionRepo;
+    private final JobLeaseService leaseService;
+    private final LedgerEngine ledgerEngine;
     private static final Logger logger = LoggerFactory.getLogger(ScheduledTransferService.class);
+    private static final LocalTime EXECUTION_TIME = LocalTime.of(8, 0);
+    private static final int ENGINE_ATTEMPTS = 3;
+
+    public enum Outcome {
+        EXECUTED, INSUFFICIENT_FUNDS, STALE, ALREADY_EXECUTED
+    }
 
 
     public ScheduledTransfer createScheduledTransfer(ScheduledTransferRequest request) {
@@ -39,7 +63,8 @@ public class ScheduledTransferService {
                 .orElseThrow(() -> new BusinessException("Compte source introuvable"));
         
         // Find target account by account number
-        BankAccount target = accountRepo.findByAccountNumber(request.getTargetAccountNumber())
+        BankAccount target = accountCache.findAccountIdByNumber(request.getTargetAccountNumber())
+                .map(accountRepo::getReferenceById)
                 .orElseThrow(() -> new BusinessException("Compte destinataire introuvable"));
 
         ScheduledTransfer transfer = new ScheduledTransfer();
@@ -51,43 +76,66 @@ public class ScheduledTransferService {
         transfer.setSourceAccount(source);
         transfer.setTargetAccount(target);
         transfer.setActive(true);
+        planNextExecution(transfer);
 
         transfer = scheduledTransferRepo.save(transfer);
+        transferQueue.offer(transfer);
 
         // Create reminder for the first execution
-        LocalDateTime nextExecution = calculateNextExecutionDate(transfer);
-        if (nextExecution != null) {
-            notificationService.createReminderNotification(transfer, nextExecution);
+        if (transfer.getNextExecutionAt() != null) {
+            notificationService.createReminderNotification(transfer, transfer.getNextExecutionAt());
         }
 
         return transfer;
     }
 
-    private LocalDateTime calculateNextExecutionDate(ScheduledTransfer transfer) {
-        LocalDate today = LocalDate.now();
-        LocalDate startDate = transfer.getStartDate();
-        
-        if (startDate.isBefore(today)) {
-            startDate = today;
+    /**
+     * First occurrence of the transfer's schedule on or after {@code from}, at the execution time,
+     * or null when the schedule ends before. Computed directly, without walking the calendar.
+     * Monthly transfers starting on the 29th-31st run on the last day of shorter months.
+     */
+    public static LocalDateTime firstExecutionOnOrAfter(ScheduledTransfer transfer, LocalDate from) {
+        LocalDate start = transfer.getStartDate();
+        if (start == null || transfer.getFrequency() == null) {
+            return null;
         }
-
-        return switch (transfer.getFrequency()) {
-            case DAILY -> startDate.atTime(8, 0); // Execute at 8:00 AM
-            case WEEKLY -> {
-                LocalDate next = startDate;
-                while (next.isBefore(today)) {
-                    next = next.plusWeeks(1);
-                }
-                yield next.atTime(8, 0);
-            }
-            case MONTHLY -> {
-                LocalDate next = startDate;
-                while (next.isBefore(today)) {
-                    next = next.plusMonths(1);
+        LocalDate date;
+        if (!from.isAfter(start)) {
+            date = start;
+        } else {
+            date = switch (transfer.getFrequency()) {
+                case DAILY -> from;
+                case WEEKLY -> from.plusDays(Math.floorMod(ChronoUnit.DAYS.between(from, start), 7));
+                case MONTHLY -> {
+                    long months = ChronoUnit.MONTHS.between(start, from);
+                    LocalDate candidate = start.plusMonths(months);
+                    yield candidate.isBefore(from) ? start.plusMonths(months + 1) : candidate;
                 }
-                yield next.atTime(8, 0);
-            }
-        };
+            };
+        }
+        if (transfer.getEndDate() != null && date.isAfter(transfer.getEndDate())) {
+            return null;
+        }
+        return date.atTime(EXECUTION_TIME);
+    }
+
+    /** Recomputes nextExecutionAt; to be called before saving a created or edited transfer. */
+    public void planNextExecution(ScheduledTransfer transfer) {
+        if (!transfer.isActive()) {
+            transfer.setNextExecutionAt(null);
+            return;
+        }
+        // never plan a second run on a day that was already processed
+        LocalDate from = LocalDate.now();
+        if (transfer.getLastExecutionDate() != null && !transfer.getLastExecutionDate().isBefore(from)) {
+            from = transfer.getLastExecutionDate().plusDays(1);
+        }
+        transfer.setNextExecutionAt(firstExecutionOnOrAfter(transfer, from));
+    }
+
+    /** Makes a saved transfer visible to the scheduler. */
+    public void schedule(ScheduledTransfer transfer) {
+        transferQueue.offer(transfer);
     }
 
     public List<ScheduledTransfer> getAllActiveTransfers() {
@@ -95,41 +143,121 @@ public class ScheduledTransferService {
         return scheduledTransferRepo.findByActiveTrueAndStartDateLessThanEqualAndEndDateGreaterThanEqual(today, today);
     }
 
+    /**
+     * Runs one queued occurrence in its own transaction. A stale queue entry (transfer edited,
+     * cancelled or already run) is ignored; otherwise the transfer moves on to its next occurrence,
+     * whether it was posted or rejected for insufficient funds.
+     * <p>
+     * The execution record is inserted before the posting: if another trigger is running the same
+     * occurrence, the unique key makes one of them fail (DataIntegrityViolationException) and roll
+     * back without moving money. The shard lease is checked first (LeaseLostException).
+     * <p>
+     * With the ledger engine enabled, the transfer is posted through it, keyed by the occurrence: an
+     * occurrence posted by an attempt whose transaction then rolled back is not posted again.
+     */
     @Transactional
-    public int executeScheduledTransfers() {
-        LocalDate today = LocalDate.now();
-        List<ScheduledTransfer> transfers = getAllActiveTransfers();
-
-        int executedCount = 0;
-        for (ScheduledTransfer transfer : transfers) {
-            if (shouldExecuteToday(transfer, today)) {
-                try {
-                    boolean success = performTransfer(transfer);
-                    if (success) {
-                        executedCount++;
-                        // Create execution notification
-                        notificationService.createExecutionNotification(transfer);
-                        
-                        // Create reminder for next execution
-                        LocalDateTime nextExecution = calculateNextExecutionDate(transfer);
-                        if (nextExecution != null) {
-                            notificationService.createReminderNotification(transfer, nextExecution);
-                        }
+    public Outcome executeOccurrence(Long transferId, LocalDateTime dueAt, Long runId, JobLeaseService.Lease lease) {
+        leaseService.assertHeld(lease);
+        ScheduledTransfer transfer = scheduledTransferRepo.findById(transferId).orElse(null);
+        if (transfer == null || !transfer.isActive() || !dueAt.equals(transfer.getNextExecutionAt())) {
+            return Outcome.STALE;
+        }
+        LocalDate executionDate = dueAt.toLocalDate();
+        if (executionRepo.existsByScheduledTransferIdAndExecutionDate(transferId, executionDate)) {
+            // executed, but the transfer was rescheduled onto the same day since: only move it forward
+            advance(transfer, dueAt);
+            return Outcome.ALREADY_EXECUTED;
+        }
+        ScheduledTransferExecution execution = executionRepo.saveAndFlush(new ScheduledTransferExecution(
+                transferId, executionDate, runId, ScheduledTransferExecutionOutcome.EXECUTED));
+        boolean success = ledgerEngine.isEnabled()
+                ? postThroughEngine(transfer, executionDate)
+                : performTransfer(transfer);
+        advance(transfer, dueAt);
+        if (!success) {
+            execution.setOutcome(ScheduledTransferExecutionOutcome.INSUFFICIENT_FUNDS);
+            return Outcome.INSUFFICIENT_FUNDS;
+        }
+        notificationService.createExecutionNotification(transfer);
+        if (transfer.getNextExecutionAt() != null) {
+            notificationService.createReminderNotification(transfer, transfer.getNextExecutionAt());
+        }
+        return Outcome.EXECUTED;
+    }
+
+    /** Moves past an occurrence whose execution failed, so that it is not retried in a loop. */
+    @Transactional
+    public void skipOccurrence(Long transferId, LocalDateTime dueAt, Long runId, JobLeaseService.Lease lease) {
+        leaseService.assertHeld(lease);
+        scheduledTransferRepo.findById(transferId)
+                .filter(transfer -> dueAt.equals(transfer.getNextExecutionAt()))
+                .ifPresent(transfer -> {
+                    if (!executionRepo.existsByScheduledTransferIdAndExecutionDate(transferId, dueAt.toLocalDate())) {
+                        executionRepo.save(new ScheduledTransferExecution(transferId, dueAt.toLocalDate(), runId,
+                                ScheduledTransferExecutionOutcome.FAILED));
                     }
-                } catch (Exception e) {
-                    logger.error("Erreur virement programmé ID " + transfer.getId() + " : " + e.getMessage());
+                    advance(transfer, dueAt);
+                });
+    }
+
+    public List<ScheduledTransferExecution> getRecentExecutions(Long transferId) {
+        return executionRepo.findTop50ByScheduledTransferIdOrderByExecutionDateDesc(transferId);
+    }
+
+    private void advance(ScheduledTransfer transfer, LocalDateTime dueAt) {
+        transfer.setLastExecutionDate(dueAt.toLocalDate());
+        transfer.setNextExecutionAt(firstExecutionOnOrAfter(transfer, dueAt.toLocalDate().plusDays(1)));
+        scheduledTransferRepo.save(transfer);
+    }
+
+    /** Plans the active transfers that have no next execution yet; returns how many got one. */
+    public int backfillNextExecutions() {
+        int planned = 0;
+        long afterId = 0;
+        List<ScheduledTransfer> batch;
+        do {
+            batch = scheduledTransferRepo.findByActiveTrueAndNextExecutionAtIsNullAndIdGreaterThanOrderById(
+                    afterId, PageRequest.of(0, 500));
+            for (ScheduledTransfer transfer : batch) {
+                afterId = transfer.getId();
+                planNextExecution(transfer);
+                if (transfer.getNextExecutionAt() != null) {
+                    scheduledTransferRepo.save(transfer);
+                    planned++;
                 }
             }
-        }
-        return executedCount;
+        } while (!batch.isEmpty());
+        return planned;
     }
 
-    private boolean shouldExecuteToday(ScheduledTransfer transfer, LocalDate today) {
-        return switch (transfer.getFrequency()) {
-            case DAILY -> true;
-            case WEEKLY -> today.getDayOfWeek() == transfer.getStartDate().getDayOfWeek();
-            case MONTHLY -> today.getDayOfMonth() == transfer.getStartDate().getDayOfMonth();
-        };
+    /**
+     * Engine mode: the engine owns the balances, so writing them here would go unnoticed by the
+     * accounts it has loaded. Returns false when the source account does not cover the amount.
+     */
+    private boolean postThroughEngine(ScheduledTransfer transfer, LocalDate executionDate) {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(TransactionType.TRANSFER);
+        request.setAmount(transfer.getAmount());
+        request.setTargetAccountId(transfer.getTargetAccount().getId());
+        request.setDescription(transfer.getDescription());
+        String reference = "scheduled:" + transfer.getId() + ":" + executionDate;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // empty when an earlier attempt already posted the occurrence: it counts as executed
+                ledgerEngine.postOnce(transfer.getSourceAccount().getId(), request, reference);
+                return true;
+            } catch (InsufficientFundsException e) {
+                logger.warn("❌ Virement échoué: Solde insuffisant pour le compte source ID {}. Montant requis: {}",
+                        transfer.getSourceAccount().getId(), transfer.getAmount());
+                return false;
+            } catch (OutcomeUnknownException e) {
+                // safe to resubmit: the reference keeps it from being posted twice
+                if (attempt == ENGINE_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Virement programmé ID {} : {}, nouvel essai", transfer.getId(), e.getMessage());
+            }
+        }
     }
 
     /**
@@ -138,19 +266,36 @@ public class ScheduledTransferService {
     private boolean performTransfer(ScheduledTransfer transfer) {
         BankAccount source = transfer.getSourceAccount();
         BankAccount target = transfer.getTargetAccount();
-        double amount = transfer.getAmount();
-
-        if (source.getBalance() < amount) {
-            logger.warn("❌ Virement échoué: Solde insuffisant pour le compte source ID {}. Montant requis: {}, Solde actuel: {}",
-                    source.getId(), amount, source.getBalance());
-            return false;
+        Money amount = transfer.getAmount();
+
+        Money sourceBalanceAfter;
+        if (shardService.isSharded(source)) {
+            try {
+                sourceBalanceAfter = shardService.debit(source, amount);
+            } catch (BusinessException e) {
+                logger.warn("❌ Virement échoué: Solde insuffisant pour le compte source ID {}. Montant requis: {}",
+                        source.getId(), amount);
+                return false;
+            }
+        } else {
+            if (source.getBalance().isLessThan(amount)) {
+                logger.warn("❌ Virement échoué: Solde insuffisant pour le compte source ID {}. Montant requis: {}, Solde actuel: {}",
+                        source.getId(), amount, source.getBalance());
+                return false;
+            }
+            source.setBalance(source.getBalance().minus(amount));
+            sourceBalanceAfter = source.getBalance();
+            accountRepo.save(source);
         }
 
-        source.setBalance(source.getBalance() - amount);
-        target.setBalance(target.getBalance() + amount);
-
-        accountRepo.save(source);
-        accountRepo.save(target);
+        Money targetBalanceAfter;
+        if (shardService.isSharded(target)) {
+            targetBalanceAfter = shardService.credit(target, amount);
+        } else {
+            target.setBalance(target.getBalance().plus(amount));
+            targetBalanceAfter = target.getBalance();
+            accountRepo.save(target);
+        }
 
         Transaction tx = new Transaction();
         tx.setAccount(source);
@@ -158,9 +303,11 @@ public class ScheduledTransferService {
         tx.setDate(LocalDateTime.now());
         tx.setType(TransactionType.TRANSFER);
         tx.setDescription("Virement programmé vers compte ID: " + target.getId());
-        tx.setBalanceAfter(source.getBalance());
+        tx.setDirection(PostingDirection.DEBIT);
+        tx.setBalanceAfter(sourceBalanceAfter);
 
-        transactionRepo.save(tx);
+        transactionRepo.saveTransfer(tx, tx.creditLeg(target, targetBalanceAfter,
+                "Virement programmé reçu du compte ID: " + source.getId()));
 
         logger.info("✅ Virement exécuté avec succès (ScheduledTransfer ID: {}) - Montant: {}, Source: {}, Cible: {}",
                 transfer.getId(), amount, source.getId(), target.getId());
@@ -176,6 +323,7 @@ public class ScheduledTransferService {
                 .map(transfer -> {
                     if (!transfer.isActive()) return false;
                     transfer.setActive(false);
+                    transfer.setNextExecutionAt(null);
                     scheduledTransferRepo.save(transfer);
                     return true;
                 })
@@ -205,8 +353,10 @@ public class ScheduledTransferService {
         transfer.setFrequency(request.getFrequency());
         transfer.setDescription(request.getDescription());
         transfer.setActive(request.isActive());
+        planNextExecution(transfer);
 
         ScheduledTransfer updated = scheduledTransferRepo.save(transfer);
+        transferQueue.offer(updated);
         return mapToResponse(updated);
     }
 
@@ -0,0 +1,117 @@
+package com.bankamen.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.dto.TransactionBatchItemDTO;
+import com.bankamen.dto.TransactionBatchResultDTO;
+import com.bankamen.dto.TransactionDTO;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.service.ledger.LedgerEngine;
+
+/**
+ * Posts several operations from one account in a single database transaction.
+ * <p>
+ * Every account involved (the source and all transfer targets) is locked up front in ascending id
+ * order, so two batches touching the same accounts queue behind each other instead of deadlocking,
+ * and the postings then run against the locked, already-loaded accounts. Transaction rows are
+ * flushed together at commit and go out as JDBC batches.
+ * <p>
+ * ALL_OR_NOTHING stops at the first rejected operation and rolls everything back; BEST_EFFORT
+ * skips rejected operations (a rejected posting leaves the accounts untouched) and commits the rest.
+ */
+@Service
+public class TransactionBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionBatchService.class);
+
+    public enum Mode {
+        ALL_OR_NOTHING, BEST_EFFORT
+    }
+
+    private final BankAccountRepository accountRepo;
+    private final TransactionPoster transactionPoster;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final LedgerEngine ledgerEngine;
+    private final int maxOperations;
+
+    public TransactionBatchService(BankAccountRepository accountRepo,
+                                   TransactionPoster transactionPoster,
+                                   TransactionTemplate transactionTemplate,
+                                   OptimisticRetryExecutor retryExecutor,
+                                   LedgerEngine ledgerEngine,
+                                   @Value("${app.transactions.batch.max-operations:100}") int maxOperations) {
+        this.accountRepo = accountRepo;
+        this.transactionPoster = transactionPoster;
+        this.transactionTemplate = transactionTemplate;
+        this.retryExecutor = retryExecutor;
+        this.ledgerEngine = ledgerEngine;
+        this.maxOperations = Math.max(1, maxOperations);
+    }
+
+    /** The caller has already checked that the current user owns {@code accountId}. */
+    public TransactionBatchResultDTO post(Long accountId, List<CreateTransactionRequest> operations, Mode mode) {
+        if (operations == null || operations.isEmpty()) {
+            throw new BusinessException("Le lot ne contient aucune opération");
+        }
+        if (operations.size() > maxOperations) {
+            throw new BusinessException("Un lot ne peut pas dépasser " + maxOperations + " opérations");
+        }
+        if (ledgerEngine.isEnabled()) {
+            // the engine owns the balances in memory: postings must go through it
+            throw new BusinessException("Les lots d'opérations ne sont pas disponibles avec le moteur de grand livre");
+        }
+
+        long started = System.currentTimeMillis();
+        TransactionBatchResultDTO result = retryExecutor.execute("transactionBatch",
+                () -> transactionTemplate.execute(status -> {
+                    lockAccounts(accountId, operations);
+                    List<TransactionBatchItemDTO> items = new ArrayList<>(operations.size());
+                    int failures = 0;
+                    for (int i = 0; i < operations.size(); i++) {
+                        try {
+                            items.add(new TransactionBatchItemDTO(i,
+                                    new TransactionDTO(transactionPoster.post(accountId, operations.get(i))), null));
+                        } catch (BusinessException e) {
+                            items.add(new TransactionBatchItemDTO(i, null, e.getMessage()));
+                            failures++;
+                            if (mode == Mode.ALL_OR_NOTHING) {
+                                status.setRollbackOnly();
+                                for (int j = i + 1; j < operations.size(); j++) {
+                                    items.add(new TransactionBatchItemDTO(j, null, "Non exécutée : le lot a été annulé"));
+                                }
+                                return new TransactionBatchResultDTO(mode, false, 0, operations.size(), items);
+                            }
+                        }
+                    }
+                    return new TransactionBatchResultDTO(mode, true, operations.size() - failures, failures, items);
+                }));
+        logger.info("Lot de {} opérations sur le compte {} ({}) : {} succès, {} rejets en {} ms", operations.size(),
+                accountId, mode, result.getSuccessCount(), result.getFailureCount(), System.currentTimeMillis() - started);
+        return result;
+    }
+
+    private void lockAccounts(Long accountId, List<CreateTransactionRequest> operations) {
+        TreeSet<Long> ids = new TreeSet<>();
+        ids.add(accountId);
+        for (CreateTransactionRequest operation : operations) {
+            if (operation.getType() == TransactionType.TRANSFER && operation.getTargetAccountId() != null) {
+                ids.add(operation.getTargetAccountId());
+            }
+        }
+        if (accountRepo.lockAllByIdOrdered(new ArrayList<>(ids)).stream().noneMatch(a -> a.getId().equals(accountId))) {
+            throw new BusinessException("Compte source introuvable");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.bankamen.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.bankamen.dto.TransactionDTO;
+import com.bankamen.dto.TransactionFilterRequest;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.User;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.TransactionRepository;
+import com.bankamen.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVWriter;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Streams a user's transaction history as CSV or NDJSON. Rows come from a forward-only database
+ * cursor and are detached once written, so heap use does not grow with the history length.
+ * The number of exports running at once is capped because each one holds a connection. The slot
+ * is taken and released by the body itself, so a body that never runs (client gone, async timeout
+ * before it starts) cannot leak one.
+ */
+@Service
+public class TransactionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final String[] CSV_HEADER = {"id", "date", "type", "amount", "balanceAfter", "description", "accountId", "accountIban"};
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionRepository transactionRepo;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTemplate;
+    private final Semaphore slots;
+    private final long slotWaitMs;
+
+    public TransactionExportService(TransactionRepository transactionRepo,
+                                    UserRepository userRepository,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.transactions.export.max-concurrent:4}") int maxConcurrent,
+                                    @Value("${app.transactions.export.slot-wait-ms:10000}") long slotWaitMs) {
+        this.transactionRepo = transactionRepo;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.slots = new Semaphore(Math.max(1, maxConcurrent));
+        this.slotWaitMs = Math.max(0, slotWaitMs);
+    }
+
+    /**
+     * Returns the body that writes the rows. Requests arriving while every slot is busy are refused
+     * up front; a body that still finds none free waits up to app.transactions.export.slot-wait-ms,
+     * then aborts the response.
+     */
+    public StreamingResponseBody export(String username, TransactionFilterRequest filter, Format format, boolean gzip) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new BusinessException("Utilisateur introuvable"));
+        if (slots.availablePermits() == 0) {
+            throw new BusinessException("Trop d'exports en cours, veuillez réessayer plus tard");
+        }
+
+        LocalDateTime start = filter.getStartDate() != null ? filter.getStartDate().atStartOfDay() : null;
+        LocalDateTime end = filter.getEndDate() != null ? filter.getEndDate().atTime(23, 59, 59) : null;
+        return out -> {
+            acquireSlot();
+            long started = System.currentTimeMillis();
+            long[] rows = {0};
+            try {
+                OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+                Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+                readOnlyTemplate.executeWithoutResult(status -> {
+                    try (Stream<Transaction> stream = transactionRepo.streamForExport(user.getId(), filter.getType(),
+                            start, end, filter.getMinAmount(), filter.getMaxAmount())) {
+                        if (format == Format.CSV) {
+                            writeCsv(stream, writer, rows);
+                        } else {
+                            writeNdjson(stream, writer, rows);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+                if (target instanceof GZIPOutputStream compressed) {
+                    compressed.finish();
+                }
+                logger.info("Export {} de {} : {} lignes en {} ms", format, username, rows[0], System.currentTimeMillis() - started);
+            } catch (UncheckedIOException e) {
+                // usually the client went away mid-download
+                logger.warn("Export {} de {} interrompu après {} lignes: {}", format, username, rows[0], e.getMessage());
+            } finally {
+                slots.release();
+            }
+        };
+    }
+
+    private void acquireSlot() throws IOException {
+        try {
+            if (!slots.tryAcquire(slotWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Trop d'exports en cours, export abandonné");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrompu avant son début");
+        }
+    }
+
+    private void writeCsv(Stream<Transaction> stream, Writer writer, long[] rows) throws IOException {
+        CSVWriter csv = new CSVWriter(writer);
+        csv.writeNext(CSV_HEADER);
+        stream.forEach(t -> {
+            TransactionDTO dto = new TransactionDTO(t);
+            csv.writeNext(new String[]{
+                    String.valueOf(dto.getId()),
+                    String.valueOf(dto.getDate()),
+                    String.valueOf(dto.getType()),
+                    String.valueOf(dto.getAmount()),
+                    String.valueOf(dto.getBalanceAfter()),
+                    dto.getDescription(),
+                    String.valueOf(dto.getAccountId()),
+                    dto.getAccountIban()
+            });
+            entityManager.detach(t);
+            rows[0]++;
+        });
+        csv.flush();
+        if (csv.checkError()) {
+            throw new IOException("Erreur d'écriture de l'export CSV");
+        }
+    }
+
+    private void writeNdjson(Stream<Transaction> stream, Writer writer, long[] rows) {
+        stream.forEach(t -> {
+            try {
+                writer.write(objectMapper.writeValueAsString(new TransactionDTO(t)));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            entityManager.detach(t);
+            rows[0]++;
+        });
+    }
+}
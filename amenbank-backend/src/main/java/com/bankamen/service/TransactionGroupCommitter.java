@@ -0,0 +1,224 @@
+package com.bankamen.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.BankAccountRepository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opt-in group commit (app.ledger.group-commit.enabled) for postings coming from many request threads.
+ * <p>
+ * Requests queued while a commit is in flight are applied together in one database transaction: the
+ * involved accounts are loaded with a single query and the Transaction rows go out as JDBC batches
+ * (table-allocated ids, hibernate.jdbc.batch_size). A rejected posting only fails its own caller.
+ * If the batch itself is rolled back (version conflict with another writer, database error), its
+ * postings fall back to the regular one-by-one path so each caller still gets its own outcome.
+ * The batch is flushed before the commit, so a failure of the commit itself is told apart: the
+ * server may have applied it (connection lost during COMMIT), so its callers get an
+ * {@link OutcomeUnknownException} instead of a replay that could post everything twice.
+ */
+@Component
+public class TransactionGroupCommitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionGroupCommitter.class);
+
+    private record PendingPosting(Long accountId, CreateTransactionRequest request, CompletableFuture<Transaction> result) {
+    }
+
+    private final TransactionPoster transactionPoster;
+    private final BankAccountRepository accountRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final OptimisticRetryExecutor retryExecutor;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxWaitMicros;
+    private final BlockingQueue<PendingPosting> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary batchSizes;
+
+    private Thread committer;
+    private volatile boolean running;
+
+    public TransactionGroupCommitter(TransactionPoster transactionPoster,
+                                     BankAccountRepository accountRepo,
+                                     TransactionTemplate transactionTemplate,
+                                     OptimisticRetryExecutor retryExecutor,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.ledger.group-commit.enabled:false}") boolean enabled,
+                                     @Value("${app.ledger.group-commit.max-batch:200}") int maxBatch,
+                                     @Value("${app.ledger.group-commit.max-wait-micros:2000}") long maxWaitMicros) {
+        this.transactionPoster = transactionPoster;
+        this.accountRepo = accountRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.retryExecutor = retryExecutor;
+        this.enabled = enabled;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxWaitMicros = Math.max(0, maxWaitMicros);
+        this.batchSizes = DistributionSummary.builder("ledger.group-commit.batch.size")
+                .description("Postings committed per database transaction")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        committer = new Thread(this::run, "ledger-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (committer != null) {
+            committer.interrupt();
+            try {
+                committer.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public Transaction submit(Long accountId, CreateTransactionRequest request) {
+        if (!running) {
+            throw new BusinessException("Service de transactions indisponible");
+        }
+        PendingPosting pending = new PendingPosting(accountId, request, new CompletableFuture<>());
+        queue.add(pending);
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        List<PendingPosting> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+                // give concurrent callers a short window to join this commit
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingPosting next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch, maxBatch - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingPosting> batch) {
+        batchSizes.record(batch.size());
+        List<Transaction> results = new ArrayList<>(batch.size());
+        List<RuntimeException> rejections = new ArrayList<>(batch.size());
+        AtomicBoolean flushed = new AtomicBoolean();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                results.clear();
+                rejections.clear();
+                flushed.set(false);
+                // one round trip for every account the batch touches; later findById calls hit the persistence context
+                accountRepo.findAllById(accountIds(batch));
+                for (PendingPosting pending : batch) {
+                    try {
+                        results.add(transactionPoster.post(pending.accountId(), pending.request()));
+                        rejections.add(null);
+                    } catch (BusinessException e) {
+                        results.add(null);
+                        rejections.add(e);
+                    }
+                }
+                // version conflicts and constraint violations surface here, while a rollback is certain
+                accountRepo.flush();
+                flushed.set(true);
+            });
+        } catch (RuntimeException e) {
+            if (flushed.get() && !(e instanceof UnexpectedRollbackException)) {
+                logger.error("Validation groupée de {} opérations incertaine : {}", batch.size(), e.getMessage());
+                for (PendingPosting pending : batch) {
+                    pending.result().completeExceptionally(new OutcomeUnknownException(
+                            "Validation incertaine : l'opération est peut-être enregistrée, vérifiez l'historique avant de réessayer"));
+                }
+                return;
+            }
+            logger.warn("Validation groupée de {} opérations en échec ({}), traitement unitaire", batch.size(), e.getMessage());
+            commitIndividually(batch);
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (rejections.get(i) != null) {
+                batch.get(i).result().completeExceptionally(rejections.get(i));
+            } else {
+                batch.get(i).result().complete(results.get(i));
+            }
+        }
+    }
+
+    private void commitIndividually(List<PendingPosting> batch) {
+        for (PendingPosting pending : batch) {
+            try {
+                Transaction tx = retryExecutor.execute("createTransaction", () -> transactionTemplate.execute(
+                        status -> transactionPoster.post(pending.accountId(), pending.request())));
+                pending.result().complete(tx);
+            } catch (RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private static Set<Long> accountIds(List<PendingPosting> batch) {
+        Set<Long> ids = new HashSet<>();
+        for (PendingPosting pending : batch) {
+            ids.add(pending.accountId());
+            if (pending.request().getType() == TransactionType.TRANSFER && pending.request().getTargetAccountId() != null) {
+                ids.add(pending.request().getTargetAccountId());
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,123 @@
+package com.bankamen.service;
+
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.PostingDirection;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.TransactionRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Balance mutation shared by the direct and group-commit posting paths.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionPoster {
+
+    private final BankAccountRepository accountRepo;
+    private final TransactionRepository transactionRepo;
+    private final BalanceShardService shardService;
+
+    /**
+     * Applies one posting to the managed accounts of the current persistence context.
+     * Every business check happens before the first mutation, so a rejected posting leaves
+     * the context untouched and the surrounding transaction can carry on with other postings.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, noRollbackFor = BusinessException.class)
+    public Transaction post(Long accountId, CreateTransactionRequest request) {
+        // a null type or target would fail as an NPE, i.e. a non-business error that fails the whole batch
+        if (request.getType() == null) {
+            throw new BusinessException("Type de transaction manquant");
+        }
+        if (request.getType() == TransactionType.TRANSFER && request.getTargetAccountId() == null) {
+            throw new BusinessException("Compte destinataire manquant");
+        }
+        BankAccount sourceAccount = accountRepo.findById(accountId)
+                .orElseThrow(() -> new BusinessException("Compte source introuvable"));
+        Money amount = request.getAmount();
+        if (amount == null || !amount.isPositive()) {
+            throw new BusinessException("Le montant doit être positif");
+        }
+
+        Transaction transaction = new Transaction();
+        transaction.setAmount(amount);
+        transaction.setType(request.getType());
+        transaction.setDescription(request.getDescription());
+        transaction.setDate(LocalDateTime.now());
+
+        switch (request.getType()) {
+            case DEPOSIT -> {
+                transaction.setDirection(PostingDirection.CREDIT);
+                transaction.setBalanceAfter(credit(sourceAccount, amount));
+                transaction.setAccount(sourceAccount);
+            }
+
+            case WITHDRAWAL -> {
+                transaction.setDirection(PostingDirection.DEBIT);
+                transaction.setBalanceAfter(debit(sourceAccount, amount));
+                transaction.setAccount(sourceAccount);
+            }
+
+            case TRANSFER -> {
+                if (accountId.equals(request.getTargetAccountId())) {
+                    throw new BusinessException("Le compte destinataire doit être différent du compte source");
+                }
+
+                BankAccount targetAccount = accountRepo.findById(request.getTargetAccountId())
+                        .orElseThrow(() -> new BusinessException("Compte destinataire introuvable"));
+
+                // Débit du compte source (dernière vérification avant toute mutation)
+                transaction.setBalanceAfter(debit(sourceAccount, amount));
+
+                // Crédit du compte cible
+                Money targetBalanceAfter = credit(targetAccount, amount);
+
+                // Sauvegarde des deux comptes
+                accountRepo.save(targetAccount);
+
+                transaction.setDescription("Transfert vers compte de : " + targetAccount.getUser().getUsername());
+                transaction.setDirection(PostingDirection.DEBIT);
+                transaction.setAccount(sourceAccount);
+
+                // Double entry: the credit leg lands in the target account's own history
+                accountRepo.save(sourceAccount);
+                return transactionRepo.saveTransfer(transaction, transaction.creditLeg(targetAccount,
+                        targetBalanceAfter, "Transfert reçu de : " + sourceAccount.getUser().getUsername()));
+            }
+        }
+
+        accountRepo.save(sourceAccount);
+        return transactionRepo.save(transaction);
+    }
+
+    /** Sharded (hot) accounts are updated slot-wise, without touching the account row. */
+    private Money credit(BankAccount account, Money amount) {
+        if (shardService.isSharded(account)) {
+            return shardService.credit(account, amount);
+        }
+        account.setBalance(account.getBalance().plus(amount));
+        return account.getBalance();
+    }
+
+    private Money debit(BankAccount account, Money amount) {
+        if (shardService.isSharded(account)) {
+            return shardService.debit(account, amount);
+        }
+        if (account.getBalance().isLessThan(amount)) {
+            throw new BusinessException("Fonds insuffisants pour le retrait");
+        }
+        account.setBalance(account.getBalance().minus(amount));
+        return account.getBalance();
+    }
+}
@@ -1,17 +1,32 @@
 package com.bankamen.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.bankamen.dto.BulkImportReport;
 import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.dto.TransactionDTO;
 import com.bankamen.dto.TransactionFilterRequest;
+import com.bankamen.dto.TransactionPageDTO;
 import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
 import com.bankamen.entity.Transaction;
 import com.bankamen.entity.TransactionType;
 import static com.bankamen.entity.TransactionType.DEPOSIT;
@@ -22,6 +37,7 @@ import com.bankamen.exception.BusinessException;
 import com.bankamen.repository.BankAccountRepository;
 import com.bankamen.repository.TransactionRepository;
 import com.bankamen.repository.UserRepository;
+import com.bankamen.service.ledger.LedgerEngine;
 import com.bankamen.specification.TransactionSpecification;
 import com.opencsv.CSVReader;
 
@@ -33,73 +49,116 @@ public class TransactionService {
     private BankAccountRepository accountRepo ;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    @Autowired
+    private TransactionPoster transactionPoster;
+    @Autowired
+    private TransactionGroupCommitter groupCommitter;
+    @Autowired
+    private BulkTransferImportService bulkTransferImportService;
+
+    @Value("${app.transactions.page-size:50}")
+    private int defaultPageSize;
+    @Value("${app.transactions.max-page-size:200}")
+    private int maxPageSize;
+
+    // Seek origin of the first page: later than any stored transaction
+    private static final LocalDateTime NEWEST_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
 
     public List<Transaction> getTransactions(Long accountId) {
         return transactionRepo.findByAccountId(accountId);
     }
 
-    public List<Transaction> getFilteredTransactions(Long accountId, TransactionType type, LocalDateTime from, LocalDateTime to, Double minAmount, Double maxAmount) {
-        if (type != null) {
-            return transactionRepo.findByAccountIdAndType(accountId, type);
-        } else if (from != null && to != null) {
-            return transactionRepo.findByAccountIdAndDateBetween(accountId, from, to);
-        } else if (minAmount != null && maxAmount != null) {
-            return transactionRepo.findByAccountIdAndAmountBetween(accountId, minAmount, maxAmount);
-        }
-        return transactionRepo.findByAccountId(accountId);
+    public List<Transaction> getFilteredTransactions(Long accountId, TransactionType type, LocalDateTime from, LocalDateTime to, Money minAmount, Money maxAmount) {
+        // All supplied filters are combined in one query instead of applying only the first one
+        return transactionRepo.findAll(
+                TransactionSpecification.forAccount(accountId, type, from, to, minAmount, maxAmount),
+                Sort.by(Sort.Order.desc("date"), Sort.Order.desc("id")));
     }
 
-    public Transaction createTransaction(Long accountId, CreateTransactionRequest request) {
-        BankAccount sourceAccount = accountRepo.findById(accountId)
-                .orElseThrow(() -> new RuntimeException("Compte source introuvable"));
-
-        Transaction transaction = new Transaction();
-        transaction.setAmount(request.getAmount());
-        transaction.setType(request.getType());
-        transaction.setDescription(request.getDescription());
-        transaction.setDate(LocalDateTime.now());
+    /**
+     * Keyset pagination over an account history, newest first. The cursor carries the (date, id)
+     * of the page boundary, so each page is an index seek whatever its depth.
+     */
+    public TransactionPageDTO getTransactionPage(Long accountId, String cursor, Integer size, TransactionType type,
+                                                 LocalDateTime from, LocalDateTime to, Money minAmount, Money maxAmount) {
+        int pageSize = Math.min(Math.max(1, size != null ? size : defaultPageSize), maxPageSize);
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        boolean towardsNewer = false;
+        LocalDateTime cursorDate = NEWEST_DATE;
+        long cursorId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            towardsNewer = "p".equals(parts[0]);
+            cursorDate = LocalDateTime.parse(parts[1]);
+            cursorId = Long.parseLong(parts[2]);
+        }
 
-        switch (request.getType()) {
-            case DEPOSIT -> {
-                sourceAccount.setBalance(sourceAccount.getBalance() + request.getAmount());
-                transaction.setBalanceAfter(sourceAccount.getBalance());
-                transaction.setAccount(sourceAccount);
-            }
+        List<Transaction> rows = towardsNewer
+                ? transactionRepo.findPageAfter(accountId, cursorDate, cursorId, type, from, to, minAmount, maxAmount, limit)
+                : transactionRepo.findPageBefore(accountId, cursorDate, cursorId, type, from, to, minAmount, maxAmount, limit);
+        boolean more = rows.size() > pageSize;
+        List<Transaction> page = new ArrayList<>(more ? rows.subList(0, pageSize) : rows);
+        if (towardsNewer) {
+            Collections.reverse(page);
+        }
 
-            case WITHDRAWAL -> {
-                if (sourceAccount.getBalance() < request.getAmount()) {
-                    throw new BusinessException("Fonds insuffisants pour le retrait");
-                }
-                sourceAccount.setBalance(sourceAccount.getBalance() - request.getAmount());
-                transaction.setBalanceAfter(sourceAccount.getBalance());
-                transaction.setAccount(sourceAccount);
+        String next = null;
+        String prev = null;
+        if (!page.isEmpty()) {
+            Transaction newest = page.get(0);
+            Transaction oldest = page.get(page.size() - 1);
+            if (towardsNewer) {
+                next = encodeCursor("n", oldest);
+                prev = more ? encodeCursor("p", newest) : null;
+            } else {
+                next = more ? encodeCursor("n", oldest) : null;
+                prev = cursor != null && !cursor.isBlank() ? encodeCursor("p", newest) : null;
             }
+        }
+        return new TransactionPageDTO(page.stream().map(TransactionDTO::new).toList(), next, prev, pageSize);
+    }
 
-            case TRANSFER -> {
-                if (sourceAccount.getBalance() < request.getAmount()) {
-                    throw new BusinessException("Fonds insuffisants pour le retrait");
-                }
-
-                BankAccount targetAccount = accountRepo.findById(request.getTargetAccountId())
-                        .orElseThrow(() -> new BusinessException("Compte destinataire introuvable"));
-
-                // Débit du compte source
-                sourceAccount.setBalance(sourceAccount.getBalance() - request.getAmount());
-
-                // Crédit du compte cible
-                targetAccount.setBalance(targetAccount.getBalance() + request.getAmount());
-
-                // Sauvegarde des deux comptes
-                accountRepo.save(targetAccount);
+    private static String encodeCursor(String direction, Transaction boundary) {
+        String raw = direction + "|" + boundary.getDate() + "|" + boundary.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-                transaction.setDescription("Transfert vers compte de : " + targetAccount.getUser().getUsername());
-                transaction.setBalanceAfter(sourceAccount.getBalance());
-                transaction.setAccount(sourceAccount);
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !("n".equals(parts[0]) || "p".equals(parts[0]))) {
+                throw new BusinessException("Curseur de pagination invalide");
             }
+            LocalDateTime.parse(parts[1]);
+            Long.parseLong(parts[2]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BusinessException("Curseur de pagination invalide");
         }
+    }
 
-        accountRepo.save(sourceAccount);
-        return transactionRepo.save(transaction);
+    /**
+     * Posts a transaction. Source and target are mutated inside one database transaction;
+     * if another posting updated either account meanwhile, the versioned save fails and the
+     * whole unit is replayed from fresh reads.
+     * When the in-memory ledger engine or group commit is enabled, postings go through it instead.
+     */
+    public Transaction createTransaction(Long accountId, CreateTransactionRequest request) {
+        if (ledgerEngine.isEnabled()) {
+            return ledgerEngine.post(accountId, request);
+        }
+        if (groupCommitter.isEnabled()) {
+            return groupCommitter.submit(accountId, request);
+        }
+        return retryExecutor.execute("createTransaction",
+                () -> transactionTemplate.execute(status -> transactionPoster.post(accountId, request)));
     }
 
     public List<Transaction> getFilteredTransactions(TransactionFilterRequest filterRequest) {
@@ -122,7 +181,7 @@ public class TransactionService {
 
                     Long sourceId = parseLong(line[0], "ID Source", lineNumber);
                     Long targetId = parseLong(line[1], "ID Destination", lineNumber);
-                    Double amount = parseDouble(line[2], "Montant", lineNumber);
+                    Money amount = parseAmount(line[2], "Montant", lineNumber);
                     String description = line[3];
 
                     if (description == null || description.trim().isEmpty()) {
@@ -155,10 +214,10 @@ public class TransactionService {
         }
     }
 
-    private Double parseDouble(String value, String field, int lineNumber) {
+    private Money parseAmount(String value, String field, int lineNumber) {
         try {
-            return Double.parseDouble(value.trim());
-        } catch (NumberFormatException e) {
+            return Money.parse(value);
+        } catch (IllegalArgumentException e) {
             throw new BusinessException("La valeur '" + value + "' pour le champ '" + field + "' à la ligne " + lineNumber + " n'est pas un montant valide");
         }
     }
@@ -183,87 +242,14 @@ public class TransactionService {
         return transactionRepo.findAll(spec);
     }
 
-    public void processBulkTransfersForUser(MultipartFile file, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new BusinessException("Utilisateur introuvable"));
-
+    public BulkImportReport processBulkTransfersForUser(MultipartFile file, String username) {
         if (file.isEmpty()) {
             throw new BusinessException("Le fichier CSV est vide");
         }
-
-        try (CSVReader reader = new CSVReader(new InputStreamReader(file.getInputStream()))) {
-            String[] line;
-            String[] headers = reader.readNext(); // Read header
-            
-            if (headers == null || headers.length < 4) {
-                throw new BusinessException("Le format du fichier CSV est invalide. Format attendu: ID Source, ID Destination, Montant, Description");
-            }
-
-            int lineNumber = 1;
-            int successCount = 0;
-
-            while ((line = reader.readNext()) != null) {
-                lineNumber++;
-                try {
-                    if (line.length < 4) {
-                        throw new BusinessException("La ligne " + lineNumber + " ne contient pas assez de colonnes. Format attendu: ID Source, ID Destination, Montant, Description");
-                    }
-
-                    Long sourceId = parseLong(line[0], "ID Source", lineNumber);
-                    Long targetId = parseLong(line[1], "ID Destination", lineNumber);
-                    Double amount = parseDouble(line[2], "Montant", lineNumber);
-                    String description = line[3];
-
-                    if (description == null || description.trim().isEmpty()) {
-                        throw new BusinessException("La description est requise à la ligne " + lineNumber);
-                    }
-
-                    // Check if user owns the source account
-                    if (!userOwnsAccount(sourceId, username)) {
-                        throw new BusinessException("Vous n'êtes pas autorisé à effectuer des transactions depuis le compte " + sourceId);
-                    }
-
-                    CreateTransactionRequest request = new CreateTransactionRequest();
-                    request.setType(TransactionType.TRANSFER);
-                    request.setAmount(amount);
-                    request.setTargetAccountId(targetId);
-                    request.setDescription(description);
-
-                    createTransaction(sourceId, request);
-                    successCount++;
-                } catch (BusinessException e) {
-                    throw new BusinessException("Erreur à la ligne " + lineNumber + ": " + e.getMessage());
-                }
-            }
-
-            if (successCount == 0) {
-                throw new BusinessException("Aucune transaction n'a été effectuée");
-            }
-            
-        } catch (BusinessException e) {
-            throw e;
-        } catch (Exception e) {
-            if (e.getMessage() != null && !e.getMessage().isEmpty()) {
-                throw new BusinessException("Erreur lors de l'import du fichier CSV: " + e.getMessage());
-            } else {
-                throw new BusinessException("Erreur lors de l'import du fichier CSV: Format invalide");
-            }
+        try (InputStream input = file.getInputStream()) {
+            return bulkTransferImportService.importForUser(input, username);
+        } catch (IOException e) {
+            throw new BusinessException("Erreur lors de l'import du fichier CSV: " + e.getMessage());
         }
     }
-
-    /**
-     * Check if a user owns a specific bank account
-     * @param accountId The account ID to check
-     * @param username The username to verify ownership
-     * @return true if the user owns the account, false otherwise
-     */
-    private boolean userOwnsAccount(Long accountId, String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new BusinessException("Utilisateur introuvable"));
-
-        BankAccount account = accountRepo.findById(accountId)
-                .orElseThrow(() -> new BusinessException("Compte introuvable"));
-
-        return account.getUser().getId().equals(user.getId());
-    }
 }
\ No newline at end of file
@@ -0,0 +1,347 @@
+package com.bankamen.service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.entity.User;
+import com.bankamen.repository.UserRepository;
+
+/**
+ * In-memory type-ahead index over username, first name and last name.
+ * <p>
+ * Every word of those fields is normalized (lower case, accents removed) into a sorted token map,
+ * so a query term is a range lookup on the map instead of a scan of all users. A user matches when
+ * every query term is a prefix of one of their words. Results are ranked: exact words before
+ * prefixes, username before last name before first name, then shorter usernames first.
+ * <p>
+ * Loaded with a streamed projection once the application is ready and rebuilt nightly. The local
+ * create/update/delete paths apply their change once their transaction has committed; changes made
+ * on other nodes are loaded every few seconds from {@code search_changed_at}. Deletions leave no
+ * such trace, so hits are checked against the database before being returned.
+ */
+@Service
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    // node clocks stamp search_changed_at: every sync re-reads this much before its watermark
+    private static final Duration CLOCK_SKEW = Duration.ofMinutes(1);
+
+    public record UserHit(Long id, String username, String firstName, String lastName) {
+    }
+
+    private enum Field {
+        USERNAME(30), LAST_NAME(20), FIRST_NAME(10);
+
+        private final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    private record Posting(Long userId, Field field) {
+    }
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private NavigableMap<String, Set<Posting>> tokens = new TreeMap<>();
+    private Map<Long, UserHit> users = new HashMap<>();
+    // changes made while a rebuild scans, replayed onto the new index (null value = removal)
+    private Map<Long, UserHit> changedDuringRebuild;
+    // newest search_changed_at loaded into the index
+    private LocalDateTime syncedUntil;
+
+    public UserSearchIndex(UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.userRepository = userRepository;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildAtStartup() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${app.user-search.rebuild-cron:0 20 3 * * *}", scheduler = JobPool.MAINTENANCE_SCHEDULER)
+    public void rebuild() {
+        long started = System.currentTimeMillis();
+        NavigableMap<String, Set<Posting>> nextTokens = new TreeMap<>();
+        Map<Long, UserHit> nextUsers = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            if (changedDuringRebuild != null) {
+                return;
+            }
+            changedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // users changed from here on may be missed by the scan: the next sync covers them
+        LocalDateTime scanStart = LocalDateTime.now();
+        try {
+            scan(nextTokens, nextUsers);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            changedDuringRebuild = null;
+            lock.writeLock().unlock();
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild.forEach((id, user) -> {
+                UserHit previous = user != null ? nextUsers.put(id, user) : nextUsers.remove(id);
+                if (previous != null) {
+                    removeTokens(nextTokens, previous);
+                }
+                if (user != null) {
+                    addTokens(nextTokens, user);
+                }
+            });
+            changedDuringRebuild = null;
+            tokens = nextTokens;
+            users = nextUsers;
+            syncedUntil = scanStart;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Index de recherche des utilisateurs construit : {} utilisateurs, {} mots, en {} ms",
+                nextUsers.size(), nextTokens.size(), System.currentTimeMillis() - started);
+    }
+
+    private void scan(NavigableMap<String, Set<Posting>> nextTokens, Map<Long, UserHit> nextUsers) {
+        readOnlyTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = userRepository.streamSearchFields()) {
+                rows.forEach(row -> {
+                    UserHit user = new UserHit((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+                    nextUsers.put(user.id(), user);
+                    addTokens(nextTokens, user);
+                });
+            }
+        });
+    }
+
+    /** Loads the users whose searchable fields changed on any node since the last sync. */
+    @Scheduled(fixedDelayString = "${app.user-search.sync-interval-ms:5000}", scheduler = JobPool.MAINTENANCE_SCHEDULER)
+    public void syncChanges() {
+        LocalDateTime since;
+        lock.readLock().lock();
+        try {
+            since = syncedUntil;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (since == null) {
+            return;
+        }
+        LocalDateTime newest = since;
+        for (Object[] row : userRepository.findSearchFieldsChangedSince(since.minus(CLOCK_SKEW))) {
+            // re-read rows of the overlap replace themselves
+            apply(new UserHit((Long) row[0], (String) row[1], (String) row[2], (String) row[3]));
+            LocalDateTime changedAt = (LocalDateTime) row[4];
+            if (changedAt.isAfter(newest)) {
+                newest = changedAt;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            // a rebuild may have moved the watermark meanwhile
+            if (syncedUntil != null && newest.isAfter(syncedUntil)) {
+                syncedUntil = newest;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or replaces a user, once the current transaction (if any) has committed. */
+    public void index(User user) {
+        UserHit hit = new UserHit(user.getId(), user.getUsername(), user.getFirstName(), user.getLastName());
+        afterCommit(() -> apply(hit));
+    }
+
+    public void remove(Long userId) {
+        afterCommit(() -> unindex(userId));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private void apply(UserHit hit) {
+        lock.writeLock().lock();
+        try {
+            UserHit previous = users.put(hit.id(), hit);
+            if (previous != null) {
+                removeTokens(tokens, previous);
+            }
+            addTokens(tokens, hit);
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(hit.id(), hit);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(Long userId) {
+        lock.writeLock().lock();
+        try {
+            UserHit previous = users.remove(userId);
+            if (previous != null) {
+                removeTokens(tokens, previous);
+            }
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.put(userId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<UserHit> search(String query, int limit) {
+        List<String> terms = words(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<UserHit> hits = rank(terms, limit);
+        if (hits.isEmpty()) {
+            return hits;
+        }
+        Set<Long> existing = new HashSet<>(userRepository.findExistingIds(hits.stream().map(UserHit::id).toList()));
+        if (existing.size() == hits.size()) {
+            return hits;
+        }
+        List<UserHit> live = new ArrayList<>();
+        for (UserHit hit : hits) {
+            if (existing.contains(hit.id())) {
+                live.add(hit);
+            } else {
+                // deleted on another node
+                unindex(hit.id());
+            }
+        }
+        return live;
+    }
+
+    private List<UserHit> rank(List<String> terms, int limit) {
+        lock.readLock().lock();
+        try {
+            // score per user for the first term, then keep only users matching every other term
+            Map<Long, Integer> scores = match(terms.get(0));
+            for (int i = 1; i < terms.size() && !scores.isEmpty(); i++) {
+                Map<Long, Integer> next = match(terms.get(i));
+                scores.keySet().retainAll(next.keySet());
+                scores.replaceAll((id, score) -> score + next.get(id));
+            }
+            // top-k selection: short prefixes can match a large share of the users
+            Comparator<Map.Entry<Long, Integer>> ranking = Comparator.<Map.Entry<Long, Integer>>comparingInt(e -> -e.getValue())
+                    .thenComparingInt(e -> length(users.get(e.getKey()).username()))
+                    .thenComparing(Map.Entry::getKey);
+            PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+            for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+                best.add(entry);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            return best.stream().sorted(ranking).map(e -> users.get(e.getKey())).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Best score per user over the words starting with {@code term}. */
+    private Map<Long, Integer> match(String term) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Map.Entry<String, Set<Posting>> entry : tokens.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            boolean exact = entry.getKey().length() == term.length();
+            for (Posting posting : entry.getValue()) {
+                int score = posting.field().weight + (exact ? 100 : 0);
+                scores.merge(posting.userId(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private static void addTokens(NavigableMap<String, Set<Posting>> tokens, UserHit user) {
+        forEachToken(user, (token, field) -> tokens.computeIfAbsent(token, t -> new HashSet<>()).add(new Posting(user.id(), field)));
+    }
+
+    private static void removeTokens(NavigableMap<String, Set<Posting>> tokens, UserHit user) {
+        forEachToken(user, (token, field) -> {
+            Set<Posting> postings = tokens.get(token);
+            if (postings != null) {
+                postings.remove(new Posting(user.id(), field));
+                if (postings.isEmpty()) {
+                    tokens.remove(token);
+                }
+            }
+        });
+    }
+
+    private static void forEachToken(UserHit user, BiConsumer<String, Field> action) {
+        words(user.username()).forEach(token -> action.accept(token, Field.USERNAME));
+        words(user.lastName()).forEach(token -> action.accept(token, Field.LAST_NAME));
+        words(user.firstName()).forEach(token -> action.accept(token, Field.FIRST_NAME));
+    }
+
+    private static List<String> words(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        String normalized = Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : normalized.split("[\\s\\-'.]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : Integer.MAX_VALUE;
+    }
+}
@@ -1,15 +1,22 @@
 package com.bankamen.service;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.bankamen.dto.UserSummaryDTO;
+import com.bankamen.entity.Role;
 import com.bankamen.entity.User;
 import com.bankamen.repository.UserRepository;
+import com.bankamen.specification.BankAccountSpecification;
 
 @Service
 public class UserService {
@@ -20,27 +27,55 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private AccountMetadataCache accountCache;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "username", "firstName", "lastName", "email",
+            "role", "enabled", "lastLogin");
+    private static final int MAX_PAGE_SIZE = 100;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
 
+    // One page of the admin grid; search is a prefix of the username, last name or email
+    public Page<UserSummaryDTO> getUserSummaries(String search, Role role, Boolean enabled,
+                                                 int page, int size, String sortBy, String sortDir) {
+        Sort.Direction direction = "desc".equalsIgnoreCase(sortDir) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        String sortProperty = SORTABLE_FIELDS.contains(sortBy) ? sortBy : "id";
+        PageRequest pageable = PageRequest.of(Math.max(0, page), Math.min(Math.max(1, size), MAX_PAGE_SIZE),
+                Sort.by(direction, sortProperty).and(Sort.by(direction, "id")));
+        String prefix = search != null && !search.isBlank() ? BankAccountSpecification.likePrefix(search.trim()) : null;
+        return userRepository.findSummaries(prefix, role, enabled, pageable);
+    }
+
     public User createUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userSearchIndex.index(saved);
+        return saved;
     }
 
     public User updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
+        accountCache.invalidateUser(id, user.getUsername());
         user.setUsername(userDetails.getUsername());
         user.setEmail(userDetails.getEmail());
         user.setRole(userDetails.getRole());
         user.setEnabled(userDetails.isEnabled());
         user.setAccountNonLocked(userDetails.isAccountNonLocked());
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userSearchIndex.index(saved);
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        accountCache.invalidateUser(id, null);
+        userSearchIndex.remove(id);
     }
 
     public User resetPassword(Long id) {
@@ -58,6 +93,12 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
     }
 
+    // Cached username -> id, for callers that only need the current user's id
+    public Long findIdByUsername(String username) {
+        return accountCache.findUserIdByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found: " + username));
+    }
+
     public User findById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
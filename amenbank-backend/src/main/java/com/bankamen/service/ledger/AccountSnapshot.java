@@ -0,0 +1,7 @@
+package com.bankamen.service.ledger;
+
+/**
+ * Immutable account metadata used by the ledger engine, plus the balance (minor units) read at first touch.
+ */
+public record AccountSnapshot(long id, String iban, String ownerUsername, long balance) {
+}
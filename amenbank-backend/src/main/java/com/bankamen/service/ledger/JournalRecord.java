@@ -0,0 +1,78 @@
+package com.bankamen.service.ledger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import com.bankamen.entity.TransactionType;
+
+/**
+ * One posting as written to the ledger journal.
+ * Amounts are minor units (see {@link com.bankamen.entity.Money}).
+ * For a TRANSFER, {@code balanceAfter} is the source balance and {@code targetBalanceAfter} the
+ * target balance once credited (-1 when unknown, for records written before it was journaled).
+ * {@code reference} is the caller's key for a posting that must not be made twice (null if none).
+ */
+public record JournalRecord(long sequence,
+                            TransactionType type,
+                            long accountId,
+                            long targetAccountId,
+                            long amount,
+                            long balanceAfter,
+                            long timestamp,
+                            String description,
+                            long targetBalanceAfter,
+                            String reference) {
+
+    public JournalRecord withSequence(long newSequence) {
+        return new JournalRecord(newSequence, type, accountId, targetAccountId, amount, balanceAfter, timestamp,
+                description, targetBalanceAfter, reference);
+    }
+
+    public JournalRecord withTargetBalanceAfter(long newTargetBalanceAfter) {
+        return new JournalRecord(sequence, type, accountId, targetAccountId, amount, balanceAfter, timestamp,
+                description, newTargetBalanceAfter, reference);
+    }
+
+    /** Signed effect of this record on the balance of {@code id}. */
+    public long deltaFor(long id) {
+        return switch (type) {
+            case DEPOSIT -> amount;
+            case WITHDRAWAL -> -amount;
+            case TRANSFER -> id == accountId ? -amount : amount;
+        };
+    }
+
+    byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(sequence);
+            out.writeByte(type.ordinal());
+            out.writeLong(accountId);
+            out.writeLong(targetAccountId);
+            out.writeLong(amount);
+            out.writeLong(balanceAfter);
+            out.writeLong(timestamp);
+            out.writeUTF(description != null ? description : "");
+            out.writeLong(targetBalanceAfter);
+            out.writeUTF(reference != null ? reference : "");
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalRecord decode(DataInputStream in) throws IOException {
+        long sequence = in.readLong();
+        TransactionType type = TransactionType.values()[in.readByte()];
+        long accountId = in.readLong();
+        long targetAccountId = in.readLong();
+        long amount = in.readLong();
+        long balanceAfter = in.readLong();
+        long timestamp = in.readLong();
+        String description = in.readUTF();
+        long targetBalanceAfter = in.available() >= Long.BYTES ? in.readLong() : -1L;
+        String reference = in.available() > 0 ? in.readUTF() : "";
+        return new JournalRecord(sequence, type, accountId, targetAccountId, amount, balanceAfter, timestamp,
+                description, targetBalanceAfter, reference.isEmpty() ? null : reference);
+    }
+}
@@ -0,0 +1,506 @@
+package com.bankamen.service.ledger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.bankamen.config.JobPool;
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.PostingDirection;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.InsufficientFundsException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.service.JobLeaseService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Opt-in in-memory ledger (app.ledger.engine.enabled).
+ * <p>
+ * Accounts are partitioned over single-writer event loops holding balances in memory. A posting is
+ * acknowledged once its record is fsync'd in the journal; the Transaction/BankAccount tables are
+ * updated asynchronously by {@link LedgerFlusher}. On startup the journal is replayed past the
+ * database checkpoint, so an acknowledged posting survives a crash.
+ * <p>
+ * While enabled the engine owns account balances, since it would not see a balance written behind its
+ * back once the account is loaded: scheduled transfers and admin opening balances are posted through
+ * it, and direct admin balance edits and batches are refused. For the same reason only one node may
+ * run it: the engine holds the job lease "ledger-engine" and the node refuses to start without it.
+ * <p>
+ * While the lease is not renewed (database unreachable) the node refuses postings and reports its
+ * health DOWN; it resumes once a renewal gets through. A node whose lease was taken over by another
+ * node cannot resume: its balances may be stale and its write-behind is fenced, so the acknowledged
+ * records it has not flushed stay in its journal. It stays DOWN, logs an error and writes a
+ * {@code .fenced} marker next to the journal. An operator then has to stop it, stop the engine on
+ * the node that took the lease over, and restart it with app.ledger.engine.replay-fenced-journal=true:
+ * the unflushed records are replayed after the database checkpoint (the startup refuses to run
+ * while the marker is there and the property is off). Postings accepted by both nodes against the
+ * same funds can leave an account overdrawn, which reconciliation then reports.
+ */
+@Service
+public class LedgerEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerEngine.class);
+
+    static final String LEASE_NAME = "ledger-engine";
+
+    private final LedgerStore store;
+    private final JobLeaseService leaseService;
+    private final Duration leaseWait;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int partitionCount;
+    private final Path journalPath;
+    private final int journalMaxBatch;
+    private final long journalRotateBytes;
+    private final long flushIntervalMs;
+    private final long timeoutMs;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final boolean replayFencedJournal;
+    private final Path fencedMarker;
+
+    private final Map<Long, AccountSnapshot> accounts = new ConcurrentHashMap<>();
+    // references of postings not flushed yet -> journal sequence (Long.MAX_VALUE until durable)
+    private final Map<String, Long> pendingReferences = new ConcurrentHashMap<>();
+    private JobLeaseService.Lease engineLease;
+    private LedgerPartition[] partitions;
+    private LedgerJournal journal;
+    private LedgerFlusher flusher;
+    private Counter postings;
+    private Counter rejections;
+    private volatile long lastFlushedSequence;
+    private volatile boolean fenced;
+
+    public LedgerEngine(LedgerStore store,
+                        JobLeaseService leaseService,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.ledger.engine.enabled:false}") boolean enabled,
+                        @Value("${app.ledger.engine.lease-wait-seconds:120}") long leaseWaitSeconds,
+                        @Value("${app.ledger.engine.partitions:4}") int partitionCount,
+                        @Value("${app.ledger.engine.journal-path:data/ledger.journal}") String journalPath,
+                        @Value("${app.ledger.engine.journal-max-batch:512}") int journalMaxBatch,
+                        @Value("${app.ledger.engine.journal-rotate-bytes:67108864}") long journalRotateBytes,
+                        @Value("${app.ledger.engine.flush-interval-ms:200}") long flushIntervalMs,
+                        @Value("${app.ledger.engine.max-in-flight:10000}") int maxInFlight,
+                        @Value("${app.ledger.engine.timeout-ms:5000}") long timeoutMs,
+                        @Value("${app.ledger.engine.replay-fenced-journal:false}") boolean replayFencedJournal) {
+        this.store = store;
+        this.leaseService = leaseService;
+        this.leaseWait = Duration.ofSeconds(Math.max(0, leaseWaitSeconds));
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.partitionCount = Math.max(1, partitionCount);
+        this.journalPath = Path.of(journalPath);
+        this.journalMaxBatch = Math.max(1, journalMaxBatch);
+        this.journalRotateBytes = journalRotateBytes;
+        this.flushIntervalMs = flushIntervalMs;
+        this.timeoutMs = timeoutMs;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new Semaphore(this.maxInFlight);
+        this.replayFencedJournal = replayFencedJournal;
+        this.fencedMarker = this.journalPath.resolveSibling(this.journalPath.getFileName() + ".fenced");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        engineLease = acquireEngineLease();
+        flusher = new LedgerFlusher(store, engineLease, journalMaxBatch, flushIntervalMs, this::onFlushed);
+        journal = new LedgerJournal(journalPath, journalMaxBatch, journalRotateBytes, flusher::enqueue);
+
+        long nextSequence = recover() + 1;
+        lastFlushedSequence = nextSequence - 1;
+
+        partitions = new LedgerPartition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new LedgerPartition(i, this::loadBalance);
+            partitions[i].start();
+        }
+        journal.start(nextSequence);
+        flusher.start();
+
+        postings = Counter.builder("ledger.engine.postings").register(meterRegistry);
+        rejections = Counter.builder("ledger.engine.rejections").register(meterRegistry);
+        Gauge.builder("ledger.engine.flush.backlog", flusher, LedgerFlusher::backlog).register(meterRegistry);
+        Gauge.builder("ledger.engine.in-flight", inFlight, s -> maxInFlight - s.availablePermits())
+                .register(meterRegistry);
+        logger.info("Moteur du grand livre démarré : {} partitions, journal {}", partitionCount, journalPath.toAbsolutePath());
+    }
+
+    /** Waits up to app.ledger.engine.lease-wait-seconds for a previous holder's lease to expire. */
+    private JobLeaseService.Lease acquireEngineLease() {
+        long deadline = System.nanoTime() + leaseWait.toNanos();
+        while (true) {
+            Optional<JobLeaseService.Lease> lease = leaseService.tryAcquire(LEASE_NAME, Duration.ZERO);
+            if (lease.isPresent()) {
+                return lease.get();
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IllegalStateException("Moteur du grand livre déjà actif sur un autre nœud (bail " + LEASE_NAME
+                        + "), démarrage refusé");
+            }
+            logger.info("Bail {} détenu par un autre nœud, nouvel essai dans 1 s", LEASE_NAME);
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Démarrage du moteur du grand livre interrompu");
+            }
+        }
+    }
+
+    /** Empty while the engine accepts postings, otherwise why it refuses them. */
+    public Optional<String> unavailability() {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        if (fenced) {
+            return Optional.of("bail " + LEASE_NAME + " repris par un autre nœud, intervention requise");
+        }
+        if (!journal.isHealthy()) {
+            return Optional.of("journal indisponible");
+        }
+        if (!engineLease.isHeld()) {
+            return Optional.of("bail " + LEASE_NAME + " non renouvelé");
+        }
+        return Optional.empty();
+    }
+
+    int flushBacklog() {
+        return enabled ? flusher.backlog() : 0;
+    }
+
+    /** Turns a lease taken over by another node into a loud, lasting failure (see the class comment). */
+    @Scheduled(fixedDelayString = "${app.ledger.engine.lease-check-interval-ms:5000}", scheduler = JobPool.MONITORING_SCHEDULER)
+    public void checkLease() {
+        if (!enabled || fenced || !engineLease.isLost()) {
+            return;
+        }
+        fenced = true;
+        // its batches are fenced anyway; once it has stopped, lastFlushedSequence no longer moves
+        flusher.stop();
+        long flushed = lastFlushedSequence;
+        try {
+            Files.writeString(fencedMarker, Long.toString(flushed));
+        } catch (IOException e) {
+            logger.error("Écriture du marqueur {} impossible : {}", fencedMarker, e.getMessage());
+        }
+        logger.error("Bail {} (jeton {}) repris par un autre nœud : postings refusés, les écritures du journal {} après la séquence {} "
+                        + "ne sont pas en base. Arrêter ce nœud et le moteur de l'autre nœud, puis redémarrer ce nœud avec "
+                        + "app.ledger.engine.replay-fenced-journal=true", LEASE_NAME, engineLease.getToken(),
+                journalPath.toAbsolutePath(), flushed);
+    }
+
+    private void onFlushed(long flushedSequence) {
+        lastFlushedSequence = flushedSequence;
+        journal.onFlushed(flushedSequence);
+        if (!pendingReferences.isEmpty()) {
+            pendingReferences.values().removeIf(sequence -> sequence <= flushedSequence);
+        }
+    }
+
+    /**
+     * Replays journal records that never reached the database, then returns the highest sequence seen.
+     * The journal is rewritten from scratch afterwards, since the database now holds everything.
+     */
+    private long recover() throws IOException {
+        List<JournalRecord> records = journal.recover();
+        long checkpoint = store.lastFlushedSequence();
+        List<JournalRecord> pending = Files.exists(fencedMarker)
+                ? fencedRecords(records, checkpoint)
+                : records.stream().filter(r -> r.sequence() > checkpoint).toList();
+        for (int from = 0; from < pending.size(); from += journalMaxBatch) {
+            store.persist(pending.subList(from, Math.min(pending.size(), from + journalMaxBatch)), engineLease);
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Récupération du grand livre : {} écritures rejouées depuis le journal", pending.size());
+        }
+        long last = records.isEmpty() ? checkpoint : Math.max(checkpoint, records.get(records.size() - 1).sequence());
+        if (!pending.isEmpty()) {
+            last = Math.max(last, pending.get(pending.size() - 1).sequence());
+        }
+        journal.resetAfterRecovery();
+        Files.deleteIfExists(fencedMarker);
+        return last;
+    }
+
+    /**
+     * Records of a journal left by a fenced engine: another node has run the engine since, so the
+     * checkpoint no longer says which of them were flushed. The marker does; what follows it is
+     * renumbered after the checkpoint, minus references another node has posted meanwhile.
+     */
+    private List<JournalRecord> fencedRecords(List<JournalRecord> records, long checkpoint) throws IOException {
+        long fencedAt = Long.parseLong(Files.readString(fencedMarker).trim());
+        List<JournalRecord> unflushed = records.stream().filter(r -> r.sequence() > fencedAt).toList();
+        if (!replayFencedJournal) {
+            throw new IllegalStateException("Journal " + journalPath.toAbsolutePath() + " d'un moteur évincé : "
+                    + unflushed.size() + " écritures après la séquence " + fencedAt
+                    + " à rejouer, redémarrer avec app.ledger.engine.replay-fenced-journal=true");
+        }
+        List<JournalRecord> renumbered = new ArrayList<>(unflushed.size());
+        long next = checkpoint;
+        for (JournalRecord record : unflushed) {
+            if (record.reference() != null && store.referenceExists(record.reference())) {
+                logger.warn("Écriture {} du journal évincé déjà enregistrée par un autre nœud, ignorée", record.reference());
+                continue;
+            }
+            renumbered.add(record.withSequence(++next));
+        }
+        logger.warn("Journal évincé : {} écritures après la séquence {} rejouées à partir de la séquence {}",
+                renumbered.size(), fencedAt, checkpoint + 1);
+        return renumbered;
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!enabled) {
+            return;
+        }
+        for (LedgerPartition partition : partitions) {
+            partition.stop();
+        }
+        journal.stop();
+        flusher.stop();
+        engineLease.close();
+    }
+
+    public Transaction post(Long accountId, CreateTransactionRequest request) {
+        return post(accountId, request, null).orElseThrow();
+    }
+
+    /**
+     * Posts unless a posting carrying {@code reference} was already made, flushed or still in the
+     * journal: a caller that lost track of an acknowledgement (crash before its own checkpoint) can
+     * submit again without posting twice.
+     *
+     * @return empty when {@code reference} was already posted
+     */
+    public Optional<Transaction> postOnce(Long accountId, CreateTransactionRequest request, String reference) {
+        if (reference == null || reference.isBlank()) {
+            throw new IllegalArgumentException("reference requise");
+        }
+        return post(accountId, request, reference);
+    }
+
+    private Optional<Transaction> post(Long accountId, CreateTransactionRequest request, String reference) {
+        if (request.getType() == null) {
+            throw new BusinessException("Type de transaction requis");
+        }
+        if (request.getAmount() == null || !request.getAmount().isPositive()) {
+            throw new BusinessException("Le montant doit être positif");
+        }
+        AccountSnapshot source = account(accountId)
+                .orElseThrow(() -> new BusinessException("Compte source introuvable"));
+
+        TransactionType type = request.getType();
+        long amount = request.getAmount().minor();
+        String description = request.getDescription();
+        long targetId = 0;
+        if (type == TransactionType.TRANSFER) {
+            if (accountId.equals(request.getTargetAccountId())) {
+                throw new BusinessException("Le compte destinataire doit être différent du compte source");
+            }
+            AccountSnapshot target = request.getTargetAccountId() == null ? null
+                    : account(request.getTargetAccountId()).orElse(null);
+            if (target == null) {
+                throw new BusinessException("Compte destinataire introuvable");
+            }
+            targetId = target.id();
+            description = "Transfert vers compte de : " + target.ownerUsername();
+        }
+
+        acquire();
+        try {
+            CompletableFuture<JournalRecord> result = new CompletableFuture<>();
+            JournalRecord draft = new JournalRecord(0, type, accountId, targetId, amount, 0,
+                    System.currentTimeMillis(), description, -1L, reference);
+            partitionFor(accountId).submit(() -> applySource(draft, result));
+            JournalRecord record = await(result);
+            if (record == null) {
+                logger.info("Écriture {} déjà enregistrée, ignorée", reference);
+                return Optional.empty();
+            }
+            postings.increment();
+            return Optional.of(toTransaction(record, source));
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    /** Runs on the source account's partition; completes with null for an already posted reference. */
+    private void applySource(JournalRecord draft, CompletableFuture<JournalRecord> result) {
+        LedgerPartition partition = partitionFor(draft.accountId());
+        long balance;
+        try {
+            // a reference is only posted from its source account, whose partition is the single writer:
+            // nothing can post it between this check and the journal
+            if (draft.reference() != null
+                    && (pendingReferences.containsKey(draft.reference()) || store.referenceExists(draft.reference()))) {
+                result.complete(null);
+                return;
+            }
+            balance = partition.balance(draft.accountId());
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            return;
+        }
+        if (draft.type() != TransactionType.DEPOSIT && balance < draft.amount()) {
+            rejections.increment();
+            result.completeExceptionally(new InsufficientFundsException());
+            return;
+        }
+        long after = partition.adjust(draft.accountId(), draft.deltaFor(draft.accountId()));
+        if (draft.reference() != null) {
+            pendingReferences.put(draft.reference(), Long.MAX_VALUE);
+        }
+        JournalRecord record = new JournalRecord(0, draft.type(), draft.accountId(), draft.targetAccountId(),
+                draft.amount(), after, draft.timestamp(), draft.description(), -1L, draft.reference());
+
+        if (draft.type() == TransactionType.TRANSFER) {
+            // Journal only after the target partition has loaded its balance, otherwise a fast flush could
+            // land in the database before that first read and the credit would be counted twice.
+            partitionFor(draft.targetAccountId()).submit(() -> applyTarget(record, result));
+        } else {
+            journal(record, result);
+        }
+    }
+
+    /** Runs on the target account's partition. */
+    private void applyTarget(JournalRecord record, CompletableFuture<JournalRecord> result) {
+        JournalRecord credited;
+        try {
+            long targetAfter = partitionFor(record.targetAccountId()).adjust(record.targetAccountId(), record.amount());
+            credited = record.withTargetBalanceAfter(targetAfter);
+        } catch (RuntimeException e) {
+            // undo the debit on the source partition before failing the caller
+            partitionFor(record.accountId()).submit(() -> partitionFor(record.accountId()).adjust(record.accountId(), record.amount()));
+            forgetReference(record);
+            result.completeExceptionally(e);
+            return;
+        }
+        journal(credited, result);
+    }
+
+    private void journal(JournalRecord record, CompletableFuture<JournalRecord> result) {
+        journal.append(record).whenComplete((durable, error) -> {
+            if (error != null) {
+                // outcome unknown: the reference stays pending so a retry cannot post it a second time
+                result.completeExceptionally(error);
+            } else {
+                if (record.reference() != null) {
+                    pendingReferences.put(record.reference(), durable.sequence());
+                }
+                result.complete(durable);
+            }
+        });
+    }
+
+    private void forgetReference(JournalRecord record) {
+        if (record.reference() != null) {
+            pendingReferences.remove(record.reference());
+        }
+    }
+
+    private Optional<AccountSnapshot> account(Long accountId) {
+        AccountSnapshot cached = accounts.get(accountId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<AccountSnapshot> loaded = store.loadAccount(accountId);
+        loaded.ifPresent(snapshot -> accounts.putIfAbsent(accountId, snapshot));
+        return loaded;
+    }
+
+    private long loadBalance(long accountId) {
+        return store.loadAccount(accountId)
+                .map(AccountSnapshot::balance)
+                .orElseThrow(() -> new BusinessException("Compte introuvable"));
+    }
+
+    private LedgerPartition partitionFor(long accountId) {
+        return partitions[(int) Math.floorMod(accountId, (long) partitionCount)];
+    }
+
+    private void acquire() {
+        if (!journal.isHealthy() || !engineLease.isHeld()) {
+            throw new BusinessException("Le grand livre est indisponible");
+        }
+        try {
+            if (!inFlight.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new BusinessException("Le grand livre est saturé, veuillez réessayer");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Opération interrompue");
+        }
+    }
+
+    private JournalRecord await(CompletableFuture<JournalRecord> result) {
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BusinessException business) {
+                throw business;
+            }
+            // e.g. a journal write failure after the balance was adjusted in memory
+            throw new OutcomeUnknownException("Erreur du grand livre : " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            // the posting is still queued and may complete: the caller must check the history before retrying
+            throw new OutcomeUnknownException("Délai dépassé : l'opération est peut-être enregistrée, vérifiez l'historique avant de réessayer");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OutcomeUnknownException("Opération interrompue : l'opération est peut-être enregistrée");
+        }
+    }
+
+    private Transaction toTransaction(JournalRecord record, AccountSnapshot source) {
+        BankAccount account = new BankAccount();
+        account.setId(source.id());
+        account.setIban(source.iban());
+
+        Transaction tx = new Transaction();
+        tx.setAccount(account);
+        tx.setType(record.type());
+        tx.setDirection(record.type() == TransactionType.DEPOSIT ? PostingDirection.CREDIT : PostingDirection.DEBIT);
+        tx.setAmount(Money.ofMinor(record.amount()));
+        tx.setBalanceAfter(Money.ofMinor(record.balanceAfter()));
+        tx.setDescription(record.description());
+        tx.setDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()), ZoneId.systemDefault()));
+        return tx;
+    }
+}
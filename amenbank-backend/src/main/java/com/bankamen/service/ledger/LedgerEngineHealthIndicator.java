@@ -0,0 +1,27 @@
+package com.bankamen.service.ledger;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+
+/** DOWN while the ledger engine refuses postings, so the node is taken out of rotation and noticed. */
+@Component
+@RequiredArgsConstructor
+public class LedgerEngineHealthIndicator implements HealthIndicator {
+
+    private final LedgerEngine engine;
+
+    @Override
+    public Health health() {
+        if (!engine.isEnabled()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+        return engine.unavailability()
+                .map(reason -> Health.down().withDetail("reason", reason))
+                .orElseGet(Health::up)
+                .withDetail("flushBacklog", engine.flushBacklog())
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.bankamen.service.ledger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bankamen.service.JobLeaseService;
+
+/**
+ * Write-behind of durable journal records to the Transaction/BankAccount tables.
+ * A failed batch is retried as-is; the checkpoint in {@link LedgerStore#persist} makes the retry idempotent.
+ */
+class LedgerFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerFlusher.class);
+
+    private final LedgerStore store;
+    private final JobLeaseService.Lease engineLease;
+    private final int maxBatch;
+    private final long intervalMs;
+    private final LongConsumer onFlushed;
+    private final BlockingQueue<JournalRecord> queue = new LinkedBlockingQueue<>();
+
+    private Thread thread;
+    private volatile boolean running;
+
+    LedgerFlusher(LedgerStore store, JobLeaseService.Lease engineLease, int maxBatch, long intervalMs, LongConsumer onFlushed) {
+        this.store = store;
+        this.engineLease = engineLease;
+        this.maxBatch = maxBatch;
+        this.intervalMs = intervalMs;
+        this.onFlushed = onFlushed;
+    }
+
+    void enqueue(List<JournalRecord> records) {
+        queue.addAll(records);
+    }
+
+    int backlog() {
+        return queue.size();
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "ledger-flusher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(30_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        List<JournalRecord> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                JournalRecord first = queue.poll(intervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                // shutting down: drain what is left below
+            }
+            queue.drainTo(batch, maxBatch - batch.size());
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<JournalRecord> batch) {
+        while (true) {
+            try {
+                onFlushed.accept(store.persist(batch, engineLease));
+                return;
+            } catch (Exception e) {
+                if (!running) {
+                    // the journal still holds these records; they are replayed at next startup
+                    logger.error("Arrêt avec {} écritures non persistées, elles seront rejouées au démarrage", batch.size());
+                    return;
+                }
+                logger.warn("Persistance du grand livre en échec ({} écritures), nouvel essai : {}", batch.size(), e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    // fall through and retry once more before checking running
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.bankamen.service.ledger;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only journal with group commit: every record queued while the previous fsync was
+ * in flight is written and forced in the next batch, so one fsync covers many postings.
+ * Frame layout: [int length][payload][int crc32]; a torn tail is detected and cut on recovery.
+ */
+class LedgerJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerJournal.class);
+
+    private record PendingWrite(JournalRecord record, CompletableFuture<JournalRecord> future) {
+    }
+
+    private final Path path;
+    private final int maxBatch;
+    private final long rotateBytes;
+    private final Consumer<List<JournalRecord>> onDurable;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean failed;
+    private volatile long flushedSequence = -1;
+    private long nextSequence;
+    private long lastWrittenSequence;
+
+    LedgerJournal(Path path, int maxBatch, long rotateBytes, Consumer<List<JournalRecord>> onDurable) {
+        this.path = path;
+        this.maxBatch = maxBatch;
+        this.rotateBytes = rotateBytes;
+        this.onDurable = onDurable;
+    }
+
+    /** Reads every intact record and truncates anything after the last valid frame. */
+    List<JournalRecord> recover() throws IOException {
+        List<JournalRecord> records = new ArrayList<>();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        if (!Files.exists(path)) {
+            return records;
+        }
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            while (position + Integer.BYTES <= size) {
+                header.clear();
+                in.read(header, position);
+                int length = header.flip().getInt();
+                if (length <= 0 || position + Integer.BYTES + length + Integer.BYTES > size) {
+                    break;
+                }
+                ByteBuffer frame = ByteBuffer.allocate(length + Integer.BYTES);
+                in.read(frame, position + Integer.BYTES);
+                frame.flip();
+                byte[] payload = new byte[length];
+                frame.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != frame.getInt()) {
+                    break;
+                }
+                records.add(JournalRecord.decode(new DataInputStream(new ByteArrayInputStream(payload))));
+                position += Integer.BYTES + length + Integer.BYTES;
+            }
+            if (position < size) {
+                logger.warn("Journal {} : {} octets invalides en fin de fichier tronqués", path, size - position);
+                in.truncate(position);
+                in.force(true);
+            }
+        }
+        return records;
+    }
+
+    /** Empties the file once recovered records are safely in the database. */
+    void resetAfterRecovery() throws IOException {
+        if (Files.exists(path)) {
+            try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                out.truncate(0);
+                out.force(true);
+            }
+        }
+    }
+
+    void start(long firstSequence) throws IOException {
+        this.nextSequence = firstSequence;
+        this.lastWrittenSequence = firstSequence - 1;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.running = true;
+        this.writer = new Thread(this::run, "ledger-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    CompletableFuture<JournalRecord> append(JournalRecord record) {
+        CompletableFuture<JournalRecord> future = new CompletableFuture<>();
+        if (failed || !running) {
+            future.completeExceptionally(new IllegalStateException("Journal du grand livre indisponible"));
+            return future;
+        }
+        queue.add(new PendingWrite(record, future));
+        return future;
+    }
+
+    /**
+     * Records how far the database has caught up; the writer truncates the file once
+     * it is past the rotation size and everything it holds has been flushed.
+     */
+    void onFlushed(long flushedSequence) {
+        this.flushedSequence = flushedSequence;
+        // wake the writer so an idle journal still gets rotated
+        queue.add(new PendingWrite(null, null));
+    }
+
+    boolean isHealthy() {
+        return running && !failed;
+    }
+
+    void stop() {
+        running = false;
+        if (writer != null) {
+            // wake the writer rather than interrupt it: an interrupt during a write closes the channel
+            queue.add(new PendingWrite(null, null));
+            try {
+                writer.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Fermeture du journal {} : {}", path, e.getMessage());
+        }
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                if (queue.isEmpty()) {
+                    break;
+                }
+            }
+            queue.drainTo(batch, maxBatch - batch.size());
+            writeBatch(batch);
+            batch.clear();
+            rotateIfPossible();
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        List<JournalRecord> durable = new ArrayList<>(batch.size());
+        List<CompletableFuture<JournalRecord>> futures = new ArrayList<>(batch.size());
+        try {
+            List<byte[]> frames = new ArrayList<>(batch.size());
+            int total = 0;
+            for (PendingWrite pending : batch) {
+                if (pending.record() == null) {
+                    continue;
+                }
+                JournalRecord record = pending.record().withSequence(nextSequence++);
+                byte[] payload = record.encode();
+                frames.add(payload);
+                total += payload.length + 2 * Integer.BYTES;
+                durable.add(record);
+                futures.add(pending.future());
+            }
+            if (durable.isEmpty()) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(total);
+            CRC32 crc = new CRC32();
+            for (byte[] payload : frames) {
+                crc.reset();
+                crc.update(payload);
+                buffer.putInt(payload.length).put(payload).putInt((int) crc.getValue());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            lastWrittenSequence = durable.get(durable.size() - 1).sequence();
+        } catch (IOException e) {
+            // Fail-stop: in-memory balances may now be ahead of the journal
+            failed = true;
+            logger.error("Écriture du journal {} impossible, le moteur du grand livre s'arrête", path, e);
+            for (PendingWrite pending : batch) {
+                if (pending.future() != null) {
+                    pending.future().completeExceptionally(e);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < durable.size(); i++) {
+            futures.get(i).complete(durable.get(i));
+        }
+        onDurable.accept(durable);
+    }
+
+    private void rotateIfPossible() {
+        try {
+            if (channel.size() >= rotateBytes && flushedSequence >= lastWrittenSequence) {
+                channel.truncate(0);
+                channel.force(true);
+                logger.info("Journal {} remis à zéro (séquence {} persistée en base)", path, lastWrittenSequence);
+            }
+        } catch (IOException e) {
+            logger.warn("Rotation du journal {} impossible : {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bankamen.service.ledger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.LongUnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single-writer event loop owning the balances of its accounts.
+ * Balance state is only read or written from the partition thread, so no locking is needed.
+ * Balances are minor units kept in a one-slot array per account and updated in place, without boxing.
+ */
+class LedgerPartition {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerPartition.class);
+
+    private final int index;
+    private final LongUnaryOperator balanceLoader;
+    private final BlockingQueue<Runnable> inbox = new LinkedBlockingQueue<>();
+    private final Map<Long, long[]> balances = new HashMap<>();
+
+    private Thread thread;
+    private volatile boolean running;
+
+    LedgerPartition(int index, LongUnaryOperator balanceLoader) {
+        this.index = index;
+        this.balanceLoader = balanceLoader;
+    }
+
+    void submit(Runnable command) {
+        inbox.add(command);
+    }
+
+    /** Partition thread only. Loads the balance from the database on first touch. */
+    long balance(long accountId) {
+        return slot(accountId)[0];
+    }
+
+    /** Partition thread only. */
+    long adjust(long accountId, long delta) {
+        long[] slot = slot(accountId);
+        slot[0] = Math.addExact(slot[0], delta);
+        return slot[0];
+    }
+
+    private long[] slot(long accountId) {
+        long[] slot = balances.get(accountId);
+        if (slot == null) {
+            slot = new long[] {balanceLoader.applyAsLong(accountId)};
+            balances.put(accountId, slot);
+        }
+        return slot;
+    }
+
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "ledger-partition-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (running || !inbox.isEmpty()) {
+            Runnable command;
+            try {
+                command = inbox.take();
+            } catch (InterruptedException e) {
+                command = inbox.poll();
+                if (command == null) {
+                    continue;
+                }
+            }
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                logger.error("Commande en échec sur la partition {}", index, e);
+            }
+        }
+    }
+}
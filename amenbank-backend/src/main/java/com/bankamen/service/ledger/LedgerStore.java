@@ -0,0 +1,118 @@
+package com.bankamen.service.ledger;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.bankamen.entity.LedgerCheckpoint;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.PostingDirection;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.LedgerCheckpointRepository;
+import com.bankamen.repository.TransactionRepository;
+import com.bankamen.service.JobLeaseService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Database side of the ledger engine: account reads at first touch and batched write-behind of journaled postings.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerStore {
+
+    static final String CHECKPOINT_NAME = "ledger-engine";
+
+    private final TransactionRepository transactionRepo;
+    private final BankAccountRepository accountRepo;
+    private final LedgerCheckpointRepository checkpointRepo;
+    private final JobLeaseService leaseService;
+
+    @Transactional(readOnly = true)
+    public long lastFlushedSequence() {
+        return checkpointRepo.findById(CHECKPOINT_NAME)
+                .map(LedgerCheckpoint::getLastSequence)
+                .orElse(0L);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<AccountSnapshot> loadAccount(long accountId) {
+        return accountRepo.findById(accountId)
+                .map(account -> new AccountSnapshot(
+                        account.getId(),
+                        account.getIban(),
+                        account.getUser().getUsername(),
+                        account.getTotalBalance() != null ? account.getTotalBalance().minor() : 0L));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean referenceExists(String reference) {
+        return transactionRepo.existsByReference(reference);
+    }
+
+    /**
+     * Writes the transaction rows and net balance deltas of a batch, skipping anything at or below
+     * the stored checkpoint, and advances the checkpoint in the same transaction. Fenced by the
+     * engine lease: a node that lost it keeps its records in its journal instead of writing them.
+     *
+     * @return the new checkpoint sequence
+     */
+    @Transactional
+    public long persist(List<JournalRecord> records, JobLeaseService.Lease engineLease) {
+        leaseService.assertHeld(engineLease);
+        LedgerCheckpoint checkpoint = checkpointRepo.findById(CHECKPOINT_NAME)
+                .orElseGet(() -> new LedgerCheckpoint(CHECKPOINT_NAME));
+        long last = checkpoint.getLastSequence();
+
+        int written = 0;
+        Map<Long, Long> deltas = new HashMap<>();
+        for (JournalRecord record : records) {
+            if (record.sequence() <= last) {
+                continue;
+            }
+            Transaction posting = toTransaction(record);
+            deltas.merge(record.accountId(), record.deltaFor(record.accountId()), Money::add);
+            if (record.type() == TransactionType.TRANSFER) {
+                deltas.merge(record.targetAccountId(), record.deltaFor(record.targetAccountId()), Money::add);
+                Transaction credit = posting.creditLeg(accountRepo.getReferenceById(record.targetAccountId()),
+                        record.targetBalanceAfter() >= 0 ? Money.ofMinor(record.targetBalanceAfter()) : null,
+                        "Transfert reçu du compte ID: " + record.accountId());
+                transactionRepo.saveTransfer(posting, credit);
+            } else {
+                transactionRepo.save(posting);
+            }
+            written++;
+            last = record.sequence();
+        }
+        if (written == 0) {
+            return checkpoint.getLastSequence();
+        }
+
+        deltas.forEach(accountRepo::applyBalanceDelta);
+        checkpoint.setLastSequence(last);
+        checkpointRepo.save(checkpoint);
+        return last;
+    }
+
+    private Transaction toTransaction(JournalRecord record) {
+        Transaction tx = new Transaction();
+        tx.setAccount(accountRepo.getReferenceById(record.accountId()));
+        tx.setType(record.type());
+        tx.setDirection(record.type() == TransactionType.DEPOSIT ? PostingDirection.CREDIT : PostingDirection.DEBIT);
+        tx.setAmount(Money.ofMinor(record.amount()));
+        tx.setBalanceAfter(Money.ofMinor(record.balanceAfter()));
+        tx.setDescription(record.description());
+        tx.setReference(record.reference());
+        tx.setDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()), ZoneId.systemDefault()));
+        return tx;
+    }
+}
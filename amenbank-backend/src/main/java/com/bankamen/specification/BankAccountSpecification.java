@@ -0,0 +1,55 @@
+package com.bankamen.specification;
+
+import com.bankamen.entity.AccountType;
+import com.bankamen.entity.BankAccount;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+
+
+public class BankAccountSpecification {
+
+    /**
+     * Admin account search. IBAN and account number match on a prefix (LIKE 'x%'), which the
+     * idx_bank_account_iban / idx_bank_account_number indexes answer as a range scan.
+     * The owner is fetched with the page, but not joined into the count query.
+     */
+    public static Specification<BankAccount> adminSearch(String iban, String accountNumber, AccountType type, Long userId) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class) {
+                root.fetch("user", JoinType.LEFT);
+            }
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (iban != null && !iban.isEmpty()) {
+                predicates.add(startsWith(cb, root.get("iban"), iban));
+            }
+            if (accountNumber != null && !accountNumber.isEmpty()) {
+                predicates.add(startsWith(cb, root.get("accountNumber"), accountNumber));
+            }
+            if (type != null) {
+                predicates.add(cb.equal(root.get("type"), type));
+            }
+            if (userId != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), userId));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // '!' rather than a backslash as escape character: MySQL also reads backslashes inside literals
+    static Predicate startsWith(CriteriaBuilder cb, Expression<String> path, String prefix) {
+        return cb.like(path, likePrefix(prefix), '!');
+    }
+
+    /** LIKE pattern matching values that start with {@code prefix}, wildcards escaped with '!'. */
+    public static String likePrefix(String prefix) {
+        return prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+}
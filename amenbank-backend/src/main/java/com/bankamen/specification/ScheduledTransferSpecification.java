@@ -0,0 +1,39 @@
+package com.bankamen.specification;
+
+import com.bankamen.entity.ScheduledTransfer;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+
+
+public class ScheduledTransferSpecification {
+
+    /**
+     * Admin scheduled-transfer search. Both accounts are fetched with the page (they are read for
+     * every row), the count query only joins the source account when filtering on it.
+     */
+    public static Specification<ScheduledTransfer> adminSearch(String sourceAccount, String targetAccountNumber, Boolean active) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class) {
+                root.fetch("sourceAccount", JoinType.LEFT);
+                root.fetch("targetAccount", JoinType.LEFT);
+            }
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (sourceAccount != null && !sourceAccount.isEmpty()) {
+                predicates.add(cb.equal(root.get("sourceAccount").get("accountNumber"), sourceAccount));
+            }
+            if (targetAccountNumber != null && !targetAccountNumber.isEmpty()) {
+                predicates.add(cb.equal(root.get("targetAccountNumber"), targetAccountNumber));
+            }
+            if (active != null) {
+                predicates.add(cb.equal(root.get("active"), active));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
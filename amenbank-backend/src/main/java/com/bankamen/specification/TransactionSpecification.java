@@ -1,11 +1,15 @@
 package com.bankamen.specification;
 
 import com.bankamen.dto.TransactionFilterRequest;
+import com.bankamen.entity.Money;
 import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 
 
@@ -44,5 +48,38 @@ public class TransactionSpecification {
 
         return spec.and(userSpec);
     }
-}
 
+    /**
+     * Account history with every supplied filter pushed to the database. Only non-null criteria
+     * become predicates, so MySQL can pick idx (account_id, type, date) or (account_id, date, id).
+     */
+    public static Specification<Transaction> forAccount(Long accountId, TransactionType type,
+                                                        LocalDateTime from, LocalDateTime to,
+                                                        Money minAmount, Money maxAmount) {
+        return (root, query, cb) -> {
+            if (query.getResultType() != Long.class) {
+                root.fetch("account", JoinType.LEFT);
+            }
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("account").get("id"), accountId));
+
+            if (type != null) {
+                predicates.add(cb.equal(root.get("type"), type));
+            }
+            if (from != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("date"), from));
+            }
+            if (to != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("date"), to));
+            }
+            if (minAmount != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), minAmount));
+            }
+            if (maxAmount != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), maxAmount));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.bankamen.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.bankamen.entity.BalanceShard;
+
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.TableGenerator;
+
+class IdBlockSeederTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @Test
+    void counterStartsOneBlockPastTheHighestExistingId() {
+        when(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM `balance_shard`", Long.class)).thenReturn(250L);
+
+        new IdBlockSeeder(jdbcTemplate, "id-blocks-balance-shard", "balance_shard").migrate();
+
+        verify(jdbcTemplate).update(anyString(), eq("balance_shard"), eq(351L));
+        verify(jdbcTemplate, never()).update(anyString(), eq("transaction"), eq(351L));
+    }
+
+    @Test
+    void balanceShardsUseTheSeededPooledGenerator() throws NoSuchFieldException {
+        var id = BalanceShard.class.getDeclaredField("id");
+        TableGenerator generator = id.getAnnotation(TableGenerator.class);
+
+        assertThat(id.getAnnotation(GeneratedValue.class).strategy()).isEqualTo(GenerationType.TABLE);
+        assertThat(generator.table()).isEqualTo("id_blocks");
+        assertThat(generator.pkColumnValue()).isEqualTo("balance_shard");
+        assertThat(generator.allocationSize()).isEqualTo(100);
+    }
+}
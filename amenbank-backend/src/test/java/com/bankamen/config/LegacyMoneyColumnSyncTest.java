@@ -0,0 +1,94 @@
+package com.bankamen.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class LegacyMoneyColumnSyncTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    // schema upgraded in place: every legacy column but the loan one is still there
+    private final Set<String> legacyColumns = Set.of("bank_account.balance", "transaction.amount",
+            "transaction.balance_after", "scheduled_transfer.amount");
+
+    @BeforeEach
+    void schema() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM information_schema"), eq(Integer.class),
+                any(Object[].class)))
+                .thenAnswer(inv -> legacyColumns.contains(inv.getArgument(2) + "." + inv.getArgument(3)) ? 1 : 0);
+    }
+
+    @Test
+    void triggersAreInstalledBeforeEmptyColumnsAreFilled() {
+        new LegacyMoneyColumnSync(jdbcTemplate).migrate();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate, atLeastOnce()).execute(startsWith("CREATE TRIGGER money_sync_upd_scheduled_transfer"));
+        order.verify(jdbcTemplate, atLeastOnce()).update(startsWith("UPDATE `bank_account` SET balance_minor"));
+        verify(jdbcTemplate, never()).execute(contains("loan_application"));
+        verify(jdbcTemplate, never()).update(contains("loan_application"));
+    }
+
+    @Test
+    void oneTriggerPerTableCarriesEveryColumnBothWays() {
+        new LegacyMoneyColumnSync(jdbcTemplate).migrate();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(sql.capture());
+        List<String> transactionTriggers = sql.getAllValues().stream()
+                .filter(s -> s.startsWith("CREATE TRIGGER") && s.contains("ON `transaction`"))
+                .toList();
+
+        assertThat(transactionTriggers).hasSize(2);
+        String onUpdate = transactionTriggers.stream().filter(s -> s.contains("BEFORE UPDATE")).findFirst().orElseThrow();
+        assertThat(onUpdate)
+                .contains("SET NEW.amount_minor = ROUND(NEW.amount * 1000)")
+                .contains("SET NEW.amount = NEW.amount_minor / 1000")
+                .contains("SET NEW.balance_after_minor = ROUND(NEW.balance_after * 1000)")
+                .contains("SET NEW.balance_after = NEW.balance_after_minor / 1000");
+    }
+
+    @Test
+    void dropIsRefusedWhileAnyRowDiverges() {
+        when(jdbcTemplate.queryForObject(contains("FROM `transaction` WHERE balance_after IS NOT NULL"), eq(Long.class)))
+                .thenReturn(3L);
+
+        assertThatThrownBy(() -> new LegacyMoneyColumnDrop(jdbcTemplate).migrate())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("3 lignes de transaction.balance_after");
+        // checked before anything is removed, the bank_account column included
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void dropRemovesTheTriggersBeforeTheColumns() {
+        new LegacyMoneyColumnDrop(jdbcTemplate).migrate();
+
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).execute("DROP TRIGGER IF EXISTS money_sync_ins_transaction");
+        order.verify(jdbcTemplate).execute("DROP TRIGGER IF EXISTS money_sync_upd_scheduled_transfer");
+        order.verify(jdbcTemplate).execute("ALTER TABLE `bank_account` DROP COLUMN balance");
+        verify(jdbcTemplate).execute("ALTER TABLE `transaction` DROP COLUMN balance_after");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE `loan_application` DROP COLUMN amount");
+    }
+}
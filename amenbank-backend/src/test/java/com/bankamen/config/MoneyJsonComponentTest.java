@@ -0,0 +1,40 @@
+package com.bankamen.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.bankamen.entity.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+class MoneyJsonComponentTest {
+
+    record Amount(Money amount) {
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(Money.class, new MoneyJsonComponent.Serializer())
+            .addDeserializer(Money.class, new MoneyJsonComponent.Deserializer()));
+
+    @Test
+    void writesAPlainJsonNumber() throws Exception {
+        assertThat(mapper.writeValueAsString(new Amount(Money.parse("150.5")))).isEqualTo("{\"amount\":150.5}");
+    }
+
+    @Test
+    void readsNumbersAndNumericStringsWithoutGoingThroughDouble() throws Exception {
+        assertThat(mapper.readValue("{\"amount\":0.3}", Amount.class).amount()).isEqualTo(Money.ofMinor(300));
+        assertThat(mapper.readValue("{\"amount\":42}", Amount.class).amount()).isEqualTo(Money.ofMinor(42_000));
+        assertThat(mapper.readValue("{\"amount\":\"12,5\"}", Amount.class).amount()).isEqualTo(Money.ofMinor(12_500));
+        assertThat(mapper.readValue("{\"amount\":\" \"}", Amount.class).amount()).isNull();
+    }
+
+    @Test
+    void rejectsNonNumericText() {
+        assertThatThrownBy(() -> mapper.readValue("{\"amount\":\"abc\"}", Amount.class))
+                .isInstanceOf(InvalidFormatException.class);
+    }
+}
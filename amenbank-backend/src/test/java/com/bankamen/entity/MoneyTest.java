@@ -0,0 +1,58 @@
+package com.bankamen.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    @Test
+    void sumsAreExactWhereDoublesDrift() {
+        assertThat(0.1 + 0.2).isNotEqualTo(0.3);
+        assertThat(Money.of(0.1).plus(Money.of(0.2))).isEqualTo(Money.of(0.3));
+        assertThat(Money.parse("1000000.001").minus(Money.parse("0.001"))).isEqualTo(Money.ofMinor(1_000_000_000));
+    }
+
+    @Test
+    void amountsAreRoundedHalfEvenToMillimes() {
+        assertThat(Money.of(new BigDecimal("1.0005")).minor()).isEqualTo(1_000);
+        assertThat(Money.of(new BigDecimal("1.0015")).minor()).isEqualTo(1_002);
+        assertThat(Money.of(12.34).minor()).isEqualTo(12_340);
+    }
+
+    @Test
+    void parseAcceptsADecimalCommaAndRejectsText() {
+        assertThat(Money.parse(" 12,5 ")).isEqualTo(Money.ofMinor(12_500));
+        assertThatThrownBy(() -> Money.parse("douze"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Montant invalide : douze");
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Money.ofMinor(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MIN_VALUE).negate()).isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void printsAsAPlainNumberWithoutTrailingZeros() {
+        assertThat(Money.ofMinor(10_500)).hasToString("10.5");
+        assertThat(Money.ofMinor(1_000_000_000)).hasToString("1000000");
+        assertThat(Money.ofMinor(-1)).hasToString("-0.001");
+    }
+
+    @Test
+    void converterStoresMinorUnitsAndKeepsNulls() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertThat(converter.convertToDatabaseColumn(Money.parse("150.75"))).isEqualTo(150_750L);
+        assertThat(converter.convertToEntityAttribute(150_750L)).isEqualTo(Money.parse("150.75"));
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
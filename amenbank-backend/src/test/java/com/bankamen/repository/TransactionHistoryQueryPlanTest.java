@@ -0,0 +1,169 @@
+package com.bankamen.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.bankamen.entity.Transaction;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Rows scanned by the filtered account history before and after the combined query, on a real
+ * MySQL: run with {@code -Dbankamen.mysql.url=jdbc:mysql://host/db -Dbankamen.mysql.user=...
+ * -Dbankamen.mysql.password=...}. Skipped otherwise.
+ * <p>
+ * The table is a temporary copy of {@code transaction} carrying the indexes declared on the entity.
+ * "Before" is the query of the former single-filter path (account and type only, every transfer of
+ * the account read); "after" is the SQL of {@code TransactionSpecification.forAccount}. Rows
+ * scanned are the session handler reads of each query.
+ */
+@EnabledIfSystemProperty(named = "bankamen.mysql.url", matches = ".+")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionHistoryQueryPlanTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionHistoryQueryPlanTest.class);
+
+    private static final long ACCOUNT = 1;
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2025, 1, 1, 9, 0);
+    private static final int DAYS = 400;
+    private static final int POSTINGS_PER_DAY = 30;
+    private static final List<String> TYPES = List.of("DEPOSIT", "WITHDRAWAL", "TRANSFER");
+
+    private static final String BEFORE = "SELECT * FROM tx_plan WHERE account_id = ? AND type = ?";
+    private static final String AFTER = "SELECT * FROM tx_plan WHERE account_id = ? AND type = ? AND date >= ? AND date <= ? "
+            + "AND amount_minor >= ? ORDER BY date DESC, id DESC";
+    private static final String DATES_ONLY = "SELECT * FROM tx_plan WHERE account_id = ? AND date >= ? AND date <= ? "
+            + "ORDER BY date DESC, id DESC";
+
+    private final LocalDateTime from = FIRST_DAY.plusDays(200).toLocalDate().atStartOfDay();
+    private final LocalDateTime to = from.plusDays(30).minusSeconds(1);
+    private Connection connection;
+
+    @BeforeAll
+    void createTable() throws SQLException {
+        connection = DriverManager.getConnection(System.getProperty("bankamen.mysql.url"),
+                System.getProperty("bankamen.mysql.user"), System.getProperty("bankamen.mysql.password"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE tx_plan (id BIGINT PRIMARY KEY, account_id BIGINT NOT NULL, "
+                    + "type VARCHAR(31), date DATETIME(6), amount_minor BIGINT, balance_after_minor BIGINT, "
+                    + "description VARCHAR(255), direction VARCHAR(6), journal_entry_id BIGINT, reference VARCHAR(100))");
+            for (Index index : Transaction.class.getAnnotation(Table.class).indexes()) {
+                statement.execute("CREATE INDEX " + index.name() + " ON tx_plan (" + index.columnList() + ")");
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO tx_plan (id, account_id, type, date, amount_minor) VALUES (?, ?, ?, ?, ?)")) {
+            long id = 0;
+            for (int day = 0; day < DAYS; day++) {
+                for (int i = 0; i < POSTINGS_PER_DAY; i++) {
+                    // the measured account, and as many postings on other accounts around it
+                    for (long account : new long[] {ACCOUNT, 2 + i % 50}) {
+                        insert.setLong(1, ++id);
+                        insert.setLong(2, account);
+                        insert.setString(3, TYPES.get(i % TYPES.size()));
+                        insert.setTimestamp(4, Timestamp.valueOf(FIRST_DAY.plusDays(day).plusMinutes(i)));
+                        insert.setLong(5, 1_000L * (1 + i % 20));
+                        insert.addBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE tx_plan");
+        }
+    }
+
+    @AfterAll
+    void dropTable() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Test
+    void combinedFilterIsARangeScanOnAccountTypeDate() throws Exception {
+        Object[] after = {ACCOUNT, "TRANSFER", Timestamp.valueOf(from), Timestamp.valueOf(to), 5_000L};
+
+        assertThat(plannedKey(AFTER, after)).isEqualTo("idx_transaction_account_type_date");
+
+        Scan before = scan(BEFORE, ACCOUNT, "TRANSFER");
+        Scan combined = scan(AFTER, after);
+        logger.info("Historique filtré (TRANSFER, 30 jours, montant >= 50,00) : avant {} lignes lues pour {} renvoyées, "
+                + "après {} lignes lues pour {} renvoyées", before.read(), before.returned(), combined.read(), combined.returned());
+        // the range holds 30 days of transfers; the amount bound is a residual filter on it
+        long transfersInRange = 30L * POSTINGS_PER_DAY / TYPES.size();
+        assertThat(combined.read()).isLessThanOrEqualTo(transfersInRange + 1);
+        assertThat(before.read()).isGreaterThanOrEqualTo((long) DAYS * POSTINGS_PER_DAY / TYPES.size());
+        assertThat(combined.read() * 10).isLessThan(before.read());
+    }
+
+    @Test
+    void dateOnlyFilterIsARangeScanOnAccountDate() throws Exception {
+        Object[] parameters = {ACCOUNT, Timestamp.valueOf(from), Timestamp.valueOf(to)};
+
+        assertThat(plannedKey(DATES_ONLY, parameters)).isEqualTo("idx_transaction_account_date_id");
+        assertThat(scan(DATES_ONLY, parameters).read()).isLessThanOrEqualTo(30L * POSTINGS_PER_DAY + 1);
+    }
+
+    private record Scan(long read, long returned) {
+    }
+
+    private String plannedKey(String sql, Object... parameters) throws Exception {
+        try (PreparedStatement explain = prepare("EXPLAIN FORMAT=JSON " + sql, parameters);
+             ResultSet plan = explain.executeQuery()) {
+            plan.next();
+            JsonNode table = new ObjectMapper().readTree(plan.getString(1)).findValue("table");
+            assertThat(table.path("access_type").asText()).isEqualTo("range");
+            return table.path("key").asText();
+        }
+    }
+
+    private Scan scan(String sql, Object... parameters) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("FLUSH STATUS");
+        }
+        long returned = 0;
+        try (PreparedStatement query = prepare(sql, parameters); ResultSet rows = query.executeQuery()) {
+            while (rows.next()) {
+                returned++;
+            }
+        }
+        long read = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery("SHOW SESSION STATUS LIKE 'Handler_read%'")) {
+            while (status.next()) {
+                read += status.getLong(2);
+            }
+        }
+        return new Scan(read, returned);
+    }
+
+    private PreparedStatement prepare(String sql, Object... parameters) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+        return statement;
+    }
+}
@@ -0,0 +1,160 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.bankamen.entity.AccountType;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AccountMetadataCacheTest {
+
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final AccountNumberFilter numberFilter = mock(AccountNumberFilter.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AccountMetadataCache cache(int maxEntries) {
+        return new AccountMetadataCache(accountRepo, userRepository, numberFilter, meterRegistry, 300, 30, maxEntries);
+    }
+
+    private static List<Object[]> row(long accountId, long ownerId, String number) {
+        return List.<Object[]>of(new Object[] {accountId, ownerId, "user" + ownerId, number, AccountType.CHECKING, true});
+    }
+
+    @Test
+    void secondReadIsAHit() {
+        when(accountRepo.findMetadataById(1L)).thenReturn(row(1, 10, "A-1"));
+        AccountMetadataCache cache = cache(100);
+
+        cache.getAccount(1L);
+        assertThat(cache.getAccount(1L)).get().extracting(AccountMetadataCache.AccountMetadata::ownerId).isEqualTo(10L);
+
+        verify(accountRepo, times(1)).findMetadataById(1L);
+        assertThat(meterRegistry.get("account.cache.requests").tags("cache", "account", "result", "hit").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void absentAccountsAreNotCached() {
+        when(accountRepo.findMetadataById(1L)).thenReturn(List.of(), row(1, 10, "A-1"));
+        AccountMetadataCache cache = cache(100);
+
+        assertThat(cache.getAccount(1L)).isEmpty();
+        assertThat(cache.getAccount(1L)).isPresent();
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        when(accountRepo.findMetadataById(any())).thenAnswer(inv -> row(inv.getArgument(0), 10, "A-" + inv.getArgument(0)));
+        AccountMetadataCache cache = cache(2);
+
+        cache.getAccount(1L);
+        cache.getAccount(2L);
+        cache.getAccount(1L);
+        cache.getAccount(3L);
+        cache.getAccount(1L);
+        cache.getAccount(2L);
+
+        verify(accountRepo, times(1)).findMetadataById(1L);
+        verify(accountRepo, times(2)).findMetadataById(2L);
+        assertThat(meterRegistry.get("account.cache.evictions").tags("cache", "account").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatingAnAccountAlsoDropsItsNumber() {
+        when(accountRepo.findMetadataByAccountNumber("A-1")).thenReturn(row(1, 10, "A-1"));
+        AccountMetadataCache cache = cache(100);
+        cache.findAccountIdByNumber("A-1");
+
+        cache.invalidateAccount(1L);
+        cache.findAccountIdByNumber("A-1");
+
+        verify(accountRepo, times(2)).findMetadataByAccountNumber("A-1");
+    }
+
+    @Test
+    void invalidatingAUserDropsTheAccountsTheyOwn() {
+        when(accountRepo.findMetadataById(any())).thenAnswer(inv -> row(inv.getArgument(0), (long) inv.getArgument(0) * 10, "n"));
+        AccountMetadataCache cache = cache(100);
+        cache.getAccount(1L);
+        cache.getAccount(2L);
+
+        cache.invalidateUser(10L, "user10");
+        cache.getAccount(1L);
+        cache.getAccount(2L);
+
+        verify(accountRepo, times(2)).findMetadataById(1L);
+        verify(accountRepo, times(1)).findMetadataById(2L);
+    }
+
+    @Test
+    void loadRacingAnInvalidationIsNotCached() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        when(accountRepo.findMetadataById(1L)).thenAnswer(inv -> {
+            reading.countDown();
+            invalidated.await(5, TimeUnit.SECONDS);
+            return row(1, 10, "A-1");
+        }).thenReturn(row(1, 20, "A-1"));
+        AccountMetadataCache cache = cache(100);
+
+        CompletableFuture<?> load = CompletableFuture.runAsync(() -> cache.getAccount(1L));
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        // ownership moved while the old owner was being read
+        cache.invalidateAccount(1L);
+        invalidated.countDown();
+        load.get(5, TimeUnit.SECONDS);
+
+        assertThat(cache.getAccount(1L)).get().extracting(AccountMetadataCache.AccountMetadata::ownerId).isEqualTo(20L);
+    }
+
+    @Test
+    void numberLookupRacingAnInvalidationDoesNotRecacheTheAccount() throws Exception {
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch invalidated = new CountDownLatch(1);
+        when(accountRepo.findMetadataByAccountNumber("A-1")).thenAnswer(inv -> {
+            reading.countDown();
+            invalidated.await(5, TimeUnit.SECONDS);
+            return row(1, 10, "A-1");
+        });
+        when(accountRepo.findMetadataById(1L)).thenReturn(row(1, 20, "A-1"));
+        AccountMetadataCache cache = cache(100);
+
+        CompletableFuture<?> lookup = CompletableFuture.runAsync(() -> cache.findAccountIdByNumber("A-1"));
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.invalidateAccount(1L);
+        invalidated.countDown();
+        lookup.get(5, TimeUnit.SECONDS);
+
+        assertThat(cache.getAccount(1L)).get().extracting(AccountMetadataCache.AccountMetadata::ownerId).isEqualTo(20L);
+    }
+
+    @Test
+    void filterNegativesNeverReachTheDatabase() {
+        when(numberFilter.mightExist("A-404")).thenReturn(false);
+        when(numberFilter.mightExist("A-1")).thenReturn(true);
+        when(accountRepo.findMetadataByAccountNumber("A-1")).thenReturn(row(1, 10, "A-1"));
+        AccountMetadataCache cache = cache(100);
+
+        assertThat(cache.accountNumberExists("A-404")).isFalse();
+        assertThat(cache.accountNumberExists("A-1")).isTrue();
+
+        verify(accountRepo, never()).findMetadataByAccountNumber("A-404");
+        verify(numberFilter).recordPositiveOutcome(true);
+    }
+}
@@ -0,0 +1,105 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bankamen.repository.BankAccountRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AccountNumberFilterTest {
+
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+
+    @Test
+    void removedNumberIsDefinitelyAbsentAgain() {
+        AccountNumberFilter filter = built(100_000, 0.001, numbers(0, 1_000));
+
+        assertThat(filter.mightExist("TN-NEW")).isFalse();
+        filter.add("TN-NEW");
+        assertThat(filter.mightExist("TN-NEW")).isTrue();
+        filter.remove("TN-NEW");
+        assertThat(filter.mightExist("TN-NEW")).isFalse();
+        assertThat(numbers(0, 1_000)).allMatch(filter::mightExist);
+    }
+
+    @Test
+    void numbersReReadByTheSyncOverlapAreCountedOnce() {
+        AccountNumberFilter filter = built(100_000, 0.001, numbers(0, 1_000));
+        filter.add("TN-LOCAL");
+        changedSince(row("TN-LOCAL"), row("TN-REMOTE"));
+
+        filter.syncChanges();
+        filter.syncChanges();
+        filter.remove("TN-LOCAL");
+        filter.remove("TN-REMOTE");
+
+        assertThat(filter.mightExist("TN-LOCAL")).isFalse();
+        assertThat(filter.mightExist("TN-REMOTE")).isFalse();
+    }
+
+    @Test
+    void falsePositiveFromTheSyncIsCountedSoItsRemovalSparesOtherNumbers() {
+        // a small, crowded filter: plenty of false positives
+        List<String> existing = numbers(0, 40);
+        AccountNumberFilter filter = built(40, 0.3, existing);
+        String falsePositive = IntStream.range(1_000, 100_000).mapToObj(i -> "TN" + i)
+                .filter(filter::mightExist).findFirst().orElseThrow();
+
+        // assigned on another node, then renumbered on this one
+        changedSince(row(falsePositive));
+        filter.syncChanges();
+        filter.remove(falsePositive);
+
+        assertThat(existing).allMatch(filter::mightExist);
+    }
+
+    @Test
+    void numberRemovedThenAssignedAgainElsewhereIsCountedAgain() {
+        AccountNumberFilter filter = built(100_000, 0.001, numbers(0, 1_000));
+        changedSince(row("TN-MOVED"));
+        filter.syncChanges();
+
+        filter.remove("TN-MOVED");
+        filter.syncChanges();
+
+        assertThat(filter.mightExist("TN-MOVED")).isTrue();
+    }
+
+    private AccountNumberFilter built(long expectedNumbers, double falsePositiveRate, List<String> existing) {
+        when(accountRepo.count()).thenReturn(0L);
+        when(accountRepo.streamAccountNumbers()).thenAnswer(invocation -> existing.stream());
+        changedSince();
+        AccountNumberFilter filter = new AccountNumberFilter(accountRepo, mock(PlatformTransactionManager.class),
+                mock(TaskScheduler.class), new SimpleMeterRegistry(), expectedNumbers, falsePositiveRate, 60_000);
+        filter.rebuild();
+        return filter;
+    }
+
+    private void changedSince(Object[]... rows) {
+        when(accountRepo.findAccountNumbersChangedSince(any())).thenReturn(List.of(rows));
+    }
+
+    private static Object[] row(String number) {
+        return new Object[] {number, LocalDateTime.now()};
+    }
+
+    private static List<String> numbers(int from, int to) {
+        List<String> numbers = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            numbers.add("TN" + i);
+        }
+        return numbers;
+    }
+}
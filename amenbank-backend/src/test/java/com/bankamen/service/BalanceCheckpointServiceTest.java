@@ -0,0 +1,175 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bankamen.dto.BalanceAtDTO;
+import com.bankamen.entity.BalanceCheckpoint;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.repository.BalanceCheckpointRepository;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.TransactionRepository;
+
+class BalanceCheckpointServiceTest {
+
+    private final BalanceCheckpointRepository checkpointRepo = mock(BalanceCheckpointRepository.class);
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final TransactionRepository transactionRepo = mock(TransactionRepository.class);
+    private final JobLeaseService leaseService = mock(JobLeaseService.class);
+    private final BalanceCheckpointService service =
+            new BalanceCheckpointService(checkpointRepo, accountRepo, transactionRepo, leaseService, 1000, 31);
+
+    private record Posting(LocalDateTime date, long signedMinor) {
+    }
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final List<Posting> postings = new ArrayList<>();
+
+    @BeforeEach
+    void ledger() {
+        // two postings a day over the last ten days, one of them at midnight sharp
+        for (int day = 10; day >= 1; day--) {
+            LocalDate date = now.toLocalDate().minusDays(day);
+            postings.add(new Posting(date.atStartOfDay(), 10_000L * day));
+            postings.add(new Posting(date.atTime(15, 30), -1_500L));
+        }
+        BankAccount account = new BankAccount();
+        account.setId(1L);
+        account.setBalance(Money.ofMinor(balanceBefore(now.plusDays(1))));
+        when(accountRepo.findById(1L)).thenReturn(Optional.of(account));
+        when(transactionRepo.sumPostings(eq(1L), any(), any()))
+                .thenAnswer(inv -> delta(inv.getArgument(1), inv.getArgument(2)));
+    }
+
+    @Test
+    void balanceAtIsTheCheckpointPlusThePostingsSinceItsMidnight() {
+        LocalDate checkpointDay = now.toLocalDate().minusDays(6);
+        when(checkpointRepo.findTopByAccountIdAndBusinessDateLessThanOrderByBusinessDateDesc(eq(1L), any()))
+                .thenReturn(Optional.of(closing(checkpointDay)));
+
+        LocalDateTime at = checkpointDay.plusDays(1).atTime(16, 0);
+        BalanceAtDTO balance = service.balanceAt(1L, at);
+
+        assertThat(balance.getBalance().minor()).isEqualTo(balanceBefore(at));
+        assertThat(balance.getCheckpointDate()).isEqualTo(checkpointDay);
+        assertThat(balance.getScannedTransactions()).isEqualTo(2);
+    }
+
+    @Test
+    void postingAtTheInstantItselfIsNotIncluded() {
+        LocalDate checkpointDay = now.toLocalDate().minusDays(6);
+        when(checkpointRepo.findTopByAccountIdAndBusinessDateLessThanOrderByBusinessDateDesc(eq(1L), any()))
+                .thenReturn(Optional.of(closing(checkpointDay)));
+
+        // the day after the checkpoint opens with a posting at 00:00
+        LocalDateTime midnight = checkpointDay.plusDays(1).atStartOfDay();
+        BalanceAtDTO balance = service.balanceAt(1L, midnight);
+
+        assertThat(balance.getBalance().minor()).isEqualTo(closing(checkpointDay).getClosingBalance().minor());
+        assertThat(balance.getScannedTransactions()).isZero();
+    }
+
+    @Test
+    void withoutACheckpointTheBalanceWalksBackFromTheCurrentOne() {
+        when(checkpointRepo.findTopByAccountIdAndBusinessDateLessThanOrderByBusinessDateDesc(eq(1L), any()))
+                .thenReturn(Optional.empty());
+
+        LocalDateTime at = now.toLocalDate().minusDays(4).atTime(12, 0);
+        BalanceAtDTO balance = service.balanceAt(1L, at);
+
+        assertThat(balance.getBalance().minor()).isEqualTo(balanceBefore(at));
+        assertThat(balance.getCheckpointDate()).isNull();
+        // 15:30 of that day, then two postings on each of the three following days
+        assertThat(balance.getScannedTransactions()).isEqualTo(7);
+    }
+
+    @Test
+    void futureInstantsAnswerTheCurrentBalanceWithoutScanning() {
+        BalanceAtDTO balance = service.balanceAt(1L, now.plusHours(1));
+
+        assertThat(balance.getBalance().minor()).isEqualTo(balanceBefore(now.plusDays(1)));
+        verify(transactionRepo, times(0)).sumPostings(anyLong(), any(), any());
+    }
+
+    @Test
+    void snapshotCoversTheAccountIdsInBatches() {
+        when(accountRepo.findMinId()).thenReturn(1L);
+        when(accountRepo.findMaxId()).thenReturn(2_500L);
+        LocalDate day = LocalDate.of(2026, 3, 1);
+
+        service.snapshot(day);
+
+        ArgumentCaptor<Long> from = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> to = ArgumentCaptor.forClass(Long.class);
+        verify(checkpointRepo, times(3)).snapshot(eq(day), eq(day.atStartOfDay()), eq(day.plusDays(1).atStartOfDay()),
+                from.capture(), to.capture());
+        assertThat(from.getAllValues()).containsExactly(1L, 1_001L, 2_001L);
+        assertThat(to.getAllValues()).containsExactly(1_000L, 2_000L, 3_000L);
+    }
+
+    @Test
+    void missedDaysAreBackfilledUpToTheConfiguredLimit() {
+        when(leaseService.runExclusive(eq("balance-checkpoint"), any(Duration.class), any())).thenAnswer(inv -> {
+            inv.<Runnable>getArgument(2).run();
+            return true;
+        });
+        when(accountRepo.findMinId()).thenReturn(1L);
+        when(accountRepo.findMaxId()).thenReturn(1L);
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(checkpointRepo.findLastBusinessDate()).thenReturn(yesterday.minusDays(90));
+
+        service.snapshotClosedDays();
+
+        ArgumentCaptor<LocalDate> days = ArgumentCaptor.forClass(LocalDate.class);
+        verify(checkpointRepo, times(31)).snapshot(days.capture(), any(), any(), anyLong(), anyLong());
+        assertThat(days.getAllValues().get(0)).isEqualTo(yesterday.minusDays(30));
+        assertThat(days.getAllValues().get(30)).isEqualTo(yesterday);
+    }
+
+    private BalanceCheckpoint closing(LocalDate day) {
+        BalanceCheckpoint checkpoint = new BalanceCheckpoint();
+        checkpoint.setAccountId(1L);
+        checkpoint.setBusinessDate(day);
+        checkpoint.setClosingBalance(Money.ofMinor(balanceBefore(day.plusDays(1).atStartOfDay())));
+        return checkpoint;
+    }
+
+    private long balanceBefore(LocalDateTime at) {
+        return postings.stream().filter(p -> p.date().isBefore(at)).mapToLong(Posting::signedMinor).sum();
+    }
+
+    private TransactionRepository.PostingDelta delta(LocalDateTime from, LocalDateTime to) {
+        List<Posting> window = postings.stream().filter(p -> !p.date().isBefore(from) && p.date().isBefore(to)).toList();
+        long sum = window.stream().mapToLong(Posting::signedMinor).sum();
+        long count = window.size();
+        return new TransactionRepository.PostingDelta() {
+            @Override
+            public Long getDelta() {
+                return sum;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+}
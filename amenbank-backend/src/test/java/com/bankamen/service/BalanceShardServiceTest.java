@@ -0,0 +1,102 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BalanceShardRepository;
+import com.bankamen.repository.BankAccountRepository;
+
+class BalanceShardServiceTest {
+
+    private static final Long ID = 42L;
+
+    private final BalanceShardRepository shardRepo = mock(BalanceShardRepository.class);
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final BalanceShardService service = new BalanceShardService(shardRepo, accountRepo,
+            mock(TransactionTemplate.class), mock(JobLeaseService.class));
+    private final BankAccount account = new BankAccount();
+
+    @BeforeEach
+    void setUp() {
+        account.setId(ID);
+        account.setBalanceShards(3);
+    }
+
+    @Test
+    void debitCoveredByOneSlotDoesNotLockTheAggregate() {
+        when(shardRepo.debitIfCovered(eq(ID), anyInt(), eq(300L))).thenReturn(1);
+        when(accountRepo.totalBalance(ID)).thenReturn(900L);
+
+        assertThat(service.debit(account, Money.ofMinor(300))).isEqualTo(Money.ofMinor(900));
+        verify(accountRepo, never()).lockBalance(ID);
+        verify(shardRepo, never()).lockSlots(ID);
+    }
+
+    @Test
+    void debitLargerThanAnySlotBorrowsAcrossSlotsInOrder() {
+        shards(100, slot(0, 400), slot(1, 0), slot(2, 700));
+
+        assertThat(service.debit(account, Money.ofMinor(1_000))).isEqualTo(Money.ofMinor(200));
+        verify(shardRepo).setSlot(ID, 0, 0);
+        verify(shardRepo).setSlot(ID, 2, 100);
+        verify(shardRepo, never()).setSlot(eq(ID), eq(1), anyLong());
+        verify(accountRepo, never()).setBalance(eq(ID), anyLong());
+    }
+
+    @Test
+    void debitEmptyingEverySlotTakesTheRestFromTheBaseRow() {
+        shards(500, slot(0, 200), slot(1, 100), slot(2, 0));
+
+        assertThat(service.debit(account, Money.ofMinor(600))).isEqualTo(Money.ofMinor(200));
+        verify(shardRepo).setSlot(ID, 0, 0);
+        verify(shardRepo).setSlot(ID, 1, 0);
+        verify(accountRepo).setBalance(ID, 200);
+    }
+
+    @Test
+    void debtOnTheBaseRowCountsAgainstTheSlots() {
+        // each slot covers the debit on its own, the aggregate does not
+        shards(-1_500, slot(0, 800), slot(1, 800), slot(2, 0));
+
+        assertThatThrownBy(() -> service.debit(account, Money.ofMinor(500)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("Fonds insuffisants");
+        verify(shardRepo, never()).setSlot(eq(ID), anyInt(), anyLong());
+        verify(accountRepo, never()).setBalance(eq(ID), anyLong());
+    }
+
+    @Test
+    void debtOnTheBaseRowStaysThereWhenTheSlotsCoverTheDebit() {
+        shards(-300, slot(0, 1_000), slot(1, 500), slot(2, 0));
+
+        assertThat(service.debit(account, Money.ofMinor(1_000))).isEqualTo(Money.ofMinor(200));
+        verify(shardRepo).setSlot(ID, 0, 0);
+        verify(accountRepo, never()).setBalance(eq(ID), anyLong());
+    }
+
+    private void shards(long base, Object[]... slots) {
+        when(shardRepo.debitIfCovered(eq(ID), anyInt(), anyLong())).thenReturn(0);
+        when(accountRepo.lockBalance(ID)).thenReturn(base);
+        when(shardRepo.lockSlots(ID)).thenReturn(List.of(slots));
+    }
+
+    private static Object[] slot(int slot, long balance) {
+        return new Object[] {slot, balance};
+    }
+}
@@ -0,0 +1,217 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.dto.BulkImportLineError;
+import com.bankamen.entity.BulkImportJob;
+import com.bankamen.entity.BulkImportJobStatus;
+import com.bankamen.exception.LeaseLostException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.BulkImportJobErrorRepository;
+import com.bankamen.repository.BulkImportJobRepository;
+
+class BulkImportJobServiceTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private final BulkImportJobRepository jobRepository = mock(BulkImportJobRepository.class);
+    private final BulkImportJobErrorRepository errorRepository = mock(BulkImportJobErrorRepository.class);
+    private final BulkTransferImportService importer = mock(BulkTransferImportService.class);
+    private final JobLeaseService leaseService = mock(JobLeaseService.class);
+    private final JobLeaseService.Lease lease = mock(JobLeaseService.Lease.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final Map<String, BulkImportJob> jobs = new ConcurrentHashMap<>();
+    // released once a worker has given its job's lease back
+    private CountDownLatch released = new CountDownLatch(1);
+    private BulkImportJobService service;
+
+    @BeforeEach
+    void setUp() {
+        when(jobRepository.save(any())).thenAnswer(inv -> {
+            BulkImportJob job = inv.getArgument(0);
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        when(jobRepository.findById(anyString())).thenAnswer(inv -> Optional.ofNullable(jobs.get(inv.<String>getArgument(0))));
+        when(jobRepository.advance(anyString(), anyInt(), anyInt(), anyInt())).thenAnswer(inv -> {
+            BulkImportJob job = jobs.get(inv.<String>getArgument(0));
+            job.setLastCommittedLine(inv.getArgument(1));
+            job.setSuccessCount(job.getSuccessCount() + inv.<Integer>getArgument(2));
+            job.setFailureCount(job.getFailureCount() + inv.<Integer>getArgument(3));
+            return 1;
+        });
+        when(jobRepository.findByStatusInOrderByCreatedAt(any())).thenAnswer(inv -> List.copyOf(jobs.values()));
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        when(leaseService.getNodeId()).thenReturn("node-a");
+        when(leaseService.tryAcquire(anyString(), eq(Duration.ZERO))).thenReturn(Optional.of(lease));
+        doAnswer(inv -> {
+            released.countDown();
+            return null;
+        }).when(lease).close();
+        service = new BulkImportJobService(jobRepository, errorRepository, importer, leaseService, transactionTemplate,
+                spoolDir.toString(), 60, 1, 5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private void awaitWorker() throws InterruptedException {
+        assertThat(released.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void submittedFileIsSpooledImportedAndCheckpointed() throws Exception {
+        when(importer.importForUser(any(), eq("client"), anyString(), eq(1), any())).thenAnswer(inv -> {
+            BulkTransferImportService.ChunkCheckpoint checkpoint = inv.getArgument(4);
+            checkpoint.commit(3, 2, List.of());
+            checkpoint.commit(4, 0, List.of(new BulkImportLineError(4, "Compte source introuvable")));
+            return null;
+        });
+
+        BulkImportJob job = service.submit(new MockMultipartFile("file", "virements.csv", "text/csv",
+                "ID Source,ID Destination,Montant,Description\n1,2,1,a\n1,2,1,b\n9,2,1,c".getBytes(StandardCharsets.UTF_8)),
+                "client");
+        awaitWorker();
+
+        assertThat(job.getEstimatedTotalRows()).isEqualTo(3);
+        BulkImportJob done = jobs.get(job.getId());
+        assertThat(done.getStatus()).isEqualTo(BulkImportJobStatus.COMPLETED);
+        assertThat(done.getLastCommittedLine()).isEqualTo(4);
+        assertThat(done.getSuccessCount()).isEqualTo(2);
+        assertThat(done.getFailureCount()).isEqualTo(1);
+        // each checkpoint and the completion are fenced
+        verify(leaseService, times(3)).assertHeld(lease);
+        verify(errorRepository).saveAll(any());
+        assertThat(Files.exists(Path.of(done.getSpoolPath()))).isFalse();
+    }
+
+    @Test
+    void pendingJobResumesAfterItsLastCommittedLine() throws Exception {
+        BulkImportJob job = pendingJob("job-1", BulkImportJobStatus.RUNNING, true);
+        job.setLastCommittedLine(501);
+
+        service.resumePendingJobs();
+        awaitWorker();
+
+        verify(leaseService).tryAcquire("bulk-import-job-1", Duration.ZERO);
+        verify(importer).importForUser(any(), eq("client"), eq("job-1"), eq(501), any());
+        assertThat(job.getStatus()).isEqualTo(BulkImportJobStatus.COMPLETED);
+    }
+
+    @Test
+    void jobLeasedByAnotherNodeIsLeftToIt() throws Exception {
+        pendingJob("job-1", BulkImportJobStatus.RUNNING, true);
+        when(leaseService.tryAcquire("bulk-import-job-1", Duration.ZERO)).thenReturn(Optional.empty());
+
+        service.resumePendingJobs();
+
+        verify(importer, never()).importForUser(any(), anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void lostLeaseOrUnknownOutcomeLeavesTheJobToBeResumed() throws Exception {
+        BulkImportJob fenced = pendingJob("job-1", BulkImportJobStatus.RUNNING, true);
+        when(importer.importForUser(any(), anyString(), eq("job-1"), anyInt(), any()))
+                .thenThrow(new LeaseLostException("Bail bulk-import-job-1 perdu"));
+        service.resumePendingJobs();
+        awaitWorker();
+
+        jobs.clear();
+        released = new CountDownLatch(1);
+        BulkImportJob suspended = pendingJob("job-2", BulkImportJobStatus.RUNNING, true);
+        when(importer.importForUser(any(), anyString(), eq("job-2"), anyInt(), any()))
+                .thenThrow(new OutcomeUnknownException("Validation incertaine"));
+        service.resumePendingJobs();
+        awaitWorker();
+
+        for (BulkImportJob job : List.of(fenced, suspended)) {
+            assertThat(job.getStatus()).isEqualTo(BulkImportJobStatus.RUNNING);
+            assertThat(Files.exists(Path.of(job.getSpoolPath()))).isTrue();
+        }
+    }
+
+    @Test
+    void jobWhoseSpoolFileStayedOnAStoppedNodeFailsAfterTheTimeout() {
+        BulkImportJob recent = pendingJob("job-1", BulkImportJobStatus.RUNNING, false);
+        recent.setHeartbeatAt(LocalDateTime.now().minusMinutes(5));
+        BulkImportJob orphaned = pendingJob("job-2", BulkImportJobStatus.QUEUED, false);
+        orphaned.setCreatedAt(LocalDateTime.now().minusHours(2));
+        orphaned.setOwnerNode("node-b");
+
+        service.resumePendingJobs();
+
+        assertThat(recent.getStatus()).isEqualTo(BulkImportJobStatus.RUNNING);
+        assertThat(orphaned.getStatus()).isEqualTo(BulkImportJobStatus.FAILED);
+        assertThat(orphaned.getErrorMessage()).contains("node-b");
+        verify(importer, never()).importForUser(any(), anyString(), anyString(), anyInt(), any());
+    }
+
+    @Test
+    void finishFencedByANewHolderIsNotRecorded() throws Exception {
+        BulkImportJob job = pendingJob("job-1", BulkImportJobStatus.RUNNING, true);
+        doThrow(new LeaseLostException("Bail bulk-import-job-1 perdu")).when(leaseService).assertHeld(lease);
+
+        service.resumePendingJobs();
+        awaitWorker();
+
+        assertThat(job.getStatus()).isEqualTo(BulkImportJobStatus.RUNNING);
+        assertThat(job.getFinishedAt()).isNull();
+    }
+
+    private BulkImportJob pendingJob(String id, BulkImportJobStatus status, boolean spooled) {
+        BulkImportJob job = new BulkImportJob();
+        job.setId(id);
+        job.setUsername("client");
+        job.setStatus(status);
+        job.setOwnerNode("node-a");
+        job.setCreatedAt(LocalDateTime.now());
+        Path spool = spoolDir.resolve(id + ".csv");
+        if (spooled) {
+            try {
+                Files.writeString(spool, "ID Source,ID Destination,Montant,Description\n");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        job.setSpoolPath(spool.toString());
+        jobs.put(id, job);
+        return job;
+    }
+}
@@ -0,0 +1,224 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.dto.BulkImportLineError;
+import com.bankamen.dto.BulkImportReport;
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.User;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.UserRepository;
+import com.bankamen.service.ledger.LedgerEngine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class BulkTransferImportServiceTest {
+
+    private static final String HEADER = "ID Source,ID Destination,Montant,Description\n";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final TransactionPoster poster = mock(TransactionPoster.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final LedgerEngine ledgerEngine = mock(LedgerEngine.class);
+    private final List<Integer> lookups = new ArrayList<>();
+    private BulkTransferImportService service;
+
+    // account id -> owner id: 1 and 2 belong to the importing user (10), 3 to someone else
+    private final Map<Long, Long> owners = Map.of(1L, 10L, 2L, 10L, 3L, 20L);
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(10L);
+        when(userRepository.findByUsername("client")).thenReturn(Optional.of(user));
+        when(accountRepo.findAllById(any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            lookups.add(ids.size());
+            return ids.stream().filter(owners::containsKey).map(id -> account(id, owners.get(id))).toList();
+        });
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        service = service(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private BulkTransferImportService service(int chunkSize) {
+        return new BulkTransferImportService(userRepository, accountRepo, poster, transactionTemplate,
+                new OptimisticRetryExecutor(new SimpleMeterRegistry(), 3, 1, 2), ledgerEngine, chunkSize, 2, 1000);
+    }
+
+    private static BankAccount account(long id, long ownerId) {
+        User owner = new User();
+        owner.setId(ownerId);
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        account.setUser(owner);
+        return account;
+    }
+
+    private BulkImportReport importCsv(String lines) {
+        return service.importForUser(csv(lines), "client");
+    }
+
+    private static ByteArrayInputStream csv(String lines) {
+        return new ByteArrayInputStream((HEADER + lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void badLinesAreReportedWithTheirNumberAndTheRestIsPosted() {
+        BulkImportReport report = importCsv("""
+                1,2,10.5,Loyer
+                x,2,10,Loyer
+                1,2,-4,Loyer
+                1,2,4,
+                1,1,4,Soi-même
+                9,2,4,Inconnu
+                3,2,4,Pas à moi
+                1,9,4,Destinataire inconnu
+                2,1,7,Retour
+                """);
+
+        assertThat(report.getTotalRows()).isEqualTo(9);
+        assertThat(report.getSuccessCount()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(BulkImportLineError::getLineNumber, BulkImportLineError::getMessage)
+                .containsExactly(
+                        tuple(3, "La valeur 'x' pour le champ 'ID Source' n'est pas un nombre valide"),
+                        tuple(4, "Le montant doit être positif"),
+                        tuple(5, "La description est requise"),
+                        tuple(6, "Le compte destinataire doit être différent du compte source"),
+                        tuple(7, "Compte source introuvable"),
+                        tuple(8, "Vous n'êtes pas autorisé à effectuer des transactions depuis le compte 3"),
+                        tuple(9, "Compte destinataire introuvable"));
+        verify(poster).post(eq(1L), argThat(r -> r.getAmount().minor() == 10_500 && r.getTargetAccountId() == 2L));
+        verify(poster).post(eq(2L), argThat(r -> r.getTargetAccountId() == 1L));
+    }
+
+    @Test
+    void eachAccountIsLookedUpOnceAcrossChunks() {
+        importCsv("""
+                1,2,1,a
+                2,1,1,b
+                1,2,1,c
+                1,3,1,d
+                """);
+
+        // first chunk: 1 and 2; second chunk: only 3 is new
+        assertThat(lookups).containsExactly(2, 1);
+    }
+
+    @Test
+    void chunkThatCannotCommitFallsBackToOneTransactionPerLine() {
+        doThrow(new IllegalStateException("commit impossible"))
+                .doAnswer(inv -> {
+                    inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+                    return null;
+                })
+                .when(transactionTemplate).executeWithoutResult(any());
+        when(poster.post(eq(2L), any())).thenThrow(new BusinessException("Solde insuffisant"));
+
+        BulkImportReport report = importCsv("""
+                1,2,1,a
+                2,1,1,b
+                """);
+
+        assertThat(report.getSuccessCount()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(BulkImportLineError::getLineNumber, BulkImportLineError::getMessage)
+                .containsExactly(tuple(3, "Solde insuffisant"));
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void resumeSkipsCommittedLinesAndCheckpointsEachChunk() {
+        List<Integer> checkpoints = new ArrayList<>();
+        BulkImportReport report = service.importForUser(csv("""
+                1,2,1,a
+                1,2,1,b
+                1,2,1,c
+                1,2,1,d
+                1,2,1,e
+                """), "client", "imp-1", 3, (last, successes, errors) -> checkpoints.add(last));
+
+        assertThat(report.getTotalRows()).isEqualTo(3);
+        assertThat(checkpoints).containsExactly(5, 6);
+        verify(poster, times(3)).post(anyLong(), any(CreateTransactionRequest.class));
+    }
+
+    @Test
+    void emptyFilesAndShortHeadersAreRejected() {
+        assertThatThrownBy(() -> importCsv(""))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Le fichier CSV ne contient aucune ligne");
+        assertThatThrownBy(() -> service.importForUser(
+                new ByteArrayInputStream("Source,Destination\n1,2\n".getBytes(StandardCharsets.UTF_8)), "client"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageStartingWith("Le format du fichier CSV est invalide");
+        verify(poster, never()).post(anyLong(), any());
+    }
+
+    @Test
+    void engineLinesCarryAReplaySafeReferenceAndStopOnAnUnknownOutcome() {
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+        when(ledgerEngine.postOnce(eq(1L), any(), eq("import:imp-2:3")))
+                .thenThrow(new OutcomeUnknownException("incertain"))
+                .thenReturn(Optional.empty());
+        when(ledgerEngine.postOnce(eq(1L), any(), eq("import:imp-2:4")))
+                .thenThrow(new OutcomeUnknownException("incertain"));
+        List<Integer> checkpoints = new ArrayList<>();
+
+        assertThatThrownBy(() -> service.importForUser(csv("""
+                1,2,1,a
+                1,2,1,b
+                1,2,1,c
+                1,2,1,d
+                """), "client", "imp-2", 1, (last, successes, errors) -> checkpoints.add(last)))
+                .isInstanceOf(OutcomeUnknownException.class);
+
+        // line 3 went through on its second attempt; line 4 was tried three times, then left for the resume
+        assertThat(checkpoints).containsExactly(2, 3);
+        verify(ledgerEngine, times(2)).postOnce(eq(1L), any(), eq("import:imp-2:3"));
+        verify(ledgerEngine, times(3)).postOnce(eq(1L), any(), eq("import:imp-2:4"));
+        verify(ledgerEngine, never()).postOnce(anyLong(), any(), eq("import:imp-2:5"));
+        verify(poster, never()).post(anyLong(), any());
+    }
+}
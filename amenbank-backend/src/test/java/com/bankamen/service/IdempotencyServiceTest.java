@@ -0,0 +1,185 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.dto.TransactionDTO;
+import com.bankamen.entity.IdempotencyRecord;
+import com.bankamen.entity.IdempotencyStatus;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class IdempotencyServiceTest {
+
+    private static final String USER = "client1";
+    private static final String KEY = "3f1c-retry";
+
+    // idempotency_key table shared by every "node"
+    private final Map<String, IdempotencyRecord> table = new HashMap<>();
+    private final IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+    private final AtomicInteger postings = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(repository.claim(anyString(), anyString(), anyString(), anyString(), any(), any(), any())).thenAnswer(invocation -> {
+            String id = invocation.getArgument(0);
+            if (table.containsKey(id)) {
+                return 0;
+            }
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setId(id);
+            record.setUsername(invocation.getArgument(1));
+            record.setIdempotencyKey(invocation.getArgument(2));
+            record.setRequestHash(invocation.getArgument(3));
+            record.setStatus(IdempotencyStatus.IN_PROGRESS);
+            record.setLeaseUntil(invocation.getArgument(4));
+            record.setCreatedAt(invocation.getArgument(5));
+            record.setExpiresAt(invocation.getArgument(6));
+            table.put(id, record);
+            return 1;
+        });
+        when(repository.complete(anyString(), anyString())).thenAnswer(invocation -> {
+            IdempotencyRecord record = table.get(invocation.<String>getArgument(0));
+            record.setResponseBody(invocation.getArgument(1));
+            record.setStatus(IdempotencyStatus.COMPLETED);
+            return 1;
+        });
+        when(repository.markUnknown(anyString())).thenAnswer(invocation -> {
+            table.get(invocation.<String>getArgument(0)).setStatus(IdempotencyStatus.UNKNOWN);
+            return 1;
+        });
+        doAnswer(invocation -> table.remove(invocation.<String>getArgument(0))).when(repository).deleteById(anyString());
+    }
+
+    @Test
+    void retryAfterATimeoutIsRefusedInsteadOfPostingTwice() {
+        IdempotencyService node = node();
+        assertThatThrownBy(() -> node.execute(USER, KEY, 1L, request(), timesOut()))
+                .isInstanceOf(OutcomeUnknownException.class);
+
+        // same node and another node: neither runs the posting again
+        assertThatThrownBy(() -> node.execute(USER, KEY, 1L, request(), posting()))
+                .isInstanceOf(OutcomeUnknownException.class)
+                .hasMessageContaining("inconnu");
+        assertThatThrownBy(() -> node().execute(USER, KEY, 1L, request(), posting()))
+                .isInstanceOf(OutcomeUnknownException.class);
+        assertThat(postings).hasValue(0);
+    }
+
+    @Test
+    void retryAfterADatabaseTimeoutIsRefusedToo() {
+        IdempotencyService node = node();
+        assertThatThrownBy(() -> node.execute(USER, KEY, 1L, request(), () -> {
+            throw new QueryTimeoutException("Lock wait timeout exceeded");
+        })).isInstanceOf(QueryTimeoutException.class);
+
+        assertThatThrownBy(() -> node().execute(USER, KEY, 1L, request(), posting()))
+                .isInstanceOf(OutcomeUnknownException.class);
+        assertThat(postings).hasValue(0);
+    }
+
+    @Test
+    void claimOfANodeThatDiedMidPostingTurnsUnknownOnceItsLeaseIsOver() {
+        IdempotencyService node = node();
+        node.execute(USER, KEY, 1L, request(), posting());
+        IdempotencyRecord record = table.values().iterator().next();
+        // as if the first node died before completing the key
+        record.setResponseBody(null);
+        record.setStatus(IdempotencyStatus.IN_PROGRESS);
+
+        assertThatThrownBy(() -> node().execute(USER, KEY, 1L, request(), posting()))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("en cours");
+        record.setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+        assertThatThrownBy(() -> node().execute(USER, KEY, 1L, request(), posting()))
+                .isInstanceOf(OutcomeUnknownException.class);
+        assertThat(postings).hasValue(1);
+    }
+
+    @Test
+    void retryAfterASuccessOnAnotherNodeReplaysTheStoredResponse() {
+        IdempotencyService.Outcome first = node().execute(USER, KEY, 1L, request(), posting());
+
+        IdempotencyService.Outcome retry = node().execute(USER, KEY, 1L, request(), posting());
+
+        assertThat(first.replayed()).isFalse();
+        assertThat(retry.replayed()).isTrue();
+        assertThat(retry.transaction().getId()).isEqualTo(first.transaction().getId());
+        assertThat(postings).hasValue(1);
+    }
+
+    @Test
+    void businessRejectionReleasesTheKey() {
+        IdempotencyService node = node();
+        assertThatThrownBy(() -> node.execute(USER, KEY, 1L, request(), () -> {
+            throw new BusinessException("Fonds insuffisants pour le retrait");
+        })).isInstanceOf(BusinessException.class);
+
+        IdempotencyService.Outcome retry = node.execute(USER, KEY, 1L, request(), posting());
+
+        assertThat(retry.replayed()).isFalse();
+        assertThat(postings).hasValue(1);
+    }
+
+    @Test
+    void keyReusedForAnotherRequestIsRejected() {
+        node().execute(USER, KEY, 1L, request(), posting());
+
+        assertThatThrownBy(() -> node().execute(USER, KEY, 2L, request(), posting()))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("requête différente");
+        assertThat(postings).hasValue(1);
+    }
+
+    private IdempotencyService node() {
+        return new IdempotencyService(repository, mock(JobLeaseService.class), new ObjectMapper().registerModule(new JavaTimeModule()),
+                new SimpleMeterRegistry(), 24, 100, 60);
+    }
+
+    private Supplier<TransactionDTO> posting() {
+        return () -> {
+            TransactionDTO transaction = new TransactionDTO();
+            transaction.setId(1000L + postings.incrementAndGet());
+            transaction.setType(TransactionType.WITHDRAWAL);
+            return transaction;
+        };
+    }
+
+    private static Supplier<TransactionDTO> timesOut() {
+        return () -> {
+            throw new OutcomeUnknownException("Délai dépassé, l'opération peut encore être enregistrée");
+        };
+    }
+
+    private static CreateTransactionRequest request() {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(TransactionType.WITHDRAWAL);
+        request.setAmount(Money.ofMinor(25_000));
+        return request;
+    }
+}
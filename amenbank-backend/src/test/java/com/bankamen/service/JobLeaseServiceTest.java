@@ -0,0 +1,98 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.exception.LeaseLostException;
+import com.bankamen.repository.JobLeaseRepository;
+
+class JobLeaseServiceTest {
+
+    private static final String NAME = "ledger-engine";
+    private static final String NODE = "node-a";
+
+    private final JobLeaseRepository leaseRepository = mock(JobLeaseRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private JobLeaseService leaseService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        leaseService = new JobLeaseService(leaseRepository, transactionTemplate, 3, NODE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        leaseService.shutdown();
+    }
+
+    @Test
+    void writeUnderTheCurrentTokenPassesTheFencingCheck() {
+        JobLeaseService.Lease lease = acquire(7L);
+        when(leaseRepository.countHeld(NAME, NODE, 7L)).thenReturn(1L);
+
+        leaseService.assertHeld(lease);
+
+        assertThat(lease.getToken()).isEqualTo(7L);
+        assertThat(lease.isHeld()).isTrue();
+    }
+
+    @Test
+    void writeUnderAStaleTokenIsRejected() {
+        JobLeaseService.Lease lease = acquire(7L);
+        // another node took the lease over: the row now carries token 8
+        when(leaseRepository.countHeld(NAME, NODE, 7L)).thenReturn(0L);
+
+        assertThatThrownBy(() -> leaseService.assertHeld(lease))
+                .isInstanceOf(LeaseLostException.class)
+                .hasMessageContaining("jeton 7");
+    }
+
+    @Test
+    void leaseFoundTakenOverByARenewalIsRejectedWithoutQueryingTheToken() throws InterruptedException {
+        when(leaseRepository.renew(eq(NAME), eq(NODE), eq(7L), anyLong())).thenReturn(0);
+        JobLeaseService.Lease lease = acquire(7L);
+
+        // renewals run every third of the 3 s TTL
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (lease.isHeld() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(lease.isHeld()).isFalse();
+        assertThatThrownBy(() -> leaseService.assertHeld(lease)).isInstanceOf(LeaseLostException.class);
+        verify(leaseRepository, never()).countHeld(NAME, NODE, 7L);
+    }
+
+    @Test
+    void leaseHeldElsewhereIsNotAcquired() {
+        when(leaseRepository.acquire(eq(NAME), eq(NODE), anyLong())).thenReturn(0);
+
+        assertThat(leaseService.tryAcquire(NAME, Duration.ZERO)).isEmpty();
+        assertThat(leaseService.runExclusive(NAME, Duration.ZERO, () -> {
+            throw new AssertionError("must not run");
+        })).isFalse();
+    }
+
+    private JobLeaseService.Lease acquire(long token) {
+        when(leaseRepository.acquire(eq(NAME), eq(NODE), anyLong())).thenReturn(1);
+        when(leaseRepository.findToken(NAME, NODE)).thenReturn(token);
+        return leaseService.tryAcquire(NAME, Duration.ZERO).orElseThrow();
+    }
+}
@@ -0,0 +1,77 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.bankamen.entity.BankAccount;
+import com.bankamen.exception.BusinessException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class OptimisticRetryExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OptimisticRetryExecutor executor = new OptimisticRetryExecutor(meterRegistry, 4, 1, 2);
+
+    @Test
+    void lostRacesAreReplayedUntilTheWorkGoesThrough() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = executor.execute("Dépôt", () -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt == 1) {
+                throw new ObjectOptimisticLockingFailureException(BankAccount.class, 1L);
+            }
+            if (attempt == 2) {
+                throw new DeadlockLoserDataAccessException("deadlock", null);
+            }
+            return "posté";
+        });
+
+        assertThat(result).isEqualTo("posté");
+        assertThat(attempts).hasValue(3);
+        assertThat(count("ledger.posting.conflicts")).isEqualTo(2);
+        assertThat(count("ledger.posting.retries")).isEqualTo(2);
+        assertThat(count("ledger.posting.retries.exhausted")).isZero();
+    }
+
+    @Test
+    void persistentConflictGivesUpAfterMaxAttemptsAsABusinessError() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute("Retrait", () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(BankAccount.class, 1L);
+        }))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Le compte est en cours de mise à jour, veuillez réessayer");
+
+        assertThat(attempts).hasValue(4);
+        assertThat(count("ledger.posting.retries")).isEqualTo(3);
+        assertThat(count("ledger.posting.retries.exhausted")).isEqualTo(1);
+    }
+
+    @Test
+    void otherFailuresAreNotReplayed() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> executor.execute("Virement", () -> {
+            attempts.incrementAndGet();
+            throw new DataIntegrityViolationException("duplicate");
+        })).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(attempts).hasValue(1);
+        assertThat(count("ledger.posting.conflicts")).isZero();
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+}
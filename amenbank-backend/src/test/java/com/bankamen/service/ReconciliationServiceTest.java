@@ -0,0 +1,206 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bankamen.entity.ReconciliationMismatch;
+import com.bankamen.entity.ReconciliationMismatchKind;
+import com.bankamen.entity.ReconciliationRun;
+import com.bankamen.entity.ReconciliationRunStatus;
+import com.bankamen.repository.BalanceCheckpointRepository;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.ReconciliationMismatchRepository;
+import com.bankamen.repository.ReconciliationRunRepository;
+import com.bankamen.repository.TransactionRepository;
+
+class ReconciliationServiceTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final ReconciliationRunRepository runRepository = mock(ReconciliationRunRepository.class);
+    private final ReconciliationMismatchRepository mismatchRepository = mock(ReconciliationMismatchRepository.class);
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final TransactionRepository transactionRepo = mock(TransactionRepository.class);
+    private final BalanceCheckpointRepository checkpointRepo = mock(BalanceCheckpointRepository.class);
+    private final JobLeaseService leaseService = mock(JobLeaseService.class);
+
+    // account id -> {stored total balance, balance shards}
+    private final Map<Long, long[]> accounts = new TreeMap<>();
+    // {account_id, direction, amount_minor, balance_after_minor, id, date}, in (account, date, id) order
+    private final List<Object[]> postings = new ArrayList<>();
+    // {account_id, business_date, closing_balance_minor}
+    private final List<Object[]> checkpoints = new ArrayList<>();
+    private final List<ReconciliationMismatch> mismatches = Collections.synchronizedList(new ArrayList<>());
+    private ReconciliationRun run;
+
+    @BeforeEach
+    void ledger() {
+        when(runRepository.save(any())).thenAnswer(inv -> run = inv.getArgument(0));
+        when(leaseService.runExclusive(eq("reconciliation"), any(Duration.class), any())).thenAnswer(inv -> {
+            inv.<Runnable>getArgument(2).run();
+            return true;
+        });
+        when(mismatchRepository.saveAll(any())).thenAnswer(inv -> {
+            inv.<List<ReconciliationMismatch>>getArgument(0).forEach(mismatches::add);
+            return inv.getArgument(0);
+        });
+        when(accountRepo.findMinId()).thenAnswer(inv -> accounts.isEmpty() ? null : ((TreeMap<Long, long[]>) accounts).firstKey());
+        when(accountRepo.findMaxId()).thenAnswer(inv -> accounts.isEmpty() ? null : ((TreeMap<Long, long[]>) accounts).lastKey());
+        when(accountRepo.findBalancesInRange(anyLong(), anyLong())).thenAnswer(inv -> {
+            long from = inv.getArgument(0);
+            long to = inv.getArgument(1);
+            return accounts.entrySet().stream()
+                    .filter(e -> e.getKey() >= from && e.getKey() <= to)
+                    .map(e -> new Object[] {e.getKey(), e.getValue()[0], (int) e.getValue()[1]})
+                    .toList();
+        });
+        when(transactionRepo.streamPostingsForReconciliation(anyLong(), anyLong())).thenAnswer(inv -> {
+            long from = inv.getArgument(0);
+            long to = inv.getArgument(1);
+            return postings.stream().filter(row -> (long) row[0] >= from && (long) row[0] <= to);
+        });
+        when(checkpointRepo.findFirstCheckpointsInRange(anyLong(), anyLong(), any())).thenAnswer(inv -> {
+            long from = inv.getArgument(0);
+            long to = inv.getArgument(1);
+            LocalDate fromDay = inv.getArgument(2);
+            return checkpoints.stream()
+                    .filter(row -> (long) row[0] >= from && (long) row[0] <= to && !((LocalDate) row[1]).isBefore(fromDay))
+                    .toList();
+        });
+    }
+
+    private ReconciliationService service(int rangeSize) {
+        return new ReconciliationService(runRepository, mismatchRepository, accountRepo, transactionRepo, checkpointRepo,
+                mock(PlatformTransactionManager.class), leaseService, 2, rangeSize);
+    }
+
+    private void posting(long accountId, long id, String direction, long amount, Long balanceAfter, LocalDateTime date) {
+        postings.add(new Object[] {accountId, direction, amount, balanceAfter, id, date});
+    }
+
+    @Test
+    void consistentLedgerHasNoMismatch() {
+        accounts.put(1L, new long[] {70_000, 0});
+        posting(1, 10, "CREDIT", 100_000, 100_000L, DAY);
+        posting(1, 11, "DEBIT", 30_000, 70_000L, DAY.plusHours(1));
+
+        service(500).nightlyRun();
+
+        assertThat(run.getStatus()).isEqualTo(ReconciliationRunStatus.COMPLETED);
+        assertThat(run.getAccountsChecked()).isEqualTo(1);
+        assertThat(run.getPostingsChecked()).isEqualTo(2);
+        assertThat(mismatches).isEmpty();
+    }
+
+    @Test
+    void wrongBalanceAfterIsAChainBreakAtThatPosting() {
+        accounts.put(1L, new long[] {65_000, 0});
+        posting(1, 10, "CREDIT", 100_000, 100_000L, DAY);
+        posting(1, 11, "DEBIT", 30_000, 75_000L, DAY.plusHours(1));
+        // the chain resumes from the stored balanceAfter: one break, not one per later posting
+        posting(1, 12, "DEBIT", 5_000, 70_000L, DAY.plusHours(2));
+
+        service(500).nightlyRun();
+
+        assertThat(mismatches).extracting(ReconciliationMismatch::getKind, ReconciliationMismatch::getTransactionId,
+                        m -> m.getExpected().minor(), m -> m.getActual().minor())
+                .containsExactly(tuple(ReconciliationMismatchKind.CHAIN_BREAK, 11L, 70_000L, 75_000L));
+        assertThat(run.getMismatchCount()).isEqualTo(1);
+    }
+
+    @Test
+    void storedBalanceOffThePostingsIsABalanceMismatch() {
+        accounts.put(1L, new long[] {90_000, 0});
+        posting(1, 10, "CREDIT", 100_000, 100_000L, DAY);
+        posting(1, 11, "DEBIT", 30_000, 70_000L, DAY.plusHours(1));
+        // an account without postings must still hold its opening balance
+        accounts.put(2L, new long[] {1_000, 0});
+
+        service(500).nightlyRun();
+
+        assertThat(mismatches).extracting(ReconciliationMismatch::getAccountId, ReconciliationMismatch::getKind,
+                        m -> m.getExpected().minor(), m -> m.getActual().minor())
+                .containsExactlyInAnyOrder(
+                        tuple(1L, ReconciliationMismatchKind.BALANCE_MISMATCH, 70_000L, 90_000L),
+                        tuple(2L, ReconciliationMismatchKind.BALANCE_MISMATCH, 0L, 1_000L));
+    }
+
+    @Test
+    void checkpointOpensTheReplayAtTheFollowingMidnight() {
+        accounts.put(1L, new long[] {520_000, 0});
+        // history before the checkpoint is not replayed, even if it would not add up
+        posting(1, 10, "CREDIT", 1, 1L, DAY);
+        checkpoints.add(new Object[] {1L, DAY.toLocalDate(), 500_000L});
+        posting(1, 11, "CREDIT", 20_000, 520_000L, DAY.toLocalDate().plusDays(1).atStartOfDay());
+
+        service(500).nightlyRun();
+
+        assertThat(mismatches).isEmpty();
+        assertThat(run.getPostingsChecked()).isEqualTo(1);
+    }
+
+    @Test
+    void shardedAccountsAreOnlyCheckedOnTheirTotal() {
+        // slots make each balanceAfter a partial view; the total is still exact
+        accounts.put(1L, new long[] {30_000, 4});
+        posting(1, 10, "CREDIT", 10_000, 2_500L, DAY);
+        posting(1, 11, "CREDIT", 20_000, 5_000L, DAY.plusHours(1));
+
+        service(500).nightlyRun();
+
+        assertThat(mismatches).isEmpty();
+    }
+
+    @Test
+    void balancesBeforeTheLastSingleLegTransferAreNotJudged() {
+        when(transactionRepo.findLastSingleLegTransferDate()).thenReturn(DAY.plusHours(1));
+        // may have received a single-leg transfer: its opening is unknown, its chain is still checked
+        accounts.put(1L, new long[] {999_000, 0});
+        posting(1, 10, "CREDIT", 100_000, 100_000L, DAY);
+        posting(1, 11, "CREDIT", 5_000, 200_000L, DAY.plusHours(2));
+        posting(1, 12, "DEBIT", 1_000, 199_000L, DAY.plusHours(3));
+
+        service(500).nightlyRun();
+
+        assertThat(mismatches).extracting(ReconciliationMismatch::getKind).isEmpty();
+        assertThat(run.getPostingsChecked()).isEqualTo(2);
+
+        posting(1, 13, "DEBIT", 1_000, 190_000L, DAY.plusHours(4));
+        service(500).nightlyRun();
+        assertThat(mismatches).extracting(ReconciliationMismatch::getKind, ReconciliationMismatch::getTransactionId)
+                .containsExactly(tuple(ReconciliationMismatchKind.CHAIN_BREAK, 13L));
+    }
+
+    @Test
+    void everyAccountIsCheckedOnceAcrossSplitRanges() {
+        for (long id = 1; id <= 9; id++) {
+            accounts.put(id, new long[] {id * 1_000, 0});
+            posting(id, 100 + id, "CREDIT", id * 1_000, id * 1_000, DAY);
+        }
+        accounts.put(5L, new long[] {1, 0});
+
+        service(2).nightlyRun();
+
+        assertThat(run.getAccountsChecked()).isEqualTo(9);
+        assertThat(run.getPostingsChecked()).isEqualTo(9);
+        assertThat(mismatches).extracting(ReconciliationMismatch::getAccountId).containsExactly(5L);
+    }
+}
@@ -0,0 +1,134 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.bankamen.config.JobPool;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ScheduledJobMonitorTest {
+
+    private static final Instant START = Instant.parse("2026-01-05T10:00:00Z");
+    private static final Duration PERIOD = Duration.ofSeconds(10);
+
+    private final MutableClock clock = new MutableClock(START);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ScheduledJobMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new ScheduledJobMonitor(meterRegistry, clock);
+    }
+
+    @Test
+    void fixedRateFiringsMissedByAnOverrunAreCoalescedIntoTheLatest() {
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledJobMonitor.Job job = monitor.register(JobPool.MAINTENANCE, new ThreadPoolTaskScheduler(),
+                named("com.bankamen.service.Sample.tick", runs::incrementAndGet));
+        Runnable firing = job.atFixedRate(START, PERIOD);
+
+        clock.set(START.plusMillis(5));
+        firing.run();
+        // the first run overran three periods: the executor fires 10 s, 20 s and 30 s back to back at 35 s
+        clock.set(START.plusSeconds(35));
+        firing.run();
+        firing.run();
+        firing.run();
+
+        assertThat(runs).hasValue(2);
+        ScheduledJobMonitor.JobStatus status = monitor.getJobs().get(0);
+        assertThat(status.runs()).isEqualTo(2);
+        assertThat(status.skipped()).isEqualTo(2);
+        assertThat(status.lastLagMs()).isEqualTo(5_000);
+        assertThat(meterRegistry.get("scheduler.job.skipped").tag("job", "Sample.tick").tag("reason", "overrun")
+                .counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void fixedRateFiringOnTimeIsNotSkipped() {
+        AtomicInteger runs = new AtomicInteger();
+        ScheduledJobMonitor.Job job = monitor.register(JobPool.MAINTENANCE, new ThreadPoolTaskScheduler(),
+                named("com.bankamen.service.Sample.tick", runs::incrementAndGet));
+        Runnable firing = job.atFixedRate(START, PERIOD);
+
+        for (int i = 0; i < 3; i++) {
+            clock.set(START.plus(PERIOD.multipliedBy(i)).plusMillis(1));
+            firing.run();
+        }
+
+        assertThat(runs).hasValue(3);
+        assertThat(monitor.getJobs().get(0).skipped()).isZero();
+    }
+
+    @Test
+    void manualTriggerIsSkippedWhileTheJobRuns() {
+        AtomicBoolean triggered = new AtomicBoolean(true);
+        String[] name = new String[1];
+        ScheduledJobMonitor.Job job = monitor.register(JobPool.MAINTENANCE, new ThreadPoolTaskScheduler(),
+                named("com.bankamen.service.Sample.slow", () -> triggered.set(monitor.trigger(name[0]))));
+        name[0] = job.getName();
+
+        clock.set(START);
+        job.withFixedDelay(START, PERIOD).run();
+
+        assertThat(triggered).isFalse();
+        ScheduledJobMonitor.JobStatus status = monitor.getJobs().get(0);
+        assertThat(status.runs()).isEqualTo(1);
+        assertThat(status.skipped()).isEqualTo(1);
+        assertThat(status.running()).isFalse();
+    }
+
+    private static Runnable named(String name, Runnable task) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                task.run();
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
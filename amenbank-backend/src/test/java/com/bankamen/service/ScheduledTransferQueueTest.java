@@ -0,0 +1,161 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.ScheduledTransfer;
+import com.bankamen.repository.ScheduledTransferRepository;
+
+class ScheduledTransferQueueTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final ScheduledTransferRepository repository = mock(ScheduledTransferRepository.class);
+    // active transfers: {id, next execution, source account}; executing one removes it
+    private final List<Object[]> active = new ArrayList<>();
+
+    @BeforeEach
+    void index() {
+        when(repository.findDueInShard(any(), anyInt(), anyInt(), any())).thenAnswer(inv -> {
+            LocalDateTime until = inv.getArgument(0);
+            int shards = inv.getArgument(1);
+            int shard = inv.getArgument(2);
+            Pageable page = inv.getArgument(3);
+            return active.stream()
+                    .filter(row -> !((LocalDateTime) row[1]).isAfter(until) && Math.floorMod((Long) row[2], shards) == shard)
+                    .sorted(Comparator.<Object[], LocalDateTime>comparing(row -> (LocalDateTime) row[1])
+                            .thenComparing(row -> (Long) row[0]))
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+    }
+
+    private void transfer(long id, LocalDateTime at, long sourceAccountId) {
+        active.add(new Object[] {id, at, sourceAccountId});
+    }
+
+    private List<Long> drain(ScheduledTransferQueue queue, int shard, LocalDateTime now) {
+        List<Long> executed = new ArrayList<>();
+        ScheduledTransferQueue.Due due;
+        while ((due = queue.pollDue(shard, now)) != null) {
+            Long id = due.transferId();
+            executed.add(id);
+            active.removeIf(row -> row[0].equals(id));
+        }
+        return executed;
+    }
+
+    @Test
+    void dueEntriesComeOutByTimeThenIdAndOnlyOnceDue() {
+        ScheduledTransferQueue queue = new ScheduledTransferQueue(repository, 15, 500, 1);
+        transfer(3, NOW.minusMinutes(1), 10);
+        transfer(1, NOW.minusMinutes(5), 11);
+        transfer(2, NOW.minusMinutes(1), 12);
+        transfer(4, NOW.plusMinutes(5), 13);
+
+        assertThat(drain(queue, 0, NOW)).containsExactly(1L, 2L, 3L);
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(drain(queue, 0, NOW.plusMinutes(5))).containsExactly(4L);
+    }
+
+    @Test
+    void loadedWindowIsNotReadAgainUntilItHasPassed() {
+        ScheduledTransferQueue queue = new ScheduledTransferQueue(repository, 15, 500, 1);
+        transfer(1, NOW.plusMinutes(10), 10);
+
+        for (int minute = 0; minute < 10; minute++) {
+            assertThat(queue.pollDue(0, NOW.plusMinutes(minute))).isNull();
+        }
+        verify(repository, times(1)).findDueInShard(any(), anyInt(), anyInt(), any());
+
+        // past the window, a transfer created on another node shows up
+        transfer(2, NOW.plusMinutes(16), 10);
+        assertThat(drain(queue, 0, NOW.plusMinutes(16))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void truncatedBatchIsRefilledWhenItRunsDry() {
+        ScheduledTransferQueue queue = new ScheduledTransferQueue(repository, 15, 2, 1);
+        for (long id = 1; id <= 5; id++) {
+            transfer(id, NOW.minusMinutes(10 - id), 10);
+        }
+
+        assertThat(drain(queue, 0, NOW)).containsExactly(1L, 2L, 3L, 4L, 5L);
+        // batches of 2, 2 and 1, then the poll that found the queue dry read the index once more
+        verify(repository, times(4)).findDueInShard(any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void offerBeyondATruncatedBatchWaitsForTheRefill() {
+        ScheduledTransferQueue queue = new ScheduledTransferQueue(repository, 15, 2, 1);
+        transfer(1, NOW.plusMinutes(1), 10);
+        transfer(2, NOW.plusMinutes(2), 10);
+        transfer(3, NOW.plusMinutes(3), 10);
+        assertThat(queue.pollDue(0, NOW)).isNull();
+
+        // the batch only covers up to minute 2: an offer at minute 4 would jump over transfer 3
+        queue.offer(saved(4, NOW.plusMinutes(4), 10, true));
+        queue.offer(saved(5, NOW.plusMinutes(2), 10, true));
+        transfer(4, NOW.plusMinutes(4), 10);
+        transfer(5, NOW.plusMinutes(2), 10);
+
+        assertThat(queue.size()).isEqualTo(3);
+        assertThat(drain(queue, 0, NOW.plusMinutes(4))).containsExactly(1L, 2L, 5L, 3L, 4L);
+    }
+
+    @Test
+    void offerReachesOnlyTheLoadedWindowOfTheSourceShard() {
+        ScheduledTransferQueue queue = new ScheduledTransferQueue(repository, 15, 500, 2);
+        queue.pollDue(0, NOW);
+
+        queue.offer(saved(1, NOW.plusMinutes(5), 10, true));     // shard 0, in the window
+        queue.offer(saved(2, NOW.plusMinutes(30), 10, true));    // beyond the window
+        queue.offer(saved(3, NOW.plusMinutes(5), 10, false));    // inactive
+        queue.offer(saved(4, NOW.plusMinutes(5), 11, true));     // shard 1, nothing loaded there yet
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.pollDue(0, NOW.plusMinutes(5)).transferId()).isEqualTo(1L);
+    }
+
+    @Test
+    void shardsFollowTheSourceAccountAndResetForgetsTheLoad() {
+        ScheduledTransferQueue queue = new ScheduledTransferQueue(repository, 15, 500, 4);
+        assertThat(queue.shardOf(6L)).isEqualTo(2);
+        assertThat(queue.shardOf(-1L)).isEqualTo(3);
+        transfer(1, NOW.plusMinutes(10), 6);
+        queue.pollDue(2, NOW);
+
+        queue.reset(2);
+        assertThat(queue.size()).isZero();
+        queue.pollDue(2, NOW);
+
+        verify(repository, times(2)).findDueInShard(any(), anyInt(), anyInt(), any());
+        assertThat(queue.size()).isEqualTo(1);
+    }
+
+    private static ScheduledTransfer saved(long id, LocalDateTime at, long sourceAccountId, boolean active) {
+        BankAccount source = new BankAccount();
+        source.setId(sourceAccountId);
+        ScheduledTransfer transfer = new ScheduledTransfer();
+        transfer.setId(id);
+        transfer.setNextExecutionAt(at);
+        transfer.setSourceAccount(source);
+        transfer.setActive(active);
+        return transfer;
+    }
+}
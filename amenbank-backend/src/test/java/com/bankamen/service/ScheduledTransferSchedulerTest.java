@@ -0,0 +1,232 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import com.bankamen.dto.ScheduledTransferRunSummary;
+import com.bankamen.entity.ScheduledTransferRun;
+import com.bankamen.entity.ScheduledTransferRunStatus;
+import com.bankamen.exception.LeaseLostException;
+import com.bankamen.repository.ScheduledTransferRunRepository;
+import com.bankamen.service.ScheduledTransferQueue.Due;
+import com.bankamen.service.ScheduledTransferService.Outcome;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ScheduledTransferSchedulerTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 1, 9, 0);
+
+    private final ScheduledTransferService transferService = mock(ScheduledTransferService.class);
+    private final ScheduledTransferQueue transferQueue = mock(ScheduledTransferQueue.class);
+    private final ScheduledTransferRunRepository runRepository = mock(ScheduledTransferRunRepository.class);
+    private final JobLeaseService leaseService = mock(JobLeaseService.class);
+    private final JobLeaseService.Lease lease = mock(JobLeaseService.Lease.class);
+    private final Deque<Due> pending = new ArrayDeque<>();
+    private final AtomicBoolean held = new AtomicBoolean(true);
+    private final AtomicLong runIds = new AtomicLong(40);
+    private final List<ScheduledTransferRun> savedRuns = Collections.synchronizedList(new ArrayList<>());
+    private ScheduledTransferScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        when(transferQueue.getShardCount()).thenReturn(1);
+        when(transferQueue.pollDue(eq(0), any())).thenAnswer(inv -> pending.poll());
+        when(leaseService.tryAcquire(eq("scheduled-transfers-shard-0"), eq(Duration.ZERO))).thenReturn(Optional.of(lease));
+        when(leaseService.getNodeId()).thenReturn("node-a");
+        when(lease.getToken()).thenReturn(1L);
+        when(lease.isHeld()).thenAnswer(inv -> held.get());
+        when(runRepository.save(any())).thenAnswer(inv -> {
+            ScheduledTransferRun run = inv.getArgument(0);
+            if (run.getId() == null) {
+                run.setId(runIds.incrementAndGet());
+            }
+            savedRuns.add(run);
+            return run;
+        });
+        scheduler = new ScheduledTransferScheduler(transferService, transferQueue,
+                new OptimisticRetryExecutor(new SimpleMeterRegistry(), 3, 1, 2), runRepository, leaseService, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void occurrencesOfOneSourceRunInDueOrderOnOneWorker() {
+        queue(1L, 1L, 0);
+        queue(2L, 2L, 0);
+        queue(3L, 1L, 1);
+        queue(4L, 2L, 1);
+        queue(5L, 1L, 2);
+        Map<Long, List<Long>> order = new HashMap<>();
+        Map<Long, List<String>> threads = new HashMap<>();
+        when(transferService.executeOccurrence(anyLong(), any(), any(), eq(lease))).thenAnswer(inv -> {
+            long source = inv.<Long>getArgument(0) % 2;
+            synchronized (order) {
+                order.computeIfAbsent(source, s -> new ArrayList<>()).add(inv.getArgument(0));
+                threads.computeIfAbsent(source, s -> new ArrayList<>()).add(Thread.currentThread().getName());
+            }
+            return Outcome.EXECUTED;
+        });
+
+        ScheduledTransferRunSummary summary = scheduler.executeDue(NOW);
+
+        assertThat(order.get(1L)).containsExactly(1L, 3L, 5L);
+        assertThat(order.get(0L)).containsExactly(2L, 4L);
+        assertThat(threads.values()).allMatch(names -> names.stream().distinct().count() == 1);
+        assertThat(summary.getSourceAccounts()).isEqualTo(2);
+        assertThat(summary.getExecutedCount()).isEqualTo(5);
+        assertThat(summary.getParallelism()).isEqualTo(2);
+    }
+
+    @Test
+    void differentSourcesRunConcurrently() {
+        queue(1L, 1L, 0);
+        queue(2L, 2L, 0);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        when(transferService.executeOccurrence(eq(1L), any(), any(), eq(lease))).thenAnswer(inv -> {
+            overlapped.set(secondStarted.await(5, TimeUnit.SECONDS));
+            return Outcome.EXECUTED;
+        });
+        when(transferService.executeOccurrence(eq(2L), any(), any(), eq(lease))).thenAnswer(inv -> {
+            secondStarted.countDown();
+            return Outcome.EXECUTED;
+        });
+
+        scheduler.executeDue(NOW);
+
+        assertThat(overlapped).isTrue();
+    }
+
+    @Test
+    void outcomesAreCountedAndCheckpointedOnACompletedRun() {
+        queue(1L, 1L, 0);
+        queue(2L, 2L, 0);
+        queue(3L, 3L, 0);
+        queue(4L, 4L, 0);
+        when(transferService.executeOccurrence(eq(1L), any(), any(), eq(lease))).thenReturn(Outcome.EXECUTED);
+        when(transferService.executeOccurrence(eq(2L), any(), any(), eq(lease))).thenReturn(Outcome.INSUFFICIENT_FUNDS);
+        when(transferService.executeOccurrence(eq(3L), any(), any(), eq(lease))).thenReturn(Outcome.ALREADY_EXECUTED);
+        when(transferService.executeOccurrence(eq(4L), any(), any(), eq(lease))).thenThrow(new IllegalStateException("compte clôturé"));
+
+        ScheduledTransferRunSummary summary = scheduler.executeDue(NOW);
+
+        ScheduledTransferRun run = savedRuns.get(0);
+        assertThat(run.getStatus()).isEqualTo(ScheduledTransferRunStatus.COMPLETED);
+        assertThat(run.getDueUntil()).isEqualTo(NOW);
+        assertThat(run.getFencingToken()).isEqualTo(1L);
+        assertThat(run.getDueCount()).isEqualTo(4);
+        assertThat(run.getExecutedCount()).isEqualTo(1);
+        assertThat(run.getInsufficientFundsCount()).isEqualTo(1);
+        assertThat(run.getStaleCount()).isEqualTo(1);
+        assertThat(run.getFailedCount()).isEqualTo(1);
+        assertThat(run.getCheckpointAt()).isNotNull();
+        assertThat(summary.getRunIds()).containsExactly(run.getId());
+        assertThat(summary.getDueCount()).isEqualTo(4);
+        verify(transferService).executeOccurrence(1L, NOW.minusHours(1), run.getId(), lease);
+        verify(transferService).skipOccurrence(4L, NOW.minusHours(1), run.getId(), lease);
+    }
+
+    @Test
+    void nothingDueCreatesNoRun() {
+        ScheduledTransferRunSummary summary = scheduler.executeDue(NOW);
+
+        verify(runRepository, never()).save(any());
+        assertThat(summary.getRunIds()).isEmpty();
+        assertThat(summary.getShards()).isEqualTo(1);
+    }
+
+    @Test
+    void interruptedRunIsResumedUpToItsOwnDueDateBeforeANewOne() {
+        ScheduledTransferRun interrupted = new ScheduledTransferRun();
+        interrupted.setId(7L);
+        interrupted.setStatus(ScheduledTransferRunStatus.RUNNING);
+        interrupted.setDueUntil(NOW.minusDays(1));
+        interrupted.setDueCount(10);
+        interrupted.setExecutedCount(10);
+        when(runRepository.findByShardAndStatusOrderById(0, ScheduledTransferRunStatus.RUNNING)).thenReturn(List.of(interrupted));
+        queue(1L, 1L, 25);
+        when(transferService.executeOccurrence(anyLong(), any(), any(), eq(lease))).thenReturn(Outcome.EXECUTED);
+
+        ScheduledTransferRunSummary summary = scheduler.executeDue(NOW);
+
+        InOrder polls = inOrder(transferQueue);
+        polls.verify(transferQueue, atLeastOnce()).pollDue(0, NOW.minusDays(1));
+        polls.verify(transferQueue, atLeastOnce()).pollDue(0, NOW);
+        verify(transferService).executeOccurrence(1L, NOW.minusHours(26), 7L, lease);
+        assertThat(interrupted.getStatus()).isEqualTo(ScheduledTransferRunStatus.COMPLETED);
+        assertThat(interrupted.getResumeCount()).isEqualTo(1);
+        assertThat(interrupted.getDueCount()).isEqualTo(11);
+        assertThat(interrupted.getExecutedCount()).isEqualTo(11);
+        assertThat(summary.getRunIds()).containsExactly(7L);
+    }
+
+    @Test
+    void lostLeaseLeavesTheRunRunningForTheNextHolder() {
+        queue(1L, 1L, 1);
+        queue(2L, 1L, 0);
+        when(transferService.executeOccurrence(eq(1L), any(), any(), eq(lease))).thenAnswer(inv -> {
+            held.set(false);
+            throw new LeaseLostException("bail perdu");
+        });
+
+        ScheduledTransferRunSummary summary = scheduler.executeDue(NOW);
+
+        ScheduledTransferRun run = savedRuns.get(0);
+        assertThat(run.getStatus()).isEqualTo(ScheduledTransferRunStatus.RUNNING);
+        assertThat(run.getDueCount()).isZero();
+        assertThat(savedRuns).hasSize(1);
+        assertThat(summary.getDueCount()).isZero();
+        verify(transferService, never()).executeOccurrence(eq(2L), any(), any(), any());
+        verify(transferService, never()).skipOccurrence(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void queueIsReloadedWhenAnotherNodeHeldTheShardInBetween() {
+        scheduler.executeDue(NOW);
+        verify(transferQueue, never()).reset(anyInt());
+
+        when(lease.getToken()).thenReturn(3L);
+        scheduler.executeDue(NOW);
+
+        verify(transferQueue, times(1)).reset(0);
+    }
+
+    /** Due {@code hoursBack} hours before now; queued in call order. */
+    private void queue(Long transferId, Long sourceAccountId, int hoursBack) {
+        pending.add(new Due(transferId, NOW.minusHours(hoursBack + 1L), sourceAccountId));
+    }
+}
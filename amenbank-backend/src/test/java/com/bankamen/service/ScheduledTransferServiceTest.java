@@ -0,0 +1,137 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Frequency;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.ScheduledTransfer;
+import com.bankamen.entity.ScheduledTransferExecution;
+import com.bankamen.entity.ScheduledTransferExecutionOutcome;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.InsufficientFundsException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.ScheduledTransferExecutionRepository;
+import com.bankamen.repository.ScheduledTransferRepository;
+import com.bankamen.repository.TransactionRepository;
+import com.bankamen.service.ledger.LedgerEngine;
+
+class ScheduledTransferServiceTest {
+
+    private static final LocalDateTime DUE = LocalDate.now().atTime(8, 0);
+
+    private final ScheduledTransferRepository scheduledTransferRepo = mock(ScheduledTransferRepository.class);
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final TransactionRepository transactionRepo = mock(TransactionRepository.class);
+    private final ScheduledTransferExecutionRepository executionRepo = mock(ScheduledTransferExecutionRepository.class);
+    private final LedgerEngine ledgerEngine = mock(LedgerEngine.class);
+    private final ScheduledTransferService service = new ScheduledTransferService(scheduledTransferRepo, accountRepo,
+            transactionRepo, mock(NotificationService.class), mock(BalanceShardService.class),
+            mock(AccountMetadataCache.class), mock(ScheduledTransferQueue.class), executionRepo,
+            mock(JobLeaseService.class), ledgerEngine);
+    private final ScheduledTransfer transfer = new ScheduledTransfer();
+
+    @BeforeEach
+    void setUp() {
+        transfer.setId(5L);
+        transfer.setAmount(Money.ofMinor(20_000));
+        transfer.setFrequency(Frequency.MONTHLY);
+        transfer.setStartDate(DUE.toLocalDate());
+        transfer.setNextExecutionAt(DUE);
+        transfer.setSourceAccount(account(1L, 100_000));
+        transfer.setTargetAccount(account(2L, 0));
+        when(scheduledTransferRepo.findById(5L)).thenReturn(Optional.of(transfer));
+        when(executionRepo.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(ledgerEngine.isEnabled()).thenReturn(true);
+    }
+
+    @Test
+    void engineModePostsThroughTheEngineKeyedByTheOccurrence() {
+        when(ledgerEngine.postOnce(eq(1L), any(), any())).thenReturn(Optional.of(new Transaction()));
+
+        assertThat(service.executeOccurrence(5L, DUE, 9L, null)).isEqualTo(ScheduledTransferService.Outcome.EXECUTED);
+
+        ArgumentCaptor<CreateTransactionRequest> request = ArgumentCaptor.forClass(CreateTransactionRequest.class);
+        verify(ledgerEngine).postOnce(eq(1L), request.capture(), eq("scheduled:5:" + DUE.toLocalDate()));
+        assertThat(request.getValue().getType()).isEqualTo(TransactionType.TRANSFER);
+        assertThat(request.getValue().getTargetAccountId()).isEqualTo(2L);
+        assertThat(request.getValue().getAmount()).isEqualTo(Money.ofMinor(20_000));
+        verifyNoInteractions(accountRepo, transactionRepo);
+        assertThat(transfer.getSourceAccount().getBalance()).isEqualTo(Money.ofMinor(100_000));
+    }
+
+    @Test
+    void occurrenceAlreadyPostedByTheEngineCountsAsExecuted() {
+        when(ledgerEngine.postOnce(eq(1L), any(), any())).thenReturn(Optional.empty());
+
+        assertThat(service.executeOccurrence(5L, DUE, 9L, null)).isEqualTo(ScheduledTransferService.Outcome.EXECUTED);
+    }
+
+    @Test
+    void engineRefusalForFundsIsRecordedAsInsufficientFunds() {
+        ArgumentCaptor<ScheduledTransferExecution> execution = ArgumentCaptor.forClass(ScheduledTransferExecution.class);
+        when(ledgerEngine.postOnce(eq(1L), any(), any())).thenThrow(new InsufficientFundsException());
+
+        assertThat(service.executeOccurrence(5L, DUE, 9L, null))
+                .isEqualTo(ScheduledTransferService.Outcome.INSUFFICIENT_FUNDS);
+        verify(executionRepo).saveAndFlush(execution.capture());
+        assertThat(execution.getValue().getOutcome()).isEqualTo(ScheduledTransferExecutionOutcome.INSUFFICIENT_FUNDS);
+    }
+
+    @Test
+    void unknownEngineOutcomeIsResubmittedUnderTheSameReference() {
+        when(ledgerEngine.postOnce(eq(1L), any(), any()))
+                .thenThrow(new OutcomeUnknownException("Délai dépassé"))
+                .thenReturn(Optional.empty());
+
+        assertThat(service.executeOccurrence(5L, DUE, 9L, null)).isEqualTo(ScheduledTransferService.Outcome.EXECUTED);
+        verify(ledgerEngine, times(2)).postOnce(eq(1L), any(), eq("scheduled:5:" + DUE.toLocalDate()));
+    }
+
+    @Test
+    void unknownEngineOutcomeFailsTheOccurrenceAfterTheLastAttempt() {
+        when(ledgerEngine.postOnce(eq(1L), any(), any())).thenThrow(new OutcomeUnknownException("Délai dépassé"));
+
+        assertThatThrownBy(() -> service.executeOccurrence(5L, DUE, 9L, null))
+                .isInstanceOf(OutcomeUnknownException.class);
+        verify(ledgerEngine, times(3)).postOnce(eq(1L), any(), any());
+    }
+
+    @Test
+    void withoutTheEngineBalancesAreMovedDirectly() {
+        when(ledgerEngine.isEnabled()).thenReturn(false);
+
+        assertThat(service.executeOccurrence(5L, DUE, 9L, null)).isEqualTo(ScheduledTransferService.Outcome.EXECUTED);
+
+        verify(ledgerEngine, never()).postOnce(any(), any(), any());
+        assertThat(transfer.getSourceAccount().getBalance()).isEqualTo(Money.ofMinor(80_000));
+        assertThat(transfer.getTargetAccount().getBalance()).isEqualTo(Money.ofMinor(20_000));
+    }
+
+    private static BankAccount account(Long id, long balance) {
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        account.setBalance(Money.ofMinor(balance));
+        return account;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.dto.TransactionBatchItemDTO;
+import com.bankamen.dto.TransactionBatchResultDTO;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.service.ledger.LedgerEngine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionBatchServiceTest {
+
+    private static final Long SOURCE = 7L;
+
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final TransactionPoster transactionPoster = mock(TransactionPoster.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final TransactionStatus status = mock(TransactionStatus.class);
+    private final TransactionBatchService service = new TransactionBatchService(accountRepo, transactionPoster,
+            transactionTemplate, new OptimisticRetryExecutor(new SimpleMeterRegistry(), 1, 1, 1),
+            mock(LedgerEngine.class), 100);
+
+    private final CreateTransactionRequest deposit = request(TransactionType.DEPOSIT, 10_000, null);
+    private final CreateTransactionRequest overdraft = request(TransactionType.WITHDRAWAL, 900_000, null);
+    private final CreateTransactionRequest transfer = request(TransactionType.TRANSFER, 5_000, 3L);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(status));
+        when(accountRepo.lockAllByIdOrdered(anyList())).thenReturn(List.of(account(3L), account(SOURCE)));
+        when(transactionPoster.post(eq(SOURCE), any())).thenAnswer(invocation -> posted());
+        when(transactionPoster.post(SOURCE, overdraft)).thenThrow(new BusinessException("Fonds insuffisants pour le retrait"));
+    }
+
+    @Test
+    void rejectionRollsBackTheWholeBatchAndStopsThere() {
+        TransactionBatchResultDTO result = service.post(SOURCE, List.of(deposit, overdraft, transfer),
+                TransactionBatchService.Mode.ALL_OR_NOTHING);
+
+        verify(status).setRollbackOnly();
+        verify(transactionPoster, never()).post(SOURCE, transfer);
+        assertThat(result.isCommitted()).isFalse();
+        assertThat(result.getSuccessCount()).isZero();
+        assertThat(result.getFailureCount()).isEqualTo(3);
+        assertThat(result.getItems()).extracting(TransactionBatchItemDTO::getError).containsExactly(
+                null, "Fonds insuffisants pour le retrait", "Non exécutée : le lot a été annulé");
+    }
+
+    @Test
+    void bestEffortSkipsTheRejectionAndCommitsTheRest() {
+        TransactionBatchResultDTO result = service.post(SOURCE, List.of(deposit, overdraft, transfer),
+                TransactionBatchService.Mode.BEST_EFFORT);
+
+        verify(status, never()).setRollbackOnly();
+        verify(transactionPoster, times(3)).post(eq(SOURCE), any());
+        assertThat(result.isCommitted()).isTrue();
+        assertThat(result.getSuccessCount()).isEqualTo(2);
+        assertThat(result.getFailureCount()).isEqualTo(1);
+        assertThat(result.getItems().get(1).getTransaction()).isNull();
+        assertThat(result.getItems().get(2).getTransaction()).isNotNull();
+    }
+
+    @Test
+    void accountsAreLockedInIdOrderBeforeAnyPosting() {
+        service.post(SOURCE, List.of(transfer, deposit), TransactionBatchService.Mode.ALL_OR_NOTHING);
+
+        verify(accountRepo).lockAllByIdOrdered(List.of(3L, SOURCE));
+    }
+
+    private static CreateTransactionRequest request(TransactionType type, long amount, Long target) {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(type);
+        request.setAmount(Money.ofMinor(amount));
+        request.setTargetAccountId(target);
+        return request;
+    }
+
+    private static BankAccount account(Long id) {
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        return account;
+    }
+
+    private static Transaction posted() {
+        Transaction transaction = new Transaction();
+        transaction.setId(1L);
+        return transaction;
+    }
+}
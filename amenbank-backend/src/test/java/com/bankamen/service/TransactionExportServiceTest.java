@@ -0,0 +1,214 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.bankamen.config.MoneyJsonComponent;
+import com.bankamen.dto.TransactionFilterRequest;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.entity.User;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.TransactionRepository;
+import com.bankamen.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import jakarta.persistence.EntityManager;
+
+class TransactionExportServiceTest {
+
+    private final TransactionRepository transactionRepo = mock(TransactionRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .registerModule(new SimpleModule().addSerializer(Money.class, new MoneyJsonComponent.Serializer()));
+    private final AtomicBoolean streamClosed = new AtomicBoolean();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(10L);
+        when(userRepository.findByUsername("client")).thenReturn(Optional.of(user));
+        when(transactionRepo.streamForExport(eq(10L), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> Stream.of(transaction(1, "10.5", "Loyer, mars"), transaction(2, "3", "Café"))
+                        .onClose(() -> streamClosed.set(true)));
+    }
+
+    private TransactionExportService service(int maxConcurrent, long slotWaitMs) {
+        TransactionExportService service = new TransactionExportService(transactionRepo, userRepository, objectMapper,
+                mock(PlatformTransactionManager.class), maxConcurrent, slotWaitMs);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+        return service;
+    }
+
+    private static Transaction transaction(long id, String amount, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setDate(LocalDateTime.of(2026, 3, 1, 9, 30).plusDays(id));
+        transaction.setType(TransactionType.DEPOSIT);
+        transaction.setAmount(Money.parse(amount));
+        transaction.setDescription(description);
+        return transaction;
+    }
+
+    private static String write(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void csvHasAHeaderAndOneQuotedRowPerTransaction() throws Exception {
+        String csv = write(service(4, 0).export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, false));
+
+        assertThat(csv.lines().toList()).containsExactly(
+                "\"id\",\"date\",\"type\",\"amount\",\"balanceAfter\",\"description\",\"accountId\",\"accountIban\"",
+                "\"1\",\"2026-03-02T09:30\",\"DEPOSIT\",\"10.5\",\"null\",\"Loyer, mars\",\"null\",",
+                "\"2\",\"2026-03-03T09:30\",\"DEPOSIT\",\"3\",\"null\",\"Café\",\"null\",");
+        // rows are detached as they go and the cursor is closed
+        verify(entityManager, times(2)).detach(any(Transaction.class));
+        assertThat(streamClosed).isTrue();
+    }
+
+    @Test
+    void ndjsonIsOneObjectPerLineWithPlainNumberAmounts() throws Exception {
+        String ndjson = write(service(4, 0).export("client", new TransactionFilterRequest(), TransactionExportService.Format.NDJSON, false));
+
+        List<JsonNode> rows = ndjson.lines().map(line -> {
+            try {
+                return objectMapper.readTree(line);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).get("amount").isNumber()).isTrue();
+        assertThat(rows.get(0).get("amount").decimalValue()).isEqualByComparingTo("10.5");
+        assertThat(rows.get(1).get("description").asText()).isEqualTo("Café");
+    }
+
+    @Test
+    void gzipBodyDecompressesToTheSameExport() throws Exception {
+        TransactionExportService service = service(4, 0);
+        String plain = write(service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, false));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, true).writeTo(compressed);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    void dateFiltersCoverWholeDays() throws Exception {
+        TransactionFilterRequest filter = new TransactionFilterRequest();
+        filter.setStartDate(LocalDate.of(2026, 3, 1));
+        filter.setEndDate(LocalDate.of(2026, 3, 31));
+        filter.setType(TransactionType.DEPOSIT);
+
+        write(service(4, 0).export("client", filter, TransactionExportService.Format.CSV, false));
+
+        verify(transactionRepo).streamForExport(10L, TransactionType.DEPOSIT, LocalDateTime.of(2026, 3, 1, 0, 0),
+                LocalDateTime.of(2026, 3, 31, 23, 59, 59), null, null);
+    }
+
+    @Test
+    void busySlotsRefuseNewExportsUntilTheRunningOneEnds() throws Exception {
+        TransactionExportService service = service(1, 50);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OutputStream slowClient = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                write(b[off]);
+            }
+        };
+        // a body created before the slot was taken, but run while it is busy
+        StreamingResponseBody late = service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, false);
+
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            try {
+                service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, false)
+                        .writeTo(slowClient);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, false))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Trop d'exports en cours, veuillez réessayer plus tard");
+        assertThatThrownBy(() -> write(late))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Trop d'exports en cours, export abandonné");
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertThat(write(service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, false)))
+                .startsWith("\"id\"");
+    }
+
+    @Test
+    void clientLeavingMidDownloadGivesTheSlotBack() throws Exception {
+        TransactionExportService service = service(1, 0);
+        OutputStream gone = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        StreamingResponseBody body = service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.NDJSON, false);
+        assertThatThrownBy(() -> body.writeTo(gone)).isInstanceOf(IOException.class);
+
+        assertThat(streamClosed).isTrue();
+        assertThat(write(service.export("client", new TransactionFilterRequest(), TransactionExportService.Format.CSV, false)))
+                .startsWith("\"id\"");
+        verify(transactionRepo, times(2)).streamForExport(eq(10L), isNull(), isNull(), isNull(), isNull(), isNull());
+    }
+}
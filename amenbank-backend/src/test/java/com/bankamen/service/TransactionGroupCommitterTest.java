@@ -0,0 +1,192 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.OutcomeUnknownException;
+import com.bankamen.repository.BankAccountRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionGroupCommitterTest {
+
+    private final TransactionPoster poster = mock(TransactionPoster.class);
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final ExecutorService callers = Executors.newFixedThreadPool(3);
+    private TransactionGroupCommitter committer;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // a long window so that the three concurrent callers land in the same commit
+        committer = new TransactionGroupCommitter(poster, accountRepo, transactionTemplate,
+                new OptimisticRetryExecutor(meterRegistry, 3, 1, 1), meterRegistry, true, 10, 500_000);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(mock(TransactionStatus.class)));
+        committer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        committer.stop();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void rejectedPostingsOnlyFailTheirOwnCallerInAMixedBatch() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Transaction deposit = new Transaction();
+        when(poster.post(eq(1L), any())).thenReturn(deposit);
+        when(poster.post(eq(2L), any())).thenThrow(new BusinessException("Fonds insuffisants pour le retrait"));
+        when(poster.post(eq(3L), any())).thenThrow(new BusinessException("Type de transaction manquant"));
+
+        List<Future<Object>> outcomes = submitTogether(
+                request(TransactionType.DEPOSIT), request(TransactionType.WITHDRAWAL), request(null));
+
+        assertThat(outcomes.get(0).get(5, TimeUnit.SECONDS)).isSameAs(deposit);
+        assertThat(outcomes.get(1).get(5, TimeUnit.SECONDS)).isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("message", "Fonds insuffisants pour le retrait");
+        assertThat(outcomes.get(2).get(5, TimeUnit.SECONDS)).isInstanceOf(BusinessException.class)
+                .hasFieldOrPropertyWithValue("message", "Type de transaction manquant");
+        // one transaction, one account load for the whole batch, no one-by-one fallback
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(accountRepo, times(1)).findAllById(Set.of(1L, 2L, 3L));
+        verify(transactionTemplate, times(0)).execute(any());
+    }
+
+    @Test
+    void batchThatCannotCommitFallsBackToOneByOnePostings() throws Exception {
+        doAnswer(invocation -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Transaction first = new Transaction();
+        Transaction third = new Transaction();
+        when(poster.post(eq(1L), any())).thenReturn(first);
+        when(poster.post(eq(2L), any())).thenThrow(new BusinessException("Fonds insuffisants pour le retrait"));
+        when(poster.post(eq(3L), any())).thenReturn(third);
+
+        List<Future<Object>> outcomes = submitTogether(
+                request(TransactionType.DEPOSIT), request(TransactionType.WITHDRAWAL),
+                request(TransactionType.DEPOSIT));
+
+        assertThat(outcomes.get(0).get(5, TimeUnit.SECONDS)).isSameAs(first);
+        assertThat(outcomes.get(1).get(5, TimeUnit.SECONDS)).isInstanceOf(BusinessException.class);
+        assertThat(outcomes.get(2).get(5, TimeUnit.SECONDS)).isSameAs(third);
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    void versionConflictAtFlushFallsBackToOneByOnePostings() throws Exception {
+        commitFails(null);
+        doThrow(new ObjectOptimisticLockingFailureException("BankAccount", 1L)).doNothing().when(accountRepo).flush();
+        Transaction first = new Transaction();
+        when(poster.post(eq(1L), any())).thenReturn(first);
+
+        List<Future<Object>> outcomes = submitTogether(request(TransactionType.DEPOSIT));
+
+        assertThat(outcomes.get(0).get(5, TimeUnit.SECONDS)).isSameAs(first);
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void commitWithAnUnknownOutcomeIsNotReplayed() throws Exception {
+        commitFails(new TransactionSystemException("Could not commit JPA transaction"));
+        when(poster.post(any(), any())).thenReturn(new Transaction());
+
+        List<Future<Object>> outcomes = submitTogether(
+                request(TransactionType.DEPOSIT), request(TransactionType.DEPOSIT), request(TransactionType.WITHDRAWAL));
+
+        for (Future<Object> outcome : outcomes) {
+            assertThat(outcome.get(5, TimeUnit.SECONDS)).isInstanceOf(OutcomeUnknownException.class);
+        }
+        verify(transactionTemplate, times(0)).execute(any());
+        verify(poster, times(3)).post(any(), any());
+    }
+
+    @Test
+    void commitKnownToHaveRolledBackFallsBackToOneByOnePostings() throws Exception {
+        commitFails(new UnexpectedRollbackException("Transaction rolled back because it has been marked as rollback-only"));
+        Transaction first = new Transaction();
+        when(poster.post(eq(1L), any())).thenReturn(first);
+
+        List<Future<Object>> outcomes = submitTogether(request(TransactionType.DEPOSIT));
+
+        assertThat(outcomes.get(0).get(5, TimeUnit.SECONDS)).isSameAs(first);
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    /** The batch callback runs, then the commit throws {@code failure} (null: the callback's own exception propagates). */
+    private void commitFails(RuntimeException failure) {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            if (failure != null) {
+                throw failure;
+            }
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    /** Submits one request per account id 1, 2, 3 from concurrent callers; each future holds the result or the exception. */
+    private List<Future<Object>> submitTogether(CreateTransactionRequest... requests) {
+        CountDownLatch ready = new CountDownLatch(requests.length);
+        List<Future<Object>> outcomes = new ArrayList<>();
+        for (int i = 0; i < requests.length; i++) {
+            long accountId = i + 1;
+            CreateTransactionRequest request = requests[i];
+            outcomes.add(callers.submit(() -> {
+                ready.countDown();
+                ready.await();
+                try {
+                    return committer.submit(accountId, request);
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            }));
+        }
+        return outcomes;
+    }
+
+    private static CreateTransactionRequest request(TransactionType type) {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(type);
+        request.setAmount(Money.ofMinor(10_000));
+        return request;
+    }
+}
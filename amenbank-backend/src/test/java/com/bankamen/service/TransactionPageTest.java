@@ -0,0 +1,139 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bankamen.dto.TransactionDTO;
+import com.bankamen.dto.TransactionPageDTO;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.TransactionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPageTest {
+
+    private static final Comparator<Transaction> NEWEST_FIRST = Comparator.comparing(Transaction::getDate)
+            .thenComparing(Transaction::getId).reversed();
+
+    @Mock
+    private TransactionRepository transactionRepo;
+    @InjectMocks
+    private TransactionService service;
+
+    // ids 1..7; 3, 4 and 5 share a timestamp, so only the id separates them
+    private final List<Transaction> history = new ArrayList<>();
+
+    @BeforeEach
+    void history() {
+        ReflectionTestUtils.setField(service, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(service, "maxPageSize", 200);
+        LocalDateTime day = LocalDateTime.of(2026, 3, 1, 10, 0);
+        for (long id = 1; id <= 7; id++) {
+            Transaction transaction = new Transaction();
+            transaction.setId(id);
+            transaction.setDate(id >= 3 && id <= 5 ? day.plusDays(3) : day.plusDays(id));
+            transaction.setAmount(Money.ofMinor(1_000));
+            transaction.setType(TransactionType.DEPOSIT);
+            history.add(transaction);
+        }
+        // the repository contract: rows strictly past the (date, id) boundary, nearest first (each test seeks one way)
+        lenient().when(transactionRepo.findPageBefore(eq(1L), any(), anyLong(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> seek(inv.getArgument(1), inv.getArgument(2), inv.getArgument(8), true));
+        lenient().when(transactionRepo.findPageAfter(eq(1L), any(), anyLong(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> seek(inv.getArgument(1), inv.getArgument(2), inv.getArgument(8), false));
+    }
+
+    private List<Transaction> seek(LocalDateTime date, long id, Pageable limit, boolean older) {
+        Comparator<Transaction> order = older ? NEWEST_FIRST : NEWEST_FIRST.reversed();
+        Transaction boundary = new Transaction();
+        boundary.setDate(date);
+        boundary.setId(id);
+        return history.stream()
+                .filter(t -> order.compare(t, boundary) > 0)
+                .sorted(order)
+                .limit(limit.getPageSize())
+                .toList();
+    }
+
+    @Test
+    void nextCursorsWalkTheWholeHistoryOnceNewestFirst() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPageDTO page = service.getTransactionPage(1L, cursor, 2, null, null, null, null, null);
+            page.getItems().stream().map(TransactionDTO::getId).forEach(seen::add);
+            assertThat(page.getPrevCursor() == null).isEqualTo(pages == 0);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).containsExactly(7L, 6L, 5L, 4L, 3L, 2L, 1L);
+    }
+
+    @Test
+    void prevCursorReturnsThePreviousPageInDisplayOrder() {
+        TransactionPageDTO first = service.getTransactionPage(1L, null, 2, null, null, null, null, null);
+        TransactionPageDTO second = service.getTransactionPage(1L, first.getNextCursor(), 2, null, null, null, null, null);
+        TransactionPageDTO third = service.getTransactionPage(1L, second.getNextCursor(), 2, null, null, null, null, null);
+
+        TransactionPageDTO back = service.getTransactionPage(1L, third.getPrevCursor(), 2, null, null, null, null, null);
+
+        assertThat(ids(second)).containsExactly(5L, 4L);
+        assertThat(ids(back)).isEqualTo(ids(second));
+        assertThat(back.getNextCursor()).isEqualTo(second.getNextCursor());
+        // and back once more reaches the first page, which has nothing newer
+        TransactionPageDTO top = service.getTransactionPage(1L, back.getPrevCursor(), 2, null, null, null, null, null);
+        assertThat(ids(top)).containsExactly(7L, 6L);
+        assertThat(top.getPrevCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsClampedToTheConfiguredMaximum() {
+        ReflectionTestUtils.setField(service, "maxPageSize", 3);
+
+        TransactionPageDTO page = service.getTransactionPage(1L, null, 1_000, null, null, null, null, null);
+
+        assertThat(page.getSize()).isEqualTo(3);
+        assertThat(ids(page)).containsExactly(7L, 6L, 5L);
+    }
+
+    @Test
+    void tamperedCursorsAreRejected() {
+        for (String raw : List.of("x|2026-03-04T10:00|5", "n|yesterday|5", "n|2026-03-04T10:00|five", "n|2026-03-04T10:00")) {
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            assertThatThrownBy(() -> service.getTransactionPage(1L, cursor, 2, null, null, null, null, null))
+                    .isInstanceOf(BusinessException.class)
+                    .hasMessage("Curseur de pagination invalide");
+        }
+        assertThatThrownBy(() -> service.getTransactionPage(1L, "not base64!", 2, null, null, null, null, null))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    private static List<Long> ids(TransactionPageDTO page) {
+        return page.getItems().stream().map(TransactionDTO::getId).toList();
+    }
+}
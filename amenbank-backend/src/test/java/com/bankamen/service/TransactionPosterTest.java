@@ -0,0 +1,149 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.BankAccount;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.PostingDirection;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.entity.User;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.repository.BankAccountRepository;
+import com.bankamen.repository.TransactionRepository;
+
+class TransactionPosterTest {
+
+    private final BankAccountRepository accountRepo = mock(BankAccountRepository.class);
+    private final TransactionRepository transactionRepo = mock(TransactionRepository.class);
+    private final BalanceShardService shardService = mock(BalanceShardService.class);
+    private final TransactionPoster poster = new TransactionPoster(accountRepo, transactionRepo, shardService);
+
+    @Test
+    void postingWithoutTypeIsABusinessRejectionBeforeAnyRead() {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setAmount(Money.ofMinor(1_000));
+
+        assertThatThrownBy(() -> poster.post(1L, request))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Type de transaction manquant");
+        verifyNoInteractions(accountRepo, transactionRepo, shardService);
+    }
+
+    @Test
+    void transferWithoutTargetIsABusinessRejectionBeforeAnyRead() {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(TransactionType.TRANSFER);
+        request.setAmount(Money.ofMinor(1_000));
+
+        assertThatThrownBy(() -> poster.post(1L, request))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Compte destinataire manquant");
+        verifyNoInteractions(accountRepo, transactionRepo, shardService);
+    }
+
+    @Test
+    void transferRecordsADebitAndACreditLegUnderOneJournalEntry() {
+        BankAccount source = account(1L, "amel", 100_000);
+        BankAccount target = account(2L, "sami", 5_000);
+        List<Transaction> saved = savedRows();
+
+        Transaction debit = poster.post(1L, transfer(2L, 30_000));
+
+        assertThat(saved).hasSize(2);
+        Transaction credit = saved.get(1);
+        assertThat(debit.getDirection()).isEqualTo(PostingDirection.DEBIT);
+        assertThat(debit.getAccount()).isSameAs(source);
+        assertThat(debit.getBalanceAfter()).isEqualTo(Money.ofMinor(70_000));
+        assertThat(debit.getDescription()).isEqualTo("Transfert vers compte de : sami");
+        assertThat(credit.getDirection()).isEqualTo(PostingDirection.CREDIT);
+        assertThat(credit.getAccount()).isSameAs(target);
+        assertThat(credit.getBalanceAfter()).isEqualTo(Money.ofMinor(35_000));
+        assertThat(credit.getDescription()).isEqualTo("Transfert reçu de : amel");
+        assertThat(credit.getAmount()).isEqualTo(debit.getAmount());
+        assertThat(credit.getDate()).isEqualTo(debit.getDate());
+        assertThat(credit.getJournalEntryId()).isEqualTo(debit.getId()).isEqualTo(debit.getJournalEntryId());
+    }
+
+    @Test
+    void singleAccountPostingsAreOneLegWithoutJournalEntry() {
+        account(1L, "amel", 10_000);
+        List<Transaction> saved = savedRows();
+
+        Transaction deposit = poster.post(1L, request(TransactionType.DEPOSIT, 2_500));
+        Transaction withdrawal = poster.post(1L, request(TransactionType.WITHDRAWAL, 1_000));
+
+        assertThat(saved).hasSize(2);
+        assertThat(deposit.getDirection()).isEqualTo(PostingDirection.CREDIT);
+        assertThat(deposit.getBalanceAfter()).isEqualTo(Money.ofMinor(12_500));
+        assertThat(withdrawal.getDirection()).isEqualTo(PostingDirection.DEBIT);
+        assertThat(withdrawal.getBalanceAfter()).isEqualTo(Money.ofMinor(11_500));
+        assertThat(saved).allMatch(t -> t.getJournalEntryId() == null);
+    }
+
+    @Test
+    void transferBeyondTheBalanceTouchesNeitherAccount() {
+        BankAccount source = account(1L, "amel", 1_000);
+        BankAccount target = account(2L, "sami", 5_000);
+
+        assertThatThrownBy(() -> poster.post(1L, transfer(2L, 1_001)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Fonds insuffisants pour le retrait");
+
+        assertThat(source.getBalance()).isEqualTo(Money.ofMinor(1_000));
+        assertThat(target.getBalance()).isEqualTo(Money.ofMinor(5_000));
+        verify(transactionRepo, never()).save(any());
+        verify(accountRepo, never()).save(any());
+    }
+
+    private BankAccount account(Long id, String username, long balanceMinor) {
+        User owner = new User();
+        owner.setUsername(username);
+        BankAccount account = new BankAccount();
+        account.setId(id);
+        account.setUser(owner);
+        account.setBalance(Money.ofMinor(balanceMinor));
+        when(accountRepo.findById(id)).thenReturn(Optional.of(account));
+        return account;
+    }
+
+    /** Rows in save order; ids are handed out at save like the table generator does. */
+    private List<Transaction> savedRows() {
+        List<Transaction> saved = new ArrayList<>();
+        when(transactionRepo.save(any())).thenAnswer(inv -> {
+            Transaction row = inv.getArgument(0);
+            row.setId(100L + saved.size());
+            saved.add(row);
+            return row;
+        });
+        when(transactionRepo.saveTransfer(any(), any())).thenCallRealMethod();
+        return saved;
+    }
+
+    private static CreateTransactionRequest request(TransactionType type, long amountMinor) {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(type);
+        request.setAmount(Money.ofMinor(amountMinor));
+        return request;
+    }
+
+    private static CreateTransactionRequest transfer(Long targetId, long amountMinor) {
+        CreateTransactionRequest request = request(TransactionType.TRANSFER, amountMinor);
+        request.setTargetAccountId(targetId);
+        return request;
+    }
+}
@@ -0,0 +1,166 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bankamen.entity.User;
+import com.bankamen.repository.UserRepository;
+
+class UserSearchIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserSearchIndex index = new UserSearchIndex(userRepository, mock(PlatformTransactionManager.class));
+
+    private final List<Object[]> stored = new ArrayList<>();
+    private final Set<Long> existing = new HashSet<>();
+
+    @BeforeEach
+    void users() {
+        when(userRepository.streamSearchFields()).thenAnswer(inv -> new ArrayList<>(stored).stream());
+        when(userRepository.findExistingIds(anyCollection()))
+                .thenAnswer(inv -> inv.<Collection<Long>>getArgument(0).stream().filter(existing::contains).toList());
+    }
+
+    private void user(long id, String username, String firstName, String lastName) {
+        stored.add(new Object[] {id, username, firstName, lastName});
+        existing.add(id);
+    }
+
+    private List<Long> search(String query, int limit) {
+        return index.search(query, limit).stream().map(UserSearchIndex.UserHit::id).toList();
+    }
+
+    @Test
+    void exactWordsRankBeforePrefixesAndFieldsByWeight() {
+        user(1, "k.trabelsi", "Karim", "Ben");        // exact last name
+        user(2, "ben", "Sami", "Trabelsi");           // exact username
+        user(3, "bensalem", "Ines", "Bensalem");      // prefix of username and last name
+        user(4, "m.gharbi", "Benoit", "Gharbi");      // prefix of first name
+        user(5, "h.jaziri", "Ben", "Jaziri");         // exact first name
+        index.rebuild();
+
+        assertThat(search("ben", 10)).containsExactly(2L, 1L, 5L, 3L, 4L);
+    }
+
+    @Test
+    void shorterUsernameBreaksTies() {
+        // usernames split on dots: all three hold the exact word
+        user(1, "sarra.mansouri", "Sarra", "Mansouri");
+        user(2, "s.mansouri", "Salma", "Mansouri");
+        user(3, "mansouri.sami", "Sami", "Mansouri");
+        index.rebuild();
+
+        assertThat(search("mansouri", 10)).containsExactly(2L, 3L, 1L);
+    }
+
+    @Test
+    void everyTermMustMatchIgnoringCaseAndAccents() {
+        user(1, "e.benammar", "Éloïse", "Ben Ammar");
+        user(2, "e.bensalem", "Eloïse", "Bensalem");
+        user(3, "n.ammar", "Nour", "Ammar");
+        index.rebuild();
+
+        assertThat(search("ELOISE amm", 10)).containsExactly(1L);
+        assertThat(search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void limitKeepsTheBestRankedHits() {
+        for (long id = 1; id <= 50; id++) {
+            user(id, "client" + "x".repeat((int) id), "Prénom", "Nom");
+        }
+        user(51, "client", "Prénom", "Nom");
+        index.rebuild();
+
+        assertThat(search("client", 3)).containsExactly(51L, 1L, 2L);
+    }
+
+    @Test
+    void usersDeletedOnAnotherNodeAreDroppedFromResultsAndIndex() {
+        user(1, "amine", "Amine", "Kacem");
+        user(2, "amira", "Amira", "Kacem");
+        index.rebuild();
+        existing.remove(2L);
+
+        assertThat(search("kacem", 10)).containsExactly(1L);
+
+        existing.add(2L);
+        assertThat(search("kacem", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void localChangesReplaceTheOldWords() {
+        user(1, "walid", "Walid", "Chebbi");
+        index.rebuild();
+        User renamed = new User();
+        renamed.setId(1L);
+        renamed.setUsername("walid");
+        renamed.setFirstName("Walid");
+        renamed.setLastName("Haddad");
+
+        index.index(renamed);
+
+        assertThat(search("chebbi", 10)).isEmpty();
+        assertThat(search("haddad", 10)).containsExactly(1L);
+        index.remove(1L);
+        assertThat(search("walid", 10)).isEmpty();
+    }
+
+    @Test
+    void changesDuringARebuildSurviveTheSwitch() {
+        user(1, "rania", "Rania", "Ferchichi");
+        User renamed = new User();
+        renamed.setId(1L);
+        renamed.setUsername("rania");
+        renamed.setFirstName("Rania");
+        renamed.setLastName("Zouari");
+        // the rename commits while the scan still streams the old row
+        when(userRepository.streamSearchFields()).thenAnswer(inv -> {
+            index.index(renamed);
+            return new ArrayList<>(stored).stream();
+        });
+
+        index.rebuild();
+
+        assertThat(search("ferchichi", 10)).isEmpty();
+        assertThat(search("zouari", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void syncLoadsOtherNodesChangesFromBeforeTheWatermark() {
+        user(1, "youssef", "Youssef", "Mejri");
+        LocalDateTime beforeRebuild = LocalDateTime.now();
+        index.rebuild();
+        LocalDateTime changedAt = LocalDateTime.now().plusSeconds(2);
+        when(userRepository.findSearchFieldsChangedSince(any()))
+                .thenReturn(List.<Object[]>of(new Object[] {1L, "youssef", "Youssef", "Dridi", changedAt}))
+                .thenReturn(List.of());
+
+        index.syncChanges();
+        index.syncChanges();
+
+        assertThat(search("dridi", 10)).containsExactly(1L);
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(userRepository, times(2)).findSearchFieldsChangedSince(since.capture());
+        // each sync re-reads a minute of clock skew before what it has already loaded
+        assertThat(since.getAllValues().get(0)).isBefore(beforeRebuild.minusSeconds(59));
+        assertThat(since.getAllValues().get(1)).isEqualTo(changedAt.minusMinutes(1));
+    }
+}
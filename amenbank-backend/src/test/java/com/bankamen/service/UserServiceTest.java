@@ -0,0 +1,66 @@
+package com.bankamen.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.bankamen.entity.Role;
+import com.bankamen.repository.UserRepository;
+
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserService userService = new UserService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+    }
+
+    @Test
+    void searchBecomesAnEscapedPrefixAndFiltersArePassedThrough() {
+        userService.getUserSummaries("  ben_ali ", Role.SUPERADMIN, true, 2, 25, "lastName", "desc");
+
+        Pageable pageable = requested("ben!_ali%", Role.SUPERADMIN, true);
+        assertThat(pageable.getPageNumber()).isEqualTo(2);
+        assertThat(pageable.getPageSize()).isEqualTo(25);
+        assertThat(pageable.getSort()).containsExactly(Sort.Order.desc("lastName"), Sort.Order.desc("id"));
+    }
+
+    @Test
+    void blankSearchMatchesEveryUser() {
+        userService.getUserSummaries("  ", null, null, 0, 20, "id", "asc");
+
+        requested(null, null, null);
+    }
+
+    @Test
+    void pageAndSizeAreClampedAndUnknownSortFallsBackToId() {
+        userService.getUserSummaries(null, null, null, -3, 10_000, "password", "sideways");
+
+        Pageable pageable = requested(null, null, null);
+        assertThat(pageable.getPageNumber()).isZero();
+        assertThat(pageable.getPageSize()).isEqualTo(100);
+        assertThat(pageable.getSort()).containsExactly(Sort.Order.asc("id"), Sort.Order.asc("id"));
+    }
+
+    private Pageable requested(String prefix, Role role, Boolean enabled) {
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        if (prefix == null) {
+            verify(userRepository).findSummaries(isNull(), eq(role), eq(enabled), pageable.capture());
+        } else {
+            verify(userRepository).findSummaries(eq(prefix), eq(role), eq(enabled), pageable.capture());
+        }
+        return pageable.getValue();
+    }
+}
@@ -0,0 +1,155 @@
+package com.bankamen.service.ledger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.actuate.health.Status;
+
+import com.bankamen.dto.CreateTransactionRequest;
+import com.bankamen.entity.Money;
+import com.bankamen.entity.TransactionType;
+import com.bankamen.exception.BusinessException;
+import com.bankamen.exception.LeaseLostException;
+import com.bankamen.service.JobLeaseService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LedgerEngineTest {
+
+    @TempDir
+    Path directory;
+
+    private Path journalPath;
+    private final JobLeaseService leaseService = mock(JobLeaseService.class);
+    private final JobLeaseService.Lease lease = mock(JobLeaseService.Lease.class);
+
+    @BeforeEach
+    void setUp() {
+        journalPath = directory.resolve("ledger.journal");
+        when(leaseService.tryAcquire(LedgerEngine.LEASE_NAME, Duration.ZERO)).thenReturn(Optional.of(lease));
+        when(lease.isHeld()).thenReturn(true);
+    }
+
+    @Test
+    void leaseTakenOverTurnsTheNodeDownAndMarksItsJournal() throws Exception {
+        LedgerStore store = store(0);
+        LedgerEngine engine = engine(store, false);
+        engine.start();
+        engine.post(1L, deposit(1_000));
+        verify(store, timeout(2_000)).persist(any(), any());
+
+        // the other node now holds the lease: write-behind is fenced, the second posting stays in the journal
+        doThrow(new LeaseLostException("Bail ledger-engine perdu")).when(store).persist(any(), any());
+        engine.post(1L, deposit(2_000));
+        when(lease.isHeld()).thenReturn(false);
+        when(lease.isLost()).thenReturn(true);
+        engine.checkLease();
+
+        assertThat(engine.unavailability()).hasValueSatisfying(reason -> assertThat(reason).contains("repris"));
+        assertThat(new LedgerEngineHealthIndicator(engine).health().getStatus()).isEqualTo(Status.DOWN);
+        assertThat(Files.readString(directory.resolve("ledger.journal.fenced"))).isEqualTo("1");
+        assertThatThrownBy(() -> engine.post(1L, deposit(500)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("indisponible");
+        engine.stop();
+    }
+
+    @Test
+    void leaseNotRenewedForAWhileIsReportedButNotFenced() throws Exception {
+        LedgerEngine engine = engine(store(0), false);
+        engine.start();
+        when(lease.isHeld()).thenReturn(false);
+
+        engine.checkLease();
+
+        assertThat(engine.unavailability()).hasValueSatisfying(reason -> assertThat(reason).contains("non renouvelé"));
+        when(lease.isHeld()).thenReturn(true);
+        assertThat(engine.unavailability()).isEmpty();
+        assertThat(new LedgerEngineHealthIndicator(engine).health().getStatus()).isEqualTo(Status.UP);
+        engine.stop();
+    }
+
+    @Test
+    void fencedJournalIsOnlyReplayedWhenTheOperatorAsksForIt() throws Exception {
+        fencedJournal();
+
+        // another node ran the engine meanwhile and moved the checkpoint past this journal's sequences
+        LedgerEngine refusing = engine(store(40), false);
+        assertThatThrownBy(refusing::start)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("replay-fenced-journal");
+        assertThat(directory.resolve("ledger.journal.fenced")).exists();
+
+        LedgerStore store = store(40);
+        when(store.referenceExists("scheduled:5:2026-10-01")).thenReturn(true);
+        LedgerEngine replaying = engine(store, true);
+        replaying.start();
+        replaying.stop();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<JournalRecord>> replayed = ArgumentCaptor.forClass(List.class);
+        verify(store).persist(replayed.capture(), any());
+        // record 1 was flushed before the takeover, the scheduled transfer was posted again by the other node
+        assertThat(replayed.getValue()).extracting(JournalRecord::sequence).containsExactly(41L);
+        assertThat(replayed.getValue()).extracting(JournalRecord::amount).containsExactly(3_000L);
+        assertThat(directory.resolve("ledger.journal.fenced")).doesNotExist();
+    }
+
+    /** Journal of a node fenced after flushing sequence 1 of 3. */
+    private void fencedJournal() throws Exception {
+        LedgerJournal journal = new LedgerJournal(journalPath, 16, Long.MAX_VALUE, records -> { });
+        journal.start(1);
+        journal.append(record(1_000, null)).get();
+        journal.append(record(3_000, null)).get();
+        journal.append(record(2_000, "scheduled:5:2026-10-01")).get();
+        journal.stop();
+        Files.writeString(directory.resolve("ledger.journal.fenced"), "1");
+    }
+
+    private LedgerEngine engine(LedgerStore store, boolean replayFencedJournal) {
+        return new LedgerEngine(store, leaseService, new SimpleMeterRegistry(), true, 0, 1, journalPath.toString(),
+                16, Long.MAX_VALUE, 10, 100, 2_000, replayFencedJournal);
+    }
+
+    private static LedgerStore store(long checkpoint) {
+        LedgerStore store = mock(LedgerStore.class);
+        when(store.lastFlushedSequence()).thenReturn(checkpoint);
+        when(store.loadAccount(anyLong())).thenReturn(Optional.of(new AccountSnapshot(1, "TN59", "client1", 10_000)));
+        when(store.referenceExists(anyString())).thenReturn(false);
+        when(store.persist(any(), any())).thenAnswer(invocation -> {
+            List<JournalRecord> records = invocation.getArgument(0);
+            return records.get(records.size() - 1).sequence();
+        });
+        return store;
+    }
+
+    private static CreateTransactionRequest deposit(long amount) {
+        CreateTransactionRequest request = new CreateTransactionRequest();
+        request.setType(TransactionType.DEPOSIT);
+        request.setAmount(Money.ofMinor(amount));
+        return request;
+    }
+
+    private static JournalRecord record(long amount, String reference) {
+        return new JournalRecord(0, TransactionType.DEPOSIT, 1, 0, amount, amount, System.currentTimeMillis(),
+                "Dépôt", -1L, reference);
+    }
+}
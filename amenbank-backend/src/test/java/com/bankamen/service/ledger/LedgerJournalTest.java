@@ -0,0 +1,117 @@
+package com.bankamen.service.ledger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.bankamen.entity.TransactionType;
+
+class LedgerJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoveryReplaysEveryDurableRecordInOrder() throws Exception {
+        Path path = directory.resolve("ledger.journal");
+        List<JournalRecord> durable = new ArrayList<>();
+        LedgerJournal journal = new LedgerJournal(path, 16, Long.MAX_VALUE, durable::addAll);
+        journal.start(41);
+        List<CompletableFuture<JournalRecord>> writes = List.of(
+                journal.append(record(TransactionType.DEPOSIT, 1, 0, 5_000, 15_000, null)),
+                journal.append(record(TransactionType.TRANSFER, 1, 2, 2_500, 12_500, "import:9:3").withTargetBalanceAfter(7_500)),
+                journal.append(record(TransactionType.WITHDRAWAL, 2, 0, 500, 7_000, null)));
+        for (CompletableFuture<JournalRecord> write : writes) {
+            write.get(5, TimeUnit.SECONDS);
+        }
+        journal.stop();
+
+        List<JournalRecord> recovered = new LedgerJournal(path, 16, Long.MAX_VALUE, records -> { }).recover();
+
+        assertThat(recovered).containsExactlyElementsOf(durable);
+        assertThat(recovered).extracting(JournalRecord::sequence).containsExactly(41L, 42L, 43L);
+        JournalRecord transfer = recovered.get(1);
+        assertThat(transfer.reference()).isEqualTo("import:9:3");
+        assertThat(transfer.targetBalanceAfter()).isEqualTo(7_500);
+        assertThat(transfer.deltaFor(1)).isEqualTo(-2_500);
+        assertThat(transfer.deltaFor(2)).isEqualTo(2_500);
+        assertThat(recovered.get(0).reference()).isNull();
+    }
+
+    @Test
+    void recoveryCutsATornTail() throws Exception {
+        Path path = directory.resolve("ledger.journal");
+        LedgerJournal journal = new LedgerJournal(path, 16, Long.MAX_VALUE, records -> { });
+        journal.start(1);
+        journal.append(record(TransactionType.DEPOSIT, 1, 0, 1_000, 1_000, null)).get(5, TimeUnit.SECONDS);
+        journal.append(record(TransactionType.DEPOSIT, 1, 0, 2_000, 3_000, null)).get(5, TimeUnit.SECONDS);
+        journal.stop();
+        long intact = Files.size(path);
+        // crash in the middle of the next frame: length written, payload incomplete
+        Files.write(path, new byte[]{0, 0, 0, 80, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<JournalRecord> recovered = new LedgerJournal(path, 16, Long.MAX_VALUE, records -> { }).recover();
+
+        assertThat(recovered).extracting(JournalRecord::balanceAfter).containsExactly(1_000L, 3_000L);
+        assertThat(Files.size(path)).isEqualTo(intact);
+    }
+
+    @Test
+    void recoveryStopsAtACorruptedFrame() throws Exception {
+        Path path = directory.resolve("ledger.journal");
+        LedgerJournal journal = new LedgerJournal(path, 16, Long.MAX_VALUE, records -> { });
+        journal.start(1);
+        journal.append(record(TransactionType.DEPOSIT, 1, 0, 1_000, 1_000, null)).get(5, TimeUnit.SECONDS);
+        long firstFrame = Files.size(path);
+        journal.append(record(TransactionType.DEPOSIT, 1, 0, 2_000, 3_000, null)).get(5, TimeUnit.SECONDS);
+        journal.stop();
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[(int) firstFrame + Integer.BYTES + 10] ^= 0x7F;
+        Files.write(path, bytes);
+
+        List<JournalRecord> recovered = new LedgerJournal(path, 16, Long.MAX_VALUE, records -> { }).recover();
+
+        assertThat(recovered).extracting(JournalRecord::balanceAfter).containsExactly(1_000L);
+        assertThat(Files.size(path)).isEqualTo(firstFrame);
+    }
+
+    @Test
+    void recordsWrittenBeforeTheTargetBalanceAndReferenceDecode() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(7);
+            out.writeByte(TransactionType.TRANSFER.ordinal());
+            out.writeLong(1);
+            out.writeLong(2);
+            out.writeLong(300);
+            out.writeLong(700);
+            out.writeLong(1_700_000_000_000L);
+            out.writeUTF("Virement");
+        }
+
+        JournalRecord decoded = JournalRecord.decode(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(decoded.sequence()).isEqualTo(7);
+        assertThat(decoded.targetBalanceAfter()).isEqualTo(-1);
+        assertThat(decoded.reference()).isNull();
+    }
+
+    private static JournalRecord record(TransactionType type, long accountId, long targetAccountId, long amount,
+                                        long balanceAfter, String reference) {
+        return new JournalRecord(0, type, accountId, targetAccountId, amount, balanceAfter, 1_700_000_000_000L,
+                "test", -1, reference);
+    }
+}
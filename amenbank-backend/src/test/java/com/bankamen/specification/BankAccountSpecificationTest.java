@@ -0,0 +1,93 @@
+package com.bankamen.specification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bankamen.entity.AccountType;
+import com.bankamen.entity.BankAccount;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+@SuppressWarnings("unchecked")
+class BankAccountSpecificationTest {
+
+    private final Root<BankAccount> root = mock(Root.class);
+    private final CriteriaQuery<?> query = mock(CriteriaQuery.class);
+    private final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    private final Path<String> iban = mock(Path.class);
+    private final Path<String> accountNumber = mock(Path.class);
+    private final Path<Object> type = mock(Path.class);
+    private final Path<Object> userId = mock(Path.class);
+
+    @BeforeEach
+    void setUp() {
+        Path<Object> user = mock(Path.class);
+        when(root.<String>get("iban")).thenReturn(iban);
+        when(root.<String>get("accountNumber")).thenReturn(accountNumber);
+        when(root.get("type")).thenReturn(type);
+        when(root.get("user")).thenReturn(user);
+        when(user.get("id")).thenReturn(userId);
+        when(query.getResultType()).thenReturn((Class) BankAccount.class);
+    }
+
+    @Test
+    void ibanAndNumberMatchOnAnEscapedPrefix() {
+        Predicate onIban = predicate(cb.like(iban, "TN59%", '!'));
+        Predicate onNumber = predicate(cb.like(accountNumber, "12!_3%", '!'));
+        Predicate onType = predicate(cb.equal(type, AccountType.CHECKING));
+        Predicate onUser = predicate(cb.equal(userId, 4L));
+
+        BankAccountSpecification.adminSearch("TN59", "12_3", AccountType.CHECKING, 4L).toPredicate(root, query, cb);
+
+        assertThat(combined()).containsExactly(onIban, onNumber, onType, onUser);
+        verify(root).fetch("user", JoinType.LEFT);
+    }
+
+    @Test
+    void emptyFiltersAddNoPredicate() {
+        BankAccountSpecification.adminSearch("", null, null, null).toPredicate(root, query, cb);
+
+        assertThat(combined()).isEmpty();
+        verify(root, never()).get("iban");
+    }
+
+    @Test
+    void countQueryDoesNotFetchTheOwner() {
+        when(query.getResultType()).thenReturn((Class) Long.class);
+
+        BankAccountSpecification.adminSearch(null, null, null, 4L).toPredicate(root, query, cb);
+
+        verify(root, never()).fetch("user", JoinType.LEFT);
+    }
+
+    @Test
+    void likePrefixEscapesWildcardsAndTheEscapeCharacter() {
+        assertThat(BankAccountSpecification.likePrefix("a%b_c!d")).isEqualTo("a!%b!_c!!d%");
+        assertThat(BankAccountSpecification.likePrefix("")).isEqualTo("%");
+    }
+
+    /** Gives the builder call just made a predicate of its own. */
+    private Predicate predicate(Predicate stubbedCall) {
+        Predicate predicate = mock(Predicate.class);
+        when(stubbedCall).thenReturn(predicate);
+        return predicate;
+    }
+
+    private Predicate[] combined() {
+        ArgumentCaptor<Predicate[]> predicates = ArgumentCaptor.forClass(Predicate[].class);
+        verify(cb).and(predicates.capture());
+        return predicates.getValue();
+    }
+}
@@ -0,0 +1,79 @@
+package com.bankamen.specification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bankamen.entity.ScheduledTransfer;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+@SuppressWarnings("unchecked")
+class ScheduledTransferSpecificationTest {
+
+    private final Root<ScheduledTransfer> root = mock(Root.class);
+    private final CriteriaQuery<?> query = mock(CriteriaQuery.class);
+    private final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    private final Path<Object> sourceNumber = mock(Path.class);
+    private final Path<Object> targetNumber = mock(Path.class);
+    private final Path<Object> active = mock(Path.class);
+
+    @BeforeEach
+    void setUp() {
+        Path<Object> source = mock(Path.class);
+        when(root.get("sourceAccount")).thenReturn(source);
+        when(source.get("accountNumber")).thenReturn(sourceNumber);
+        when(root.get("targetAccountNumber")).thenReturn(targetNumber);
+        when(root.get("active")).thenReturn(active);
+        when(query.getResultType()).thenReturn((Class) ScheduledTransfer.class);
+    }
+
+    @Test
+    void everySuppliedFilterBecomesAPredicate() {
+        Predicate onSource = predicate(cb.equal(sourceNumber, "1001"));
+        Predicate onTarget = predicate(cb.equal(targetNumber, "2002"));
+        Predicate onActive = predicate(cb.equal(active, true));
+
+        ScheduledTransferSpecification.adminSearch("1001", "2002", true).toPredicate(root, query, cb);
+
+        assertThat(combined()).containsExactly(onSource, onTarget, onActive);
+        verify(root).fetch("sourceAccount", JoinType.LEFT);
+        verify(root).fetch("targetAccount", JoinType.LEFT);
+    }
+
+    @Test
+    void countQueryOnlyJoinsTheSourceWhenFilteringOnIt() {
+        when(query.getResultType()).thenReturn((Class) Long.class);
+
+        ScheduledTransferSpecification.adminSearch("", null, false).toPredicate(root, query, cb);
+
+        verify(root, never()).fetch("sourceAccount", JoinType.LEFT);
+        verify(root, never()).fetch("targetAccount", JoinType.LEFT);
+        verify(root, never()).get("sourceAccount");
+        assertThat(combined()).hasSize(1);
+    }
+
+    /** Gives the builder call just made a predicate of its own. */
+    private Predicate predicate(Predicate stubbedCall) {
+        Predicate predicate = mock(Predicate.class);
+        when(stubbedCall).thenReturn(predicate);
+        return predicate;
+    }
+
+    private Predicate[] combined() {
+        ArgumentCaptor<Predicate[]> predicates = ArgumentCaptor.forClass(Predicate[].class);
+        verify(cb).and(predicates.capture());
+        return predicates.getValue();
+    }
+}
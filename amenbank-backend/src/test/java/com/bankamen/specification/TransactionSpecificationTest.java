@@ -0,0 +1,101 @@
+package com.bankamen.specification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.bankamen.entity.Money;
+import com.bankamen.entity.Transaction;
+import com.bankamen.entity.TransactionType;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+@SuppressWarnings("unchecked")
+class TransactionSpecificationTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2026, 9, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2026, 9, 30, 23, 59, 59);
+
+    private final Root<Transaction> root = mock(Root.class);
+    private final CriteriaQuery<?> query = mock(CriteriaQuery.class);
+    private final CriteriaBuilder cb = mock(CriteriaBuilder.class);
+    private final Path<Object> accountId = mock(Path.class);
+    private final Path<Object> type = mock(Path.class);
+    private final Path<LocalDateTime> date = mock(Path.class);
+    private final Path<Money> amount = mock(Path.class);
+
+    @BeforeEach
+    void setUp() {
+        Path<Object> account = mock(Path.class);
+        when(root.get("account")).thenReturn(account);
+        when(account.get("id")).thenReturn(accountId);
+        when(root.get("type")).thenReturn(type);
+        when(root.<LocalDateTime>get("date")).thenReturn(date);
+        when(root.<Money>get("amount")).thenReturn(amount);
+        when(query.getResultType()).thenReturn((Class) Transaction.class);
+    }
+
+    @Test
+    void everySuppliedCriterionBecomesAPredicate() {
+        Predicate onAccount = predicate(cb.equal(accountId, 7L));
+        Predicate onType = predicate(cb.equal(type, TransactionType.TRANSFER));
+        Predicate onFrom = predicate(cb.greaterThanOrEqualTo(date, FROM));
+        Predicate onTo = predicate(cb.lessThanOrEqualTo(date, TO));
+        Predicate onMin = predicate(cb.greaterThanOrEqualTo(amount, Money.ofMinor(1_000)));
+        Predicate onMax = predicate(cb.lessThanOrEqualTo(amount, Money.ofMinor(50_000)));
+
+        TransactionSpecification.forAccount(7L, TransactionType.TRANSFER, FROM, TO, Money.ofMinor(1_000), Money.ofMinor(50_000))
+                .toPredicate(root, query, cb);
+
+        assertThat(combined()).containsExactly(onAccount, onType, onFrom, onTo, onMin, onMax);
+        verify(root).fetch("account", JoinType.LEFT);
+    }
+
+    @Test
+    void missingCriteriaAddNoPredicate() {
+        Predicate onAccount = predicate(cb.equal(accountId, 7L));
+        Predicate onFrom = predicate(cb.greaterThanOrEqualTo(date, FROM));
+
+        TransactionSpecification.forAccount(7L, null, FROM, null, null, null).toPredicate(root, query, cb);
+
+        assertThat(combined()).containsExactly(onAccount, onFrom);
+        verify(root, never()).get("type");
+        verify(root, never()).get("amount");
+    }
+
+    @Test
+    void countQueryDoesNotFetchTheAccount() {
+        when(query.getResultType()).thenReturn((Class) Long.class);
+
+        TransactionSpecification.forAccount(7L, null, null, null, null, null).toPredicate(root, query, cb);
+
+        verify(root, never()).fetch("account", JoinType.LEFT);
+    }
+
+    /** Gives the builder call just made a predicate of its own. */
+    private Predicate predicate(Predicate stubbedCall) {
+        Predicate predicate = mock(Predicate.class);
+        when(stubbedCall).thenReturn(predicate);
+        return predicate;
+    }
+
+    private Predicate[] combined() {
+        ArgumentCaptor<Predicate[]> predicates = ArgumentCaptor.forClass(Predicate[].class);
+        verify(cb).and(predicates.capture());
+        return predicates.getValue();
+    }
+}
@@ -36,6 +36,8 @@ export interface Transaction {
   balanceAfter: number;
   type: TransactionType;
   description: string;
+  direction?: 'DEBIT' | 'CREDIT';
+  journalEntryId?: number | null;
   accountId: number;
   accountIban: string;
 }
@@ -61,6 +61,32 @@ export class ClientService {
     return this.http.get<Transaction[]>(`${this.baseUrl}/accounts/${accountId}/transactions`, { params });
   }
 
+  // Cursor-paginated history: pass back nextCursor / prevCursor from the previous page
+  getAccountTransactionPage(
+    accountId: number,
+    cursor?: string | null,
+    size?: number
+  ): Observable<{ items: Transaction[]; nextCursor: string | null; prevCursor: string | null; size: number }> {
+    let params = new HttpParams();
+    if (cursor) params = params.set('cursor', cursor);
+    if (size) params = params.set('size', size.toString());
+
+    return this.http.get<{ items: Transaction[]; nextCursor: string | null; prevCursor: string | null; size: number }>(
+      `${this.baseUrl}/accounts/${accountId}/transactions/page`, { params });
+  }
+
+  createTransactionBatch(
+    accountId: number,
+    operations: CreateTransactionRequest[],
+    mode: 'ALL_OR_NOTHING' | 'BEST_EFFORT' = 'ALL_OR_NOTHING'
+  ): Observable<{ mode: string; committed: boolean; successCount: number; failureCount: number;
+                  items: { index: number; transaction: Transaction | null; error: string | null }[] }> {
+    const params = new HttpParams().set('mode', mode);
+    return this.http.post<{ mode: string; committed: boolean; successCount: number; failureCount: number;
+                            items: { index: number; transaction: Transaction | null; error: string | null }[] }>(
+      `${this.baseUrl}/accounts/${accountId}/transactions/batch`, operations, { params });
+  }
+
   createTransaction(accountId: number, request: CreateTransactionRequest): Observable<Transaction> {
     return this.http.post<Transaction>(`${this.baseUrl}/accounts/${accountId}/transactions`, request)
       .pipe(
@@ -82,12 +108,12 @@ export class ClientService {
     const formData = new FormData();
     formData.append('file', file);
     
-    return this.http.post(`${this.baseUrl}/transactions/import-csv`, formData, { responseType: 'text' })
+    return this.http.post<any>(`${this.baseUrl}/transactions/import-csv`, formData)
       .pipe(
         tap((response) => {
           console.log('CSV Import Response:', response);
         }),
-        map(response => ({ success: true, message: response })),
+        map(report => ({ success: report.failureCount === 0, message: report.message, report })),
         catchError((error: HttpErrorResponse) => {
           console.error('CSV Import Error Details:', error);
           
@@ -1,5 +1,5 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpErrorResponse } from '@angular/common/http';
+import { HttpClient, HttpErrorResponse, HttpParams } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
 import { catchError } from 'rxjs/operators';
 
@@ -26,6 +26,26 @@ export interface User {
   lastLogin?: string;  // ISO string datetime
 }
 
+export interface UserSummary {
+  id: number;
+  username: string;
+  firstName?: string;
+  lastName?: string;
+  email: string;
+  role: Role | string;
+  enabled: boolean;
+  accountNonLocked: boolean;
+  lastLogin?: string;
+  accountCount: number;
+}
+
+export interface UserPage {
+  content: UserSummary[];
+  currentPage: number;
+  totalElements: number;
+  totalPages: number;
+}
+
 @Injectable({
   providedIn: 'root'
 })
@@ -41,6 +61,30 @@ export class UserService {
     );
   }
 
+  getUsersPage(
+    page: number = 0,
+    size: number = 20,
+    sortBy: string = 'id',
+    sortDir: string = 'asc',
+    filters?: { search?: string, role?: string, enabled?: boolean }
+  ): Observable<UserPage> {
+    let params = new HttpParams()
+      .set('page', page.toString())
+      .set('size', size.toString())
+      .set('sortBy', sortBy)
+      .set('sortDir', sortDir);
+
+    if (filters) {
+      if (filters.search) params = params.set('search', filters.search);
+      if (filters.role) params = params.set('role', filters.role);
+      if (filters.enabled !== undefined) params = params.set('enabled', String(filters.enabled));
+    }
+
+    return this.http.get<UserPage>(`${this.baseUrl}/page`, { params }).pipe(
+      catchError(this.handleError)
+    );
+  }
+
   createUser(user: User): Observable<User> {
     return this.http.post<User>(this.baseUrl, user).pipe(
       catchError(this.handleError)
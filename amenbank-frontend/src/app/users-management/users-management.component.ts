@@ -1,7 +1,8 @@
-import { Component, OnInit, OnDestroy } from '@angular/core';
+import { Component, OnInit, OnDestroy, ViewChild } from '@angular/core';
 import { Router } from '@angular/router';
+import { FormsModule } from '@angular/forms';
 
-import { UserService, User } from '../services/user-service.service';
+import { UserService, UserSummary } from '../services/user-service.service';
 import { Subscription } from 'rxjs';
 
 // Angular Material imports:
@@ -10,6 +11,10 @@ import { MatProgressBarModule } from '@angular/material/progress-bar';
 import { MatTableModule } from '@angular/material/table';
 import { MatIconModule } from '@angular/material/icon';
 import { MatTooltipModule } from '@angular/material/tooltip';
+import { MatPaginator, MatPaginatorModule, PageEvent } from '@angular/material/paginator';
+import { MatSortModule, Sort } from '@angular/material/sort';
+import { MatFormFieldModule } from '@angular/material/form-field';
+import { MatInputModule } from '@angular/material/input';
 import { NgIf } from '@angular/common';
 
 
@@ -19,14 +24,25 @@ import { NgIf } from '@angular/common';
   styleUrls: ['./users-management.component.scss'],
   // Add these only if the component is standalone:
    standalone: true,
-   imports: [MatButtonModule, MatProgressBarModule, MatTableModule, MatIconModule, MatTooltipModule,NgIf],
+   imports: [MatButtonModule, MatProgressBarModule, MatTableModule, MatIconModule, MatTooltipModule,NgIf,
+     FormsModule, MatPaginatorModule, MatSortModule, MatFormFieldModule, MatInputModule],
 })
 export class UsersManagementComponent implements OnInit, OnDestroy {
 
-  users: User[] = [];
+  @ViewChild(MatPaginator) paginator!: MatPaginator;
+
+  users: UserSummary[] = [];
   isLoading = false;
   errorMessage = '';
 
+  // Server-side paging: the grid only ever holds one page of users
+  search = '';
+  totalElements = 0;
+  pageSize = 20;
+  currentPage = 0;
+  sortBy = 'username';
+  sortDir = 'asc';
+
   private subscription: Subscription = new Subscription();
 
   constructor(private userService: UserService, private router: Router) {}
@@ -38,9 +54,11 @@ export class UsersManagementComponent implements OnInit, OnDestroy {
   loadUsers(): void {
     this.isLoading = true;
     this.subscription.add(
-      this.userService.getAllUsers().subscribe({
-        next: users => {
-          this.users = users;
+      this.userService.getUsersPage(this.currentPage, this.pageSize, this.sortBy, this.sortDir,
+        { search: this.search.trim() || undefined }).subscribe({
+        next: page => {
+          this.users = page.content;
+          this.totalElements = page.totalElements;
           this.isLoading = false;
         },
         error: err => {
@@ -51,10 +69,30 @@ export class UsersManagementComponent implements OnInit, OnDestroy {
     );
   }
 
-  deleteUser(user: User): void {
+  applySearch(): void {
+    this.currentPage = 0;
+    if (this.paginator) {
+      this.paginator.pageIndex = 0;
+    }
+    this.loadUsers();
+  }
+
+  onPageChange(event: PageEvent): void {
+    this.currentPage = event.pageIndex;
+    this.pageSize = event.pageSize;
+    this.loadUsers();
+  }
+
+  sortData(sort: Sort): void {
+    this.sortBy = sort.direction ? sort.active : 'username';
+    this.sortDir = sort.direction || 'asc';
+    this.loadUsers();
+  }
+
+  deleteUser(user: UserSummary): void {
     if (confirm(`Supprimer l'utilisateur ${user.username} ?`)) {
       this.subscription.add(
-        this.userService.deleteUser(user.id!).subscribe({
+        this.userService.deleteUser(user.id).subscribe({
           next: () => {
             this.loadUsers();
           },
@@ -64,10 +102,10 @@ export class UsersManagementComponent implements OnInit, OnDestroy {
     }
   }
 
-  resetPassword(user: User): void {
+  resetPassword(user: UserSummary): void {
     if (confirm(`Réinitialiser le mot de passe pour ${user.username} ?`)) {
       this.subscription.add(
-        this.userService.resetPassword(user.id!).subscribe({
+        this.userService.resetPassword(user.id).subscribe({
           next: () => alert('Mot de passe réinitialisé avec succès.'),
           error: err => alert('Erreur lors de la réinitialisation: ' + err.message)
         })
@@ -75,7 +113,7 @@ export class UsersManagementComponent implements OnInit, OnDestroy {
     }
   }
 
-  editUser(user: User): void {
+  editUser(user: UserSummary): void {
     this.router.navigate(['/admin/users/edit', user.id]);
   }
 